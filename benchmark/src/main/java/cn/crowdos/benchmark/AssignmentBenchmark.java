@@ -0,0 +1,117 @@
+/*
+ * Copyright 2019-2025 CrowdOS Group, Northwestern Polytechnical University. <https://github.com/crowdosNWPU/CrowdOS>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * imitations under the License.
+ */
+package cn.crowdos.benchmark;
+
+import cn.crowdos.kernel.algorithms.*;
+import cn.crowdos.kernel.constraint.Coordinate;
+import cn.crowdos.kernel.constraint.POIConstraint;
+import cn.crowdos.kernel.resource.Participant;
+import cn.crowdos.kernel.resource.SimpleTask;
+import cn.crowdos.kernel.resource.Task;
+import cn.crowdos.kernel.system.DuplicateResourceNameException;
+import cn.crowdos.kernel.system.SystemResourceCollection;
+import cn.crowdos.kernel.system.resource.ParticipantPool;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Batch assignment through {@link TaskAssignmentAlgo#getAssignmentScheme(ArrayList)} of the four
+ * built-in assignment factories.
+ * <p>
+ * Participants and tasks are scattered uniformly over a square of side {@link #AREA}, and every task
+ * carries a {@link POIConstraint} wide enough for every participant to be a candidate. The inputs
+ * depend only on the parameters, and the randomized algorithms are seeded, so runs can be compared.
+ * <p>
+ * The algorithms give one worker to each task and one task to each worker. The task count is therefore
+ * capped at the participant count, so a combination with more tasks than participants measures the
+ * same input as its capped counterpart.
+ * <p>
+ * The largest combinations are slow for PT_Most, GGA_I and MinCost. Narrow them from the command line, e.g.
+ * {@code java -jar benchmark/target/benchmarks.jar -p algorithm=T_Most -p participantNum=50000}.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class AssignmentBenchmark {
+
+    //Side of the square participants and tasks are placed in
+    static final double AREA = 1.0;
+
+    static final long SEED = 20240101L;
+
+    @Param({"T_Most", "T_Random", "PT_Most", "GGA_I", "MinCost"})
+    public String algorithm;
+
+    @Param({"100", "1000", "10000", "50000"})
+    public int participantNum;
+
+    @Param({"100", "1000"})
+    public int taskNum;
+
+    private TaskAssignmentAlgo assignmentAlgo;
+
+    private ArrayList<Task> tasks;
+
+    @Setup(Level.Trial)
+    public void setUp() throws DuplicateResourceNameException {
+        Random random = new Random(SEED);
+
+        SystemResourceCollection resourceCollection = new SystemResourceCollection();
+        ParticipantPool participantPool = new ParticipantPool();
+        resourceCollection.register(participantPool);
+        for (int i = 0; i < participantNum; i++) {
+            participantPool.add(new BenchmarkParticipant(random.nextDouble() * AREA, random.nextDouble() * AREA));
+        }
+
+        tasks = new ArrayList<>();
+        for (int i = 0; i < Math.min(taskNum, participantNum); i++) {
+            Coordinate location = new Coordinate(random.nextDouble() * AREA, random.nextDouble() * AREA);
+            tasks.add(new SimpleTask(Collections.singletonList(new POIConstraint(location, 2 * AREA)),
+                    Task.TaskDistributionType.ASSIGNMENT));
+        }
+
+        assignmentAlgo = createFactory(algorithm, resourceCollection).getTaskAssignmentAlgo();
+    }
+
+    @Benchmark
+    public List<List<Participant>> assignBatch() {
+        return assignmentAlgo.getAssignmentScheme(tasks);
+    }
+
+    static AlgoFactory createFactory(String algorithm, SystemResourceCollection resourceCollection) {
+        switch (algorithm) {
+            case "T_Most":
+                return new T_MostFactory(resourceCollection);
+            case "T_Random":
+                return new T_RandomFactory(resourceCollection, SEED);
+            case "PT_Most":
+                return new PTMostFactory(resourceCollection, SEED);
+            case "GGA_I":
+                return new GGA_IFactory(resourceCollection, SEED);
+            case "MinCost":
+                return new MinCostFactory(resourceCollection);
+            default:
+                throw new IllegalArgumentException("unknown algorithm: " + algorithm);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2019-2025 CrowdOS Group, Northwestern Polytechnical University. <https://github.com/crowdosNWPU/CrowdOS>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * imitations under the License.
+ */
+package cn.crowdos.kernel;
+
+import cn.crowdos.kernel.resource.Participant;
+import cn.crowdos.kernel.resource.Task;
+import cn.crowdos.kernel.system.SystemResourceCollection;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The facade {@link Kernel#getKernel()} returns. Every method except {@code initial} and
+ * {@code isInitialed} throws {@link UninitializedKernelException} until the kernel is initialized,
+ * and otherwise calls the kernel directly.
+ *
+ * @since 1.0.4
+ */
+final class CheckedKernel implements CrowdKernel {
+
+    private final Kernel kernel;
+
+    CheckedKernel(Kernel kernel) {
+        this.kernel = kernel;
+    }
+
+    private Kernel initialized() {
+        if (!kernel.isInitialed()) throw new UninitializedKernelException();
+        return kernel;
+    }
+
+    @Override
+    public boolean isInitialed() {
+        return kernel.isInitialed();
+    }
+
+    @Override
+    public void initial(Object... args) {
+        kernel.initial(args);
+    }
+
+    @Override
+    public void algoSelect(String name) {
+        initialized().algoSelect(name);
+    }
+
+    @Override
+    public void initial() {
+        kernel.initial();
+    }
+
+    @Override
+    public SystemResourceCollection getSystemResourceCollection() {
+        return initialized().getSystemResourceCollection();
+    }
+
+    @Override
+    public boolean submitTask(Task task) {
+        return initialized().submitTask(task);
+    }
+
+    @Override
+    public boolean registerParticipant(Participant participant) {
+        return initialized().registerParticipant(participant);
+    }
+
+    @Override
+    public List<Task> getTasks() {
+        return initialized().getTasks();
+    }
+
+    @Override
+    public List<Participant> getTaskAssignmentScheme(Task task) {
+        return initialized().getTaskAssignmentScheme(task);
+    }
+
+    @Override
+    public Map<Participant, Double> getTaskIncentiveAssignmentScheme(Task task, Double rewards) {
+        return initialized().getTaskIncentiveAssignmentScheme(task, rewards);
+    }
+
+    @Override
+    public List<List<Participant>> getTaskAssignmentScheme(ArrayList<Task> tasks) {
+        return initialized().getTaskAssignmentScheme(tasks);
+    }
+
+    @Override
+    public List<Participant> getTaskRecommendationScheme(Task task) {
+        return initialized().getTaskRecommendationScheme(task);
+    }
+
+    @Override
+    public List<List<Participant>> getTaskRecommendationScheme(ArrayList<Task> tasks) {
+        return initialized().getTaskRecommendationScheme(tasks);
+    }
+
+    @Override
+    public List<Participant> getTaskParticipantSelectionResult(Task task) {
+        return initialized().getTaskParticipantSelectionResult(task);
+    }
+
+    @Override
+    public List<List<Participant>> getTaskParticipantSelectionResult(ArrayList<Task> tasks) {
+        return initialized().getTaskParticipantSelectionResult(tasks);
+    }
+
+    @Override
+    public List<Participant> getParticipants() {
+        return initialized().getParticipants();
+    }
+
+    @Override
+    public InterruptManager getInterruptManager() {
+        return initialized().getInterruptManager();
+    }
+
+    @Override
+    public void close() {
+        kernel.close();
+    }
+}
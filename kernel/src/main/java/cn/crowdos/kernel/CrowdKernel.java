@@ -27,7 +27,7 @@ import java.util.Map;
  * CrowdOS kernel provide three core frameworks including Task Resolution and
  * Assignment Framework (TRAF), Integrated Resource Management (IRM), and Task Result quality Optimization (TRO).
  */
-public interface CrowdKernel {
+public interface CrowdKernel extends AutoCloseable {
     // CrowdKernel APIs
 
     /**
@@ -44,7 +44,7 @@ public interface CrowdKernel {
     void initial(Object...args);
 
 
-    //The system provides PTMost, T_Most, T_Random and GGA_I algorithms by default. If necessary, you can choose them by yourself
+    //The system provides PTMost, T_Most, T_Random, GGA_I and MinCost algorithms by default. If necessary, you can choose them by yourself
     void algoSelect(String name);
 
     /**
@@ -114,4 +114,12 @@ public interface CrowdKernel {
     List<Participant> getParticipants();
 
     InterruptManager getInterruptManager();
+
+    /**
+     * Stops the threads of the kernel. Calling {@link #initial()} again starts new ones.
+     *
+     * @since 1.0.4
+     */
+    @Override
+    void close();
 }
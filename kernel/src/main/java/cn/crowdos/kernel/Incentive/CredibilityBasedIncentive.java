@@ -16,6 +16,7 @@ package cn.crowdos.kernel.Incentive;
 
 import cn.crowdos.kernel.resource.Participant;
 import cn.crowdos.kernel.resource.Task;
+import cn.crowdos.kernel.system.ResourceKey;
 import cn.crowdos.kernel.system.resource.Resource;
 import java.util.List;
 import java.util.Map;
@@ -43,6 +44,12 @@ import java.util.Map;
  */
 public interface CredibilityBasedIncentive extends Resource<CredibilityBasedIncentive> {
 
+    /**
+     * The key implementations are registered under, so that they are found by this interface.
+     *
+     * @since 1.0.4
+     */
+    ResourceKey<CredibilityBasedIncentive> KEY = ResourceKey.of(CredibilityBasedIncentive.class);
 
     Map<Participant, Double> IncentiveAssignment();
 
@@ -1,60 +1,362 @@
-/*
- * Copyright 2019-2025 CrowdOS Group, Northwestern Polytechnical University. <https://github.com/crowdosNWPU/CrowdOS>
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- *   https://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * imitations under the License.
- */
-package cn.crowdos.kernel;
-
-import java.util.HashMap;
-import java.util.Map;
-
-/**
- * InterruptManager Interrupt requests for managing tasks
- */
-public class InterruptManager {
-    private Map<String, Boolean> interruptFlags;
-
-    /**
-     * Constructor to initialize the HashMap of the interrupt flag.
-     */
-    public InterruptManager() {
-        interruptFlags = new HashMap<>();
-    }
-
-    /**
-     * Request to interrupt a specific task, and set the interrupt flag corresponding to the task ID to true.
-     *
-     * @param taskId taskID
-     */
-    public void requestInterrupt(String taskId) {
-        interruptFlags.put(taskId, true);
-    }
-
-    /**
-     * Checks if a particular task was interrupted and returns false if the task ID does not exist.
-     *
-     * @param taskId taskID
-     * @return If the task was interrupted, true is returned. Otherwise, false is returned.
-     */
-    public boolean isInterrupted(String taskId) {
-        return interruptFlags.getOrDefault(taskId, false);
-    }
-
-    /**
-     * Clears the interrupt flag for a specific task.
-     *
-     * @param taskId taskID
-     */
-    public void clearInterrupt(String taskId) {
-        interruptFlags.remove(taskId);
-    }
-}
+/*
+ * Copyright 2019-2025 CrowdOS Group, Northwestern Polytechnical University. <https://github.com/crowdosNWPU/CrowdOS>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * imitations under the License.
+ */
+package cn.crowdos.kernel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongConsumer;
+import java.util.function.LongPredicate;
+
+/**
+ * InterruptManager Interrupt requests for managing tasks
+ *
+ * <p>Every task id has at most one {@link Flag}, which an executing task fetches once with
+ * {@link #getFlag(long)} and then polls with a single volatile read. The flags are kept in an
+ * open-addressing table whose lookups never lock, so {@link #isInterrupted(long)} neither blocks
+ * nor allocates; only adding and clearing task ids lock, raising flags does not.
+ * Listeners are told about every task that gets interrupted.</p>
+ */
+public class InterruptManager {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * The interrupt flag of one task. It stays valid while the task is registered; once
+     * {@link #clearInterrupt(long) cleared} the task id gets a new flag.
+     *
+     * @since 1.0.4
+     */
+    public static final class Flag {
+
+        private static final AtomicIntegerFieldUpdater<Flag> RAISED =
+                AtomicIntegerFieldUpdater.newUpdater(Flag.class, "raised");
+
+        private final long taskId;
+
+        private volatile int raised;
+
+        private Flag(long taskId) {
+            this.taskId = taskId;
+        }
+
+        public long getTaskId() {
+            return taskId;
+        }
+
+        /**
+         * @return true if the task was interrupted.
+         */
+        public boolean isRaised() {
+            return raised != 0;
+        }
+    }
+
+    /**
+     * Linear probing table, keys are written after their flags so a reader that finds a key
+     * also finds its flag. A removed key keeps its slot with a null flag until the next resize.
+     */
+    private static final class Table {
+
+        final AtomicLongArray keys;
+
+        final AtomicReferenceArray<Flag> flags;
+
+        final int mask;
+
+        Table(int capacity) {
+            keys = new AtomicLongArray(capacity);
+            flags = new AtomicReferenceArray<>(capacity);
+            mask = capacity - 1;
+            for (int i = 0; i < capacity; i++) {
+                keys.set(i, EMPTY);
+            }
+        }
+
+        int slot(long taskId) {
+            long hash = taskId * 0x9E3779B97F4A7C15L;
+            int index = (int) (hash ^ (hash >>> 32)) & mask;
+            while (true) {
+                long key = keys.get(index);
+                if (key == taskId || key == EMPTY) return index;
+                index = (index + 1) & mask;
+            }
+        }
+    }
+
+    private volatile Table table = new Table(INITIAL_CAPACITY);
+    // Slots with a key, and those of them with a flag, guarded by this.
+    private int usedSlots;
+    private int size;
+
+    private final List<LongConsumer> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Constructor to initialize the table of interrupt flags.
+     */
+    public InterruptManager() {
+    }
+
+    private static void checkId(long taskId) {
+        if (taskId == EMPTY) throw new IllegalArgumentException("unsupported task id: " + taskId);
+    }
+
+    private Flag lookup(long taskId) {
+        Table current = table;
+        int slot = current.slot(taskId);
+        return current.keys.get(slot) == taskId ? current.flags.get(slot) : null;
+    }
+
+    /**
+     * Returns the flag of a task without adding one.
+     *
+     * @param taskId taskID
+     * @return the flag of the task, or null if the task is not registered.
+     * @since 1.0.4
+     */
+    public Flag getFlag(long taskId) {
+        return lookup(taskId);
+    }
+
+    /**
+     * Returns the flag of a task, adding it if the task has none.
+     *
+     * @param taskId taskID
+     * @return the flag an executing task polls.
+     * @since 1.0.4
+     */
+    public Flag register(long taskId) {
+        checkId(taskId);
+        Flag flag = lookup(taskId);
+        if (flag != null) return flag;
+        synchronized (this) {
+            Table current = table;
+            int slot = current.slot(taskId);
+            if (current.keys.get(slot) == taskId) {
+                flag = current.flags.get(slot);
+                if (flag != null) return flag;
+            } else if (2 * (usedSlots + 1) > current.keys.length()) {
+                current = resize();
+                slot = current.slot(taskId);
+            }
+            flag = new Flag(taskId);
+            current.flags.set(slot, flag);
+            if (current.keys.get(slot) != taskId) {
+                current.keys.set(slot, taskId);
+                usedSlots++;
+            }
+            size++;
+            return flag;
+        }
+    }
+
+    /**
+     * Copies the flags into a table twice as large as needed, dropping removed keys.
+     * Readers still on the old table see the same flag objects.
+     */
+    private Table resize() {
+        Table old = table;
+        int capacity = INITIAL_CAPACITY;
+        while (capacity < 4 * (size + 1)) capacity <<= 1;
+        Table resized = new Table(capacity);
+        int used = 0;
+        for (int i = 0; i < old.keys.length(); i++) {
+            Flag flag = old.flags.get(i);
+            if (flag == null) continue;
+            int slot = resized.slot(flag.taskId);
+            resized.flags.set(slot, flag);
+            resized.keys.set(slot, flag.taskId);
+            used++;
+        }
+        usedSlots = used;
+        table = resized;
+        return resized;
+    }
+
+    /**
+     * Request to interrupt a specific task, and raise the flag of the task. A task that is not
+     * registered yet is added with a raised flag, so it stops as soon as it starts.
+     *
+     * @param taskId taskID
+     * @return true if the task was not interrupted before.
+     * @since 1.0.4
+     */
+    public boolean requestInterrupt(long taskId) {
+        return raise(register(taskId));
+    }
+
+    /**
+     * Raises a flag fetched before, if it still belongs to its task. Once the task was
+     * {@link #clearInterrupt(long) cleared} the flag is left alone, so a later registration of
+     * the same task id is never interrupted by a stale request.
+     *
+     * @param flag a flag returned by {@link #register(long)} or {@link #getFlag(long)}.
+     * @return true if the flag is still registered and was not raised before.
+     * @since 1.0.4
+     */
+    public boolean requestInterrupt(Flag flag) {
+        return lookup(flag.taskId) == flag && raise(flag);
+    }
+
+    private boolean raise(Flag flag) {
+        if (flag.raised != 0 || !Flag.RAISED.compareAndSet(flag, 0, 1)) return false;
+        for (LongConsumer listener : listeners) {
+            listener.accept(flag.taskId);
+        }
+        return true;
+    }
+
+    /**
+     * Interrupts a batch of tasks.
+     *
+     * @param taskIds the ids of the tasks.
+     * @return the number of tasks that were not interrupted before.
+     * @since 1.0.4
+     */
+    public int requestInterrupt(long... taskIds) {
+        int interrupted = 0;
+        for (long taskId : taskIds) {
+            if (requestInterrupt(taskId)) interrupted++;
+        }
+        return interrupted;
+    }
+
+    /**
+     * Interrupts every registered task whose id matches the predicate.
+     *
+     * @param predicate tests the task ids.
+     * @return the number of tasks that were not interrupted before.
+     * @since 1.0.4
+     */
+    public int requestInterruptIf(LongPredicate predicate) {
+        Objects.requireNonNull(predicate);
+        int interrupted = 0;
+        for (long taskId : registeredTaskIds()) {
+            if (predicate.test(taskId) && requestInterrupt(taskId)) interrupted++;
+        }
+        return interrupted;
+    }
+
+    /**
+     * Checks if a particular task was interrupted and returns false if the task ID does not exist.
+     * Never blocks and never allocates.
+     *
+     * @param taskId taskID
+     * @return If the task was interrupted, true is returned. Otherwise, false is returned.
+     * @since 1.0.4
+     */
+    public boolean isInterrupted(long taskId) {
+        Flag flag = lookup(taskId);
+        return flag != null && flag.raised != 0;
+    }
+
+    /**
+     * Clears the interrupt flag for a specific task and forgets the task. A task still holding
+     * the flag sees it lowered.
+     *
+     * @param taskId taskID
+     * @since 1.0.4
+     */
+    public void clearInterrupt(long taskId) {
+        if (lookup(taskId) == null) return;
+        synchronized (this) {
+            Table current = table;
+            int slot = current.slot(taskId);
+            if (current.keys.get(slot) != taskId) return;
+            Flag flag = current.flags.getAndSet(slot, null);
+            if (flag == null) return;
+            flag.raised = 0;
+            size--;
+        }
+    }
+
+    /**
+     * @return the ids of the registered tasks.
+     * @since 1.0.4
+     */
+    public long[] registeredTaskIds() {
+        Table current = table;
+        List<Flag> flags = new ArrayList<>();
+        for (int i = 0; i < current.keys.length(); i++) {
+            Flag flag = current.flags.get(i);
+            if (flag != null) flags.add(flag);
+        }
+        long[] taskIds = new long[flags.size()];
+        for (int i = 0; i < taskIds.length; i++) {
+            taskIds[i] = flags.get(i).taskId;
+        }
+        return taskIds;
+    }
+
+    /**
+     * Adds a listener called with the id of every task that gets interrupted, in the thread
+     * that requested the interrupt.
+     *
+     * @param listener the listener.
+     * @since 1.0.4
+     */
+    public void addListener(LongConsumer listener) {
+        listeners.add(Objects.requireNonNull(listener));
+    }
+
+    /**
+     * @param listener a listener added before.
+     * @return true if it was added.
+     * @since 1.0.4
+     */
+    public boolean removeListener(LongConsumer listener) {
+        return listeners.remove(listener);
+    }
+
+    /**
+     * Request to interrupt a specific task, and set the interrupt flag corresponding to the task ID to true.
+     *
+     * @param taskId taskID, a decimal long
+     * @deprecated use {@link #requestInterrupt(long)}
+     */
+    @Deprecated
+    public void requestInterrupt(String taskId) {
+        requestInterrupt(Long.parseLong(taskId));
+    }
+
+    /**
+     * Checks if a particular task was interrupted and returns false if the task ID does not exist.
+     *
+     * @param taskId taskID, a decimal long
+     * @return If the task was interrupted, true is returned. Otherwise, false is returned.
+     * @deprecated use {@link #isInterrupted(long)}
+     */
+    @Deprecated
+    public boolean isInterrupted(String taskId) {
+        return isInterrupted(Long.parseLong(taskId));
+    }
+
+    /**
+     * Clears the interrupt flag for a specific task.
+     *
+     * @param taskId taskID, a decimal long
+     * @deprecated use {@link #clearInterrupt(long)}
+     */
+    @Deprecated
+    public void clearInterrupt(String taskId) {
+        clearInterrupt(Long.parseLong(taskId));
+    }
+}
@@ -17,7 +17,9 @@ package cn.crowdos.kernel;
 import cn.crowdos.kernel.Incentive.CredibilityBasedIncentive;
 import cn.crowdos.kernel.Incentive.CredibilityBasedIncentiveImpl;
 import cn.crowdos.kernel.algorithms.*;
+import cn.crowdos.kernel.resource.AbstractTask;
 import cn.crowdos.kernel.resource.Participant;
+import cn.crowdos.kernel.resource.TaskIdGenerator;
 import cn.crowdos.kernel.sensor.SensorData;
 import cn.crowdos.kernel.sensor.SensorManager;
 import cn.crowdos.kernel.system.DuplicateResourceNameException;
@@ -25,55 +27,74 @@ import cn.crowdos.kernel.system.SystemResourceCollection;
 import cn.crowdos.kernel.system.resource.*;
 import cn.crowdos.kernel.resource.Task;
 
-import java.lang.reflect.InvocationHandler;
-import java.lang.reflect.Method;
-import java.lang.reflect.Proxy;
 import java.util.*;
+import java.util.concurrent.Executor;
 
+/**
+ * The CrowdOS kernel. {@link #getKernel()} returns the default kernel of the JVM,
+ * {@link #builder()} builds further kernels that share nothing with it or with each other: each
+ * has its own resources, task ids, interrupt manager and threads, e.g. one kernel per city.
+ */
 public class Kernel implements CrowdKernel {
 
-    private boolean initialed = false;
-    private static CrowdKernel kernel;
-    private InterruptManager interruptManager = new InterruptManager();
+    private volatile boolean initialed = false;
+    private static volatile CrowdKernel kernel;
+    private final InterruptManager interruptManager;
+    private final TaskIdGenerator taskIdGenerator;
+    // The executor of the scheduler, null for its default
+    private final Executor executor;
+    private final int batchSize;
+    private final int runtimeThreads;
+    private final int runtimeQueueCapacity;
     private SensorManager sensorManager;
 
 
     private SystemResourceCollection systemResourceCollection;
+    // The resources the kernel methods use, resolved once by initial
+    private TaskPool taskPool;
+    private ParticipantPool participantPool;
+    private Scheduler scheduler;
+    private MissionHistory missionHistory;
+    private CredibilityBasedIncentive incentive;
+    private OnlineScheduler onlineScheduler;
+    private TaskRuntime taskRuntime;
+
+    // The default kernel takes the ids of tasks created without a generator
+    private Kernel(){
+        this(new Builder().taskIdGenerator(TaskIdGenerator.DEFAULT));
+    }
 
-    private Kernel(){}
+    private Kernel(Builder builder){
+        this.interruptManager = builder.interruptManager != null ? builder.interruptManager : new InterruptManager();
+        this.taskIdGenerator = builder.taskIdGenerator != null ? builder.taskIdGenerator : new TaskIdGenerator();
+        this.executor = builder.executor;
+        this.batchSize = builder.batchSize;
+        this.runtimeThreads = builder.runtimeThreads;
+        this.runtimeQueueCapacity = builder.runtimeQueueCapacity;
+    }
+
+    /**
+     * Returns a builder of a kernel independent of the default one.
+     *
+     * @return a builder with the default settings.
+     * @since 1.0.4
+     */
+    public static Builder builder(){
+        return new Builder();
+    }
 
     /**
      *  If the kernel is not initialized, throw an exception when calling any method except `initial` and `isInitialed`
      *
-     * @return A proxy object that wraps the kernel object.
+     * @return A facade that checks the initialization and calls the kernel directly.
      */
     public static CrowdKernel getKernel(){
-        if (kernel != null) return kernel;
-        Kernel crowdKernel = new Kernel();
-        kernel = (CrowdKernel) Proxy.newProxyInstance(
-                crowdKernel.getClass().getClassLoader(),
-                crowdKernel.getClass().getInterfaces(),
-                new InvocationHandler() {
-                    final Set<String> checkedMethod;
-                    {
-                        checkedMethod = new HashSet<>();
-                        Class<CrowdKernel> crowdKernelClass = CrowdKernel.class;
-                        for (Method method : crowdKernelClass.getMethods()) {
-                            String name = method.getName();
-                            if (!name.equals("initial") && !name.equals("isInitialed")) {
-                                checkedMethod.add(name);
-                            }
-                        }
-                    }
-                    @Override
-                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
-                        if (checkedMethod.contains(method.getName()) && !crowdKernel.isInitialed())
-                            throw new UninitializedKernelException();
-                        return method.invoke(crowdKernel, args);
-                    }
-                }
-        );
-        return kernel;
+        CrowdKernel current = kernel;
+        if (current != null) return current;
+        synchronized (Kernel.class) {
+            if (kernel == null) kernel = new CheckedKernel(new Kernel());
+            return kernel;
+        }
     }
     /**
      * This function returns the version of the CrowdOS CrowdKernel.
@@ -85,10 +106,15 @@ public class Kernel implements CrowdKernel {
     }
 
     /**
-     *  The shutdown function sets the kernel to null
+     *  The shutdown function closes the default kernel and sets it to null
      */
     public static void shutdown() {
-        kernel = null;
+        CrowdKernel current;
+        synchronized (Kernel.class) {
+            current = kernel;
+            kernel = null;
+        }
+        if (current != null) current.close();
     }
 
 
@@ -100,6 +126,8 @@ public class Kernel implements CrowdKernel {
     }
     @Override
     public void initial(Object...args){
+        // The threads of a previous initialization would otherwise keep running
+        close();
         systemResourceCollection = new SystemResourceCollection();
         try {
             systemResourceCollection.register(new TaskPool());
@@ -107,23 +135,35 @@ public class Kernel implements CrowdKernel {
             systemResourceCollection.register(new AlgoContainer(new AlgoFactoryAdapter(systemResourceCollection)),"DefaultAlgo");
             systemResourceCollection.register(new Scheduler(systemResourceCollection));
             systemResourceCollection.register(new MissionHistory());
-            systemResourceCollection.register(new CredibilityBasedIncentiveImpl());
+            onlineScheduler = new OnlineScheduler(systemResourceCollection);
+            systemResourceCollection.register(onlineScheduler);
+            taskRuntime = new TaskRuntime(interruptManager, runtimeThreads, runtimeQueueCapacity);
+            systemResourceCollection.register(taskRuntime);
+            systemResourceCollection.register(CredibilityBasedIncentive.KEY, new CredibilityBasedIncentiveImpl());
             systemResourceCollection.register(new AlgoContainer(new PTMostFactory(systemResourceCollection)),"PTMost");
             systemResourceCollection.register(new AlgoContainer(new T_MostFactory(systemResourceCollection)),"T_Most");
             systemResourceCollection.register(new AlgoContainer(new T_RandomFactory(systemResourceCollection)),"T_Random");
             systemResourceCollection.register(new AlgoContainer(new GGA_IFactory(systemResourceCollection)),"GGA_I");
+            systemResourceCollection.register(new AlgoContainer(new MinCostFactory(systemResourceCollection)),"MinCost");
         } catch (DuplicateResourceNameException e) {
             throw new RuntimeException(e);
         }
+        taskPool = systemResourceCollection.getResourceHandler(TaskPool.KEY).getResource();
+        participantPool = systemResourceCollection.getResourceHandler(ParticipantPool.KEY).getResource();
+        scheduler = systemResourceCollection.getResourceHandler(Scheduler.KEY).getResource();
+        missionHistory = systemResourceCollection.getResourceHandler(MissionHistory.KEY).getResource();
+        incentive = systemResourceCollection.getResourceHandler(CredibilityBasedIncentive.KEY).getResource();
+        if (executor != null) scheduler.setExecutor(executor);
+        scheduler.setBatchSize(batchSize);
         initialed = true;
     }
 
 
-    //The system provides PTMost, T_Most, T_Random and GGA_I algorithms by default. If necessary, you can choose them by yourself
+    //The system provides PTMost, T_Most, T_Random, GGA_I and MinCost algorithms by default. If necessary, you can choose them by yourself
 
     /**
      * The algoSelect function is used to select the algorithm that will be used by the scheduler.
-     * The system provides PTMost, T_Most, T_Random and GGA_I algorithms by default.If you need, you can choose them by yourself.
+     * The system provides PTMost, T_Most, T_Random, GGA_I and MinCost algorithms by default.If you need, you can choose them by yourself.
      * If you don't need to select algorithm, the system will provide default algorithm "DefaultAlgo".
      * If you provide new algorithm, please add the algorithm selection to this function.
      *
@@ -132,22 +172,24 @@ public class Kernel implements CrowdKernel {
      */
     @Override
     public void algoSelect(String name){
-        Scheduler resource = systemResourceCollection.getResourceHandler(Scheduler.class).getResource();
         switch (name) {
             case "PTMost":
-                resource.setAlgoFactory("PTMost");
+                scheduler.setAlgoFactory("PTMost");
                 break;
             case "T_Most":
-                resource.setAlgoFactory("T_Most");
+                scheduler.setAlgoFactory("T_Most");
                 break;
             case "T_Random":
-                resource.setAlgoFactory("T_Random");
+                scheduler.setAlgoFactory("T_Random");
                 break;
             case "GGA_I":
-                resource.setAlgoFactory("GGA_I");
+                scheduler.setAlgoFactory("GGA_I");
+                break;
+            case "MinCost":
+                scheduler.setAlgoFactory("MinCost");
                 break;
             default:
-                throw new IllegalArgumentException("The system does not have the method.Please choose method from 'PTMost','T_Most','T_Random','GGA_I'");
+                throw new IllegalArgumentException("The system does not have the method.Please choose method from 'PTMost','T_Most','T_Random','GGA_I','MinCost'");
         }
     }
 
@@ -160,42 +202,50 @@ public class Kernel implements CrowdKernel {
     public SystemResourceCollection getSystemResourceCollection() {
         return systemResourceCollection;
     }
+    /**
+     * Adds a task to the task pool of this kernel.
+     *
+     * @param task the task, an {@link AbstractTask} must take its id from {@link #getTaskIdGenerator()}.
+     * @return false if a task with the same id was submitted before.
+     * @throws IllegalArgumentException if the id of the task was taken from another generator.
+     */
     @Override
     public boolean submitTask(Task task){
-        TaskPool resource = systemResourceCollection.getResourceHandler(TaskPool.class).getResource();
-        resource.add(task);
-        return true;
+        if (task instanceof AbstractTask) {
+            AbstractTask abstractTask = (AbstractTask) task;
+            // The task pool is keyed by id, ids of another generator would collide with ours
+            if (abstractTask.getTaskIdGenerator() != taskIdGenerator) {
+                throw new IllegalArgumentException("task " + abstractTask.getTaskId()
+                        + " does not take its id from the generator of this kernel");
+            }
+            //Submitted tasks receive the interrupts of this kernel unless they have their own manager
+            if (abstractTask.getInterruptManager() == null) abstractTask.setInterruptManager(interruptManager);
+        }
+        return taskPool.add(task);
     }
     @Override
     public boolean registerParticipant(Participant participant) {
-        ParticipantPool resource = systemResourceCollection.getResourceHandler(ParticipantPool.class).getResource();
-        resource.add(participant);
-        return true;
+        return participantPool.add(participant);
     }
 
     @Override
     public List<Task> getTasks(){
-        TaskPool resource = systemResourceCollection.getResourceHandler(TaskPool.class).getResource();
-        return new ArrayList<>(resource);
+        return new ArrayList<>(taskPool.snapshot());
     }
     @Override
     public List<Participant> getTaskAssignmentScheme(Task task){
-        Scheduler resource = systemResourceCollection.getResourceHandler(Scheduler.class).getResource();
-        return resource.taskAssignment(task);
+        return scheduler.taskAssignment(task);
     }
     @Override
     public Map<Participant, Double> getTaskIncentiveAssignmentScheme(Task task , Double rewards){
 
-        MissionHistory resource = systemResourceCollection.getResourceHandler(MissionHistory.class).getResource();
-        CredibilityBasedIncentive credibility =  systemResourceCollection.getResourceHandler(CredibilityBasedIncentive.class).getResource();
-
-        List<Mission> missions = resource.getMissionsByTask(task);
+        List<Mission> missions = missionHistory.getMissionsByTask(task);
         Mission firstMission = missions.get(0);
         Participant firstSubmitParticipant = firstMission.getFirstSubmitParticipant();
         List<Participant> participants = firstMission.getParticipants();
 
-        credibility.allocateRewards(rewards,task,firstSubmitParticipant,participants);
-        return credibility.IncentiveAssignment();
+        incentive.allocateRewards(rewards,task,firstSubmitParticipant,participants);
+        return incentive.IncentiveAssignment();
     }
 
     /**
@@ -207,14 +257,12 @@ public class Kernel implements CrowdKernel {
      */
     @Override
     public List<List<Participant>> getTaskAssignmentScheme(ArrayList<Task> tasks){
-        Scheduler resource = systemResourceCollection.getResourceHandler(Scheduler.class).getResource();
-        return resource.taskAssignment(tasks);
+        return scheduler.taskAssignment(tasks);
     }
 
     @Override
     public List<Participant> getTaskRecommendationScheme(Task task){
-        Scheduler resource = systemResourceCollection.getResourceHandler(Scheduler.class).getResource();
-        return resource.taskRecommendation(task);
+        return scheduler.taskRecommendation(task);
     }
     /**
      * The etTaskRecommendationScheme function is used to assign tasks to participants.
@@ -227,13 +275,11 @@ public class Kernel implements CrowdKernel {
      */
     @Override
     public List<List<Participant>> getTaskRecommendationScheme(ArrayList<Task> tasks){
-        Scheduler resource = systemResourceCollection.getResourceHandler(Scheduler.class).getResource();
-        return resource.taskRecommendation(tasks);
+        return scheduler.taskRecommendation(tasks);
     }
     @Override
     public List<Participant> getTaskParticipantSelectionResult(Task task){
-        Scheduler resource = systemResourceCollection.getResourceHandler(Scheduler.class).getResource();
-        return resource.participantSelection(task);
+        return scheduler.participantSelection(task);
     }
     /**
      * The getTaskParticipantSelectionResult function is used to assign tasks to participants.
@@ -246,13 +292,11 @@ public class Kernel implements CrowdKernel {
      */
     @Override
     public List<List<Participant>> getTaskParticipantSelectionResult(ArrayList<Task> tasks){
-        Scheduler resource = systemResourceCollection.getResourceHandler(Scheduler.class).getResource();
-        return resource.participantSelection(tasks);
+        return scheduler.participantSelection(tasks);
     }
     @Override
     public List<Participant> getParticipants(){
-        ParticipantPool resource = systemResourceCollection.getResourceHandler(ParticipantPool.class).getResource();
-        return new ArrayList<>(resource);
+        return new ArrayList<>(participantPool.snapshot());
     }
 
     @Override
@@ -265,6 +309,28 @@ public class Kernel implements CrowdKernel {
         return interruptManager;
     }
 
+    /**
+     * Returns the generator the tasks submitted to this kernel should take their ids from.
+     *
+     * @return the task id generator of this kernel.
+     * @since 1.0.4
+     */
+    public TaskIdGenerator getTaskIdGenerator(){
+        return taskIdGenerator;
+    }
+
+    /**
+     * Stops the online scheduler and the task runtime of this kernel, waiting a bounded time for
+     * the running tasks. An executor given to the builder is not shut down.
+     *
+     * @since 1.0.4
+     */
+    @Override
+    public void close() {
+        if (onlineScheduler != null) onlineScheduler.close();
+        if (taskRuntime != null) taskRuntime.close();
+    }
+
     /**
      * 启动指定参与者设备上的传感器
      * @param deviceId 参与者的设备ID
@@ -295,6 +361,85 @@ public class Kernel implements CrowdKernel {
         return sensorManager.getSensorData(deviceId);
     }
 
+    /**
+     * Builds kernels independent of the default kernel and of each other. Kernels that should
+     * share a thread pool get the same {@link #executor(Executor)}, everything else is created
+     * per kernel.
+     *
+     * @since 1.0.4
+     */
+    public static final class Builder {
+        private InterruptManager interruptManager;
+        private TaskIdGenerator taskIdGenerator;
+        private Executor executor;
+        private int batchSize = Scheduler.DEFAULT_BATCH_SIZE;
+        private int runtimeThreads = Runtime.getRuntime().availableProcessors();
+        private int runtimeQueueCapacity = TaskRuntime.DEFAULT_QUEUE_CAPACITY;
+
+        private Builder(){}
+
+        /**
+         * @param interruptManager the interrupt manager of the kernel, a new one by default.
+         */
+        public Builder interruptManager(InterruptManager interruptManager){
+            this.interruptManager = Objects.requireNonNull(interruptManager);
+            return this;
+        }
+
+        /**
+         * @param taskIdGenerator the task id generator of the kernel, a new one starting at 1 by default.
+         */
+        public Builder taskIdGenerator(TaskIdGenerator taskIdGenerator){
+            this.taskIdGenerator = Objects.requireNonNull(taskIdGenerator);
+            return this;
+        }
+
+        /**
+         * @param executor the executor the scheduler evaluates batches on in parallel, the calling thread by default.
+         * @see Scheduler#setExecutor(Executor)
+         */
+        public Builder executor(Executor executor){
+            this.executor = Objects.requireNonNull(executor);
+            return this;
+        }
 
+        /**
+         * @param batchSize the number of tasks one executor job of the scheduler evaluates.
+         * @see Scheduler#setBatchSize(int)
+         */
+        public Builder batchSize(int batchSize){
+            if (batchSize <= 0) throw new IllegalArgumentException("batch size must be positive: " + batchSize);
+            this.batchSize = batchSize;
+            return this;
+        }
 
+        /**
+         * @param threads the number of tasks the task runtime executes at a time, one per processor by default.
+         */
+        public Builder runtimeThreads(int threads){
+            if (threads <= 0) throw new IllegalArgumentException("threads must be positive: " + threads);
+            this.runtimeThreads = threads;
+            return this;
+        }
+
+        /**
+         * @param queueCapacity the number of tasks that may wait for a thread of the task runtime.
+         */
+        public Builder runtimeQueueCapacity(int queueCapacity){
+            if (queueCapacity < 0) throw new IllegalArgumentException("queue capacity must not be negative: " + queueCapacity);
+            this.runtimeQueueCapacity = queueCapacity;
+            return this;
+        }
+
+        /**
+         * Builds and initializes a kernel.
+         *
+         * @return a new kernel.
+         */
+        public Kernel build(){
+            Kernel built = new Kernel(this);
+            built.initial();
+            return built;
+        }
+    }
 }
@@ -0,0 +1,476 @@
+/*
+ * Copyright 2019-2025 CrowdOS Group, Northwestern Polytechnical University. <https://github.com/crowdosNWPU/CrowdOS>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * imitations under the License.
+ */
+package cn.crowdos.kernel;
+
+import cn.crowdos.kernel.algorithms.MinCostAssignment;
+import cn.crowdos.kernel.constraint.Condition;
+import cn.crowdos.kernel.constraint.Constraint;
+import cn.crowdos.kernel.constraint.Coordinate;
+import cn.crowdos.kernel.constraint.DistanceMetric;
+import cn.crowdos.kernel.constraint.POIConstraint;
+import cn.crowdos.kernel.resource.Participant;
+import cn.crowdos.kernel.resource.Task;
+import cn.crowdos.kernel.system.SystemResourceCollection;
+import cn.crowdos.kernel.system.SystemResourceHandler;
+import cn.crowdos.kernel.system.resource.Mission;
+import cn.crowdos.kernel.system.resource.MissionHistory;
+import cn.crowdos.kernel.system.resource.ParticipantPool;
+import cn.crowdos.kernel.system.resource.Resource;
+import cn.crowdos.kernel.system.resource.TaskPool;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * OnlineScheduler assigns continuously arriving tasks in micro-batches. Submitted tasks wait until
+ * {@link #getMaxBatchSize()} tasks arrived or the first of them waited {@link #getMaxDelayMillis()},
+ * then the batch is assigned at once against the participants available at that moment. Only the
+ * batch is solved, earlier assignments are never revisited.
+ *
+ * <p>Every task of a batch gets at most one participant and every participant at most one task,
+ * with the smallest total distance between the tasks and their participants (see
+ * {@link MinCostAssignment}); a task only considers its {@link #getCandidateLimit()} nearest
+ * available participants it {@link Task#canAssignTo(Participant) can be assigned to}, and a task
+ * with a location only participants with a {@link Coordinate} ability. Assigned
+ * participants are set {@link Participant.ParticipantStatus#BUSY BUSY}, so later batches skip
+ * them until they are set available again. Each assignment is recorded as a {@link Mission} of
+ * the {@link MissionHistory} if there is one, and is passed to the listener, or to the
+ * {@link #results() result queue} if no listener is set. Tasks without an available participant
+ * are retried with the following batches, and so are the tasks of a batch that failed before
+ * they got their mission.</p>
+ *
+ * <p>Batches are assigned by a background thread between {@link #start()} and {@link #close()},
+ * or by the calling thread with {@link #flush()}. The background thread reports a failed batch
+ * to its uncaught exception handler and goes on with the next one.</p>
+ *
+ * @since 1.0.4
+ */
+public class OnlineScheduler implements Resource<OnlineScheduler>, AutoCloseable {
+
+    public static final int DEFAULT_MAX_BATCH_SIZE = 256;
+
+    public static final long DEFAULT_MAX_DELAY_MILLIS = 20;
+
+    public static final int DEFAULT_CANDIDATE_LIMIT = 8;
+
+    // How long close() waits for the batch being assigned.
+    private static final long CLOSE_TIMEOUT_MILLIS = 10_000;
+
+    private final SystemResourceCollection resourceCollection;
+    // Tasks submitted since the last batch, in order of arrival.
+    private final BlockingQueue<Task> submitted = new LinkedBlockingQueue<>();
+    // Tasks that found no available participant, guarded by assignLock.
+    private final ArrayDeque<Task> unassigned = new ArrayDeque<>();
+    // The assignments, if there is no listener.
+    private final BlockingQueue<Mission> results = new LinkedBlockingQueue<>();
+    // Serializes the batches, so a participant is never given to two tasks.
+    private final Object assignLock = new Object();
+
+    private volatile Consumer<Mission> listener;
+    private volatile int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+    private volatile long maxDelayMillis = DEFAULT_MAX_DELAY_MILLIS;
+    private volatile int candidateLimit = DEFAULT_CANDIDATE_LIMIT;
+
+    private Thread thread;
+
+    public OnlineScheduler(SystemResourceCollection collection) {
+        this.resourceCollection = collection;
+    }
+
+    /**
+     * Adds a task to the task pool and to the next batch.
+     *
+     * @param task the task to assign.
+     */
+    public void submit(Task task) {
+        Objects.requireNonNull(task);
+        SystemResourceHandler<TaskPool> tasks = resourceCollection.getResourceHandler(TaskPool.KEY);
+        if (tasks != null) tasks.getResource().add(task);
+        submitted.add(task);
+    }
+
+    /**
+     * Starts the background thread that assigns the batches. Does nothing if it is running.
+     */
+    public synchronized void start() {
+        if (thread != null) return;
+        thread = new Thread(this::run, "crowdos-online-scheduler");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops the background thread, after the batch it is assigning. Tasks still waiting stay
+     * submitted and are assigned by the next {@link #start()} or {@link #flush()}. Waits at most
+     * ten seconds for the batch; if the calling thread is interrupted it stops waiting and
+     * keeps its interrupt status.
+     */
+    @Override
+    public void close() {
+        Thread running;
+        synchronized (this) {
+            running = thread;
+            thread = null;
+        }
+        if (running == null) return;
+        running.interrupt();
+        try {
+            running.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return true between {@link #start()} and {@link #close()}.
+     */
+    public synchronized boolean isRunning() {
+        return thread != null;
+    }
+
+    /**
+     * Assigns all submitted tasks and retries the unassigned ones in the calling thread,
+     * in batches of at most {@link #getMaxBatchSize()} new tasks.
+     *
+     * @return the assignments made, in order.
+     * @throws RuntimeException if a batch failed; its missions made so far are emitted and its
+     *                          other tasks are retried with the next batch.
+     */
+    public List<Mission> flush() {
+        List<Mission> missions = new ArrayList<>();
+        List<Task> batch = new ArrayList<>();
+        do {
+            batch.clear();
+            submitted.drainTo(batch, maxBatchSize);
+            assignAndEmit(batch, missions);
+        } while (!submitted.isEmpty());
+        return missions;
+    }
+
+    private void run() {
+        List<Task> batch = new ArrayList<>();
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                batch.clear();
+                batch.add(submitted.take());
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+                int size = maxBatchSize;
+                while (batch.size() < size) {
+                    submitted.drainTo(batch, size - batch.size());
+                    long wait = deadline - System.nanoTime();
+                    if (batch.size() >= size || wait <= 0) break;
+                    Task task = submitted.poll(wait, TimeUnit.NANOSECONDS);
+                    if (task == null) break;
+                    batch.add(task);
+                }
+                try {
+                    assignAndEmit(batch, new ArrayList<>());
+                } catch (RuntimeException e) {
+                    report(e);
+                }
+            }
+        } catch (InterruptedException e) {
+            // closed while waiting for tasks
+        } finally {
+            synchronized (this) {
+                if (thread == Thread.currentThread()) thread = null;
+            }
+        }
+    }
+
+    /**
+     * Assigns a batch and emits its missions, also those made before the batch failed.
+     */
+    private void assignAndEmit(List<Task> newTasks, List<Mission> missions) {
+        int from = missions.size();
+        try {
+            assign(newTasks, missions);
+        } finally {
+            emit(missions.subList(from, missions.size()));
+        }
+    }
+
+    /**
+     * Hands the assignments to the listener or to the result queue. A failing listener is
+     * reported to the uncaught exception handler of the thread and does not stop the batches.
+     */
+    private void emit(List<Mission> missions) {
+        Consumer<Mission> consumer = listener;
+        for (Mission mission : missions) {
+            if (consumer == null) {
+                results.add(mission);
+                continue;
+            }
+            try {
+                consumer.accept(mission);
+            } catch (RuntimeException e) {
+                report(e);
+            }
+        }
+    }
+
+    /**
+     * Passes an exception to the uncaught exception handler of the current thread. A handler
+     * that throws itself is ignored, the batches go on.
+     */
+    private static void report(RuntimeException e) {
+        Thread current = Thread.currentThread();
+        try {
+            current.getUncaughtExceptionHandler().uncaughtException(current, e);
+        } catch (RuntimeException ignored) {
+            // nowhere left to report to
+        }
+    }
+
+    /**
+     * Assigns a batch of new tasks together with up to as many tasks left unassigned by
+     * earlier batches, adding the missions to the given list. If the batch fails, the tasks
+     * that have no mission yet are kept for the next batch.
+     */
+    private void assign(List<Task> newTasks, List<Mission> missions) {
+        synchronized (assignLock) {
+            List<Task> batch = new ArrayList<>();
+            int retries = Math.min(unassigned.size(), Math.max(newTasks.size(), maxBatchSize));
+            for (int i = 0; i < retries; i++) {
+                batch.add(unassigned.poll());
+            }
+            batch.addAll(newTasks);
+            // The tasks before settled got a mission or were put back into unassigned
+            int settled = 0;
+            try {
+                batch.removeIf(task -> !task.assignable());
+                if (batch.isEmpty()) return;
+
+                ParticipantPool participants = resourceCollection.getResourceHandler(ParticipantPool.KEY).getResource();
+                int limit = candidateLimit;
+                int taskNum = batch.size();
+                Coordinate[] taskLocations = new Coordinate[taskNum];
+                // The nearest available candidates of every task, as indices into workers
+                int[][] taskCandidates = new int[taskNum][];
+                List<Participant> workers = new ArrayList<>();
+                Map<Participant, Integer> workerIndex = new IdentityHashMap<>();
+                for (int t = 0; t < taskNum; t++) {
+                    Task task = batch.get(t);
+                    taskLocations[t] = locationOf(task);
+                    List<Participant> nearest = nearestCandidates(participants, task, taskLocations[t], limit);
+                    taskCandidates[t] = new int[nearest.size()];
+                    for (int c = 0; c < nearest.size(); c++) {
+                        Participant participant = nearest.get(c);
+                        Integer index = workerIndex.get(participant);
+                        if (index == null) {
+                            index = workers.size();
+                            workerIndex.put(participant, index);
+                            workers.add(participant);
+                        }
+                        taskCandidates[t][c] = index;
+                    }
+                    Arrays.sort(taskCandidates[t]);
+                }
+
+                int workerNum = workers.size();
+                double[][] distanceMatrix = new double[workerNum][taskNum];
+                for (int w = 0; w < workerNum; w++) {
+                    Coordinate workerLocation = locationOf(workers.get(w));
+                    for (int t = 0; t < taskNum; t++) {
+                        distanceMatrix[w][t] = distance(workerLocation, taskLocations[t]);
+                    }
+                }
+                MinCostAssignment assignment = new MinCostAssignment(workerNum, taskNum, distanceMatrix);
+                assignment.setEligible((worker, task) -> Arrays.binarySearch(taskCandidates[task], worker) >= 0);
+                assignment.taskAssign();
+
+                SystemResourceHandler<MissionHistory> history = resourceCollection.getResourceHandler(MissionHistory.KEY);
+                int[] taskWorker = assignment.getTaskWorker();
+                for (int t = 0; t < taskNum; t++) {
+                    Task task = batch.get(t);
+                    if (taskWorker[t] < 0) {
+                        unassigned.add(task);
+                        settled++;
+                        continue;
+                    }
+                    Participant participant = workers.get(taskWorker[t]);
+                    List<Participant> assigned = Collections.singletonList(participant);
+                    // the mission is made first, so a failing history leaves the participant available
+                    missions.add(history != null
+                            ? history.getResource().newMission(task, assigned)
+                            : new Mission(task, assigned));
+                    settled++;
+                    participant.setStatus(Participant.ParticipantStatus.BUSY);
+                    // the pool caches participant abilities until it is told they changed
+                    participants.relocate(participant);
+                }
+            } finally {
+                for (int t = settled; t < batch.size(); t++) {
+                    unassigned.add(batch.get(t));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the location of the only {@link POIConstraint} of the task, or null.
+     */
+    private static Coordinate locationOf(Task task) {
+        Coordinate location = null;
+        List<Constraint> constraints = task.constraints();
+        if (constraints == null) return null;
+        for (Constraint constraint : constraints) {
+            if (!(constraint instanceof POIConstraint)) continue;
+            if (location != null) return null;
+            location = ((POIConstraint) constraint).getLocation();
+        }
+        return location;
+    }
+
+    /**
+     * @return the location of the participant, or null.
+     */
+    private static Coordinate locationOf(Participant participant) {
+        Condition ability = participant.getAbility(Coordinate.class);
+        return ability instanceof Coordinate ? (Coordinate) ability : null;
+    }
+
+    /**
+     * @return the distance of a participant to a task, 0 if the task has no location and
+     * {@code Double.MAX_VALUE}, which is never assigned, if only the participant has none.
+     */
+    private static double distance(Coordinate from, Coordinate to) {
+        if (to == null) return 0;
+        if (from == null) return Double.MAX_VALUE;
+        return DistanceMetric.PLANAR.distance(from, to);
+    }
+
+    /**
+     * Returns the nearest available participants the task can be assigned to, ties in
+     * registration order. Participants without a location are only candidates of tasks
+     * without one.
+     */
+    private static List<Participant> nearestCandidates(ParticipantPool participants, Task task,
+                                                       Coordinate location, int limit) {
+        List<Participant> candidates = new ArrayList<>();
+        List<Double> distances = new ArrayList<>();
+        for (Participant participant : participants.getSpatialCandidates(task)) {
+            if (!participant.available() || !task.canAssignTo(participant)) continue;
+            Coordinate participantLocation = locationOf(participant);
+            if (location != null && participantLocation == null) continue;
+            double distance = distance(participantLocation, location);
+            if (candidates.size() == limit && distance >= distances.get(limit - 1)) continue;
+            // insertion into the sorted list of the nearest ones
+            int position = candidates.size();
+            while (position > 0 && distances.get(position - 1) > distance) position--;
+            candidates.add(position, participant);
+            distances.add(position, distance);
+            if (candidates.size() > limit) {
+                candidates.remove(limit);
+                distances.remove(limit);
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Sets the listener that receives every assignment, in the thread that assigned the batch.
+     *
+     * @param listener the listener, or null to put the assignments into {@link #results()}.
+     */
+    public void setListener(Consumer<Mission> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * @return the queue of the assignments made while no listener was set.
+     */
+    public BlockingQueue<Mission> results() {
+        return results;
+    }
+
+    /**
+     * @param maxBatchSize the number of submitted tasks that starts a batch at once.
+     */
+    public void setMaxBatchSize(int maxBatchSize) {
+        if (maxBatchSize <= 0) throw new IllegalArgumentException("batch size must be positive: " + maxBatchSize);
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * @param maxDelayMillis how long the first task of a batch waits for more tasks.
+     */
+    public void setMaxDelayMillis(long maxDelayMillis) {
+        if (maxDelayMillis < 0) throw new IllegalArgumentException("delay must not be negative: " + maxDelayMillis);
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    public long getMaxDelayMillis() {
+        return maxDelayMillis;
+    }
+
+    /**
+     * @param candidateLimit the number of nearest available participants a task considers.
+     */
+    public void setCandidateLimit(int candidateLimit) {
+        if (candidateLimit <= 0) throw new IllegalArgumentException("candidate limit must be positive: " + candidateLimit);
+        this.candidateLimit = candidateLimit;
+    }
+
+    public int getCandidateLimit() {
+        return candidateLimit;
+    }
+
+    /**
+     * @return the number of tasks submitted and not yet in a batch.
+     */
+    public int getSubmittedCount() {
+        return submitted.size();
+    }
+
+    /**
+     * @return the number of tasks waiting for an available participant.
+     */
+    public int getUnassignedCount() {
+        synchronized (assignLock) {
+            return unassigned.size();
+        }
+    }
+
+    @Override
+    public SystemResourceHandler<OnlineScheduler> getHandler() {
+        OnlineScheduler scheduler = this;
+        return new SystemResourceHandler<OnlineScheduler>() {
+            @Override
+            public OnlineScheduler getResourceView() {
+                return scheduler;
+            }
+
+            @Override
+            public OnlineScheduler getResource() {
+                return scheduler;
+            }
+        };
+    }
+}
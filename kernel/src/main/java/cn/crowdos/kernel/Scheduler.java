@@ -17,6 +17,7 @@ package cn.crowdos.kernel;
 import cn.crowdos.kernel.algorithms.*;
 import cn.crowdos.kernel.resource.Participant;
 import cn.crowdos.kernel.resource.Task;
+import cn.crowdos.kernel.system.ResourceKey;
 import cn.crowdos.kernel.system.SystemResourceCollection;
 import cn.crowdos.kernel.system.SystemResourceHandler;
 import cn.crowdos.kernel.system.resource.AlgoContainer;
@@ -24,9 +25,17 @@ import cn.crowdos.kernel.system.resource.Resource;
 import cn.crowdos.kernel.system.resource.TaskPool;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
 
 public class Scheduler implements Resource<Scheduler> {
+    // The key the scheduler of a kernel is registered under.
+    public static final ResourceKey<Scheduler> KEY = ResourceKey.of(Scheduler.class);
     // A private variable that is used to store the participant selection algorithm.
     private ParticipantSelectionAlgo participantSelectionAlgo;
     // A private variable that is used to store the task recommendation algorithm.
@@ -37,6 +46,16 @@ public class Scheduler implements Resource<Scheduler> {
     private AlgoFactory algoFactory;
     // Used to store the resource collection.
     private final SystemResourceCollection resourceCollection;
+    // The default number of tasks one executor job evaluates.
+    public static final int DEFAULT_BATCH_SIZE = 16;
+    // Runs the jobs of a batch evaluation, in the calling thread unless parallel evaluation is asked for.
+    private volatile Executor executor = Runnable::run;
+    // The number of tasks one executor job evaluates.
+    private volatile int batchSize = DEFAULT_BATCH_SIZE;
+    // Per algorithm class, whether it keeps the default batch method of each algorithm interface.
+    private static final ClassValue<Boolean> DEFAULT_CANDIDATES = defaultBatchMethod("getCandidates");
+    private static final ClassValue<Boolean> DEFAULT_RECOMMENDATION = defaultBatchMethod("getRecommendationScheme");
+    private static final ClassValue<Boolean> DEFAULT_ASSIGNMENT = defaultBatchMethod("getAssignmentScheme");
 
     // The constructor of the Scheduler class. It is used to initialize the scheduler.
     public Scheduler(SystemResourceCollection collection){
@@ -70,18 +89,114 @@ public class Scheduler implements Resource<Scheduler> {
     }
 
 
+    /**
+     * Sets the executor that evaluates the tasks of a batch in parallel. Algorithms whose
+     * single-task methods are used in a batch must then be thread-safe. By default batches are
+     * evaluated in the calling thread, in the order of their tasks.
+     *
+     * @param executor the executor, e.g. {@code Runnable::run} to evaluate batches sequentially.
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = Objects.requireNonNull(executor);
+    }
+
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Sets the number of tasks one executor job evaluates. Batches not larger than that run in the calling thread.
+     *
+     * @param batchSize a positive number of tasks.
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize <= 0) throw new IllegalArgumentException("batch size must be positive: " + batchSize);
+        this.batchSize = batchSize;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Evaluates every task of a batch, splitting the batch into jobs of {@link #getBatchSize()} tasks
+     * that run on the executor. The calling thread evaluates the first job itself. Every job has
+     * ended when this method returns or throws; if jobs fail, the first failure is thrown with the
+     * others suppressed.
+     *
+     * @param tasks the batch.
+     * @param evaluation the evaluation of one task.
+     * @return the results, in the order of the tasks.
+     */
+    <R> List<R> evaluate(List<Task> tasks, Function<Task, R> evaluation){
+        int size = tasks.size();
+        int jobSize = batchSize;
+        Object[] results = new Object[size];
+        int jobs = (size + jobSize - 1) / jobSize;
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[Math.max(jobs - 1, 0)];
+        for (int job = 1; job < jobs; job++) {
+            int from = job * jobSize, to = Math.min(from + jobSize, size);
+            futures[job - 1] = CompletableFuture.runAsync(() -> evaluate(tasks, evaluation, results, from, to), executor);
+        }
+        Throwable failure = null;
+        try {
+            evaluate(tasks, evaluation, results, 0, Math.min(jobSize, size));
+        } catch (RuntimeException | Error e) {
+            failure = e;
+        }
+        // Waits for the other jobs even if the first failed, none may outlive the call
+        for (CompletableFuture<?> future : futures) {
+            try {
+                future.join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                if (failure == null) failure = cause;
+                else failure.addSuppressed(cause);
+            }
+        }
+        if (failure instanceof RuntimeException) throw (RuntimeException) failure;
+        if (failure instanceof Error) throw (Error) failure;
+        if (failure != null) throw new CompletionException(failure);
+        @SuppressWarnings("unchecked")
+        List<R> merged = (List<R>) Arrays.asList(results);
+        return new ArrayList<>(merged);
+    }
+
+    private static <R> void evaluate(List<Task> tasks, Function<Task, R> evaluation, Object[] results, int from, int to){
+        for (int i = from; i < to; i++) {
+            results[i] = evaluation.apply(tasks.get(i));
+        }
+    }
+
+    /**
+     * Whether an algorithm keeps the default batch method of its interface, which only loops
+     * over the single-task method. Such batches are evaluated in jobs on the executor instead.
+     */
+    private static boolean loopsOverTasks(Object algo, ClassValue<Boolean> defaultBatchMethod){
+        return defaultBatchMethod.get(algo.getClass());
+    }
+
+    private static ClassValue<Boolean> defaultBatchMethod(String batchMethod){
+        return new ClassValue<Boolean>() {
+            @Override
+            protected Boolean computeValue(Class<?> type) {
+                try {
+                    return type.getMethod(batchMethod, ArrayList.class).isDefault();
+                } catch (NoSuchMethodException e) {
+                    return false;
+                }
+            }
+        };
+    }
+
     /**
      *  For each task in the task pool, recommend a list of participants to complete the task
      *
      * @return A list of lists of participants.
      */
     public List<List<Participant>> recommendTasks(){
-        TaskPool resourceView = resourceCollection.getResourceHandler(TaskPool.class).getResourceView();
-        List<List<Participant>> recommendScheme = new ArrayList<>(resourceView.size());
-        for (Task task : resourceView) {
-            recommendScheme.add(taskRecommendation(task));
-        }
-        return recommendScheme;
+        TaskPool resourceView = resourceCollection.getResourceHandler(TaskPool.KEY).getResourceView();
+        return evaluate(resourceView.snapshot(), this::taskRecommendation);
     }
 
     /**
@@ -90,12 +205,8 @@ public class Scheduler implements Resource<Scheduler> {
      * @return A list of lists of participants.
      */
     public List<List<Participant>> assignTasks(){
-        TaskPool resourceView = resourceCollection.getResourceHandler(TaskPool.class).getResourceView();
-        List<List<Participant>> assignmentScheme = new ArrayList<>(resourceView.size());
-        for (Task task : resourceView) {
-            assignmentScheme.add(taskAssignment(task));
-        }
-        return assignmentScheme;
+        TaskPool resourceView = resourceCollection.getResourceHandler(TaskPool.KEY).getResourceView();
+        return evaluate(resourceView.snapshot(), this::taskAssignment);
     }
 
     /**
@@ -108,7 +219,9 @@ public class Scheduler implements Resource<Scheduler> {
         return participantSelectionAlgo.getCandidates(task);
     }
     public List<List<Participant>> participantSelection(ArrayList<Task> tasks){
-        return participantSelectionAlgo.getCandidates(tasks);
+        ParticipantSelectionAlgo algo = participantSelectionAlgo;
+        if (loopsOverTasks(algo, DEFAULT_CANDIDATES)) return evaluate(tasks, algo::getCandidates);
+        return algo.getCandidates(tasks);
     }
     /**
      * This function returns a list of participants that are recommended for a given task.
@@ -120,7 +233,9 @@ public class Scheduler implements Resource<Scheduler> {
         return taskRecommendationAlgo.getRecommendationScheme(task);
     }
     public List<List<Participant>> taskRecommendation(ArrayList<Task> tasks){
-        return taskRecommendationAlgo.getRecommendationScheme(tasks);
+        TaskRecommendationAlgo algo = taskRecommendationAlgo;
+        if (loopsOverTasks(algo, DEFAULT_RECOMMENDATION)) return evaluate(tasks, algo::getRecommendationScheme);
+        return algo.getRecommendationScheme(tasks);
     }
     /**
      * This function returns a list of participants that are assigned to a task.
@@ -132,7 +247,9 @@ public class Scheduler implements Resource<Scheduler> {
         return taskAssignmentAlgo.getAssignmentScheme(task);
     }
     public List<List<Participant>> taskAssignment(ArrayList<Task> tasks){
-        return taskAssignmentAlgo.getAssignmentScheme(tasks);
+        TaskAssignmentAlgo algo = taskAssignmentAlgo;
+        if (loopsOverTasks(algo, DEFAULT_ASSIGNMENT)) return evaluate(tasks, algo::getAssignmentScheme);
+        return algo.getAssignmentScheme(tasks);
     }
     /**
      * This function returns the AlgoFactory object that was created in the constructor.
@@ -0,0 +1,379 @@
+/*
+ * Copyright 2019-2025 CrowdOS Group, Northwestern Polytechnical University. <https://github.com/crowdosNWPU/CrowdOS>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * imitations under the License.
+ */
+package cn.crowdos.kernel;
+
+import cn.crowdos.kernel.resource.AbstractTask;
+import cn.crowdos.kernel.resource.Task;
+import cn.crowdos.kernel.system.SystemResourceHandler;
+import cn.crowdos.kernel.system.resource.Resource;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * TaskRuntime runs {@link Task#execute()} of assigned tasks on a bounded pool of threads.
+ *
+ * <p>A task must be {@link Task.TaskStatus#READY READY} when it is submitted. It is set
+ * {@link Task.TaskStatus#IN_PROGRESS IN_PROGRESS} when a thread starts it and
+ * {@link Task.TaskStatus#FINISHED FINISHED} when {@code execute()} returns completed. A task
+ * cancelled with {@link #cancel(Task)} before it completed, or whose {@code execute()} throws, goes
+ * back to {@code READY} so it can be assigned again. Cancellation is cooperative: {@link AbstractTask}s poll the
+ * {@link InterruptManager} of the runtime, a task that did not start yet is skipped.</p>
+ *
+ * <p>At most {@code threads + queueCapacity} tasks are submitted and not finished at a time,
+ * {@link #submit(Task)} waits for room beyond that and {@link #trySubmit(Task, long, TimeUnit)}
+ * gives up. {@link #metrics()} reports the queue depth and the waiting and running times.</p>
+ *
+ * @since 1.0.4
+ */
+public class TaskRuntime implements Resource<TaskRuntime>, AutoCloseable {
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    // How long close() waits for the submitted tasks.
+    private static final long CLOSE_TIMEOUT_MILLIS = 10_000;
+
+    private final InterruptManager interruptManager;
+    private final ThreadPoolExecutor executor;
+    // One permit per task that may be submitted and not finished.
+    private final Semaphore capacity;
+    // The tasks submitted and not finished, so a task does not run twice at a time.
+    private final Map<Task, Boolean> pending = Collections.synchronizedMap(new IdentityHashMap<>());
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder finished = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder runNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong maxRunNanos = new AtomicLong();
+
+    /**
+     * A runtime with one thread per processor.
+     *
+     * @param interruptManager the manager that cancels tasks.
+     */
+    public TaskRuntime(InterruptManager interruptManager) {
+        this(interruptManager, Runtime.getRuntime().availableProcessors(), DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * @param interruptManager the manager that cancels tasks.
+     * @param threads the number of tasks executed at a time.
+     * @param queueCapacity the number of tasks that may wait for a thread.
+     */
+    public TaskRuntime(InterruptManager interruptManager, int threads, int queueCapacity) {
+        if (threads <= 0) throw new IllegalArgumentException("threads must be positive: " + threads);
+        if (queueCapacity < 0) throw new IllegalArgumentException("queue capacity must not be negative: " + queueCapacity);
+        this.interruptManager = Objects.requireNonNull(interruptManager);
+        this.capacity = new Semaphore(threads + queueCapacity);
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "crowdos-task-runtime-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        // The semaphore keeps the queue from ever being full
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), threadFactory);
+    }
+
+    /**
+     * Submits a task, waiting while the runtime is saturated.
+     *
+     * @param task a READY task.
+     * @return completes with the status the task ends with, or exceptionally with the exception of {@code execute()}.
+     * @throws InterruptedException if the calling thread is interrupted while waiting.
+     * @throws IllegalStateException if the task is not READY or already submitted, or the runtime is closed.
+     */
+    public CompletableFuture<Task.TaskStatus> submit(Task task) throws InterruptedException {
+        capacity.acquire();
+        return start(task);
+    }
+
+    /**
+     * Submits a task unless the runtime stays saturated for the timeout.
+     *
+     * @param task a READY task.
+     * @param timeout how long to wait for room.
+     * @param unit the unit of the timeout.
+     * @return the result as with {@link #submit(Task)}, or null if there was no room.
+     * @throws InterruptedException if the calling thread is interrupted while waiting.
+     */
+    public CompletableFuture<Task.TaskStatus> trySubmit(Task task, long timeout, TimeUnit unit) throws InterruptedException {
+        if (!capacity.tryAcquire(timeout, unit)) return null;
+        return start(task);
+    }
+
+    private CompletableFuture<Task.TaskStatus> start(Task task) {
+        try {
+            if (task.getTaskStatus() != Task.TaskStatus.READY) {
+                throw new IllegalStateException("task is not READY: " + task.getTaskStatus());
+            }
+            if (pending.putIfAbsent(task, Boolean.TRUE) != null) {
+                throw new IllegalStateException("task is already submitted");
+            }
+            if (task instanceof AbstractTask) {
+                AbstractTask abstractTask = (AbstractTask) task;
+                if (abstractTask.getInterruptManager() == null) abstractTask.setInterruptManager(interruptManager);
+                abstractTask.getInterruptManager().register(abstractTask.getTaskId());
+            }
+        } catch (RuntimeException e) {
+            capacity.release();
+            throw e;
+        }
+        CompletableFuture<Task.TaskStatus> result = new CompletableFuture<>();
+        long submitTime = System.nanoTime();
+        submitted.increment();
+        try {
+            executor.execute(() -> run(task, submitTime, result));
+        } catch (RuntimeException e) {
+            pending.remove(task);
+            capacity.release();
+            throw new IllegalStateException("the runtime is closed", e);
+        }
+        return result;
+    }
+
+    private void run(Task task, long submitTime, CompletableFuture<Task.TaskStatus> result) {
+        long startTime = System.nanoTime();
+        record(waitNanos, maxWaitNanos, startTime - submitTime);
+        try {
+            if (interrupted(task)) {
+                // cancelled while it was waiting for a thread
+                cancelled.increment();
+                finish(task, Task.TaskStatus.READY, result);
+                return;
+            }
+            task.setTaskStatus(Task.TaskStatus.IN_PROGRESS);
+            try {
+                task.execute();
+            } catch (RuntimeException | Error e) {
+                failed.increment();
+                task.setTaskStatus(Task.TaskStatus.READY);
+                release(task);
+                result.completeExceptionally(e);
+                return;
+            } finally {
+                record(runNanos, maxRunNanos, System.nanoTime() - startTime);
+            }
+            // An interrupt that arrives after the last step does not undo the work
+            if (interrupted(task) && !task.isCompleted()) {
+                cancelled.increment();
+                finish(task, Task.TaskStatus.READY, result);
+            } else {
+                finished.increment();
+                finish(task, Task.TaskStatus.FINISHED, result);
+            }
+        } catch (RuntimeException e) {
+            release(task);
+            result.completeExceptionally(e);
+        }
+    }
+
+    private void finish(Task task, Task.TaskStatus status, CompletableFuture<Task.TaskStatus> result) {
+        task.setTaskStatus(status);
+        release(task);
+        result.complete(status);
+    }
+
+    /**
+     * Forgets the interrupt flag of a task that left the runtime and frees its permit.
+     */
+    private void release(Task task) {
+        if (task instanceof AbstractTask) {
+            AbstractTask abstractTask = (AbstractTask) task;
+            abstractTask.getInterruptManager().clearInterrupt(abstractTask.getTaskId());
+        }
+        pending.remove(task);
+        capacity.release();
+    }
+
+    private static boolean interrupted(Task task) {
+        if (!(task instanceof AbstractTask)) return false;
+        AbstractTask abstractTask = (AbstractTask) task;
+        return abstractTask.getInterruptManager().isInterrupted(abstractTask.getTaskId());
+    }
+
+    private static void record(LongAdder total, AtomicLong max, long nanos) {
+        total.add(nanos);
+        max.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Requests a submitted task to stop. A waiting task is skipped, a running {@link AbstractTask}
+     * stops at its next poll of the interrupt flag; other tasks cannot be cancelled.
+     *
+     * @param task a submitted task.
+     * @return false if the task is not in the runtime, cannot be cancelled or was cancelled already.
+     */
+    public boolean cancel(Task task) {
+        if (!(task instanceof AbstractTask)) return false;
+        AbstractTask abstractTask = (AbstractTask) task;
+        InterruptManager manager = abstractTask.getInterruptManager();
+        if (manager == null) return false;
+        // Fetched before the check, so the flag of a later submission of the task is never raised
+        InterruptManager.Flag flag = manager.getFlag(abstractTask.getTaskId());
+        return flag != null && pending.containsKey(task) && manager.requestInterrupt(flag);
+    }
+
+    /**
+     * Stops accepting tasks, lets the submitted ones finish and waits for them. Waits at most
+     * ten seconds; if the calling thread is interrupted it stops waiting and keeps its
+     * interrupt status.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(CLOSE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * The counters of a runtime at one moment.
+     */
+    public static final class Metrics {
+        private final int queueDepth;
+        private final int running;
+        private final long submitted;
+        private final long finished;
+        private final long cancelled;
+        private final long failed;
+        private final long meanWaitNanos;
+        private final long maxWaitNanos;
+        private final long meanRunNanos;
+        private final long maxRunNanos;
+
+        private Metrics(TaskRuntime runtime) {
+            queueDepth = runtime.executor.getQueue().size();
+            running = runtime.executor.getActiveCount();
+            submitted = runtime.submitted.sum();
+            finished = runtime.finished.sum();
+            cancelled = runtime.cancelled.sum();
+            failed = runtime.failed.sum();
+            long done = finished + cancelled + failed;
+            meanWaitNanos = done == 0 ? 0 : runtime.waitNanos.sum() / done;
+            maxWaitNanos = runtime.maxWaitNanos.get();
+            meanRunNanos = done == 0 ? 0 : runtime.runNanos.sum() / done;
+            maxRunNanos = runtime.maxRunNanos.get();
+        }
+
+        /**
+         * @return the number of tasks waiting for a thread.
+         */
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+
+        /**
+         * @return the number of tasks being executed.
+         */
+        public int getRunning() {
+            return running;
+        }
+
+        public long getSubmitted() {
+            return submitted;
+        }
+
+        public long getFinished() {
+            return finished;
+        }
+
+        public long getCancelled() {
+            return cancelled;
+        }
+
+        public long getFailed() {
+            return failed;
+        }
+
+        /**
+         * @return the mean time from submission to start of the tasks that left the runtime.
+         */
+        public long getMeanWaitNanos() {
+            return meanWaitNanos;
+        }
+
+        public long getMaxWaitNanos() {
+            return maxWaitNanos;
+        }
+
+        /**
+         * @return the mean time spent in {@code execute()} by the tasks that left the runtime.
+         */
+        public long getMeanRunNanos() {
+            return meanRunNanos;
+        }
+
+        public long getMaxRunNanos() {
+            return maxRunNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "Metrics{" +
+                    "queueDepth=" + queueDepth +
+                    ", running=" + running +
+                    ", submitted=" + submitted +
+                    ", finished=" + finished +
+                    ", cancelled=" + cancelled +
+                    ", failed=" + failed +
+                    ", meanWaitNanos=" + meanWaitNanos +
+                    ", maxWaitNanos=" + maxWaitNanos +
+                    ", meanRunNanos=" + meanRunNanos +
+                    ", maxRunNanos=" + maxRunNanos +
+                    '}';
+        }
+    }
+
+    /**
+     * @return the current counters.
+     */
+    public Metrics metrics() {
+        return new Metrics(this);
+    }
+
+    @Override
+    public SystemResourceHandler<TaskRuntime> getHandler() {
+        TaskRuntime runtime = this;
+        return new SystemResourceHandler<TaskRuntime>() {
+            @Override
+            public TaskRuntime getResourceView() {
+                return runtime;
+            }
+
+            @Override
+            public TaskRuntime getResource() {
+                return runtime;
+            }
+        };
+    }
+}
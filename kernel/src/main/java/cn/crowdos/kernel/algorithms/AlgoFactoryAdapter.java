@@ -30,9 +30,64 @@ public class AlgoFactoryAdapter implements AlgoFactory{
     //中断器管理实例
     private InterruptManager interruptManager;
 
+    //Root of the random streams handed to randomized algorithms
+    private AlgoRandom random = new AlgoRandom();
+
+    //Candidates kept per task by the assignment algorithms, 0 for dense matrices
+    private int candidateLimit;
+
     public AlgoFactoryAdapter(SystemResourceCollection resourceCollection){
         this.resourceCollection = resourceCollection;
     }
+
+    /**
+     * Replaces the source of randomness, e.g. with {@code new AlgoRandom(seed)} to make
+     * the assignments of randomized algorithms repeatable.
+     *
+     * @param random the root generator, every algorithm run receives a split of it
+     */
+    public synchronized void setRandom(AlgoRandom random) {
+        this.random = random;
+    }
+
+    public synchronized AlgoRandom getRandom() {
+        return random;
+    }
+
+    /**
+     * Switches the assignment algorithms to sparse matrices: every task only considers its
+     * {@code candidateLimit} nearest eligible workers and its {@code candidateLimit} nearest
+     * tasks, found with a grid instead of computing all distances. Memory grows with
+     * {@code (workers + tasks) * candidateLimit} rather than {@code workers * tasks}, so large
+     * batches can be assigned; tasks whose candidates are all taken may be left without workers.
+     *
+     * @param candidateLimit the number of candidates per task, 0 for the dense matrices
+     * @since 1.0.4
+     * @see SparseDistanceMatrix
+     */
+    public synchronized void setCandidateLimit(int candidateLimit) {
+        if (candidateLimit < 0) {
+            throw new IllegalArgumentException("candidate limit must not be negative: " + candidateLimit);
+        }
+        this.candidateLimit = candidateLimit;
+    }
+
+    /**
+     * @return the number of candidates per task, 0 if the dense matrices are used
+     * @since 1.0.4
+     */
+    public synchronized int getCandidateLimit() {
+        return candidateLimit;
+    }
+
+    /**
+     * Returns an independent random stream for one algorithm run.
+     *
+     * @return a split of the root generator
+     */
+    protected synchronized AlgoRandom nextRandom() {
+        return random.split();
+    }
     /**
      * The getParticipantSelectionAlgo function returns a ParticipantSelectionAlgo object that is used to select
      * participants for tasks. The algorithm implemented here selects all available participants who can perform the task.
@@ -46,12 +101,12 @@ public class AlgoFactoryAdapter implements AlgoFactory{
         return new ParticipantSelectionAlgo() {
             final ParticipantPool participantPool;
             {
-                participantPool = resourceCollection.getResourceHandler(ParticipantPool.class).getResourceView();
+                participantPool = resourceCollection.getResourceHandler(ParticipantPool.KEY).getResourceView();
             }
             @Override
             public List<Participant> getCandidates(Task task) {
                 List<Participant> candidate = new LinkedList<>();
-                for (Participant participant : participantPool) {
+                for (Participant participant : participantPool.getSpatialCandidates(task)) {
                     if (participant.available() && task.canAssignTo(participant)){
                         candidate.add(participant);
                     }
@@ -66,12 +121,12 @@ public class AlgoFactoryAdapter implements AlgoFactory{
         return new TaskRecommendationAlgo() {
             final ParticipantPool participantPool;
             {
-                participantPool = resourceCollection.getResourceHandler(ParticipantPool.class).getResourceView();
+                participantPool = resourceCollection.getResourceHandler(ParticipantPool.KEY).getResourceView();
             }
             @Override
             public List<Participant> getRecommendationScheme(Task task) {
                 List<Participant> candidate = new LinkedList<>();
-                for (Participant participant : participantPool) {
+                for (Participant participant : participantPool.getSpatialCandidates(task)) {
                     if (participant.available() && task.canAssignTo(participant)){
                         candidate.add(participant);
                     }
@@ -86,12 +141,12 @@ public class AlgoFactoryAdapter implements AlgoFactory{
         return new TaskAssignmentAlgo() {
             final ParticipantPool participantPool;
             {
-                participantPool = resourceCollection.getResourceHandler(ParticipantPool.class).getResourceView();
+                participantPool = resourceCollection.getResourceHandler(ParticipantPool.KEY).getResourceView();
             }
             @Override
             public List<Participant> getAssignmentScheme(Task task) {
                 List<Participant> candidate = new LinkedList<>();
-                for (Participant participant : participantPool) {
+                for (Participant participant : participantPool.getSpatialCandidates(task)) {
                     if (participant.available() && task.canAssignTo(participant)){
                         candidate.add(participant);
                     }
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2019-2025 CrowdOS Group, Northwestern Polytechnical University. <https://github.com/crowdosNWPU/CrowdOS>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * imitations under the License.
+ */
+package cn.crowdos.kernel.algorithms;
+
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+/**
+ * Source of randomness for the randomized assignment algorithms.
+ * <p>
+ * It is a {@link Random}, so it can be handed to {@link java.util.Collections#shuffle(java.util.List, Random)}
+ * and to the existing algorithm methods, but the numbers come from a {@link SplittableRandom}:
+ * no synchronization and no entropy gathering per instance. Build it from a seed to make runs
+ * repeatable, and give every thread or algorithm run its own stream with {@link #split()}.
+ * <p>
+ * Instances are not thread-safe and cannot be serialized.
+ *
+ * @since 1.0.4
+ */
+public class AlgoRandom extends Random {
+
+    private static final long serialVersionUID = 1L;
+
+    private transient SplittableRandom delegate;
+
+    /**
+     * Creates a generator with an unpredictable seed.
+     */
+    public AlgoRandom() {
+        this(new SplittableRandom());
+    }
+
+    /**
+     * Creates a generator that produces the same sequence for the same seed.
+     *
+     * @param seed the seed
+     */
+    public AlgoRandom(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    private AlgoRandom(SplittableRandom delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Returns a new generator on an independent stream. Splitting a seeded generator in the
+     * same order always yields the same streams.
+     *
+     * @return the new generator
+     */
+    public AlgoRandom split() {
+        return new AlgoRandom(delegate.split());
+    }
+
+    /**
+     * Restarts the generator on the sequence of {@code new AlgoRandom(seed)}.
+     *
+     * @param seed the seed
+     */
+    @Override
+    public synchronized void setSeed(long seed) {
+        super.setSeed(seed);
+        //called by the Random constructor before the delegate exists, which then sets its own
+        if (delegate != null) {
+            delegate = new SplittableRandom(seed);
+        }
+    }
+
+    @Override
+    protected int next(int bits) {
+        return delegate.nextInt() >>> (32 - bits);
+    }
+
+    @Override
+    public int nextInt() {
+        return delegate.nextInt();
+    }
+
+    @Override
+    public int nextInt(int bound) {
+        return delegate.nextInt(bound);
+    }
+
+    @Override
+    public long nextLong() {
+        return delegate.nextLong();
+    }
+
+    @Override
+    public double nextDouble() {
+        return delegate.nextDouble();
+    }
+
+    @Override
+    public boolean nextBoolean() {
+        return delegate.nextBoolean();
+    }
+
+    private void writeObject(ObjectOutputStream out) throws NotSerializableException {
+        throw new NotSerializableException(AlgoRandom.class.getName());
+    }
+
+    private void readObject(ObjectInputStream in) throws NotSerializableException {
+        throw new NotSerializableException(AlgoRandom.class.getName());
+    }
+}
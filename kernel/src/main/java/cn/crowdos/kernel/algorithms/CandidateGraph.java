@@ -0,0 +1,438 @@
+/*
+ * Copyright 2019-2025 CrowdOS Group, Northwestern Polytechnical University. <https://github.com/crowdosNWPU/CrowdOS>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * imitations under the License.
+ */
+package cn.crowdos.kernel.algorithms;
+
+import cn.crowdos.kernel.constraint.Coordinate;
+import cn.crowdos.kernel.constraint.DistanceMetric;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The K nearest targets of every source, stored as compressed sparse rows.
+ * <p>
+ * Row {@code s} lists at most K targets of source {@code s} from the nearest to the farthest,
+ * ties broken by the smaller target index, in {@code neighbours[offsets[s], offsets[s + 1])}
+ * with their distances alongside. A graph of the K nearest workers of every task takes about
+ * {@code 12 * taskNum * K} bytes instead of the {@code 8 * workerNum * taskNum} of a dense matrix,
+ * which is what lets the assignment factories handle city-scale batches, see {@link SparseDistanceMatrix}.
+ * <p>
+ * The nearest targets are found with a uniform grid over the targets, so building a graph takes
+ * about {@code (sources + targets) * K} distance evaluations for evenly spread points. The grid
+ * works on (longitude, latitude) as plane coordinates, hence only {@link DistanceMetric#PLANAR}
+ * and {@link DistanceMetric#SQUARED_PLANAR} are supported.
+ *
+ * @since 1.0.4
+ */
+public final class CandidateGraph implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Decides whether a target may be listed for a source, e.g. whether a worker is eligible for a task.
+     */
+    @FunctionalInterface
+    public interface Filter {
+        boolean accept(int source, int target);
+    }
+
+    private final int sources;
+
+    private final int targets;
+
+    private final int[] offsets;
+
+    private final int[] neighbours;
+
+    private final double[] distances;
+
+    CandidateGraph(int sources, int targets, int[] offsets, int[] neighbours, double[] distances) {
+        this.sources = sources;
+        this.targets = targets;
+        this.offsets = offsets;
+        this.neighbours = neighbours;
+        this.distances = distances;
+    }
+
+    /**
+     * Lists, for every source point, the k nearest target points the filter accepts.
+     *
+     * @param metric {@link DistanceMetric#PLANAR} or {@link DistanceMetric#SQUARED_PLANAR}
+     * @param sourcePoints one point per source
+     * @param targetPoints one point per target
+     * @param k how many targets to keep per source
+     * @param filter the pairs that may be listed, null for all of them
+     * @return the graph
+     */
+    public static CandidateGraph nearest(DistanceMetric metric, List<Coordinate> sourcePoints,
+                                         List<Coordinate> targetPoints, int k, Filter filter) {
+        double[] sourceLongitudes = new double[sourcePoints.size()], sourceLatitudes = new double[sourcePoints.size()];
+        double[] targetLongitudes = new double[targetPoints.size()], targetLatitudes = new double[targetPoints.size()];
+        FlatDistanceMatrix.unpack(sourcePoints, sourceLongitudes, sourceLatitudes);
+        FlatDistanceMatrix.unpack(targetPoints, targetLongitudes, targetLatitudes);
+        return nearest(metric, sourceLongitudes, sourceLatitudes, targetLongitudes, targetLatitudes, k, filter, false);
+    }
+
+    /**
+     * Lists, for every point, its k nearest other points.
+     *
+     * @param metric {@link DistanceMetric#PLANAR} or {@link DistanceMetric#SQUARED_PLANAR}
+     * @param points the points, both sources and targets
+     * @param k how many neighbours to keep per point
+     * @return the graph, a point is never its own neighbour
+     */
+    public static CandidateGraph nearestNeighbours(DistanceMetric metric, List<Coordinate> points, int k) {
+        double[] longitudes = new double[points.size()], latitudes = new double[points.size()];
+        FlatDistanceMatrix.unpack(points, longitudes, latitudes);
+        return nearest(metric, longitudes, latitudes, longitudes, latitudes, k, null, true);
+    }
+
+    static CandidateGraph nearest(DistanceMetric metric, double[] sourceLongitudes, double[] sourceLatitudes,
+                                  double[] targetLongitudes, double[] targetLatitudes, int k, Filter filter,
+                                  boolean skipSelf) {
+        if (metric != DistanceMetric.PLANAR && metric != DistanceMetric.SQUARED_PLANAR) {
+            throw new IllegalArgumentException("unsupported metric " + metric);
+        }
+        if (k < 0) {
+            throw new IllegalArgumentException("k must not be negative: " + k);
+        }
+        int sources = sourceLongitudes.length, targets = targetLongitudes.length;
+        int stride = Math.min(k, targets);
+        if ((long) sources * stride > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("too many candidates, use a smaller k: " + k);
+        }
+        int[] offsets = new int[sources + 1];
+        int[] neighbours = new int[sources * stride];
+        double[] distances = new double[sources * stride];
+        if (stride > 0) {
+            Grid grid = new Grid(targetLongitudes, targetLatitudes);
+            int[] heap = new int[stride];
+            double[] heapDistances = new double[stride];
+            for (int source = 0; source < sources; source++) {
+                int size = grid.nearest(metric, sourceLongitudes[source], sourceLatitudes[source], source,
+                        filter, skipSelf, heap, heapDistances);
+                System.arraycopy(heap, 0, neighbours, offsets[source], size);
+                System.arraycopy(heapDistances, 0, distances, offsets[source], size);
+                offsets[source + 1] = offsets[source] + size;
+            }
+        }
+        if (offsets[sources] < neighbours.length) {
+            neighbours = Arrays.copyOf(neighbours, offsets[sources]);
+            distances = Arrays.copyOf(distances, offsets[sources]);
+        }
+        return new CandidateGraph(sources, targets, offsets, neighbours, distances);
+    }
+
+    public int sources() {
+        return sources;
+    }
+
+    public int targets() {
+        return targets;
+    }
+
+    /**
+     * @return the number of (source, target) pairs in the graph
+     */
+    public int edges() {
+        return offsets[sources];
+    }
+
+    /**
+     * @param source the index of the source
+     * @return how many targets are listed for the source
+     */
+    public int size(int source) {
+        return offsets[source + 1] - offsets[source];
+    }
+
+    /**
+     * @param source the index of the source
+     * @param rank the position in the list, 0 being the nearest, below {@link #size(int)}
+     * @return the index of the target
+     */
+    public int neighbour(int source, int rank) {
+        return neighbours[offsets[source] + rank];
+    }
+
+    /**
+     * @param source the index of the source
+     * @param rank the position in the list, 0 being the nearest, below {@link #size(int)}
+     * @return the distance between the source and the target
+     */
+    public double distance(int source, int rank) {
+        return distances[offsets[source] + rank];
+    }
+
+    /**
+     * @param source the index of the source
+     * @param target the index of the target
+     * @return true if the target is listed for the source
+     */
+    public boolean contains(int source, int target) {
+        for (int i = offsets[source]; i < offsets[source + 1]; i++) {
+            if (neighbours[i] == target) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Swaps sources and targets: row t of the result lists the sources that list t, nearest first.
+     *
+     * @return the transposed graph, with as many pairs as this one
+     */
+    public CandidateGraph transpose() {
+        int edges = edges();
+        int[] transposedOffsets = new int[targets + 1];
+        for (int i = 0; i < edges; i++) {
+            transposedOffsets[neighbours[i] + 1]++;
+        }
+        for (int target = 0; target < targets; target++) {
+            transposedOffsets[target + 1] += transposedOffsets[target];
+        }
+        int[] next = Arrays.copyOf(transposedOffsets, targets);
+        int[] transposedNeighbours = new int[edges];
+        double[] transposedDistances = new double[edges];
+        //Sources are visited in ascending order, so every row starts sorted by index
+        for (int source = 0; source < sources; source++) {
+            for (int i = offsets[source]; i < offsets[source + 1]; i++) {
+                int slot = next[neighbours[i]]++;
+                transposedNeighbours[slot] = source;
+                transposedDistances[slot] = distances[i];
+            }
+        }
+        int[] neighbourBuffer = new int[edges];
+        double[] distanceBuffer = new double[edges];
+        for (int target = 0; target < targets; target++) {
+            mergeSort(transposedNeighbours, transposedDistances, neighbourBuffer, distanceBuffer,
+                    transposedOffsets[target], transposedOffsets[target + 1]);
+        }
+        return new CandidateGraph(targets, sources, transposedOffsets, transposedNeighbours, transposedDistances);
+    }
+
+    /**
+     * Stable merge sort of a row by distance, equal distances keep their order.
+     */
+    private static void mergeSort(int[] neighbours, double[] distances, int[] neighbourBuffer, double[] distanceBuffer,
+                                  int from, int to) {
+        if (to - from < 2) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(neighbours, distances, neighbourBuffer, distanceBuffer, from, mid);
+        mergeSort(neighbours, distances, neighbourBuffer, distanceBuffer, mid, to);
+        if (Double.compare(distances[mid - 1], distances[mid]) <= 0) {
+            return;
+        }
+        System.arraycopy(neighbours, from, neighbourBuffer, from, to - from);
+        System.arraycopy(distances, from, distanceBuffer, from, to - from);
+        int left = from;
+        int right = mid;
+        for (int i = from; i < to; i++) {
+            if (right >= to || (left < mid && Double.compare(distanceBuffer[left], distanceBuffer[right]) <= 0)) {
+                neighbours[i] = neighbourBuffer[left];
+                distances[i] = distanceBuffer[left++];
+            } else {
+                neighbours[i] = neighbourBuffer[right];
+                distances[i] = distanceBuffer[right++];
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CandidateGraph{sources=" + sources + ", targets=" + targets + ", edges=" + edges() + '}';
+    }
+
+    /**
+     * Targets bucketed by grid cell, cells row by row in compressed sparse rows as well.
+     */
+    private static final class Grid {
+
+        private final double[] longitudes;
+
+        private final double[] latitudes;
+
+        private final double minLongitude;
+
+        private final double minLatitude;
+
+        private final double cellSize;
+
+        private final int width;
+
+        private final int height;
+
+        //Cell (x, y) holds points[cellStart[y * width + x], cellStart[y * width + x + 1])
+        private final int[] cellStart;
+
+        private final int[] points;
+
+        Grid(double[] longitudes, double[] latitudes) {
+            this.longitudes = longitudes;
+            this.latitudes = latitudes;
+            int count = longitudes.length;
+            double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+            double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < count; i++) {
+                minX = Math.min(minX, longitudes[i]);
+                maxX = Math.max(maxX, longitudes[i]);
+                minY = Math.min(minY, latitudes[i]);
+                maxY = Math.max(maxY, latitudes[i]);
+            }
+            double spanX = maxX - minX, spanY = maxY - minY;
+            //About two points per cell for evenly spread points
+            double cell = Math.sqrt(spanX * spanY * 2 / count);
+            if (!(cell > 0)) {
+                cell = Math.max(spanX, spanY) * 2 / count;
+            }
+            if (!(cell > 0) || Double.isInfinite(cell)) {
+                cell = 1;
+            }
+            while ((spanX / cell + 1) * (spanY / cell + 1) > 4.0 * count + 16) {
+                cell *= 2;
+            }
+            this.minLongitude = minX;
+            this.minLatitude = minY;
+            this.cellSize = cell;
+            this.width = (int) (spanX / cell) + 1;
+            this.height = (int) (spanY / cell) + 1;
+
+            int cells = width * height;
+            int[] cellOf = new int[count];
+            this.cellStart = new int[cells + 1];
+            for (int i = 0; i < count; i++) {
+                cellOf[i] = cellY(latitudes[i]) * width + cellX(longitudes[i]);
+                cellStart[cellOf[i] + 1]++;
+            }
+            for (int c = 0; c < cells; c++) {
+                cellStart[c + 1] += cellStart[c];
+            }
+            int[] next = Arrays.copyOf(cellStart, cells);
+            this.points = new int[count];
+            for (int i = 0; i < count; i++) {
+                points[next[cellOf[i]]++] = i;
+            }
+        }
+
+        private int cellX(double longitude) {
+            double x = Math.floor((longitude - minLongitude) / cellSize);
+            return x <= 0 ? 0 : x >= width - 1 ? width - 1 : (int) x;
+        }
+
+        private int cellY(double latitude) {
+            double y = Math.floor((latitude - minLatitude) / cellSize);
+            return y <= 0 ? 0 : y >= height - 1 ? height - 1 : (int) y;
+        }
+
+        /**
+         * Collects the nearest accepted targets of a point into a bounded max-heap, ring of cells
+         * by ring of cells around the cell of the point, and sorts them nearest first.
+         *
+         * @return how many targets were found, at most heap.length
+         */
+        int nearest(DistanceMetric metric, double longitude, double latitude, int source, Filter filter,
+                    boolean skipSelf, int[] heap, double[] heapDistances) {
+            int capacity = heap.length;
+            int size = 0;
+            int centerX = cellX(longitude), centerY = cellY(latitude);
+            int rings = Math.max(Math.max(centerX, width - 1 - centerX), Math.max(centerY, height - 1 - centerY));
+            for (int ring = 0; ring <= rings; ring++) {
+                //Every cell of this ring is at least (ring - 1) cells away from the point
+                if (size == capacity && ring > 1) {
+                    double gap = (ring - 1) * cellSize;
+                    double bound = metric == DistanceMetric.PLANAR ? gap : gap * gap;
+                    if (bound > heapDistances[0]) {
+                        break;
+                    }
+                }
+                int fromY = Math.max(centerY - ring, 0), toY = Math.min(centerY + ring, height - 1);
+                for (int y = fromY; y <= toY; y++) {
+                    boolean edgeRow = y == centerY - ring || y == centerY + ring;
+                    int step = edgeRow ? 1 : 2 * ring;
+                    for (int x = centerX - ring; x <= centerX + ring; x += step) {
+                        if (x < 0 || x >= width) {
+                            continue;
+                        }
+                        int cell = y * width + x;
+                        for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                            int target = points[i];
+                            if ((skipSelf && target == source) || (filter != null && !filter.accept(source, target))) {
+                                continue;
+                            }
+                            double distance = metric.distance(longitude, latitude, longitudes[target], latitudes[target]);
+                            if (size < capacity) {
+                                size = siftUp(heap, heapDistances, size, target, distance);
+                            } else if (farther(heapDistances[0], heap[0], distance, target)) {
+                                siftDown(heap, heapDistances, size, target, distance);
+                            }
+                        }
+                    }
+                }
+            }
+            //Heap sort, the farthest target moves to the end each round
+            for (int end = size - 1; end > 0; end--) {
+                int top = heap[0];
+                double topDistance = heapDistances[0];
+                siftDown(heap, heapDistances, end, heap[end], heapDistances[end]);
+                heap[end] = top;
+                heapDistances[end] = topDistance;
+            }
+            return size;
+        }
+
+        private static int siftUp(int[] heap, double[] heapDistances, int size, int target, double distance) {
+            int i = size;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!farther(distance, target, heapDistances[parent], heap[parent])) break;
+                heap[i] = heap[parent];
+                heapDistances[i] = heapDistances[parent];
+                i = parent;
+            }
+            heap[i] = target;
+            heapDistances[i] = distance;
+            return size + 1;
+        }
+
+        private static void siftDown(int[] heap, double[] heapDistances, int size, int target, double distance) {
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) break;
+                if (child + 1 < size && farther(heapDistances[child + 1], heap[child + 1], heapDistances[child], heap[child])) {
+                    child++;
+                }
+                if (!farther(heapDistances[child], heap[child], distance, target)) break;
+                heap[i] = heap[child];
+                heapDistances[i] = heapDistances[child];
+                i = child;
+            }
+            heap[i] = target;
+            heapDistances[i] = distance;
+        }
+
+        /**
+         * @return true if target a comes after target b, by distance and then by index
+         */
+        private static boolean farther(double distanceA, int a, double distanceB, int b) {
+            int c = Double.compare(distanceA, distanceB);
+            return c > 0 || (c == 0 && a > b);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2019-2025 CrowdOS Group, Northwestern Polytechnical University. <https://github.com/crowdosNWPU/CrowdOS>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * imitations under the License.
+ */
+package cn.crowdos.kernel.algorithms;
+
+import java.lang.ref.SoftReference;
+
+/**
+ * Per-thread arrays for the distance matrices of the assignment factories, reused from one
+ * assignment to the next instead of allocating two matrices per call.
+ * <p>
+ * A matrix handed out by {@link #workerTaskMatrix(int, int)} or {@link #taskTaskMatrix(int, double)}
+ * is only valid until the buffers are closed, or until the same method is called again:
+ * <pre>{@code
+ * try (DistanceBuffers buffers = DistanceBuffers.acquire()) {
+ *     FlatDistanceMatrix distances = buffers.workerTaskMatrix(workerNum, taskNum);
+ *     ...
+ * }
+ * }</pre>
+ * A thread that acquires the buffers again before closing them gets fresh ones. Arrays larger
+ * than {@link #getMaxRetained()} elements are dropped on close rather than kept for the thread,
+ * and the kept ones are only softly reachable between assignments, so the collector can take
+ * them back when memory runs low.
+ *
+ * @since 1.0.4
+ */
+public final class DistanceBuffers implements AutoCloseable {
+
+    /**
+     * The default of {@link #getMaxRetained()}: 2^27 elements, 1 GB, enough for the worker-task
+     * matrix of 10 000 workers and 10 000 tasks.
+     */
+    public static final int DEFAULT_MAX_RETAINED = 1 << 27;
+
+    private static volatile int maxRetained = DEFAULT_MAX_RETAINED;
+
+    private static final double[] EMPTY = new double[0];
+
+    private static final ThreadLocal<SoftReference<DistanceBuffers>> BUFFERS = new ThreadLocal<>();
+
+    private double[] workerTask = EMPTY;
+
+    private double[] taskTask = EMPTY;
+
+    private boolean inUse;
+
+    private DistanceBuffers() {
+    }
+
+    /**
+     * @return the buffers of the current thread, or new ones if they are in use
+     */
+    public static DistanceBuffers acquire() {
+        SoftReference<DistanceBuffers> retained = BUFFERS.get();
+        DistanceBuffers buffers = retained == null ? null : retained.get();
+        if (buffers == null) {
+            buffers = new DistanceBuffers();
+            BUFFERS.set(new SoftReference<>(buffers));
+        } else if (buffers.inUse) {
+            buffers = new DistanceBuffers();
+        }
+        buffers.inUse = true;
+        return buffers;
+    }
+
+    public FlatDistanceMatrix workerTaskMatrix(int rows, int columns) {
+        int length = FlatDistanceMatrix.checkedSize(rows, columns);
+        if (workerTask.length < length) {
+            workerTask = new double[length];
+        }
+        return new FlatDistanceMatrix(rows, columns, workerTask);
+    }
+
+    public TriangularDistanceMatrix taskTaskMatrix(int size, double diagonal) {
+        int length = TriangularDistanceMatrix.checkedSize(size);
+        if (taskTask.length < length) {
+            taskTask = new double[length];
+        }
+        return new TriangularDistanceMatrix(size, diagonal, taskTask);
+    }
+
+    /**
+     * @return the largest array, in elements, a thread keeps between assignments.
+     */
+    public static int getMaxRetained() {
+        return maxRetained;
+    }
+
+    /**
+     * Sets the largest array a thread keeps between assignments, e.g. lower when many threads
+     * assign large batches at once. Takes effect when buffers are closed.
+     *
+     * @param elements a number of elements, 0 to keep no arrays.
+     */
+    public static void setMaxRetained(int elements) {
+        if (elements < 0) throw new IllegalArgumentException("max retained must not be negative: " + elements);
+        maxRetained = elements;
+    }
+
+    @Override
+    public void close() {
+        int max = maxRetained;
+        if (workerTask.length > max) workerTask = EMPTY;
+        if (taskTask.length > max) taskTask = EMPTY;
+        inUse = false;
+    }
+}
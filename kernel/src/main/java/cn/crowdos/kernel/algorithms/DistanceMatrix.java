@@ -0,0 +1,204 @@
+/*
+ * Copyright 2019-2025 CrowdOS Group, Northwestern Polytechnical University. <https://github.com/crowdosNWPU/CrowdOS>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * imitations under the License.
+ */
+package cn.crowdos.kernel.algorithms;
+
+import java.io.Serializable;
+
+/**
+ * A read-only matrix of distances, the input of the assignment algorithms.
+ * <p>
+ * Rows are workers and columns tasks for a worker-task matrix; a task-task matrix is square.
+ * The algorithms only read it through {@link #get(int, int)}, so it can be backed by one flat
+ * array ({@link FlatDistanceMatrix}), by the upper triangle of a symmetric matrix
+ * ({@link TriangularDistanceMatrix}) or by the jagged arrays the algorithms used to take
+ * ({@link #of(double[][])}). Algorithms that rule pairs out as they go keep those marks in a
+ * {@link MaskedDistanceMatrix} instead of overwriting a copy of the distances. A
+ * {@link SparseDistanceMatrix} restricts the search to the nearest candidates of every task.
+ *
+ * @since 1.0.4
+ */
+public abstract class DistanceMatrix implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public abstract int rows();
+
+    public abstract int columns();
+
+    public abstract double get(int row, int column);
+
+    /**
+     * Copies a row into {@code out[0, columns())}.
+     *
+     * @param row the row
+     * @param out the destination, at least {@link #columns()} long
+     */
+    public void copyRow(int row, double[] out) {
+        int columns = columns();
+        for (int column = 0; column < columns; column++) {
+            out[column] = get(row, column);
+        }
+    }
+
+    /**
+     * Returns the distances as jagged arrays. A matrix built by {@link #of(double[][])} returns
+     * the arrays it wraps, other matrices a copy.
+     *
+     * @return the distances, {@code [rows()][columns()]}
+     */
+    public double[][] toArray() {
+        double[][] array = new double[rows()][columns()];
+        for (int row = 0; row < array.length; row++) {
+            copyRow(row, array[row]);
+        }
+        return array;
+    }
+
+    /**
+     * Returns this matrix with every diagonal element read as the given value. The algorithms use
+     * it to keep a task from being its own nearest neighbour.
+     *
+     * @param value the value of the diagonal
+     * @return this matrix if its diagonal already holds the value, otherwise a view
+     */
+    public DistanceMatrix withDiagonal(double value) {
+        int size = Math.min(rows(), columns());
+        for (int i = 0; i < size; i++) {
+            if (Double.compare(get(i, i), value) != 0) {
+                return new Diagonal(this, value);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Returns, for every column, the rows an algorithm needs to search, nearest first. Rows that
+     * are not listed are never picked for the column, although {@link #get(int, int)} still
+     * returns their distance.
+     *
+     * @return the candidates of the columns, or null if every row is a candidate, as in a dense matrix
+     */
+    public CandidateGraph columnCandidates() {
+        return null;
+    }
+
+    /**
+     * Returns, for every row, the columns an algorithm needs to search, nearest first.
+     *
+     * @return the candidates of the rows, or null if every column is a candidate, as in a dense matrix
+     * @see #columnCandidates()
+     */
+    public CandidateGraph rowCandidates() {
+        return null;
+    }
+
+    /**
+     * Wraps jagged arrays without copying them.
+     *
+     * @param matrix the distances, every row as long as the first one
+     * @return a matrix reading the arrays
+     */
+    public static DistanceMatrix of(double[][] matrix) {
+        return new Jagged(matrix);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{rows=" + rows() + ", columns=" + columns() + '}';
+    }
+
+    private static final class Jagged extends DistanceMatrix {
+
+        private static final long serialVersionUID = 1L;
+
+        private final double[][] matrix;
+
+        Jagged(double[][] matrix) {
+            this.matrix = matrix;
+        }
+
+        @Override
+        public int rows() {
+            return matrix.length;
+        }
+
+        @Override
+        public int columns() {
+            return matrix.length == 0 ? 0 : matrix[0].length;
+        }
+
+        @Override
+        public double get(int row, int column) {
+            return matrix[row][column];
+        }
+
+        @Override
+        public void copyRow(int row, double[] out) {
+            System.arraycopy(matrix[row], 0, out, 0, matrix[row].length);
+        }
+
+        @Override
+        public double[][] toArray() {
+            return matrix;
+        }
+    }
+
+    private static final class Diagonal extends DistanceMatrix {
+
+        private static final long serialVersionUID = 1L;
+
+        private final DistanceMatrix matrix;
+
+        private final double diagonal;
+
+        Diagonal(DistanceMatrix matrix, double diagonal) {
+            this.matrix = matrix;
+            this.diagonal = diagonal;
+        }
+
+        @Override
+        public int rows() {
+            return matrix.rows();
+        }
+
+        @Override
+        public int columns() {
+            return matrix.columns();
+        }
+
+        @Override
+        public double get(int row, int column) {
+            return row == column ? diagonal : matrix.get(row, column);
+        }
+
+        @Override
+        public void copyRow(int row, double[] out) {
+            matrix.copyRow(row, out);
+            if (row < columns()) {
+                out[row] = diagonal;
+            }
+        }
+
+        @Override
+        public CandidateGraph columnCandidates() {
+            return matrix.columnCandidates();
+        }
+
+        @Override
+        public CandidateGraph rowCandidates() {
+            return matrix.rowCandidates();
+        }
+    }
+}
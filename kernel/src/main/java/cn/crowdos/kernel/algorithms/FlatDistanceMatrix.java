@@ -0,0 +1,107 @@
+/*
+ * Copyright 2019-2025 CrowdOS Group, Northwestern Polytechnical University. <https://github.com/crowdosNWPU/CrowdOS>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * imitations under the License.
+ */
+package cn.crowdos.kernel.algorithms;
+
+import cn.crowdos.kernel.constraint.Coordinate;
+import cn.crowdos.kernel.constraint.DistanceMetric;
+
+import java.util.List;
+
+/**
+ * A distance matrix stored row by row in one {@code double[]}, see {@link DistanceBuffers}
+ * for reusing the array across assignments.
+ *
+ * @since 1.0.4
+ */
+public final class FlatDistanceMatrix extends DistanceMatrix {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int rows;
+
+    private final int columns;
+
+    //Element (row, column) is at row * columns + column, the array may be longer
+    private final double[] data;
+
+    public FlatDistanceMatrix(int rows, int columns) {
+        this(rows, columns, new double[checkedSize(rows, columns)]);
+    }
+
+    FlatDistanceMatrix(int rows, int columns, double[] data) {
+        this.rows = rows;
+        this.columns = columns;
+        this.data = data;
+    }
+
+    static int checkedSize(int rows, int columns) {
+        if (rows < 0 || columns < 0 || (long) rows * columns > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("invalid matrix size " + rows + "x" + columns);
+        }
+        return rows * columns;
+    }
+
+    @Override
+    public int rows() {
+        return rows;
+    }
+
+    @Override
+    public int columns() {
+        return columns;
+    }
+
+    @Override
+    public double get(int row, int column) {
+        return data[row * columns + column];
+    }
+
+    public void set(int row, int column, double distance) {
+        data[row * columns + column] = distance;
+    }
+
+    @Override
+    public void copyRow(int row, double[] out) {
+        System.arraycopy(data, row * columns, out, 0, columns);
+    }
+
+    /**
+     * Fills the matrix with the distances between the row points and the column points.
+     *
+     * @param metric the distance
+     * @param rowPoints one point per row
+     * @param columnPoints one point per column
+     * @return this matrix
+     */
+    public FlatDistanceMatrix fill(DistanceMetric metric, List<Coordinate> rowPoints, List<Coordinate> columnPoints) {
+        if (rowPoints.size() != rows || columnPoints.size() != columns) {
+            throw new IllegalArgumentException("expected " + rows + "x" + columns + " points");
+        }
+        double[] rowLongitudes = new double[rows], rowLatitudes = new double[rows];
+        double[] columnLongitudes = new double[columns], columnLatitudes = new double[columns];
+        unpack(rowPoints, rowLongitudes, rowLatitudes);
+        unpack(columnPoints, columnLongitudes, columnLatitudes);
+        metric.matrix(rowLongitudes, rowLatitudes, rows, columnLongitudes, columnLatitudes, columns, data);
+        return this;
+    }
+
+    static void unpack(List<Coordinate> points, double[] longitudes, double[] latitudes) {
+        for (int i = 0; i < longitudes.length; i++) {
+            Coordinate point = points.get(i);
+            longitudes[i] = point.getLongitude();
+            latitudes[i] = point.getLatitude();
+        }
+    }
+}
@@ -14,9 +14,14 @@
  */
 package cn.crowdos.kernel.algorithms.GGA_I;
 
+import cn.crowdos.kernel.algorithms.AlgoRandom;
+import cn.crowdos.kernel.algorithms.CandidateGraph;
+import cn.crowdos.kernel.algorithms.DistanceMatrix;
+
 import java.io.*;
-import java.security.SecureRandom;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 
 
@@ -31,9 +36,9 @@ public class GGA_I_Main {
 
     private int taskNum;
 
-    private double[][] distanceMatrix;
+    private DistanceMatrix distanceMatrix;
 
-    private double[][] taskDistanceMatrix;
+    private DistanceMatrix taskDistanceMatrix;
 
     private int q;
 
@@ -50,6 +55,20 @@ public class GGA_I_Main {
 
     private Map<Integer, List<Integer>> assignMap = new HashMap<>();
 
+    //Source of randomness, replace it with a seeded AlgoRandom for repeatable runs
+    private AlgoRandom random = new AlgoRandom();
+
+    //Pool on which the fitness of a population is evaluated
+    private ForkJoinPool forkJoinPool = ForkJoinPool.commonPool();
+
+    //Individuals of the previous generation, reused as copy targets by select
+    private final List<Individual> spareIndividuals = new ArrayList<>();
+
+    //Scratch buffers for crossover and repairIndividual
+    private int[] workerBuffer1;
+    private int[] workerBuffer2;
+    private int[] taskCountBuffer;
+
 
     /**
      * @param workerNum          Number of workers
@@ -61,14 +80,21 @@ public class GGA_I_Main {
      * @param q                  Constraints, how many tasks are assigned to each worker at most
      */
     public GGA_I_Main(int workerNum, int taskNum, double[][] distanceMatrix, double[][] taskDistanceMatrix, int[] p, int q) {
+        this(workerNum, taskNum, DistanceMatrix.of(distanceMatrix), DistanceMatrix.of(taskDistanceMatrix), p, q);
+    }
+
+    /**
+     * Same as the other constructor, on matrices of any layout. Neither matrix is modified,
+     * the diagonal of the task distance matrix is read as INF.
+     *
+     * @since 1.0.4
+     */
+    public GGA_I_Main(int workerNum, int taskNum, DistanceMatrix distanceMatrix, DistanceMatrix taskDistanceMatrix, int[] p, int q) {
         this.workerNum = workerNum;
         this.taskNum = taskNum;
         this.distanceMatrix = distanceMatrix;
-        this.taskDistanceMatrix = taskDistanceMatrix;
-        //Set the diagonal elements of the task matrix to INF
-        for (int i = 0; i < taskNum; i++) {
-            this.taskDistanceMatrix[i][i] = INF;
-        }
+        //Read the diagonal elements of the task matrix as INF
+        this.taskDistanceMatrix = taskDistanceMatrix.withDiagonal(INF);
         this.q = q;
         this.p = p;
     }
@@ -82,7 +108,7 @@ public class GGA_I_Main {
         //population
         List<Individual> population = new ArrayList<>();
         //Random number tool
-        Random random = new SecureRandom();
+        Random random = this.random;
         //Start computation time
         long startTime = System.currentTimeMillis();
         //Store the best individual
@@ -115,11 +141,13 @@ public class GGA_I_Main {
 
 
         //Reproduction bestIndividual. GetAssignMap () to assignMap
-        assignMap = new HashMap<>(bestIndividual.getAssignMap());
+        assignMap = bestIndividual.getAssignMap();
+        spareIndividuals.clear();
     }
 
     /**
      * Initializing the population
+     * Every random individual draws from its own split of the random source
      *
      * @param population The initial population list
      */
@@ -128,7 +156,7 @@ public class GGA_I_Main {
             if (i == 0) {
                 population.add(new Individual(workerNum, taskNum, distanceMatrix, taskDistanceMatrix, p, q, 0));
             } else {
-                population.add(new Individual(workerNum, taskNum, distanceMatrix, taskDistanceMatrix, p, q));
+                population.add(new Individual(workerNum, taskNum, distanceMatrix, taskDistanceMatrix, p, q, random.split()));
             }
 
         }
@@ -150,9 +178,11 @@ public class GGA_I_Main {
         //Store the best individual
         Individual bestIndividual = null;
 
-        //Calculate the fitness of the individual and select the best individual
+        //Calculate the fitness of all individuals in parallel
+        forkJoinPool.invoke(new FitnessAction(population, 0, population.size()));
+
+        //Select the best individual, in population order so that ties resolve as before
         for (Individual individual : population) {
-            individual.calculateDistanceAndFitness();
             totalFitness += individual.getFitness();
             if (individual.getFitness() > bestFitness) {
                 bestFitness = individual.getFitness();
@@ -173,6 +203,41 @@ public class GGA_I_Main {
         return bestIndividual;
     }
 
+    /**
+     * Evaluates the fitness of a slice of the population, splitting it in halves
+     * until a slice holds at most FITNESS_BATCH individuals.
+     */
+    private static class FitnessAction extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private static final int FITNESS_BATCH = 8;
+
+        private final List<Individual> population;
+
+        private final int from;
+
+        private final int to;
+
+        FitnessAction(List<Individual> population, int from, int to) {
+            this.population = population;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= FITNESS_BATCH) {
+                for (int i = from; i < to; i++) {
+                    population.get(i).calculateDistanceAndFitness();
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new FitnessAction(population, from, mid), new FitnessAction(population, mid, to));
+        }
+    }
+
     /**
      * Select excellent individuals, select the individual with the highest fitness value,
      * copy several individuals, and use roulette to select the remaining places from the remaining
@@ -198,7 +263,7 @@ public class GGA_I_Main {
 
         for (int i = 0; i < cloneNumOfBestIndividual; i++) {
 
-            newPopulation.add((Individual) deepClone(bestIndividual));
+            newPopulation.add(copyIndividual(bestIndividual));
         }
 
 
@@ -209,12 +274,15 @@ public class GGA_I_Main {
                 sumP += individual.getSurvivalRate();
                 if (sumP >= p) {
                     //Selecting individuals
-                    newPopulation.add((Individual) deepClone(individual));
+                    newPopulation.add(copyIndividual(individual));
                     break;
                 }
             }
         }
 
+        //The old individuals become copy targets for the next generation.
+        //The best individual is not among them, the caller may keep it.
+        spareIndividuals.addAll(population);
         population.clear();
         population.addAll(newPopulation);
 
@@ -222,6 +290,19 @@ public class GGA_I_Main {
         return bestIndividual;
     }
 
+    /**
+     * Copy an individual into a spare individual of an earlier generation, or into a new one
+     *
+     * @param individual the individual to copy
+     * @return {@code Individual}
+     */
+    private Individual copyIndividual(Individual individual) {
+        if (spareIndividuals.isEmpty()) {
+            return new Individual(individual);
+        }
+        return spareIndividuals.remove(spareIndividuals.size() - 1).copyFrom(individual);
+    }
+
     /**
      * Cross over
      * When the random number When pcl is smaller than pch,
@@ -249,35 +330,41 @@ public class GGA_I_Main {
             //Find a random index, that is, find a random gene segment
             int task = random.nextInt(taskNum);
 
+            if (workerBuffer1 == null || workerBuffer1.length < workerNum) {
+                workerBuffer1 = new int[workerNum];
+                workerBuffer2 = new int[workerNum];
+            }
             //In individual 1, which workers are there for this task
-            List<Integer> workerList1 = new ArrayList<>();
+            int[] workerList1 = workerBuffer1;
+            int workerNum1 = 0;
             //In individual 2, which workers are there for this task
-            List<Integer> workerList2 = new ArrayList<>();
-            for (int k = 0; k < workerNum; k++) {
-                if (individualI.getAssignMap().get(k).contains(task)) {
-                    workerList1.add(k);
+            int[] workerList2 = workerBuffer2;
+            int workerNum2 = 0;
+            CandidateGraph candidates = distanceMatrix.columnCandidates();
+            //With candidates, only candidates of the task are ever given the task
+            int holderNum = candidates == null ? workerNum : candidates.size(task);
+            for (int rank = 0; rank < holderNum; rank++) {
+                int k = candidates == null ? rank : candidates.neighbour(task, rank);
+                if (individualI.holdsTask(k, task)) {
+                    workerList1[workerNum1++] = k;
                 }
-                if (individualJ.getAssignMap().get(k).contains(task)) {
-                    workerList2.add(k);
+                if (individualJ.holdsTask(k, task)) {
+                    workerList2[workerNum2++] = k;
                 }
             }
             //Swap the elements of workerList1 and workerList2, that is, swap the workers of the two tasks
-            for (int k = 0; k < workerList1.size(); k++) {
-                int worker1 = workerList1.get(k);
-                individualI.getAssignMap().get(worker1).remove((Integer) task);
+            for (int k = 0; k < workerNum1; k++) {
+                individualI.removeTask(workerList1[k], task);
             }
-            for (int k = 0; k < workerList2.size(); k++) {
-                int worker2 = workerList2.get(k);
-                individualJ.getAssignMap().get(worker2).remove((Integer) task);
+            for (int k = 0; k < workerNum2; k++) {
+                individualJ.removeTask(workerList2[k], task);
             }
 
-            for (int k = 0; k < workerList1.size(); k++) {
-                int worker1 = workerList1.get(k);
-                individualJ.getAssignMap().get(worker1).add(task);
+            for (int k = 0; k < workerNum1; k++) {
+                individualJ.addTask(workerList1[k], task);
             }
-            for (int k = 0; k < workerList2.size(); k++) {
-                int worker2 = workerList2.get(k);
-                individualI.getAssignMap().get(worker2).add(task);
+            for (int k = 0; k < workerNum2; k++) {
+                individualI.addTask(workerList2[k], task);
             }
 
             //After crossover, it may happen that the number of tasks of workers exceeds the upper limit of 1,
@@ -292,47 +379,76 @@ public class GGA_I_Main {
     }
 
     /**
-     * The individuals are crossed and repaired to satisfy the constraints
+     * The individuals are crossed and repaired to satisfy the constraints.
+     * If the distance matrix has candidates, a task short of workers gets one of its candidates,
+     * or stays short when none of them can take it.
      *
      * @param individual individual
      */
     public void repairIndividual(Individual individual) {
 
-        Random random = new SecureRandom();
-
         for (int i = 0; i < workerNum; i++) {
-            List<Integer> taskList = individual.getAssignMap().get(i);
-            if (taskList.size() > q) {
+            int size = individual.getTaskCount(i);
+            if (size > q) {
                 //If the worker has more than one task, which can be the maximum number,
                 // then a random task is removed
-                int index = random.nextInt(taskList.size());
-                taskList.remove(index);
+                int index = random.nextInt(size);
+                individual.removeTaskAt(i, index);
+            }
+        }
+
+        //Count how many workers hold each task.
+        //Adding a worker to one task below does not change the count of another task.
+        if (taskCountBuffer == null || taskCountBuffer.length < taskNum) {
+            taskCountBuffer = new int[taskNum];
+        }
+        int[] count = taskCountBuffer;
+        Arrays.fill(count, 0, taskNum, 0);
+        for (int k = 0; k < workerNum; k++) {
+            for (int j = 0; j < individual.getTaskCount(k); j++) {
+                int task = individual.getTask(k, j);
+                //A worker holding a task twice counts once
+                if (indexOfTask(individual, k, task) == j) {
+                    count[task]++;
+                }
             }
         }
 
         //The unassigned tasks are assigned to the workers
-        int count = 0;
         int workerIndex;
+        CandidateGraph candidates = distanceMatrix.columnCandidates();
         for (int i = 0; i < taskNum; i++) {
-            count = 0;
-            for (Map.Entry<Integer, List<Integer>> entry : individual.getAssignMap().entrySet()) {
-                if (entry.getValue().contains(i)) {
-                    count++;
+            if (candidates != null) {
+                if (count[i] < p[i]) {
+                    workerIndex = individual.randomCandidate(candidates, i, -1, random);
+                    if (workerIndex != -1) {
+                        individual.addTask(workerIndex, i);
+                    }
                 }
+                continue;
             }
             //If the task is not fully assigned
-            while (count < p[i]) {
+            while (count[i] < p[i]) {
                 workerIndex = random.nextInt(workerNum);
-                if (individual.getAssignMap().get(workerIndex).size() >= q ||
-                        individual.getAssignMap().get(workerIndex).contains(i)) {
+                if (individual.getTaskCount(workerIndex) >= q ||
+                        individual.holdsTask(workerIndex, i)) {
                     continue;
                 }
-                individual.getAssignMap().get(workerIndex).add(i);
+                individual.addTask(workerIndex, i);
                 break;
             }
         }
     }
 
+    private static int indexOfTask(Individual individual, int workerIndex, int taskIndex) {
+        for (int j = 0; j < individual.getTaskCount(workerIndex); j++) {
+            if (individual.getTask(workerIndex, j) == taskIndex) {
+                return j;
+            }
+        }
+        return -1;
+    }
+
 
     /**
      * Mutation: Randomly swapping two elements of an individual gene
@@ -346,7 +462,7 @@ public class GGA_I_Main {
             // the genes of the individual are mutated
             if (random.nextDouble() < mutateRate) {
                 //Two elements in an individual gene are exchanged
-                individual.mutation2();
+                individual.mutation2(random);
 
             }
         }
@@ -357,7 +473,9 @@ public class GGA_I_Main {
      *
      * @param srcObject srcObject
      * @return Object
+     * @deprecated individuals are copied with {@link Individual#copyFrom(Individual)}
      */
+    @Deprecated
     public Object deepClone(Object srcObject) {
         ByteArrayOutputStream bos = null;
         ObjectOutputStream oos = null;
@@ -409,19 +527,19 @@ public class GGA_I_Main {
     }
 
     public double[][] getDistanceMatrix() {
-        return distanceMatrix;
+        return distanceMatrix.toArray();
     }
 
     public void setDistanceMatrix(double[][] distanceMatrix) {
-        this.distanceMatrix = distanceMatrix;
+        this.distanceMatrix = DistanceMatrix.of(distanceMatrix);
     }
 
     public double[][] getTaskDistanceMatrix() {
-        return taskDistanceMatrix;
+        return taskDistanceMatrix.toArray();
     }
 
     public void setTaskDistanceMatrix(double[][] taskDistanceMatrix) {
-        this.taskDistanceMatrix = taskDistanceMatrix;
+        this.taskDistanceMatrix = DistanceMatrix.of(taskDistanceMatrix);
     }
 
     public int getQ() {
@@ -488,13 +606,29 @@ public class GGA_I_Main {
         this.assignMap = assignMap;
     }
 
+    public AlgoRandom getRandom() {
+        return random;
+    }
+
+    public void setRandom(AlgoRandom random) {
+        this.random = random;
+    }
+
+    public ForkJoinPool getForkJoinPool() {
+        return forkJoinPool;
+    }
+
+    public void setForkJoinPool(ForkJoinPool forkJoinPool) {
+        this.forkJoinPool = forkJoinPool;
+    }
+
     @Override
     public String toString() {
         return "GaApi{" +
                 "workerNum=" + workerNum +
                 ", taskNum=" + taskNum +
-                ", distanceMatrix=" + Arrays.toString(distanceMatrix) +
-                ", taskDistanceMatrix=" + Arrays.toString(taskDistanceMatrix) +
+                ", distanceMatrix=" + distanceMatrix +
+                ", taskDistanceMatrix=" + taskDistanceMatrix +
                 ", q=" + q +
                 ", p=" + Arrays.toString(p) +
                 ", threshold=" + threshold +
@@ -14,15 +14,18 @@
  */
 package cn.crowdos.kernel.algorithms.GGA_I;
 
-import cn.crowdos.kernel.system.resource.ParticipantPool;
+import cn.crowdos.kernel.algorithms.AlgoRandom;
+import cn.crowdos.kernel.algorithms.CandidateGraph;
+import cn.crowdos.kernel.algorithms.DistanceMatrix;
 
 import java.io.Serializable;
-import java.security.SecureRandom;
 import java.util.*;
 
 /**
  * individual
- * Implement Serializable interface in order to "serialize deep copy"
+ * The chromosome is kept in a flat int array: worker i owns the slots
+ * [i * stride, i * stride + taskCount[i]) and lists its tasks in visiting order.
+ * Individuals are copied with {@link #copyFrom(Individual)}, which only moves two arrays.
  *
  * @author wushengjie
  */
@@ -31,7 +34,13 @@ public class Individual implements Serializable {
 
 
     //Chromosome sequence, which is the task allocation result
-    private Map<Integer, List<Integer>> assignMap = new HashMap<>();
+    private int[] genes;
+
+    //Number of tasks held by each worker
+    private int[] taskCount;
+
+    //Slots per worker, q plus one spare slot for the overflow a crossover may leave before repair
+    private int stride;
 
     //Number of workers
     private int workerNum;
@@ -46,10 +55,10 @@ public class Individual implements Serializable {
     private int q;
 
     //Distance matrix
-    double[][] distanceMatrix;
+    DistanceMatrix distanceMatrix;
 
     //Task distance matrix
-    double[][] taskDistanceMatrix;
+    DistanceMatrix taskDistanceMatrix;
 
     //Distance
     private double distance;
@@ -71,6 +80,31 @@ public class Individual implements Serializable {
      * @param q q
      */
     public Individual(int workerNum,int taskNum,double[][] distanceMatrix,double[][] taskDistanceMatrix,int[] p,int q) {
+        this(workerNum, taskNum, distanceMatrix, taskDistanceMatrix, p, q, new AlgoRandom());
+    }
+
+    /**
+     *
+     * @param workerNum workerNum
+     * @param taskNum taskNum
+     * @param distanceMatrix distanceMatrix
+     * @param taskDistanceMatrix taskDistanceMatrix
+     * @param p p
+     * @param q q
+     * @param random source of the random genes
+     */
+    public Individual(int workerNum,int taskNum,double[][] distanceMatrix,double[][] taskDistanceMatrix,int[] p,int q,
+                      Random random) {
+        this(workerNum, taskNum, DistanceMatrix.of(distanceMatrix), DistanceMatrix.of(taskDistanceMatrix), p, q, random);
+    }
+
+    /**
+     * Same as the other constructor, on matrices of any layout.
+     *
+     * @since 1.0.4
+     */
+    public Individual(int workerNum,int taskNum,DistanceMatrix distanceMatrix,DistanceMatrix taskDistanceMatrix,int[] p,int q,
+                      Random random) {
 
         this.workerNum = workerNum;
         this.taskNum = taskNum;
@@ -79,14 +113,10 @@ public class Individual implements Serializable {
         this.p = p;
         this.q = q;
 
+        //Initializing the chromosome
+        initGenes();
 
-        //Initializing the Map
-        for (int i = 0; i < workerNum; i++) {
-            this.assignMap.put(i, new ArrayList<>());
-
-        }
-
-        initGenesByRandom();
+        initGenesByRandom(random);
 
     }
 
@@ -102,6 +132,16 @@ public class Individual implements Serializable {
      */
     public Individual(int workerNum,int taskNum,double[][] distanceMatrix,double[][] taskDistanceMatrix,
                       int[] p,int q,int greedyType) {
+        this(workerNum, taskNum, DistanceMatrix.of(distanceMatrix), DistanceMatrix.of(taskDistanceMatrix), p, q, greedyType);
+    }
+
+    /**
+     * Same as the other constructor, on matrices of any layout.
+     *
+     * @since 1.0.4
+     */
+    public Individual(int workerNum,int taskNum,DistanceMatrix distanceMatrix,DistanceMatrix taskDistanceMatrix,
+                      int[] p,int q,int greedyType) {
         this.workerNum = workerNum;
         this.taskNum = taskNum;
         this.distanceMatrix = distanceMatrix;
@@ -109,26 +149,95 @@ public class Individual implements Serializable {
         this.p = p;
         this.q = q;
 
+        //Initializing the chromosome
+        initGenes();
 
-        //Initializing the Map
-        for (int i = 0; i < workerNum; i++) {
-            this.assignMap.put(i, new ArrayList<>());
+        initGenesByNearestFirst();
 
-        }
+    }
 
-        initGenesByNearestFirst();
+    /**
+     * Copy constructor, the matrices and p are shared, the chromosome is copied
+     *
+     * @param other the individual to copy
+     */
+    public Individual(Individual other) {
+        copyFrom(other);
+    }
 
+    /**
+     * Allocate an empty chromosome
+     */
+    private void initGenes() {
+        stride = q + 1;
+        genes = new int[workerNum * stride];
+        taskCount = new int[workerNum];
+    }
+
+    /**
+     * Overwrite this individual with a copy of another one.
+     * The arrays are reused when the dimensions match, so a population can be
+     * refilled generation after generation without allocating.
+     *
+     * @param other the individual to copy
+     * @return this individual
+     */
+    public Individual copyFrom(Individual other) {
+        if (genes == null || genes.length != other.genes.length) {
+            genes = new int[other.genes.length];
+        }
+        if (taskCount == null || taskCount.length != other.taskCount.length) {
+            taskCount = new int[other.taskCount.length];
+        }
+        System.arraycopy(other.genes, 0, genes, 0, genes.length);
+        System.arraycopy(other.taskCount, 0, taskCount, 0, taskCount.length);
+        stride = other.stride;
+        workerNum = other.workerNum;
+        taskNum = other.taskNum;
+        p = other.p;
+        q = other.q;
+        distanceMatrix = other.distanceMatrix;
+        taskDistanceMatrix = other.taskDistanceMatrix;
+        distance = other.distance;
+        fitness = other.fitness;
+        survivalRate = other.survivalRate;
+        return this;
     }
 
     /**
      * Initialize the genes randomly
      */
     public void initGenesByRandom() {
+        initGenesByRandom(new AlgoRandom());
+    }
+
+    /**
+     * Initialize the genes randomly. If the distance matrix has candidates, the workers of a task
+     * are drawn from its candidates, and a task keeps fewer workers when its candidates run out.
+     *
+     * @param random random
+     */
+    public void initGenesByRandom(Random random) {
 
-        Random random = new SecureRandom();
-        int taskIndex;
         int workerIndex;
 
+        CandidateGraph candidates = distanceMatrix.columnCandidates();
+        if (candidates != null) {
+            for (int i = 0; i < taskNum; i++) {
+                for (int j = 0; j < p[i]; j++) {
+                    workerIndex = randomCandidate(candidates, i, -1, random);
+                    if (workerIndex == -1) {
+                        break;
+                    }
+                    addTask(workerIndex, i);
+                }
+            }
+            for (int i = 0; i < workerNum; i++) {
+                shuffleTasks(i, random);
+            }
+            return;
+        }
+
         //Assign tasks to workers
         for (int i = 0; i < taskNum; i++) {
 
@@ -137,12 +246,12 @@ public class Individual implements Serializable {
                 workerIndex = random.nextInt(workerNum);
 
 
-                if(assignMap.get(workerIndex).size() >= q || assignMap.get(workerIndex).contains(i)){
+                if(taskCount[workerIndex] >= q || holdsTask(workerIndex, i)){
                     j--;
 
                 }
                 else {
-                    assignMap.get(workerIndex).add(i);
+                    addTask(workerIndex, i);
 
                 }
 
@@ -150,9 +259,9 @@ public class Individual implements Serializable {
         }
 
 
-        //Iterate over the assignMap and shuffle the list
+        //Iterate over the workers and shuffle their task lists
         for (int i = 0; i < workerNum; i++) {
-            Collections.shuffle(assignMap.get(i));
+            shuffleTasks(i, random);
         }
 
 
@@ -164,20 +273,14 @@ public class Individual implements Serializable {
      */
     public void initGenesByNearestFirst(){
 
-        //Make a copy of the distance matrix
-        double[][] distanceMatrixCopy = new double[workerNum][taskNum];
-        for (int i = 0; i < workerNum; i++) {
-            for (int j = 0; j < taskNum; j++) {
-                distanceMatrixCopy[i][j] = distanceMatrix[i][j];
-            }
-        }
-        NearestFirst nearestFirst = new NearestFirst(workerNum, taskNum, distanceMatrixCopy, p, q);
+        //NearestFirst masks the pairs it rules out, the shared distance matrix is not modified
+        NearestFirst nearestFirst = new NearestFirst(workerNum, taskNum, distanceMatrix, p, q);
         nearestFirst.taskAssign();
         Map<Integer,List<Integer>> assignMapTemp = nearestFirst.getAssignMap();
-        //Copy assignMapTemp to assignMap
+        //Copy assignMapTemp to the chromosome
         for (int i = 0; i < workerNum; i++) {
             for (int j = 0; j < assignMapTemp.get(i).size(); j++) {
-                assignMap.get(i).add(assignMapTemp.get(i).get(j));
+                addTask(i, assignMapTemp.get(i).get(j));
             }
         }
 
@@ -191,20 +294,21 @@ public class Individual implements Serializable {
     public void calculateDistanceAndFitness() {
 
         distance = 0;
-        //Iterate over the assignMap and calculate the distance
+        //Iterate over the workers and calculate the distance
         for (int i = 0; i < workerNum; i++) {
-            List<Integer> taskList = assignMap.get(i);
-            if(taskList.size() == 0){
+            int count = taskCount[i];
+            if(count == 0){
                 continue;
             }
+            int offset = i * stride;
             //Calculate the distance of worker i to the first task
-            distance += distanceMatrix[i][taskList.get(0)];
+            distance += distanceMatrix.get(i, genes[offset]);
             //Calculate the distance of worker i from the first task to the last task
-            for (int j = 0; j < taskList.size() - 1; j++) {
-                distance += taskDistanceMatrix[taskList.get(j)][taskList.get(j+1)];
+            for (int j = offset; j < offset + count - 1; j++) {
+                distance += taskDistanceMatrix.get(genes[j], genes[j + 1]);
             }
             //Calculate the distance of worker i from the last task to worker i
-            distance += distanceMatrix[i][taskList.get(taskList.size()-1)];
+            distance += distanceMatrix.get(i, genes[offset + count - 1]);
         }
 
         //Calculating fitness
@@ -212,26 +316,49 @@ public class Individual implements Serializable {
     }
 
     /**
-     * Mutation operation 1: Randomly swap a task of one worker with a task of another
-     * worker currently buggy, trapped in an endless loop
+     * Mutation operation 1: Randomly copy the first task of one worker to the front of another
+     * worker. Workers that are full or already hold the task are not chosen as worker 2;
+     * the loop still never ends when no such worker exists. If the distance matrix has
+     * candidates, worker 2 is one of the candidates of the task, and nothing happens when
+     * none of them can take it.
      */
     public void mutation() {
+        mutation(new AlgoRandom());
+    }
+
+    /**
+     * Mutation operation 1, see {@link #mutation()}
+     *
+     * @param random random
+     */
+    public void mutation(Random random) {
 
-        Random random = new SecureRandom();
         int workerIndex1;
         int workerIndex2;
 
         //A worker 1 is randomly selected and the task list is nonempty
         while(true){
             workerIndex1 = random.nextInt(workerNum);
-            if (assignMap == null){
-                    throw new NullPointerException("workerindex is null");
-            }
-            if (assignMap.get(workerIndex1).size() > 0){
+            if (taskCount[workerIndex1] > 0){
                 break;
             }
         }
 
+        //Get the first task of worker 1
+        int taskIndex = getTask(workerIndex1, 0);
+
+        CandidateGraph candidates = distanceMatrix.columnCandidates();
+        if (candidates != null) {
+            workerIndex2 = randomCandidate(candidates, taskIndex, workerIndex1, random);
+            if (workerIndex2 != -1) {
+                int offset = workerIndex2 * stride;
+                System.arraycopy(genes, offset, genes, offset + 1, taskCount[workerIndex2]);
+                genes[offset] = taskIndex;
+                taskCount[workerIndex2]++;
+            }
+            return;
+        }
+
         while(true) {
             //Choose a worker 2 at random
             workerIndex2 = random.nextInt(workerNum);
@@ -241,15 +368,15 @@ public class Individual implements Serializable {
                 workerIndex2 = random.nextInt(workerNum);
             }
 
-            //Get the first task of worker 1
-            int taskIndex = assignMap.get(workerIndex1).get(0);
-
-            //If the task list of worker 2 does not contain the first task of worker 1,
+            //If worker 2 can take the first task of worker 1,
             // then break out of the loop, otherwise continue selecting worker 2
-            if (assignMap.get(workerIndex2).contains(taskIndex)) {
+            if (taskCount[workerIndex2] >= q || holdsTask(workerIndex2, taskIndex)) {
                 continue;
             }
-            assignMap.get(workerIndex2).add(0, taskIndex);
+            int offset = workerIndex2 * stride;
+            System.arraycopy(genes, offset, genes, offset + 1, taskCount[workerIndex2]);
+            genes[offset] = taskIndex;
+            taskCount[workerIndex2]++;
             break;
         }
 
@@ -261,41 +388,190 @@ public class Individual implements Serializable {
      *Mutation Operation 2: Randomly select a worker and shuffle its task list
      */
     public void mutation2() {
-        Random random = new SecureRandom();
+        mutation2(new AlgoRandom());
+    }
+
+    /**
+     *Mutation Operation 2, see {@link #mutation2()}
+     *
+     * @param random random
+     */
+    public void mutation2(Random random) {
         int workerIndex;
         while(true){
             workerIndex = random.nextInt(workerNum);
-            if (assignMap.get(workerIndex).size() > 0){
+            if (taskCount[workerIndex] > 0){
                 break;
             }
         }
-        Collections.shuffle(assignMap.get(workerIndex));
+        shuffleTasks(workerIndex, random);
+    }
+
+    /**
+     * Shuffle the task list of a worker in place, in the same way as Collections.shuffle
+     *
+     * @param workerIndex workerIndex
+     * @param random random
+     */
+    private void shuffleTasks(int workerIndex, Random random) {
+        int offset = workerIndex * stride;
+        for (int i = taskCount[workerIndex]; i > 1; i--) {
+            int j = offset + random.nextInt(i);
+            int tmp = genes[offset + i - 1];
+            genes[offset + i - 1] = genes[j];
+            genes[j] = tmp;
+        }
+    }
+
+    /**
+     * Draws one of the candidate workers of a task that has room for it and does not hold it yet.
+     *
+     * @param candidates the candidate workers of every task
+     * @param taskIndex the index of the task
+     * @param excludedWorker a worker not to draw, -1 for none
+     * @param random random
+     * @return the index of the worker, -1 if no candidate can take the task
+     */
+    int randomCandidate(CandidateGraph candidates, int taskIndex, int excludedWorker, Random random) {
+        int size = candidates.size(taskIndex);
+        int eligible = 0;
+        for (int rank = 0; rank < size; rank++) {
+            if (canTake(candidates.neighbour(taskIndex, rank), taskIndex, excludedWorker)) {
+                eligible++;
+            }
+        }
+        if (eligible == 0) {
+            return -1;
+        }
+        int chosen = random.nextInt(eligible);
+        for (int rank = 0; ; rank++) {
+            int workerIndex = candidates.neighbour(taskIndex, rank);
+            if (canTake(workerIndex, taskIndex, excludedWorker) && chosen-- == 0) {
+                return workerIndex;
+            }
+        }
+    }
+
+    private boolean canTake(int workerIndex, int taskIndex, int excludedWorker) {
+        return workerIndex != excludedWorker && taskCount[workerIndex] < q && !holdsTask(workerIndex, taskIndex);
     }
 
+    /**
+     * @param workerIndex workerIndex
+     * @return the number of tasks held by the worker
+     */
+    public int getTaskCount(int workerIndex) {
+        return taskCount[workerIndex];
+    }
+
+    /**
+     * @param workerIndex workerIndex
+     * @param position position in the task list of the worker
+     * @return the task at that position
+     */
+    public int getTask(int workerIndex, int position) {
+        return genes[workerIndex * stride + position];
+    }
+
+    /**
+     * @param workerIndex workerIndex
+     * @param taskIndex taskIndex
+     * @return true if the task list of the worker contains the task
+     */
+    public boolean holdsTask(int workerIndex, int taskIndex) {
+        int offset = workerIndex * stride;
+        for (int i = offset; i < offset + taskCount[workerIndex]; i++) {
+            if (genes[i] == taskIndex) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Append a task to the task list of a worker. One task more than q fits,
+     * the individual must then be repaired.
+     *
+     * @param workerIndex workerIndex
+     * @param taskIndex taskIndex
+     */
+    public void addTask(int workerIndex, int taskIndex) {
+        if (taskCount[workerIndex] == stride) {
+            throw new IllegalStateException("worker " + workerIndex + " already holds " + stride + " tasks");
+        }
+        genes[workerIndex * stride + taskCount[workerIndex]++] = taskIndex;
+    }
+
+    /**
+     * Remove the first occurrence of a task from the task list of a worker
+     *
+     * @param workerIndex workerIndex
+     * @param taskIndex taskIndex
+     * @return true if the task was found
+     */
+    public boolean removeTask(int workerIndex, int taskIndex) {
+        int offset = workerIndex * stride;
+        for (int i = 0; i < taskCount[workerIndex]; i++) {
+            if (genes[offset + i] == taskIndex) {
+                removeTaskAt(workerIndex, i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Remove the task at the given position of the task list of a worker
+     *
+     * @param workerIndex workerIndex
+     * @param position position in the task list of the worker
+     */
+    public void removeTaskAt(int workerIndex, int position) {
+        int offset = workerIndex * stride + position;
+        System.arraycopy(genes, offset + 1, genes, offset, taskCount[workerIndex] - position - 1);
+        taskCount[workerIndex]--;
+    }
+
+    /**
+     * Returns the chromosome as a map from worker to task list.
+     * The map is a copy, changes to it do not affect the individual.
+     *
+     * @return {@code Map<Integer, List<Integer>>}
+     */
     public Map<Integer, List<Integer>> getAssignMap() {
+        Map<Integer, List<Integer>> assignMap = new HashMap<>();
+        for (int i = 0; i < workerNum; i++) {
+            List<Integer> taskList = new ArrayList<>(taskCount[i]);
+            for (int j = 0; j < taskCount[i]; j++) {
+                taskList.add(getTask(i, j));
+            }
+            assignMap.put(i, taskList);
+        }
         return assignMap;
     }
 
+    /**
+     * Replace the chromosome with the given worker to task lists
+     *
+     * @param assignMap assignMap
+     */
     public void setAssignMap(Map<Integer, List<Integer>> assignMap) {
-        this.assignMap = assignMap;
+        Arrays.fill(taskCount, 0);
+        for (Map.Entry<Integer, List<Integer>> entry : assignMap.entrySet()) {
+            for (Integer task : entry.getValue()) {
+                addTask(entry.getKey(), task);
+            }
+        }
     }
 
     public int getWorkerNum() {
         return workerNum;
     }
 
-    public void setWorkerNum(int workerNum) {
-        this.workerNum = workerNum;
-    }
-
     public int getTaskNum() {
         return taskNum;
     }
 
-    public void setTaskNum(int taskNum) {
-        this.taskNum = taskNum;
-    }
-
     public int[] getP() {
         return p;
     }
@@ -308,24 +584,20 @@ public class Individual implements Serializable {
         return q;
     }
 
-    public void setQ(int q) {
-        this.q = q;
-    }
-
     public double[][] getDistanceMatrix() {
-        return distanceMatrix;
+        return distanceMatrix.toArray();
     }
 
     public void setDistanceMatrix(double[][] distanceMatrix) {
-        this.distanceMatrix = distanceMatrix;
+        this.distanceMatrix = DistanceMatrix.of(distanceMatrix);
     }
 
     public double[][] getTaskDistanceMatrix() {
-        return taskDistanceMatrix;
+        return taskDistanceMatrix.toArray();
     }
 
     public void setTaskDistanceMatrix(double[][] taskDistanceMatrix) {
-        this.taskDistanceMatrix = taskDistanceMatrix;
+        this.taskDistanceMatrix = DistanceMatrix.of(taskDistanceMatrix);
     }
 
     public double getDistance() {
@@ -355,13 +627,13 @@ public class Individual implements Serializable {
     @Override
     public String toString() {
         return "Individual{" +
-                "assignMap=" + assignMap +
+                "assignMap=" + getAssignMap() +
                 ", workerNum=" + workerNum +
                 ", taskNum=" + taskNum +
                 ", p=" + Arrays.toString(p) +
                 ", q=" + q +
-                ", distanceMatrix=" + Arrays.toString(distanceMatrix) +
-                ", taskDistanceMatrix=" + Arrays.toString(taskDistanceMatrix) +
+                ", distanceMatrix=" + distanceMatrix +
+                ", taskDistanceMatrix=" + taskDistanceMatrix +
                 ", distance=" + distance +
                 ", fitness=" + fitness +
                 ", survivalRate=" + survivalRate +
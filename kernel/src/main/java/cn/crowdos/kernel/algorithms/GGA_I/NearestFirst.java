@@ -14,6 +14,10 @@
  */
 package cn.crowdos.kernel.algorithms.GGA_I;
 
+import cn.crowdos.kernel.algorithms.CandidateGraph;
+import cn.crowdos.kernel.algorithms.DistanceMatrix;
+import cn.crowdos.kernel.algorithms.MaskedDistanceMatrix;
+
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -33,7 +37,8 @@ public class NearestFirst {
     private final int workerNum;
 
     private final int taskNum;
-    private final double[][] distanceMatrix;
+    //Pairs that are ruled out are masked as INF, the distances themselves are not modified
+    private final MaskedDistanceMatrix distanceMatrix;
 
     private int q = 3;
     private final int[] p;
@@ -43,9 +48,16 @@ public class NearestFirst {
 
 
     public NearestFirst(int workerNum,int taskNum, double[][] distanceMatrix,int[] p , int q) {
+        this(workerNum, taskNum, DistanceMatrix.of(distanceMatrix), p, q);
+    }
+
+    /**
+     * @since 1.0.4
+     */
+    public NearestFirst(int workerNum,int taskNum, DistanceMatrix distanceMatrix,int[] p , int q) {
         this.workerNum = workerNum;
         this.taskNum = taskNum;
-        this.distanceMatrix = distanceMatrix;
+        this.distanceMatrix = new MaskedDistanceMatrix(distanceMatrix);
         this.q = q;
         this.p = p;
 
@@ -61,6 +73,12 @@ public class NearestFirst {
      */
     public void taskAssign() {
 
+        CandidateGraph candidates = distanceMatrix.columnCandidates();
+        if (candidates != null) {
+            assignCandidates(candidates);
+            return;
+        }
+
         int[] index;
 
         //Worker serial number
@@ -87,16 +105,12 @@ public class NearestFirst {
                 //The worker cannot accept any more tasks, so set the elements of this row to the maximum value
                 if (assignMap.get(workerIndex).size() >= q){
 
-                    for (int i = 0; i < taskNum; i++) {
-                        distanceMatrix[workerIndex][i] = INF;
-                    }
+                    distanceMatrix.maskRow(workerIndex);
                 }
                 //The task is no longer a worker, and the column element is set to maximum
                 if (countTaskIndex(taskIndex) == p[taskIndex]){
 
-                    for (int i = 0; i < workerNum; i++) {
-                        distanceMatrix[i][taskIndex] = INF;
-                    }
+                    distanceMatrix.maskColumn(taskIndex);
                 }
                 //Skip the current loop without assigning tasks
                 continue;
@@ -105,7 +119,7 @@ public class NearestFirst {
             //Join the allocation result Map
             assignMap.get(workerIndex).add(taskIndex);
             //Reset matrix
-            distanceMatrix[workerIndex][taskIndex] = INF;
+            distanceMatrix.mask(workerIndex, taskIndex);
 
         }
 
@@ -143,6 +157,76 @@ public class NearestFirst {
     }
 
 
+    /**
+     * Same as the loop of {@link #taskAssign()} on the candidate pairs only. Masks are never
+     * lifted, so repeatedly taking the smallest unmasked pair visits the pairs in ascending
+     * order of distance, then worker, then task; a single pass over the sorted pairs does that
+     * without rescanning the matrix. Tasks whose candidates are all full stay short of workers.
+     */
+    private void assignCandidates(CandidateGraph candidates) {
+        int edges = candidates.edges();
+        int[] workers = new int[edges];
+        int[] tasks = new int[edges];
+        double[] distances = new double[edges];
+        int edge = 0;
+        for (int task = 0; task < taskNum; task++) {
+            for (int rank = 0; rank < candidates.size(task); rank++) {
+                workers[edge] = candidates.neighbour(task, rank);
+                tasks[edge] = task;
+                distances[edge++] = candidates.distance(task, rank);
+            }
+        }
+        int[] order = new int[edges];
+        for (int i = 0; i < edges; i++) {
+            order[i] = i;
+        }
+        sort(order, new int[edges], 0, edges, workers, tasks, distances);
+
+        int[] taskCount = new int[taskNum];
+        int unfinished = 0;
+        for (int task = 0; task < taskNum; task++) {
+            if (p[task] > 0) unfinished++;
+        }
+        for (int i = 0; i < edges && unfinished > 0; i++) {
+            int workerIndex = workers[order[i]];
+            int taskIndex = tasks[order[i]];
+            if (assignMap.get(workerIndex).size() >= q || taskCount[taskIndex] >= p[taskIndex]) {
+                continue;
+            }
+            assignMap.get(workerIndex).add(taskIndex);
+            distanceMatrix.mask(workerIndex, taskIndex);
+            if (++taskCount[taskIndex] == p[taskIndex]) {
+                unfinished--;
+            }
+        }
+    }
+
+    private static void sort(int[] order, int[] buffer, int from, int to, int[] workers, int[] tasks, double[] distances) {
+        if (to - from < 2) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        sort(order, buffer, from, mid, workers, tasks, distances);
+        sort(order, buffer, mid, to, workers, tasks, distances);
+        System.arraycopy(order, from, buffer, from, to - from);
+        int left = from;
+        int right = mid;
+        for (int i = from; i < to; i++) {
+            if (right >= to || (left < mid && compare(buffer[left], buffer[right], workers, tasks, distances) <= 0)) {
+                order[i] = buffer[left++];
+            } else {
+                order[i] = buffer[right++];
+            }
+        }
+    }
+
+    private static int compare(int a, int b, int[] workers, int[] tasks, double[] distances) {
+        int c = Double.compare(distances[a], distances[b]);
+        if (c != 0) return c;
+        c = Integer.compare(workers[a], workers[b]);
+        return c != 0 ? c : Integer.compare(tasks[a], tasks[b]);
+    }
+
     /**
      * Returns the index of the smallest value in the distance matrix
      *
@@ -150,11 +234,12 @@ public class NearestFirst {
      */
     public int[] findMinIndex() {
         int[] index = new int[2];
-        double min = distanceMatrix[0][0];
-        for (int i = 0; i < distanceMatrix.length; i++) {
-            for (int j = 0; j < distanceMatrix[i].length; j++) {
-                if (distanceMatrix[i][j] < min) {
-                    min = distanceMatrix[i][j];
+        double min = distanceMatrix.get(0, 0);
+        for (int i = 0; i < distanceMatrix.rows(); i++) {
+            for (int j = 0; j < distanceMatrix.columns(); j++) {
+                double d = distanceMatrix.get(i, j);
+                if (d < min) {
+                    min = d;
                     index[0] = i;
                     index[1] = j;
                 }
@@ -178,9 +263,9 @@ public class NearestFirst {
      */
     public void printDistanceMatrix(){
         System.out.println("The current distance matrix is------------------------------------");
-        for (int i = 0; i < distanceMatrix.length; i++) {
-            for (int j = 0; j < distanceMatrix[i].length; j++) {
-                System.out.print(distanceMatrix[i][j] + " ");
+        for (int i = 0; i < distanceMatrix.rows(); i++) {
+            for (int j = 0; j < distanceMatrix.columns(); j++) {
+                System.out.print(distanceMatrix.get(i, j) + " ");
             }
             System.out.println();
         }
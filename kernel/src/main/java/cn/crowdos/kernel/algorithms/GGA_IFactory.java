@@ -17,6 +17,7 @@ package cn.crowdos.kernel.algorithms;
 import cn.crowdos.kernel.algorithms.GGA_I.GGA_I_Main;
 import cn.crowdos.kernel.constraint.Constraint;
 import cn.crowdos.kernel.constraint.Coordinate;
+import cn.crowdos.kernel.constraint.DistanceMetric;
 import cn.crowdos.kernel.resource.Participant;
 import cn.crowdos.kernel.resource.Task;
 import cn.crowdos.kernel.system.SystemResourceCollection;
@@ -33,6 +34,15 @@ public class GGA_IFactory extends AlgoFactoryAdapter {
         super(resourceCollection);
     }
 
+    /**
+     * @param resourceCollection the system resources
+     * @param seed seed of the random source, the same seed and inputs give the same assignments
+     */
+    public GGA_IFactory(SystemResourceCollection resourceCollection, long seed) {
+        super(resourceCollection);
+        setRandom(new AlgoRandom(seed));
+    }
+
     /**
      * The getTaskAssignmentAlgo function is used to return a GGA_I TaskAssignmentAlgo object that can be used by the
      * kernel to assign tasks. The function should return an instance of a class that implements the TaskAssignmentAlgo interface.
@@ -44,10 +54,10 @@ public class GGA_IFactory extends AlgoFactoryAdapter {
         return new TaskAssignmentAlgo() {
             @Override
             public List<List<Participant>> getAssignmentScheme(ArrayList<Task> tasks) {
-                if(resourceCollection.getResourceHandler(ParticipantPool.class) == null){
+                if(resourceCollection.getResourceHandler(ParticipantPool.KEY) == null){
                     throw new NullPointerException("ParticipantPool is null");
                 }
-                ParticipantPool participants = resourceCollection.getResourceHandler(ParticipantPool.class).getResourceView();
+                ParticipantPool participants = resourceCollection.getResourceHandler(ParticipantPool.KEY).getResourceView();
 
 
                 //Location information for all tasks
@@ -66,7 +76,7 @@ public class GGA_IFactory extends AlgoFactoryAdapter {
                     if(taskConstraint.size() != 1){
                         return null;
                     }
-                    Coordinate taskLocation = (Coordinate) taskConstraint.get(0);
+                    Coordinate taskLocation = ((POIConstraint) taskConstraint.get(0)).getLocation();
                     //add taskLocation to taskLocations
                     taskLocations.add(taskLocation);
                 }
@@ -92,25 +102,6 @@ public class GGA_IFactory extends AlgoFactoryAdapter {
                     candidateLocations.add(candidateLocation);
                 }
 
-                //Compute task-worker distance matrix
-                double[][] distanceMatrix = new double[workerNum][taskNum];
-                //Compute task-task distance matrix
-                double[][] taskDistanceMatrix = new double[taskNum][taskNum];
-
-                //Calculate the task-worker distance matrix based on candidateLocations and taskLocations
-                for (int i = 0; i < workerNum; i++){
-                    for (int j = 0; j < taskNum; j++){
-                        distanceMatrix[i][j] = candidateLocations.get(i).euclideanDistance(taskLocations.get(j));
-                    }
-                }
-
-                //Calculate the task distance matrix based on taskLocations
-                for (int i = 0; i < taskNum; i++){
-                    for (int j = 0; j < taskNum; j++){
-                        taskDistanceMatrix[i][j] = taskLocations.get(i).euclideanDistance(taskLocations.get(j));
-                    }
-                }
-
                 //By default, only one participant is required per task
                 int[] p =new int[taskNum];
                 for (int i =0; i < taskNum; i++){
@@ -118,13 +109,38 @@ public class GGA_IFactory extends AlgoFactoryAdapter {
                 }
 
                 ///Compute task-worker distance matrix
-                GGA_I_Main gga_i = new GGA_I_Main(workerNum, taskNum, distanceMatrix, taskDistanceMatrix, p, 1);
-                gga_i.taskAssign();
+                GGA_I_Main gga_i;
+                int candidateLimit = getCandidateLimit();
+                if (candidateLimit > 0) {
+                    //Every task only searches its nearest eligible workers and its nearest tasks
+                    DistanceMatrix distanceMatrix = SparseDistanceMatrix.nearestWorkers(DistanceMetric.SQUARED_PLANAR,
+                            candidateLocations, taskLocations, candidateLimit,
+                            (worker, task) -> tasks.get(task).canAssignTo(candidates.get(worker)));
+                    DistanceMatrix taskDistanceMatrix = SparseDistanceMatrix.nearestTasks(DistanceMetric.SQUARED_PLANAR,
+                            taskLocations, candidateLimit);
+                    gga_i = new GGA_I_Main(workerNum, taskNum, distanceMatrix, taskDistanceMatrix, p, 1);
+                    gga_i.setRandom(nextRandom());
+                    gga_i.taskAssign();
+                } else {
+                    //The matrices live in per-thread buffers that are reused by the next assignment
+                    try (DistanceBuffers buffers = DistanceBuffers.acquire()) {
+                        //Compute task-worker distance matrix
+                        DistanceMatrix distanceMatrix = buffers.workerTaskMatrix(workerNum, taskNum)
+                                .fill(DistanceMetric.SQUARED_PLANAR, candidateLocations, taskLocations);
+                        //Compute task-task distance matrix, only its upper triangle is stored
+                        DistanceMatrix taskDistanceMatrix = buffers.taskTaskMatrix(taskNum, Double.MAX_VALUE)
+                                .fill(DistanceMetric.SQUARED_PLANAR, taskLocations);
+                        gga_i = new GGA_I_Main(workerNum, taskNum, distanceMatrix, taskDistanceMatrix, p, 1);
+                        gga_i.setRandom(nextRandom());
+                        gga_i.taskAssign();
+                    }
+                }
 
-                //Save the task assignment results
+                //Save the task assignment results, one participant list per task in the order of tasks
                 List<List<Participant>> assignmentScheme = new ArrayList<>(taskNum);
-                Map<Integer, List<Participant>> taskToParticipants = new HashMap<>();
-
+                for (int i = 0; i < taskNum; i++) {
+                    assignmentScheme.add(new ArrayList<>());
+                }
 
                 /*
                  *Add the data from gga_i.getAssignMap() to assignmentScheme,
@@ -134,20 +150,12 @@ public class GGA_IFactory extends AlgoFactoryAdapter {
                  **/
                 for (Map.Entry<Integer, List<Integer>> entry : gga_i.getAssignMap().entrySet()){
                     Participant participant = candidates.get(entry.getKey());
-                    List<Integer> m_tasks = entry.getValue();//tasks list
-
-                    for (Integer taskId : m_tasks) {
-                        List<Participant> m_participants = taskToParticipants.getOrDefault(taskId, new ArrayList<>());
-                        m_participants.add(participant);
-                        taskToParticipants.put(taskId, m_participants);
+                    for (int taskId : entry.getValue()){
+                        List<Participant> m_participants = assignmentScheme.get(taskId);
+                        if (!m_participants.contains(participant)) {
+                            m_participants.add(participant);
+                        }
                     }
-
-                }
-                Set<Integer> set = taskToParticipants.keySet();
-                Object[] arr = set.toArray();
-                Arrays.sort(arr);
-                for (Object taskID : arr) {
-                    assignmentScheme.add(taskToParticipants.get(Integer.parseInt(taskID.toString())));
                 }
                 return assignmentScheme;
             }
@@ -155,10 +163,10 @@ public class GGA_IFactory extends AlgoFactoryAdapter {
             @Override
             public List<Participant> getAssignmentScheme(Task task) {
                 // prepare args
-                if(resourceCollection.getResourceHandler(ParticipantPool.class) == null){
+                if(resourceCollection.getResourceHandler(ParticipantPool.KEY) == null){
                     throw new NullPointerException("ParticipantPool is null");
                 }
-                ParticipantPool participants = resourceCollection.getResourceHandler(ParticipantPool.class).getResourceView();
+                ParticipantPool participants = resourceCollection.getResourceHandler(ParticipantPool.KEY).getResourceView();
 
                 int taskNum = 1;
 
@@ -174,24 +182,26 @@ public class GGA_IFactory extends AlgoFactoryAdapter {
                 int workerNum = candidate.size();
 
 
-                Coordinate tLocation = (Coordinate) taskLocation.get(0);
-                double[][] distanceMatrix = new double[workerNum][taskNum];
-                for (int i = 0; i < candidate.size(); i++) {
-                    Participant worker = candidate.get(i);
-                    Coordinate wLocation = (Coordinate) worker.getAbility(Coordinate.class);
-                    distanceMatrix[i][0] = wLocation.euclideanDistance(tLocation);
+                Coordinate tLocation = ((POIConstraint) taskLocation.get(0)).getLocation();
+                List<Coordinate> wLocations = new ArrayList<>(workerNum);
+                for (Participant worker : candidate) {
+                    wLocations.add((Coordinate) worker.getAbility(Coordinate.class));
                 }
+                double[][] distanceMatrix = DistanceMetric.SQUARED_PLANAR.matrix(wLocations, Collections.singletonList(tLocation));
 
                 double[][] taskDistanceMatrix = new double[][]{{1}};
 
 
                 // create algorithm instance
                 GGA_I_Main gga_i = new GGA_I_Main(workerNum, taskNum, distanceMatrix, taskDistanceMatrix, new int[]{1}, 1);
+                gga_i.setRandom(nextRandom());
                 gga_i.taskAssign();
 
                 // parser result
                 List<Participant> assignmentScheme = new ArrayList<>();
-                gga_i.getAssignMap().keySet().forEach(participantId -> assignmentScheme.add(participants.get(participantId)));
+                gga_i.getAssignMap().forEach((participantId, taskList) -> {
+                    if (!taskList.isEmpty()) assignmentScheme.add(candidate.get(participantId));
+                });
                 return assignmentScheme;
             }
         };
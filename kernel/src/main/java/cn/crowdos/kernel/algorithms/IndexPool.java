@@ -0,0 +1,82 @@
+/*
+ * Copyright 2019-2025 CrowdOS Group, Northwestern Polytechnical University. <https://github.com/crowdosNWPU/CrowdOS>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * imitations under the License.
+ */
+package cn.crowdos.kernel.algorithms;
+
+/**
+ * A set of indexes below a fixed bound that can return its k-th smallest member, kept in a
+ * Fenwick tree. The randomized heuristics draw from it instead of rebuilding the list of open
+ * tasks or workers on every step, and draw the same index the rebuilt list would have given.
+ *
+ * @since 1.0.4
+ */
+final class IndexPool {
+
+    private final boolean[] present;
+
+    //tree[i] counts the members in (i - lowbit(i), i], one-based
+    private final int[] tree;
+
+    private int size;
+
+    IndexPool(int bound) {
+        this.present = new boolean[bound];
+        this.tree = new int[bound + 1];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean contains(int index) {
+        return present[index];
+    }
+
+    void add(int index) {
+        if (present[index]) return;
+        present[index] = true;
+        size++;
+        for (int i = index + 1; i < tree.length; i += i & -i) {
+            tree[i]++;
+        }
+    }
+
+    void remove(int index) {
+        if (!present[index]) return;
+        present[index] = false;
+        size--;
+        for (int i = index + 1; i < tree.length; i += i & -i) {
+            tree[i]--;
+        }
+    }
+
+    /**
+     * @param rank the position among the members in ascending order, below {@link #size()}
+     * @return the member at that position
+     */
+    int get(int rank) {
+        if (rank < 0 || rank >= size) {
+            throw new IndexOutOfBoundsException("rank " + rank + " of " + size);
+        }
+        int position = 0;
+        for (int step = Integer.highestOneBit(tree.length - 1); step > 0; step >>>= 1) {
+            int next = position + step;
+            if (next < tree.length && tree[next] <= rank) {
+                position = next;
+                rank -= tree[next];
+            }
+        }
+        return position;
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright 2019-2025 CrowdOS Group, Northwestern Polytechnical University. <https://github.com/crowdosNWPU/CrowdOS>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * imitations under the License.
+ */
+package cn.crowdos.kernel.algorithms;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * A view of a distance matrix in which single pairs, whole rows or whole columns can be masked;
+ * a masked pair reads as {@link #MASKED}. The greedy algorithms used to write
+ * {@code Double.MAX_VALUE} into a copy of the distances to rule pairs out; masking one bit per pair
+ * leaves the shared matrix untouched and costs a 64th of a copy.
+ * <p>
+ * Over a matrix with candidates, such as a {@link SparseDistanceMatrix}, a bit per pair would
+ * again be quadratic. The view then keeps one bit per row and per column and a hash set of the
+ * single pairs masked, which only ever holds pairs the algorithm assigned.
+ *
+ * @since 1.0.4
+ */
+public final class MaskedDistanceMatrix extends DistanceMatrix {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final double MASKED = Double.MAX_VALUE;
+
+    private final DistanceMatrix matrix;
+
+    private final int rows;
+
+    private final int columns;
+
+    //Bit row * columns + column is set when the pair is masked, null for a sparse matrix
+    private final long[] masked;
+
+    //Masks of a sparse matrix: masked rows, masked columns and the single pairs masked
+    private final long[] maskedRows;
+
+    private final long[] maskedColumns;
+
+    private final PairSet maskedPairs;
+
+    public MaskedDistanceMatrix(DistanceMatrix matrix) {
+        this.matrix = matrix;
+        this.rows = matrix.rows();
+        this.columns = matrix.columns();
+        if (matrix.columnCandidates() != null) {
+            this.masked = null;
+            this.maskedRows = new long[(rows + 63) >>> 6];
+            this.maskedColumns = new long[(columns + 63) >>> 6];
+            this.maskedPairs = new PairSet();
+            return;
+        }
+        if ((long) rows * columns > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("invalid matrix size " + rows + "x" + columns);
+        }
+        this.masked = new long[(int) (((long) rows * columns + 63) >>> 6)];
+        this.maskedRows = null;
+        this.maskedColumns = null;
+        this.maskedPairs = null;
+    }
+
+    /**
+     * @return a view of the same distances with a copy of the masks of this one
+     */
+    public MaskedDistanceMatrix copy() {
+        MaskedDistanceMatrix copy = new MaskedDistanceMatrix(matrix);
+        copy.copyMasks(this);
+        return copy;
+    }
+
+    /**
+     * Replaces the masks of this view by those of another view of the same distances.
+     */
+    public void copyMasks(MaskedDistanceMatrix other) {
+        if (other.matrix != matrix) {
+            throw new IllegalArgumentException("views of different matrices");
+        }
+        if (masked != null) {
+            System.arraycopy(other.masked, 0, masked, 0, masked.length);
+            return;
+        }
+        System.arraycopy(other.maskedRows, 0, maskedRows, 0, maskedRows.length);
+        System.arraycopy(other.maskedColumns, 0, maskedColumns, 0, maskedColumns.length);
+        maskedPairs.copyFrom(other.maskedPairs);
+    }
+
+    public void clearMasks() {
+        if (masked != null) {
+            Arrays.fill(masked, 0);
+            return;
+        }
+        Arrays.fill(maskedRows, 0);
+        Arrays.fill(maskedColumns, 0);
+        maskedPairs.clear();
+    }
+
+    /**
+     * @return the distances without the masks
+     */
+    public DistanceMatrix getMatrix() {
+        return matrix;
+    }
+
+    @Override
+    public int rows() {
+        return rows;
+    }
+
+    @Override
+    public int columns() {
+        return columns;
+    }
+
+    @Override
+    public double get(int row, int column) {
+        return isMasked(row, column) ? MASKED : matrix.get(row, column);
+    }
+
+    public boolean isMasked(int row, int column) {
+        if (masked == null) {
+            return (maskedRows[row >>> 6] & (1L << row)) != 0
+                    || (maskedColumns[column >>> 6] & (1L << column)) != 0
+                    || maskedPairs.contains(row, column);
+        }
+        int bit = row * columns + column;
+        return (masked[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    public void mask(int row, int column) {
+        if (masked == null) {
+            maskedPairs.add(row, column);
+            return;
+        }
+        int bit = row * columns + column;
+        masked[bit >>> 6] |= 1L << bit;
+    }
+
+    public void maskRow(int row) {
+        if (masked == null) {
+            maskedRows[row >>> 6] |= 1L << row;
+            return;
+        }
+        int from = row * columns, to = from + columns;
+        if (from == to) return;
+        int first = from >>> 6, last = (to - 1) >>> 6;
+        if (first == last) {
+            masked[first] |= (-1L << from) & (-1L >>> -to);
+            return;
+        }
+        masked[first] |= -1L << from;
+        for (int word = first + 1; word < last; word++) {
+            masked[word] = -1L;
+        }
+        masked[last] |= -1L >>> -to;
+    }
+
+    public void maskColumn(int column) {
+        if (masked == null) {
+            maskedColumns[column >>> 6] |= 1L << column;
+            return;
+        }
+        for (int row = 0; row < rows; row++) {
+            mask(row, column);
+        }
+    }
+
+    @Override
+    public void copyRow(int row, double[] out) {
+        matrix.copyRow(row, out);
+        for (int column = 0; column < columns; column++) {
+            if (isMasked(row, column)) {
+                out[column] = MASKED;
+            }
+        }
+    }
+
+    @Override
+    public CandidateGraph columnCandidates() {
+        return matrix.columnCandidates();
+    }
+
+    @Override
+    public CandidateGraph rowCandidates() {
+        return matrix.rowCandidates();
+    }
+
+    /**
+     * Open addressing set of (row, column) pairs packed into longs.
+     */
+    private static final class PairSet implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private static final long EMPTY = -1L;
+
+        private long[] table = newTable(16);
+
+        private int size;
+
+        private static long[] newTable(int capacity) {
+            long[] table = new long[capacity];
+            Arrays.fill(table, EMPTY);
+            return table;
+        }
+
+        private static int slot(long key, int mask) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash >>> 32) & mask;
+        }
+
+        boolean contains(int row, int column) {
+            long key = ((long) row << 32) | column;
+            int mask = table.length - 1;
+            for (int i = slot(key, mask); ; i = (i + 1) & mask) {
+                if (table[i] == key) return true;
+                if (table[i] == EMPTY) return false;
+            }
+        }
+
+        void add(int row, int column) {
+            long key = ((long) row << 32) | column;
+            int mask = table.length - 1;
+            for (int i = slot(key, mask); ; i = (i + 1) & mask) {
+                if (table[i] == key) return;
+                if (table[i] == EMPTY) {
+                    table[i] = key;
+                    break;
+                }
+            }
+            //Keep the table at most half full
+            if (++size * 2 > table.length) {
+                long[] old = table;
+                table = newTable(old.length * 2);
+                mask = table.length - 1;
+                for (long entry : old) {
+                    if (entry == EMPTY) continue;
+                    int i = slot(entry, mask);
+                    while (table[i] != EMPTY) {
+                        i = (i + 1) & mask;
+                    }
+                    table[i] = entry;
+                }
+            }
+        }
+
+        void copyFrom(PairSet other) {
+            if (table.length == other.table.length) {
+                System.arraycopy(other.table, 0, table, 0, table.length);
+            } else {
+                table = other.table.clone();
+            }
+            size = other.size;
+        }
+
+        void clear() {
+            Arrays.fill(table, EMPTY);
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,576 @@
+/*
+ * Copyright 2019-2025 CrowdOS Group, Northwestern Polytechnical University. <https://github.com/crowdosNWPU/CrowdOS>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * imitations under the License.
+ */
+package cn.crowdos.kernel.algorithms;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+
+/**
+ * MinCostAssignment gives every task at most one worker and every worker at most one task,
+ * so that as many tasks as possible are assigned and, among those assignments, the total
+ * distance between the tasks and their workers is the smallest.
+ * <p>
+ * Dense matrices are solved exactly with the Hungarian algorithm (shortest augmenting paths
+ * with potentials) in {@code O(n * n * m)} time, {@code n} being the smaller and {@code m} the
+ * larger of the worker and task counts. Sparse matrices, whose columns only know the nearest
+ * workers of every task, are solved with an auction algorithm with epsilon scaling whose bids
+ * are computed in parallel. Its result is optimal for the distances rounded to about
+ * {@code 2^50 / (workers + tasks)^2} levels.
+ *
+ * @since 1.0.4
+ */
+public class MinCostAssignment {
+
+    //Unassigned bidders above which the bids of a round are computed in parallel
+    private static final int PARALLEL_BIDDERS = 4096;
+
+    //Bidders per fork join leaf
+    private static final int BID_BATCH = 1024;
+
+    //Upper bound of the largest scaled benefit, leaves room for the prices to rise
+    private static final long BENEFIT_BUDGET = 1L << 50;
+
+    //Factor by which epsilon shrinks between two auction phases
+    private static final long EPSILON_FACTOR = 5;
+
+    //Distance of masked pairs in the matrices of the other algorithms, never assigned
+    private static final double INF = Double.MAX_VALUE;
+
+    private final int workerNum;
+
+    private final int taskNum;
+
+    private final DistanceMatrix distanceMatrix;
+
+    //Pairs that may be assigned, null if every pair may
+    private CandidateGraph.Filter eligible;
+
+    private ForkJoinPool forkJoinPool = ForkJoinPool.commonPool();
+
+    //Worker of every task, -1 if the task is unassigned
+    private int[] taskWorker;
+
+    private Map<Integer, List<Integer>> assignMap = new HashMap<>();
+
+    private double distance;
+
+    /**
+     * @param workerNum      Number of workers
+     * @param taskNum        Number of tasks
+     * @param distanceMatrix Worker task distance matrix, which stores the distance between
+     *                       a worker and a task (or the cost of a task for a worker)
+     */
+    public MinCostAssignment(int workerNum, int taskNum, double[][] distanceMatrix) {
+        this(workerNum, taskNum, DistanceMatrix.of(distanceMatrix));
+    }
+
+    /**
+     * Same as the other constructor, on a matrix of any layout. The matrix is not modified,
+     * if it has {@link DistanceMatrix#columnCandidates() candidates} only those pairs are assigned.
+     */
+    public MinCostAssignment(int workerNum, int taskNum, DistanceMatrix distanceMatrix) {
+        this.workerNum = workerNum;
+        this.taskNum = taskNum;
+        this.distanceMatrix = distanceMatrix;
+        for (int i = 0; i < workerNum; i++) {
+            this.assignMap.put(i, new ArrayList<>());
+        }
+    }
+
+    /**
+     * Restricts a dense matrix to the pairs accepted by the filter, other pairs are never assigned.
+     * Pairs at an infinite distance, or at {@code Double.MAX_VALUE}, are never assigned either.
+     *
+     * @param eligible called with (worker, task), null to accept every pair
+     */
+    public void setEligible(CandidateGraph.Filter eligible) {
+        this.eligible = eligible;
+    }
+
+    /**
+     * @param forkJoinPool the pool computing the bids of the auction algorithm
+     */
+    public void setForkJoinPool(ForkJoinPool forkJoinPool) {
+        this.forkJoinPool = Objects.requireNonNull(forkJoinPool);
+    }
+
+    /**
+     * Assigns the tasks, with the auction algorithm if the matrix has candidates and with the
+     * Hungarian algorithm otherwise.
+     */
+    public void taskAssign() {
+        if (distanceMatrix.columnCandidates() != null) {
+            auction();
+        } else {
+            hungarian();
+        }
+    }
+
+    /**
+     * Assigns the tasks with the Hungarian algorithm on all pairs of the matrix.
+     */
+    public void hungarian() {
+        taskWorker = new int[taskNum];
+        Arrays.fill(taskWorker, -1);
+        if (workerNum > 0 && taskNum > 0) {
+            //The smaller side is matched to the larger one, row by row
+            boolean taskRows = taskNum <= workerNum;
+            int n = taskRows ? taskNum : workerNum;
+            int m = taskRows ? workerNum : taskNum;
+            int[] rowColumn = hungarian(costs(taskRows, n, m), n, m);
+            for (int row = 0; row < n; row++) {
+                int column = rowColumn[row];
+                int task = taskRows ? row : column;
+                int worker = taskRows ? column : row;
+                if (isEligible(worker, task, distanceMatrix.get(worker, task))) {
+                    taskWorker[task] = worker;
+                }
+            }
+        }
+        saveAssignMap();
+    }
+
+    private boolean isEligible(int worker, int task, double cost) {
+        return cost < INF && (eligible == null || eligible.accept(worker, task));
+    }
+
+    /**
+     * Copies the matrix into a flat n * m cost array, ineligible pairs cost more than any
+     * assignment of eligible pairs only. Their cost is capped so that the potentials of the
+     * Hungarian algorithm stay finite.
+     */
+    private double[] costs(boolean taskRows, int n, int m) {
+        double[] costs = new double[n * m];
+        double[] row = new double[taskNum];
+        boolean anyForbidden = false;
+        double maxCost = 0;
+        for (int worker = 0; worker < workerNum; worker++) {
+            distanceMatrix.copyRow(worker, row);
+            for (int task = 0; task < taskNum; task++) {
+                int index = taskRows ? task * m + worker : worker * m + task;
+                double cost = row[task];
+                if (!isEligible(worker, task, cost)) {
+                    //Marked until the largest eligible cost is known
+                    costs[index] = Double.NaN;
+                    anyForbidden = true;
+                    continue;
+                }
+                costs[index] = cost;
+                if (cost > maxCost) {
+                    maxCost = cost;
+                }
+            }
+        }
+        if (anyForbidden) {
+            double forbiddenCost = Math.min((n + 1) * maxCost + 1, INF / (4.0 * (n + 1)));
+            for (int index = 0; index < costs.length; index++) {
+                if (Double.isNaN(costs[index])) {
+                    costs[index] = forbiddenCost;
+                }
+            }
+        }
+        return costs;
+    }
+
+    /**
+     * Matches every row of an n * m cost array, n no larger than m, to a distinct column
+     * with the smallest total cost.
+     *
+     * @return the column of every row
+     */
+    static int[] hungarian(double[] costs, int n, int m) {
+        //Potentials of the rows and columns, and the row matched to every column, 1-based
+        double[] u = new double[n + 1];
+        double[] v = new double[m + 1];
+        int[] columnRow = new int[m + 1];
+        int[] way = new int[m + 1];
+        double[] minSlack = new double[m + 1];
+        boolean[] used = new boolean[m + 1];
+        for (int i = 1; i <= n; i++) {
+            //Grow a shortest augmenting path from row i until it reaches a free column
+            columnRow[0] = i;
+            int j0 = 0;
+            Arrays.fill(minSlack, Double.POSITIVE_INFINITY);
+            Arrays.fill(used, false);
+            do {
+                used[j0] = true;
+                int i0 = columnRow[j0];
+                int base = (i0 - 1) * m - 1;
+                double ui0 = u[i0];
+                double delta = Double.POSITIVE_INFINITY;
+                int j1 = 0;
+                for (int j = 1; j <= m; j++) {
+                    if (used[j]) {
+                        continue;
+                    }
+                    double slack = costs[base + j] - ui0 - v[j];
+                    if (slack < minSlack[j]) {
+                        minSlack[j] = slack;
+                        way[j] = j0;
+                    }
+                    if (minSlack[j] < delta) {
+                        delta = minSlack[j];
+                        j1 = j;
+                    }
+                }
+                for (int j = 0; j <= m; j++) {
+                    if (used[j]) {
+                        u[columnRow[j]] += delta;
+                        v[j] -= delta;
+                    } else {
+                        minSlack[j] -= delta;
+                    }
+                }
+                j0 = j1;
+            } while (columnRow[j0] != 0);
+            //Flip the matched and unmatched pairs along the path
+            do {
+                int j1 = way[j0];
+                columnRow[j0] = columnRow[j1];
+                j0 = j1;
+            } while (j0 != 0);
+        }
+        int[] rowColumn = new int[n];
+        for (int j = 1; j <= m; j++) {
+            if (columnRow[j] != 0) {
+                rowColumn[columnRow[j] - 1] = j - 1;
+            }
+        }
+        return rowColumn;
+    }
+
+    /**
+     * Assigns the tasks with the auction algorithm on the candidate pairs of the matrix.
+     * <p>
+     * The problem is made square with a private "unassigned" object per task, costing more than
+     * any assignment that leaves fewer tasks unassigned, and an "idle" bidder per worker, who
+     * can take the worker itself or the unassigned object of any task the worker is a candidate of.
+     *
+     * @throws IllegalArgumentException if the matrix has no candidates
+     */
+    public void auction() {
+        CandidateGraph graph = distanceMatrix.columnCandidates();
+        if (graph == null) {
+            throw new IllegalArgumentException("the auction needs a matrix with candidates");
+        }
+        taskWorker = new int[taskNum];
+        Arrays.fill(taskWorker, -1);
+        if (taskNum > 0) {
+            Auction auction = new Auction(graph, forkJoinPool);
+            auction.run();
+            for (int task = 0; task < taskNum; task++) {
+                int object = auction.personObject[task];
+                taskWorker[task] = object < workerNum ? object : -1;
+            }
+        }
+        saveAssignMap();
+    }
+
+    private void saveAssignMap() {
+        distance = 0;
+        for (List<Integer> tasks : assignMap.values()) {
+            tasks.clear();
+        }
+        for (int task = 0; task < taskNum; task++) {
+            int worker = taskWorker[task];
+            if (worker >= 0) {
+                assignMap.get(worker).add(task);
+                distance += distanceMatrix.get(worker, task);
+            }
+        }
+    }
+
+    /**
+     * Square assignment problem with integer benefits solved by epsilon scaling. Persons are the
+     * tasks then the idle bidders of the workers, objects are the workers then the unassigned
+     * objects of the tasks.
+     */
+    private final class Auction {
+
+        private final int size;
+
+        //Arcs of every person in CSR layout, benefits are negative scaled costs
+        private final int[] arcStart;
+
+        private final int[] arcObject;
+
+        private final long[] arcBenefit;
+
+        private final long maxBenefit;
+
+        private final long[] price;
+
+        private final int[] objectPerson;
+
+        private final int[] personObject;
+
+        private final ForkJoinPool pool;
+
+        //Bid of every waiting person in the current round
+        private int[] bidObject;
+
+        private long[] bidPrice;
+
+        Auction(CandidateGraph graph, ForkJoinPool pool) {
+            this.pool = pool;
+            size = taskNum + workerNum;
+            CandidateGraph workerTasks = distanceMatrix.rowCandidates();
+            if (workerTasks == null) {
+                workerTasks = graph.transpose();
+            }
+            double maxCost = 0;
+            for (int task = 0; task < taskNum; task++) {
+                for (int rank = 0; rank < graph.size(task); rank++) {
+                    maxCost = Math.max(maxCost, graph.distance(task, rank));
+                }
+            }
+            //Costs are rounded to levels, the unassigned cost outweighs any path of assigned costs
+            long levels = Math.max(1, Math.min(1L << 40, BENEFIT_BUDGET / ((long) (size + 1) * (taskNum + 1))));
+            long unit = size + 1;
+            long unassigned = (taskNum + 1) * levels * unit;
+            maxBenefit = unassigned;
+
+            int arcs = taskNum + workerNum + 2 * graph.edges();
+            arcStart = new int[size + 1];
+            arcObject = new int[arcs];
+            arcBenefit = new long[arcs];
+            int arc = 0;
+            for (int task = 0; task < taskNum; task++) {
+                arcStart[task] = arc;
+                for (int rank = 0; rank < graph.size(task); rank++) {
+                    double cost = maxCost > 0 ? graph.distance(task, rank) / maxCost : 0;
+                    arcObject[arc] = graph.neighbour(task, rank);
+                    arcBenefit[arc++] = -Math.round(cost * levels) * unit;
+                }
+                arcObject[arc] = workerNum + task;
+                arcBenefit[arc++] = -unassigned;
+            }
+            for (int worker = 0; worker < workerNum; worker++) {
+                arcStart[taskNum + worker] = arc;
+                arcObject[arc++] = worker;
+                for (int rank = 0; rank < workerTasks.size(worker); rank++) {
+                    arcObject[arc++] = workerNum + workerTasks.neighbour(worker, rank);
+                }
+            }
+            arcStart[size] = arc;
+
+            price = new long[size];
+            objectPerson = new int[size];
+            personObject = new int[size];
+        }
+
+        void run() {
+            long epsilon = Math.max(1, maxBenefit / 8);
+            while (true) {
+                phase(epsilon);
+                if (epsilon == 1) {
+                    break;
+                }
+                epsilon = Math.max(1, epsilon / EPSILON_FACTOR);
+            }
+        }
+
+        /**
+         * Assigns every person again, keeping the prices of the previous phase. While many persons
+         * wait they bid in rounds, each round computing all bids at the same prices in parallel.
+         * The last persons bid one after the other, each taking its object at once.
+         */
+        private void phase(long epsilon) {
+            Arrays.fill(objectPerson, -1);
+            Arrays.fill(personObject, -1);
+            int[] waiting = new int[size];
+            for (int person = 0; person < size; person++) {
+                waiting[person] = person;
+            }
+            int waitingNum = size;
+            bidObject = new int[size];
+            bidPrice = new long[size];
+            int[] winner = new int[size];
+            long[] winningBid = new long[size];
+            int[] biddenObjects = new int[size];
+            int[] next = new int[size];
+            Arrays.fill(winner, -1);
+
+            while (waitingNum >= PARALLEL_BIDDERS) {
+                //Every waiting person bids for its best object at the same prices
+                pool.invoke(new BidAction(waiting, 0, waitingNum, epsilon));
+                //The highest bid wins every object, the first of equal bids wins
+                int biddenNum = 0;
+                for (int k = 0; k < waitingNum; k++) {
+                    int object = bidObject[k];
+                    if (winner[object] < 0) {
+                        biddenObjects[biddenNum++] = object;
+                        winner[object] = waiting[k];
+                        winningBid[object] = bidPrice[k];
+                    } else if (bidPrice[k] > winningBid[object]) {
+                        winner[object] = waiting[k];
+                        winningBid[object] = bidPrice[k];
+                    }
+                }
+                //Losers and evicted owners wait for the next round
+                int nextNum = 0;
+                for (int k = 0; k < waitingNum; k++) {
+                    if (winner[bidObject[k]] != waiting[k]) {
+                        next[nextNum++] = waiting[k];
+                    }
+                }
+                for (int b = 0; b < biddenNum; b++) {
+                    int object = biddenObjects[b];
+                    int owner = objectPerson[object];
+                    if (owner >= 0) {
+                        personObject[owner] = -1;
+                        next[nextNum++] = owner;
+                    }
+                    int person = winner[object];
+                    objectPerson[object] = person;
+                    personObject[person] = object;
+                    price[object] = winningBid[object];
+                    winner[object] = -1;
+                }
+                int[] swap = waiting;
+                waiting = next;
+                next = swap;
+                waitingNum = nextNum;
+            }
+
+            //The remaining persons wait in a ring, an evicted owner joins its end
+            int head = 0;
+            int tail = waitingNum == size ? 0 : waitingNum;
+            while (waitingNum > 0) {
+                int person = waiting[head];
+                bid(person, head, epsilon);
+                int object = bidObject[head];
+                long newPrice = bidPrice[head];
+                head = head + 1 == size ? 0 : head + 1;
+                waitingNum--;
+                int owner = objectPerson[object];
+                if (owner >= 0) {
+                    personObject[owner] = -1;
+                    waiting[tail] = owner;
+                    tail = tail + 1 == size ? 0 : tail + 1;
+                    waitingNum++;
+                }
+                objectPerson[object] = person;
+                personObject[person] = object;
+                price[object] = newPrice;
+            }
+        }
+
+        /**
+         * Computes the bids of waiting[from, to).
+         */
+        void bid(int[] waiting, int from, int to, long epsilon) {
+            for (int k = from; k < to; k++) {
+                bid(waiting[k], k, epsilon);
+            }
+        }
+
+        /**
+         * Computes the bid of a person and stores it at index k, the best object of the person
+         * is raised by the difference to its second best object plus epsilon.
+         */
+        private void bid(int person, int k, long epsilon) {
+            int best = -1;
+            long bestValue = Long.MIN_VALUE;
+            long secondValue = Long.MIN_VALUE;
+            for (int arc = arcStart[person]; arc < arcStart[person + 1]; arc++) {
+                int object = arcObject[arc];
+                long value = arcBenefit[arc] - price[object];
+                if (value > bestValue) {
+                    secondValue = bestValue;
+                    bestValue = value;
+                    best = object;
+                } else if (value > secondValue) {
+                    secondValue = value;
+                }
+            }
+            long increment = secondValue == Long.MIN_VALUE ? epsilon : bestValue - secondValue + epsilon;
+            bidObject[k] = best;
+            bidPrice[k] = price[best] + increment;
+        }
+
+        /**
+         * Computes the bids of a slice of the waiting persons, splitting it in halves
+         * until a slice holds at most BID_BATCH persons.
+         */
+        private final class BidAction extends RecursiveAction {
+
+            private static final long serialVersionUID = 1L;
+
+            private final int[] waiting;
+
+            private final int from;
+
+            private final int to;
+
+            private final long epsilon;
+
+            BidAction(int[] waiting, int from, int to, long epsilon) {
+                this.waiting = waiting;
+                this.from = from;
+                this.to = to;
+                this.epsilon = epsilon;
+            }
+
+            @Override
+            protected void compute() {
+                if (to - from <= BID_BATCH) {
+                    bid(waiting, from, to, epsilon);
+                    return;
+                }
+                int mid = (from + to) >>> 1;
+                invokeAll(new BidAction(waiting, from, mid, epsilon), new BidAction(waiting, mid, to, epsilon));
+            }
+        }
+    }
+
+    /**
+     * @return the worker of every task, -1 for unassigned tasks
+     */
+    public int[] getTaskWorker() {
+        return taskWorker;
+    }
+
+    public int getWorkerNum() {
+        return workerNum;
+    }
+
+    public int getTaskNum() {
+        return taskNum;
+    }
+
+    public Map<Integer, List<Integer>> getAssignMap() {
+        return assignMap;
+    }
+
+    /**
+     * @return the total distance of the assigned pairs
+     */
+    public double getDistance() {
+        return distance;
+    }
+
+    @Override
+    public String toString() {
+        return "MinCostAssignment{" +
+                "workerNum=" + workerNum +
+                ", taskNum=" + taskNum +
+                ", assignMap=" + assignMap +
+                ", distance=" + distance +
+                '}';
+    }
+}
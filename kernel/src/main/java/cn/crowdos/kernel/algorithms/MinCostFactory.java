@@ -0,0 +1,173 @@
+/*
+ * Copyright 2019-2025 CrowdOS Group, Northwestern Polytechnical University. <https://github.com/crowdosNWPU/CrowdOS>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * imitations under the License.
+ */
+package cn.crowdos.kernel.algorithms;
+
+import cn.crowdos.kernel.constraint.Constraint;
+import cn.crowdos.kernel.constraint.Coordinate;
+import cn.crowdos.kernel.constraint.DistanceMetric;
+import cn.crowdos.kernel.resource.Participant;
+import cn.crowdos.kernel.resource.Task;
+import cn.crowdos.kernel.system.SystemResourceCollection;
+import cn.crowdos.kernel.system.resource.ParticipantPool;
+import cn.crowdos.kernel.constraint.POIConstraint;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Assigns one worker to every task with the smallest total travel distance, see {@link MinCostAssignment}.
+ * The Hungarian algorithm is used on all worker task pairs, the parallel auction algorithm
+ * once a {@link #setCandidateLimit(int) candidate limit} is set or a batch has more than
+ * {@link #AUCTION_PAIRS} worker task pairs; the auction then keeps
+ * {@link #DEFAULT_CANDIDATE_LIMIT} candidates per task unless a limit is set.
+ *
+ * @since 1.0.4
+ */
+public class MinCostFactory extends AlgoFactoryAdapter {
+
+    /**
+     * Worker task pairs above which the auction algorithm is used without a candidate limit.
+     */
+    public static final long AUCTION_PAIRS = 1L << 20;
+
+    /**
+     * Candidates per task of the auction algorithm when no candidate limit is set.
+     */
+    public static final int DEFAULT_CANDIDATE_LIMIT = 16;
+
+    public MinCostFactory(SystemResourceCollection resourceCollection) {
+        super(resourceCollection);
+    }
+
+    /**
+     * The getTaskAssignmentAlgo function returns a MinCost TaskAssignmentAlgo object, which gives every task
+     * at most one eligible participant and every participant at most one task.
+     *
+     * @return a TaskAssignmentAlgo object
+     */
+    @Override
+    public TaskAssignmentAlgo getTaskAssignmentAlgo() {
+        return new TaskAssignmentAlgo() {
+            @Override
+            public List<List<Participant>> getAssignmentScheme(ArrayList<Task> tasks) {
+                ParticipantPool participants = resourceCollection.getResourceHandler(ParticipantPool.KEY).getResourceView();
+
+                //Location information for all tasks
+                List<Coordinate> taskLocations = new ArrayList<>();
+                //Location information of all candidates
+                List<Coordinate> candidateLocations = new ArrayList<>();
+                //reserve All candidates
+                List<Participant> candidates = new ArrayList<>();
+
+                //The task constraints required in the algorithm are obtained, where is the task location
+                for (Task task : tasks){
+                    List<Constraint> taskConstraint = task.constraints().stream()
+                            .filter(constraint -> constraint instanceof POIConstraint)
+                            .collect(Collectors.toList());
+                    if(taskConstraint.size() != 1){
+                        return null;
+                    }
+                    taskLocations.add(((POIConstraint) taskConstraint.get(0)).getLocation());
+                }
+
+                for (Participant participant:participants){
+                    for (Task task:tasks){
+                        if(!task.canAssignTo(participant)){
+                            continue;
+                        }
+                        candidates.add(participant);
+                        break;
+                    }
+                }
+                for (Participant candidate : candidates){
+                    candidateLocations.add((Coordinate) candidate.getAbility(Coordinate.class));
+                }
+
+                int taskNum = tasks.size();
+                int workerNum = candidates.size();
+                CandidateGraph.Filter eligible = (worker, task) -> tasks.get(task).canAssignTo(candidates.get(worker));
+
+                //The cost of a pair is the travel distance itself, so that the total distance is minimized
+                MinCostAssignment assignment;
+                int candidateLimit = getCandidateLimit();
+                if (candidateLimit == 0 && (long) workerNum * taskNum > AUCTION_PAIRS) {
+                    //The Hungarian algorithm needs all pairs and cubic time, too much for a batch this large
+                    candidateLimit = DEFAULT_CANDIDATE_LIMIT;
+                }
+                if (candidateLimit > 0) {
+                    //Every task only bids for its nearest eligible workers
+                    DistanceMatrix distanceMatrix = SparseDistanceMatrix.nearestWorkers(DistanceMetric.PLANAR,
+                            candidateLocations, taskLocations, candidateLimit, eligible);
+                    assignment = new MinCostAssignment(workerNum, taskNum, distanceMatrix);
+                    assignment.taskAssign();
+                } else {
+                    try (DistanceBuffers buffers = DistanceBuffers.acquire()) {
+                        DistanceMatrix distanceMatrix = buffers.workerTaskMatrix(workerNum, taskNum)
+                                .fill(DistanceMetric.PLANAR, candidateLocations, taskLocations);
+                        assignment = new MinCostAssignment(workerNum, taskNum, distanceMatrix);
+                        assignment.setEligible(eligible);
+                        assignment.taskAssign();
+                    }
+                }
+
+                //Save the task assignment results, one participant list per task in the order of tasks
+                List<List<Participant>> assignmentScheme = new ArrayList<>(taskNum);
+                int[] taskWorker = assignment.getTaskWorker();
+                for (int i = 0; i < taskNum; i++) {
+                    List<Participant> m_participants = new ArrayList<>();
+                    if (taskWorker[i] >= 0) {
+                        m_participants.add(candidates.get(taskWorker[i]));
+                    }
+                    assignmentScheme.add(m_participants);
+                }
+                return assignmentScheme;
+            }
+
+            @Override
+            public List<Participant> getAssignmentScheme(Task task) {
+                ParticipantPool participants = resourceCollection.getResourceHandler(ParticipantPool.KEY).getResourceView();
+
+                List<Constraint> taskLocation = task.constraints().stream()
+                        .filter(constraint -> constraint instanceof POIConstraint)
+                        .collect(Collectors.toList());
+                if (taskLocation.size() != 1) {
+                    return null;
+                }
+                Coordinate tLocation = ((POIConstraint) taskLocation.get(0)).getLocation();
+
+                //A single task costs least with its nearest eligible participant
+                Participant nearest = null;
+                double nearestDistance = Double.MAX_VALUE;
+                for (Participant participant : participants) {
+                    if (!task.canAssignTo(participant)) {
+                        continue;
+                    }
+                    double distance = DistanceMetric.PLANAR.distance(
+                            (Coordinate) participant.getAbility(Coordinate.class), tLocation);
+                    if (distance < nearestDistance) {
+                        nearestDistance = distance;
+                        nearest = participant;
+                    }
+                }
+                List<Participant> assignmentScheme = new ArrayList<>();
+                if (nearest != null) {
+                    assignmentScheme.add(nearest);
+                }
+                return assignmentScheme;
+            }
+        };
+    }
+
+}
@@ -26,11 +26,13 @@ public class PT_Most {
 
     private int taskNum;
 
-    private double[][] distanceMatrix;
+    //Worker task distances, pairs that are ruled out are masked as INF
+    private MaskedDistanceMatrix distanceMatrix;
 
-    private double[][] taskDistanceMatrix;
+    private DistanceMatrix taskDistanceMatrix;
 
-    private double[][] distanceMatrixTemp;
+    //Masks restored into distanceMatrix after each round, see SelectMaxTU
+    private MaskedDistanceMatrix distanceMatrixTemp;
 
     private int q;
 
@@ -48,7 +50,20 @@ public class PT_Most {
 
     private double distance;
 
-    private double[][] distanceMatrixTempCal;
+    //Presorted nearest-task lists, built from taskDistanceMatrix on first use
+    private TaskNeighbours taskNeighbours;
+
+    //Source of randomness, replace it with a seeded AlgoRandom for repeatable runs
+    private Random random = new AlgoRandom();
+
+    //Number of distinct workers assigned to each task
+    private int[] assignedCount;
+
+    //Number of tasks whose assigned count is still below p
+    private int unfinishedTaskNum;
+
+    //Workers with fewer than q tasks the next worker is drawn from, in ascending order
+    private IndexPool openWorkers;
 
 
     /**
@@ -61,16 +76,23 @@ public class PT_Most {
      * @param q                  Constraints, how many tasks are assigned to each worker at most
      */
     public PT_Most(int workerNum, int taskNum, double[][] distanceMatrix, double[][] taskDistanceMatrix, int[] p, int q) {
+        this(workerNum, taskNum, DistanceMatrix.of(distanceMatrix), DistanceMatrix.of(taskDistanceMatrix), p, q);
+    }
+
+    /**
+     * Same as the other constructor, on matrices of any layout. Neither matrix is modified,
+     * the diagonal of the task distance matrix is read as INF.
+     *
+     * @since 1.0.4
+     */
+    public PT_Most(int workerNum, int taskNum, DistanceMatrix distanceMatrix, DistanceMatrix taskDistanceMatrix, int[] p, int q) {
         this.workerNum = workerNum;
         this.taskNum = taskNum;
-        this.distanceMatrix = distanceMatrix;
-        this.taskDistanceMatrix = taskDistanceMatrix;
+        this.distanceMatrix = new MaskedDistanceMatrix(distanceMatrix);
         /*The diagonal elements of the task distance matrix
-         * are set to INF to facilitate the calculation
+         * are read as INF to facilitate the calculation
          */
-        for (int i = 0; i < taskDistanceMatrix.length; i++) {
-            taskDistanceMatrix[i][i] = INF;
-        }
+        this.taskDistanceMatrix = taskDistanceMatrix.withDiagonal(INF);
         this.q = q;
         this.p = p;
 
@@ -79,14 +101,18 @@ public class PT_Most {
             this.assignMap.put(i, new ArrayList<>());
         }
 
-        //Replication distance matrix
-        distanceMatrixTempCal = new double[workerNum][taskNum];
-        for (int i = 0; i < workerNum; i++) {
-            for (int j = 0; j < taskNum; j++) {
-                distanceMatrixTempCal[i][j] = distanceMatrix[i][j];
-            }
-        }
+    }
 
+    /**
+     * Same as the other constructor, but reuses nearest-task lists that were already built
+     * from the task distance matrix, for instance when several heuristics run on the same tasks.
+     *
+     * @param taskNeighbours presorted nearest-task lists of taskDistanceMatrix, possibly truncated to the K nearest
+     */
+    public PT_Most(int workerNum, int taskNum, double[][] distanceMatrix, double[][] taskDistanceMatrix, int[] p, int q,
+            TaskNeighbours taskNeighbours) {
+        this(workerNum, taskNum, distanceMatrix, taskDistanceMatrix, p, q);
+        this.taskNeighbours = taskNeighbours;
     }
 
     /**
@@ -105,15 +131,16 @@ public class PT_Most {
         int workerIndex;
 
 
-        //Temporarily save the worker task distance matrix
-
-        distanceMatrixTemp = new double[workerNum][taskNum];
-        for (int i = 0; i < workerNum; i++) {
-            for (int j = 0; j < taskNum; j++) {
-                distanceMatrixTemp[i][j] = distanceMatrix[i][j];
-            }
+        if (taskNeighbours == null) {
+            taskNeighbours = new TaskNeighbours(taskDistanceMatrix);
         }
 
+        initCounters();
+
+        //Temporarily save the masks of the worker task distance matrix
+
+        distanceMatrixTemp = distanceMatrix.copy();
+
         //Check that all tasks have been assigned
 
         while (!isTaskAssignFinish()) {
@@ -125,26 +152,14 @@ public class PT_Most {
                 //A worker who has not yet been assigned a task is randomly selected,
                 // and the task closest to the worker is selected
 
-                List<Integer> randomWorkerList = new ArrayList<>();
-
-                //Iterate over assignMapTemp to find workers whose tasks have not yet been assigned
-
-                for (int i = 0; i < workerNum; i++) {
-                    if (assignMap.get(i).size() < q) {
-                        randomWorkerList.add(i);
-                    }
-                }
-
-
                 //All workers have been assigned tasks and break out of the loop
 
-                if (randomWorkerList.size() == 0) {
+                if (openWorkers.size() == 0) {
                     break;
                 }
 
 
-                Collections.shuffle(randomWorkerList);
-                workerIndex = randomWorkerList.get(0);
+                workerIndex = openWorkers.get(random.nextInt(openWorkers.size()));
 
                 //taskIndex may be -1
 
@@ -154,6 +169,8 @@ public class PT_Most {
 
                 if (taskIndex == -1) {
 
+                    //None of its tasks is left, do not draw the worker again this round
+                    openWorkers.remove(workerIndex);
                     continue;
                 }
 
@@ -162,13 +179,14 @@ public class PT_Most {
                 }
 
                 //Join the allocation result Map
-                assignMap.get(workerIndex).add(taskIndex);
+                assign(workerIndex, taskIndex);
                 //Reset matrix
-                distanceMatrix[workerIndex][taskIndex] = INF;
+                distanceMatrix.mask(workerIndex, taskIndex);
 
 
                 //A counter
                 int count = 0;
+                int neighbourNum = Math.min(taskNum - 1, taskNeighbours.size(taskIndex));
 
                 while (!isAssignWorker(workerIndex)) {
 
@@ -176,28 +194,24 @@ public class PT_Most {
                         break;
                     }
 
-                    //If there are five tasks, select four tasks in turn
-                    if (count == taskNum - 1) {
+                    //If there are five tasks, select four tasks in turn, nearest first
+                    if (count == neighbourNum) {
                         break;
                     }
 
-
-                    int[] taskIndexArray = findMinTaskToTask(taskIndex);
-
-
-                    int taskIndex_ = taskIndexArray[count];
+                    int taskIndex_ = taskNeighbours.get(taskIndex, count);
                     count++;
 
 
-                    //Check if the task still needs workers
-                    if (isAssignTask(taskIndex_)) {
+                    //Check if the task still needs workers, and may go to this worker
+                    if (isAssignTask(taskIndex_) || !isCandidate(workerIndex, taskIndex_)) {
 
                         continue;
                     } else {
                         //Join the allocation result Map
-                        assignMap.get(workerIndex).add(taskIndex_);
+                        assign(workerIndex, taskIndex_);
                         //Reset matrix
-                        distanceMatrix[workerIndex][taskIndex_] = INF;
+                        distanceMatrix.mask(workerIndex, taskIndex_);
 
                         isAssignTask(taskIndex_);
 
@@ -207,6 +221,14 @@ public class PT_Most {
 
 
             }
+
+            //Some tasks may be out of reach of every worker left, for instance when the
+            //workers cannot take as many tasks as the tasks need or with candidates,
+            //stop once no worker is left for SelectMaxTU to keep
+            if (!hasWorkerToKeep()) {
+                break;
+            }
+
             //A BUG means there's something wrong with the function
             SelectMaxTU();
 
@@ -257,81 +279,64 @@ public class PT_Most {
                 entry.getValue().clear();
             }
         }
+        initCounters();
 
 
         //Iterate over the list and set the corresponding element
         // in distanceMatrixTemp to INF
         for (Integer integer : list) {
-            distanceMatrixTemp[maxKey][integer] = INF;
+            distanceMatrixTemp.mask(maxKey, integer);
             isAssignTask(integer);
         }
 
         isAssignWorker(maxKey);
 
         //Reset matrix
-        for (int i = 0; i < workerNum; i++) {
-            for (int j = 0; j < taskNum; j++) {
-                distanceMatrix[i][j] = distanceMatrixTemp[i][j];
-            }
-        }
+        distanceMatrix.copyMasks(distanceMatrixTemp);
 
     }
 
 
     /**
-     * Find the task closest to the worker
+     * @return true unless the matrix has candidates and the worker is not one of those of the task
+     */
+    private boolean isCandidate(int workerIndex, int taskIndex) {
+        CandidateGraph candidates = distanceMatrix.columnCandidates();
+        return candidates == null || candidates.contains(taskIndex, workerIndex);
+    }
+
+    /**
+     * Find the task closest to the worker.
+     * Only the tasks the worker is a candidate of are searched if the matrix has candidates.
      *
      * @param workerIndex the number of worker
      *
      * @return int
      */
     private int findMinTaskToWorker(int workerIndex) {
+        CandidateGraph candidates = distanceMatrix.rowCandidates();
+        if (candidates != null) {
+            //The candidates are sorted nearest first, ties by the smaller index as below
+            for (int rank = 0; rank < candidates.size(workerIndex); rank++) {
+                int i = candidates.neighbour(workerIndex, rank);
+                if (!distanceMatrix.isMasked(workerIndex, i)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
         double min = INF;
         int minIndex = -1;
         for (int i = 0; i < taskNum; i++) {
-            if (distanceMatrix[workerIndex][i] < min) {
-                min = distanceMatrix[workerIndex][i];
+            double d = distanceMatrix.get(workerIndex, i);
+            if (d < min) {
+                min = d;
                 minIndex = i;
             }
         }
         return minIndex;
     }
 
-    /**
-     * The distance between all tasks and this task is sorted in
-     * ascending order,and stored by task sequence number
-     *
-     * @param taskIndex the number of task
-     *
-     * @return {@code int[]}
-     */
-    private int[] findMinTaskToTask(int taskIndex) {
-
-        //Save the task sequence number
-        int[] taskIndexArray = new int[taskNum];
-
-        Map<Integer, Double> taskDistanceMap = new HashMap<>();
-
-        for (int i = 0; i < taskNum; i++) {
-            taskDistanceMap.put(i, taskDistanceMatrix[taskIndex][i]);
-        }
-
-        //Sort the map by value
-        Map<Integer, Double> sortMap = sortMap(taskDistanceMap);
-
-
-        //Iterate over taskDistanceMap and
-        // store the corresponding task sequence number in taskIndexArray
-        int count = 0;
-        for (Map.Entry<Integer, Double> entry : sortMap.entrySet()) {
-            taskIndexArray[count] = entry.getKey();
-            count++;
-        }
-
-        return taskIndexArray;
-    }
-
-
     /**
      * 1、Converts the entrySet of the Map to a List
      * 2、Sort with the sort method of the Collections utility class
@@ -342,7 +347,10 @@ public class PT_Most {
      * @param map {@code map<Integer, Double>}
      *
      * @return {@code Map<Integer, Double>}
+     *
+     * @deprecated {@link #taskAssign()} walks the presorted {@link TaskNeighbours} lists instead.
      */
+    @Deprecated
     public Map<Integer, Double> sortMap(Map<Integer, Double> map) {
 
         //Using the entrySet method of the Map, it is transformed into a list for sorting
@@ -381,9 +389,7 @@ public class PT_Most {
     public boolean isAssignWorker(int workerIndex) {
         if (assignMap.get(workerIndex).size() >= q) {
 
-            for (int i = 0; i < taskNum; i++) {
-                distanceMatrix[workerIndex][i] = INF;
-            }
+            distanceMatrix.maskRow(workerIndex);
             return true;
         }
         return false;
@@ -400,9 +406,7 @@ public class PT_Most {
     public boolean isAssignTask(int taskIndex) {
 
         if (countTaskIndex(taskIndex) >= p[taskIndex]) {
-            for (int i = 0; i < workerNum; i++) {
-                distanceMatrix[i][taskIndex] = INF;
-            }
+            distanceMatrix.maskColumn(taskIndex);
             return true;
         }
         return false;
@@ -416,15 +420,10 @@ public class PT_Most {
      * @return int
      */
     public int countTaskIndex(int taskIndex) {
-        int count = 0;
-
-        //Compute the task allocation map
-        for (Map.Entry<Integer, List<Integer>> entry : assignMap.entrySet()) {
-            if (entry.getValue().contains(taskIndex)) {
-                count++;
-            }
+        if (assignedCount == null) {
+            initCounters();
         }
-        return count;
+        return assignedCount[taskIndex];
     }
 
     public int countTaskIndexInTemp(int taskIndex) {
@@ -445,26 +444,67 @@ public class PT_Most {
      * @return boolean
      */
     public boolean isTaskAssignFinish() {
-        for (int i = 0; i < taskNum; i++) {
-            if (countTaskIndex(i) < p[i]) {
-                return false;
+        if (assignedCount == null) {
+            initCounters();
+        }
+        return unfinishedTaskNum == 0;
+    }
+
+    /**
+     * Reset the per-task counters and the pool of open workers from the current assignMap.
+     */
+    private void initCounters() {
+        assignedCount = new int[taskNum];
+        openWorkers = new IndexPool(workerNum);
+        for (int i = 0; i < workerNum; i++) {
+            List<Integer> taskList = assignMap.get(i);
+            for (int j = 0; j < taskList.size(); j++) {
+                int task = taskList.get(j);
+                if (taskList.indexOf(task) == j) {
+                    assignedCount[task]++;
+                }
+            }
+            if (taskList.size() < q) {
+                openWorkers.add(i);
             }
         }
-        //If all values in assignMap have length q, then all tasks have been assigned
-        int countWorkerTask = 0;
-        for (Map.Entry<Integer, List<Integer>> entry : assignMap.entrySet()) {
-            if (entry.getValue().size() == q) {
-                countWorkerTask++;
+        unfinishedTaskNum = 0;
+        for (int i = 0; i < taskNum; i++) {
+            if (assignedCount[i] < p[i]) {
+                unfinishedTaskNum++;
             }
         }
-        //If all workers are assigned q tasks,
-        // it means that all tasks are assigned and
-        // workers cannot accept any more tasks
-        if (countWorkerTask == workerNum) {
-            return true;
+    }
+
+    /**
+     * Add the task to the list of the worker and update the counters. A worker holding
+     * the task already counts once for it, as in {@link #countTaskIndex(int)}.
+     *
+     * @param workerIndex the index of the worker
+     * @param taskIndex the index of the task
+     */
+    private void assign(int workerIndex, int taskIndex) {
+        List<Integer> taskList = assignMap.get(workerIndex);
+        boolean newWorker = !taskList.contains(taskIndex);
+        taskList.add(taskIndex);
+        if (newWorker && ++assignedCount[taskIndex] == p[taskIndex]) {
+            unfinishedTaskNum--;
         }
+        if (taskList.size() >= q) {
+            openWorkers.remove(workerIndex);
+        }
+    }
 
-        return true;
+    /**
+     * @return true if a worker that SelectMaxTU has not kept yet holds a task
+     */
+    private boolean hasWorkerToKeep() {
+        for (Map.Entry<Integer, List<Integer>> entry : assignMap.entrySet()) {
+            if (!entry.getValue().isEmpty() && !workerList.contains(entry.getKey())) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
@@ -481,9 +521,9 @@ public class PT_Most {
      */
     public void printDistanceMatrix() {
         System.out.println("The current distance matrix is------------------------------------");
-        for (int i = 0; i < distanceMatrix.length; i++) {
-            for (int j = 0; j < distanceMatrix[i].length; j++) {
-                System.out.print(distanceMatrix[i][j] + " ");
+        for (int i = 0; i < distanceMatrix.rows(); i++) {
+            for (int j = 0; j < distanceMatrix.columns(); j++) {
+                System.out.print(distanceMatrix.get(i, j) + " ");
             }
             System.out.println();
         }
@@ -502,13 +542,13 @@ public class PT_Most {
                 continue;
             }
             //Calculate the distance of worker i to the first task
-            distance += distanceMatrixTempCal[i][taskList.get(0)];
+            distance += distanceMatrix.getMatrix().get(i, taskList.get(0));
             //Calculate the distance of worker i from the first task to the last task
             for (int j = 0; j < taskList.size() - 1; j++) {
-                distance += taskDistanceMatrix[taskList.get(j)][taskList.get(j + 1)];
+                distance += taskDistanceMatrix.get(taskList.get(j), taskList.get(j + 1));
             }
             //Calculate the distance of worker i from the last task to worker i
-            distance += distanceMatrixTempCal[i][taskList.get(taskList.size() - 1)];
+            distance += distanceMatrix.getMatrix().get(i, taskList.get(taskList.size() - 1));
         }
     }
 
@@ -528,28 +568,67 @@ public class PT_Most {
         this.taskNum = taskNum;
     }
 
+    /**
+     * @return a copy of the worker task distances, with the pairs ruled out so far set to INF
+     */
     public double[][] getDistanceMatrix() {
-        return distanceMatrix;
+        return distanceMatrix.toArray();
     }
 
     public void setDistanceMatrix(double[][] distanceMatrix) {
-        this.distanceMatrix = distanceMatrix;
+        this.distanceMatrix = new MaskedDistanceMatrix(DistanceMatrix.of(distanceMatrix));
+        this.distanceMatrixTemp = null;
     }
 
     public double[][] getTaskDistanceMatrix() {
-        return taskDistanceMatrix;
+        return taskDistanceMatrix.toArray();
     }
 
     public void setTaskDistanceMatrix(double[][] taskDistanceMatrix) {
-        this.taskDistanceMatrix = taskDistanceMatrix;
+        this.taskDistanceMatrix = DistanceMatrix.of(taskDistanceMatrix);
+        this.taskNeighbours = null;
+    }
+
+    public TaskNeighbours getTaskNeighbours() {
+        return taskNeighbours;
     }
 
+    public void setTaskNeighbours(TaskNeighbours taskNeighbours) {
+        this.taskNeighbours = taskNeighbours;
+    }
+
+    /**
+     * @return a copy of the worker task distances with the pairs kept by {@link #SelectMaxTU()} set
+     * to INF, null before {@link #taskAssign()}
+     * @deprecated the saved state is a set of masks over the distance matrix now, not a copy of it.
+     */
+    @Deprecated
     public double[][] getDistanceMatrixTemp() {
-        return distanceMatrixTemp;
+        return distanceMatrixTemp == null ? null : distanceMatrixTemp.toArray();
     }
 
+    /**
+     * Only the INF elements of the matrix are taken over, as masks over the distance matrix.
+     *
+     * @deprecated the saved state is a set of masks over the distance matrix now, not a copy of it.
+     */
+    @Deprecated
     public void setDistanceMatrixTemp(double[][] distanceMatrixTemp) {
-        this.distanceMatrixTemp = distanceMatrixTemp;
+        MaskedDistanceMatrix masks = new MaskedDistanceMatrix(distanceMatrix.getMatrix());
+        for (int i = 0; i < distanceMatrixTemp.length; i++) {
+            for (int j = 0; j < distanceMatrixTemp[i].length; j++) {
+                if (distanceMatrixTemp[i][j] == INF) masks.mask(i, j);
+            }
+        }
+        this.distanceMatrixTemp = masks;
+    }
+
+    public Random getRandom() {
+        return random;
+    }
+
+    public void setRandom(Random random) {
+        this.random = random;
     }
 
     public int getQ() {
@@ -574,6 +653,7 @@ public class PT_Most {
 
     public void setAssignMap(Map<Integer, List<Integer>> assignMap) {
         this.assignMap = assignMap;
+        this.assignedCount = null;
     }
 
     public Map<Integer, List<Integer>> getAssignMapTemp() {
@@ -604,12 +684,23 @@ public class PT_Most {
         this.distance = distance;
     }
 
+    /**
+     * @return a copy of the worker task distances the total distance is computed from
+     * @deprecated the distances are not copied any more, masks keep track of the ruled out pairs.
+     */
+    @Deprecated
     public double[][] getDistanceMatrixTempCal() {
-        return distanceMatrixTempCal;
+        return distanceMatrix.getMatrix().toArray();
     }
 
+    /**
+     * Same as {@link #setDistanceMatrix(double[][])}.
+     *
+     * @deprecated the distances are not copied any more, use {@link #setDistanceMatrix(double[][])}.
+     */
+    @Deprecated
     public void setDistanceMatrixTempCal(double[][] distanceMatrixTempCal) {
-        this.distanceMatrixTempCal = distanceMatrixTempCal;
+        setDistanceMatrix(distanceMatrixTempCal);
     }
 }
 
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2019-2025 CrowdOS Group, Northwestern Polytechnical University. <https://github.com/crowdosNWPU/CrowdOS>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * imitations under the License.
+ */
+package cn.crowdos.kernel.algorithms;
+
+import cn.crowdos.kernel.constraint.Coordinate;
+import cn.crowdos.kernel.constraint.DistanceMetric;
+
+import java.util.List;
+
+/**
+ * A distance matrix that stores the points instead of the distances, together with the
+ * {@link CandidateGraph} of the rows worth searching for every column.
+ * <p>
+ * {@link #get(int, int)} evaluates the metric, so every pair still has its exact distance and
+ * route lengths come out the same as with a dense matrix. The algorithms however only search the
+ * K nearest rows of a column, {@link #columnCandidates()}, and for a row the columns it is a
+ * candidate of, {@link #rowCandidates()}. Memory is {@code O((rows + columns) * K)}.
+ *
+ * @since 1.0.4
+ */
+public final class SparseDistanceMatrix extends DistanceMatrix {
+
+    private static final long serialVersionUID = 1L;
+
+    private final DistanceMetric metric;
+
+    private final double[] rowLongitudes;
+
+    private final double[] rowLatitudes;
+
+    private final double[] columnLongitudes;
+
+    private final double[] columnLatitudes;
+
+    //Column c lists its candidate rows, nearest first
+    private final CandidateGraph columnCandidates;
+
+    //Row r lists the columns to search for it, the transpose of columnCandidates built on first use
+    private volatile CandidateGraph rowCandidates;
+
+    private SparseDistanceMatrix(DistanceMetric metric, double[] rowLongitudes, double[] rowLatitudes,
+                                 double[] columnLongitudes, double[] columnLatitudes, CandidateGraph columnCandidates,
+                                 CandidateGraph rowCandidates) {
+        this.metric = metric;
+        this.rowLongitudes = rowLongitudes;
+        this.rowLatitudes = rowLatitudes;
+        this.columnLongitudes = columnLongitudes;
+        this.columnLatitudes = columnLatitudes;
+        this.columnCandidates = columnCandidates;
+        this.rowCandidates = rowCandidates;
+    }
+
+    /**
+     * Builds a worker-task matrix whose tasks search only their k nearest eligible workers.
+     *
+     * @param metric {@link DistanceMetric#PLANAR} or {@link DistanceMetric#SQUARED_PLANAR}
+     * @param workerPoints one point per row
+     * @param taskPoints one point per column
+     * @param k how many workers to keep per task
+     * @param eligible decides whether worker (row) may take task (column), null if all may
+     * @return the matrix
+     */
+    public static SparseDistanceMatrix nearestWorkers(DistanceMetric metric, List<Coordinate> workerPoints,
+                                                      List<Coordinate> taskPoints, int k, CandidateGraph.Filter eligible) {
+        double[] workerLongitudes = new double[workerPoints.size()], workerLatitudes = new double[workerPoints.size()];
+        double[] taskLongitudes = new double[taskPoints.size()], taskLatitudes = new double[taskPoints.size()];
+        FlatDistanceMatrix.unpack(workerPoints, workerLongitudes, workerLatitudes);
+        FlatDistanceMatrix.unpack(taskPoints, taskLongitudes, taskLatitudes);
+        CandidateGraph.Filter filter = eligible == null ? null : (task, worker) -> eligible.accept(worker, task);
+        CandidateGraph candidates = CandidateGraph.nearest(metric, taskLongitudes, taskLatitudes,
+                workerLongitudes, workerLatitudes, k, filter, false);
+        return new SparseDistanceMatrix(metric, workerLongitudes, workerLatitudes, taskLongitudes, taskLatitudes,
+                candidates, null);
+    }
+
+    /**
+     * Builds a task-task matrix whose tasks search only their k nearest other tasks.
+     *
+     * @param metric {@link DistanceMetric#PLANAR} or {@link DistanceMetric#SQUARED_PLANAR}
+     * @param taskPoints one point per row and column
+     * @param k how many neighbours to keep per task
+     * @return the matrix, the candidates of a task never include the task itself
+     */
+    public static SparseDistanceMatrix nearestTasks(DistanceMetric metric, List<Coordinate> taskPoints, int k) {
+        double[] longitudes = new double[taskPoints.size()], latitudes = new double[taskPoints.size()];
+        FlatDistanceMatrix.unpack(taskPoints, longitudes, latitudes);
+        CandidateGraph candidates = CandidateGraph.nearest(metric, longitudes, latitudes,
+                longitudes, latitudes, k, null, true);
+        //Distances between tasks are symmetric, the nearest columns of a task are its nearest rows
+        return new SparseDistanceMatrix(metric, longitudes, latitudes, longitudes, latitudes, candidates, candidates);
+    }
+
+    @Override
+    public int rows() {
+        return rowLongitudes.length;
+    }
+
+    @Override
+    public int columns() {
+        return columnLongitudes.length;
+    }
+
+    @Override
+    public double get(int row, int column) {
+        return metric.distance(rowLongitudes[row], rowLatitudes[row], columnLongitudes[column], columnLatitudes[column]);
+    }
+
+    @Override
+    public void copyRow(int row, double[] out) {
+        metric.row(rowLongitudes[row], rowLatitudes[row], columnLongitudes, columnLatitudes, 0, columns(), out, 0);
+    }
+
+    @Override
+    public CandidateGraph columnCandidates() {
+        return columnCandidates;
+    }
+
+    @Override
+    public CandidateGraph rowCandidates() {
+        CandidateGraph candidates = rowCandidates;
+        if (candidates == null) {
+            candidates = columnCandidates.transpose();
+            rowCandidates = candidates;
+        }
+        return candidates;
+    }
+
+    public DistanceMetric getMetric() {
+        return metric;
+    }
+}
@@ -32,9 +32,9 @@ public class T_Most {
 
     private int taskNum;
 
-    private double[][] distanceMatrix;
+    private DistanceMatrix distanceMatrix;
 
-    private double[][] taskDistanceMatrix;
+    private DistanceMatrix taskDistanceMatrix;
 
     private int q;
 
@@ -46,7 +46,27 @@ public class T_Most {
 
     private double distance;
 
-    private final double[][] distanceMatrixTemp;
+    //Presorted nearest-task lists, built from taskDistanceMatrix on first use
+    private TaskNeighbours taskNeighbours;
+
+    //Number of distinct workers assigned to each task
+    private int[] assignedCount;
+
+    //Number of tasks held by each worker
+    private int[] workerLoad;
+
+    //Number of tasks whose assigned count is still below p
+    private int unfinishedTaskNum;
+
+    //Unfinished tasks none of whose candidate workers can take them any more, sparse matrices only
+    private boolean[] unreachable;
+
+    private int unreachableTaskNum;
+
+    //Lazy max-heap of (remaining demand, task index), see pushDemand
+    private long[] demandHeap;
+
+    private int demandHeapSize;
 
     /**
      * @param workerNum          Number of workers
@@ -58,14 +78,21 @@ public class T_Most {
      * @param q                  Constraints, how many tasks are assigned to each worker at most
      */
     public T_Most(int workerNum, int taskNum, double[][] distanceMatrix, double[][] taskDistanceMatrix, int[] p, int q) {
+        this(workerNum, taskNum, DistanceMatrix.of(distanceMatrix), DistanceMatrix.of(taskDistanceMatrix), p, q);
+    }
+
+    /**
+     * Same as the other constructor, on matrices of any layout. Neither matrix is modified,
+     * the diagonal of the task distance matrix is read as INF.
+     *
+     * @since 1.0.4
+     */
+    public T_Most(int workerNum, int taskNum, DistanceMatrix distanceMatrix, DistanceMatrix taskDistanceMatrix, int[] p, int q) {
         this.workerNum = workerNum;
         this.taskNum = taskNum;
         this.distanceMatrix = distanceMatrix;
-        this.taskDistanceMatrix = taskDistanceMatrix;
-        //The diagonal elements of the task distance matrix are set to INF to facilitate the calculation
-        for (int i = 0; i < this.taskDistanceMatrix.length; i++) {
-            this.taskDistanceMatrix[i][i] = INF;
-        }
+        //The diagonal elements of the task distance matrix are read as INF to facilitate the calculation
+        this.taskDistanceMatrix = taskDistanceMatrix.withDiagonal(INF);
         this.q = q;
         this.p = p;
 
@@ -73,15 +100,18 @@ public class T_Most {
         for (int i = 0; i < workerNum; i++) {
             this.assignMap.put(i, new ArrayList<>());
         }
+    }
 
-        //Replication distance matrix
-        distanceMatrixTemp = new double[workerNum][taskNum];
-        for (int i = 0; i < workerNum; i++) {
-            for (int j = 0; j < taskNum; j++) {
-                distanceMatrixTemp[i][j] = distanceMatrix[i][j];
-            }
-        }
-
+    /**
+     * Same as the other constructor, but reuses nearest-task lists that were already built
+     * from the task distance matrix, for instance when several heuristics run on the same tasks.
+     *
+     * @param taskNeighbours presorted nearest-task lists of taskDistanceMatrix, possibly truncated to the K nearest
+     */
+    public T_Most(int workerNum, int taskNum, double[][] distanceMatrix, double[][] taskDistanceMatrix, int[] p, int q,
+            TaskNeighbours taskNeighbours) {
+        this(workerNum, taskNum, distanceMatrix, taskDistanceMatrix, p, q);
+        this.taskNeighbours = taskNeighbours;
     }
 
     /**
@@ -89,75 +119,64 @@ public class T_Most {
      *Assign tasks to workers using a greedy algorithm.
      *This method assigns tasks to workers based on the closest worker to each task,
      *starting with the task that needs the largest number of workers. The algorithm
-     *continues until all tasks have been assigned.
-     *@throws IllegalArgumentException if the number of tasks is less than or equal to zero,
-     *or the number of workers is less than or equal to zero.
+     *continues until all tasks have been assigned, or until no worker can take the
+     *task that needs the most workers.
+     *
+     *The distance matrix is left untouched: assigned pairs, full workers and full tasks
+     *are tracked by counters instead of being overwritten with INF.
      */
     public void taskAssign() {
 
-
         // Initialize variables
         int taskIndex;
         int workerIndex;
 
+        initCounters();
+        if (taskNeighbours == null) {
+            taskNeighbours = new TaskNeighbours(taskDistanceMatrix);
+        }
 
         //Check that all tasks have been assigned
-        while (!isTaskAssignFinish()) {
+        while (unfinishedTaskNum > unreachableTaskNum) {
 
             //The task that needs the largest number of workers is selected as the initial task
-            int maxNum = -1;
-            int maxNumIndex = -1;
-            for (int i = 0; i < taskNum; i++) {
-                if ((p[i] - countTaskIndex(i)) > maxNum) {
-                    maxNum = p[i] - countTaskIndex(i);
-                    maxNumIndex = i;
-                }
-            }
-            taskIndex = maxNumIndex;
-
+            taskIndex = peekMaxDemandTask();
 
             //The worker closest to the initial task is selected
             workerIndex = findMinWorkerToTask(taskIndex);
 
-
+            //No worker can take this task any more, and nothing else can change that
             if (workerIndex == -1) {
-                continue;
-            }
-
-            if (isAssignWorker(workerIndex) || isAssignTask(taskIndex)) {
+                if (distanceMatrix.columnCandidates() == null) {
+                    break;
+                }
+                //Only its candidates are out, leave the task to neighbouring assignments and go on
+                unreachable[taskIndex] = true;
+                unreachableTaskNum++;
                 continue;
             }
 
             //Add assignment result to the map
-            assignMap.get(workerIndex).add(taskIndex);
-            //Reset the matrix
-            distanceMatrix[workerIndex][taskIndex] = INF;
-
-            //Counter
-            int count = 0;
+            assign(workerIndex, taskIndex);
 
-            while (!isTaskAssignFinish() || isAssignWorker(workerIndex)) {
+            //If there are 5 tasks, select 4 tasks one by one, nearest first
+            int neighbourNum = Math.min(taskNum - 1, taskNeighbours.size(taskIndex));
+            for (int count = 0; count < neighbourNum; count++) {
 
-                //If there are 5 tasks, select 4 tasks one by one
-                if (count == taskNum - 1) {
+                //Check if the worker can still accept the task and if all tasks are assigned
+                if (isTaskAssignFinish() || isAssignWorker(workerIndex)) {
                     break;
                 }
 
-                int[] taskIndexArray = findMinTaskToTask(taskIndex);
+                int taskIndex_ = taskNeighbours.get(taskIndex, count);
 
-                int taskIndex_ = taskIndexArray[count];
-                count++;
-
-                //Check if the worker can still accept the task and if the task still needs workers
-                if (isAssignTask(taskIndex_) || isAssignWorker(workerIndex)) {
+                //Check if the task still needs workers, and may go to this worker
+                if (isAssignTask(taskIndex_) || !isCandidate(workerIndex, taskIndex_)) {
                     continue;
                 }
 
                 //Add assignment result to the map
-                assignMap.get(workerIndex).add(taskIndex_);
-                //Reset the matrix
-                distanceMatrix[workerIndex][taskIndex_] = INF;
-                isAssignTask(taskIndex_);
+                assign(workerIndex, taskIndex_);
             }
 
         }
@@ -165,18 +184,140 @@ public class T_Most {
         countDistance();
     }
 
+    /**
+     * Reset the per-task counters and the demand heap from the current assignMap.
+     */
+    private void initCounters() {
+        assignedCount = new int[taskNum];
+        workerLoad = new int[workerNum];
+        for (Map.Entry<Integer, List<Integer>> entry : assignMap.entrySet()) {
+            List<Integer> taskList = entry.getValue();
+            workerLoad[entry.getKey()] = taskList.size();
+            for (int i = 0; i < taskList.size(); i++) {
+                int task = taskList.get(i);
+                if (taskList.indexOf(task) == i) {
+                    assignedCount[task]++;
+                }
+            }
+        }
+        unfinishedTaskNum = 0;
+        unreachable = new boolean[taskNum];
+        unreachableTaskNum = 0;
+        demandHeap = new long[Math.max(taskNum, 1)];
+        demandHeapSize = 0;
+        for (int i = 0; i < taskNum; i++) {
+            if (assignedCount[i] < p[i]) {
+                unfinishedTaskNum++;
+                pushDemand(i);
+            }
+        }
+    }
+
+    /**
+     * Record that the worker takes the task and update the counters.
+     * A worker may receive a task it already holds when p[task] is greater than one;
+     * as before, it then uses up capacity without counting twice for the task.
+     *
+     * @param workerIndex the index of the worker
+     * @param taskIndex the index of the task
+     */
+    private void assign(int workerIndex, int taskIndex) {
+        List<Integer> taskList = assignMap.get(workerIndex);
+        boolean newWorker = !taskList.contains(taskIndex);
+        taskList.add(taskIndex);
+        workerLoad[workerIndex]++;
+        if (newWorker) {
+            assignedCount[taskIndex]++;
+            if (assignedCount[taskIndex] == p[taskIndex]) {
+                unfinishedTaskNum--;
+                if (unreachable[taskIndex]) {
+                    unreachableTaskNum--;
+                }
+            } else if (assignedCount[taskIndex] < p[taskIndex]) {
+                pushDemand(taskIndex);
+            }
+        }
+    }
+
+    /**
+     * Push the current remaining demand of a task. Demands only decrease, so older
+     * entries of the same task are recognised as stale and dropped in peekMaxDemandTask.
+     * The key orders by the largest remaining demand first and then by the smallest index.
+     *
+     * @param taskIndex the index of the task
+     */
+    private void pushDemand(int taskIndex) {
+        long remaining = p[taskIndex] - assignedCount[taskIndex];
+        long key = ((Integer.MAX_VALUE - remaining) << 32) | taskIndex;
+        if (demandHeapSize == demandHeap.length) {
+            demandHeap = Arrays.copyOf(demandHeap, demandHeapSize * 2);
+        }
+        int i = demandHeapSize++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (demandHeap[parent] <= key) break;
+            demandHeap[i] = demandHeap[parent];
+            i = parent;
+        }
+        demandHeap[i] = key;
+    }
+
+    /**
+     * Returns the task with the largest remaining demand, the smallest index on ties.
+     * Must only be called while some task is unfinished and not unreachable.
+     *
+     * @return the index of the task
+     */
+    private int peekMaxDemandTask() {
+        while (true) {
+            long key = demandHeap[0];
+            int taskIndex = (int) key;
+            long remaining = Integer.MAX_VALUE - (key >>> 32);
+            if (remaining == p[taskIndex] - assignedCount[taskIndex] && !unreachable[taskIndex]) {
+                return taskIndex;
+            }
+            //stale entry, remove the top of the heap
+            long last = demandHeap[--demandHeapSize];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= demandHeapSize) break;
+                if (child + 1 < demandHeapSize && demandHeap[child + 1] < demandHeap[child]) child++;
+                if (last <= demandHeap[child]) break;
+                demandHeap[i] = demandHeap[child];
+                i = child;
+            }
+            demandHeap[i] = last;
+        }
+    }
+
     /**
      * The value -1 is returned if it was not found
-     * Finds the index of the worker who is closest to the given task.
+     * Finds the index of the worker who is closest to the given task,
+     * skipping workers that are full or already hold the task.
+     * Only the candidate workers of the task are searched if the matrix has candidates.
      * @param taskIndex the index of the task for which to find the closest worker
      * @return the index of the closest worker
      */
     private int findMinWorkerToTask(int taskIndex) {
+        CandidateGraph candidates = distanceMatrix.columnCandidates();
+        if (candidates != null) {
+            //The candidates are sorted nearest first, ties by the smaller index as below
+            for (int rank = 0; rank < candidates.size(taskIndex); rank++) {
+                int i = candidates.neighbour(taskIndex, rank);
+                if (!isAssignWorker(i) && !assignMap.get(i).contains(taskIndex)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
         double min = INF;
         int minIndex = -1;
         for (int i = 0; i < workerNum; i++) {
-            if (distanceMatrix[i][taskIndex] < min) {
-                min = distanceMatrix[i][taskIndex];
+            double d = distanceMatrix.get(i, taskIndex);
+            if (d < min && !isAssignWorker(i)
+                    && !assignMap.get(i).contains(taskIndex)) {
+                min = d;
                 minIndex = i;
             }
         }
@@ -184,39 +325,13 @@ public class T_Most {
     }
 
     /**
-     * Find the index of tasks sorted in ascending order based on their distance to the given task.
-     *
-     * @param taskIndex the index of the task to which the distances are calculated.
-     *
-     * @return an array containing the task indices sorted in ascending order
-     * based on their distance to the given task.
+     * @return true unless the matrix has candidates and the worker is not one of those of the task
      */
-    private int[] findMinTaskToTask(int taskIndex) {
-
-        //Array to store the task indices
-        int[] taskIndexArray = new int[taskNum];
-
-        Map<Integer, Double> taskDistanceMap = new HashMap<>();
-        // Store the distances of all tasks to the given task in the map
-        for (int i = 0; i < taskNum; i++) {
-            taskDistanceMap.put(i, taskDistanceMatrix[taskIndex][i]);
-        }
-
-        //Sort the map based on the values (i.e., distances)
-        Map<Integer, Double> sortMap = sortMap(taskDistanceMap);
-
-
-        //Traverse the sorted map and store the corresponding task indices in the taskIndexArray
-        int count = 0;
-        for (Map.Entry<Integer, Double> entry : sortMap.entrySet()) {
-            taskIndexArray[count] = entry.getKey();
-            count++;
-        }
-
-        return taskIndexArray;
+    private boolean isCandidate(int workerIndex, int taskIndex) {
+        CandidateGraph candidates = distanceMatrix.columnCandidates();
+        return candidates == null || candidates.contains(taskIndex, workerIndex);
     }
 
-
     /**
      * 1、Converts the entrySet of the Map to a List
      * 2、sort with the sort method of the Collections utility class
@@ -227,7 +342,10 @@ public class T_Most {
      * @param map the map to be sorted
      *
      * @return a LinkedHashMap containing the sorted entries
+     *
+     * @deprecated {@link #taskAssign()} walks the presorted {@link TaskNeighbours} lists instead.
      */
+    @Deprecated
     public Map<Integer, Double> sortMap(Map<Integer, Double> map) {
 
         // Convert the map to a list of entries and sort it by value
@@ -255,39 +373,27 @@ public class T_Most {
 
     /**
      * Check if the worker is already assigned with q number of tasks.
-     * If the worker is assigned with q number of tasks, set the distance between this worker and all tasks to INF (infinite).
      *
      * @param workerIndex the index of the worker to be checked
      *
      * @return true if the worker is already assigned with q number of tasks, false otherwise
      */
     public boolean isAssignWorker(int workerIndex) {
-        if (assignMap.get(workerIndex).size() >= q) {
-
-            for (int i = 0; i < taskNum; i++) {
-                distanceMatrix[workerIndex][i] = INF;
-            }
-            return true;
+        if (workerLoad == null) {
+            initCounters();
         }
-        return false;
+        return workerLoad[workerIndex] >= q;
     }
 
     /**
      * Checks whether the given task has been assigned to enough workers based on its required number of workers.
-     * If so, updates the distance matrix by setting the distance to INF for all workers to that task.
      *
      * @param taskIndex The index of the task to check.
      *
      * @return True if the task has been assigned to enough workers, false otherwise.
      */
     public boolean isAssignTask(int taskIndex) {
-        if (countTaskIndex(taskIndex) == p[taskIndex]) {
-            for (int i = 0; i < workerNum; i++) {
-                distanceMatrix[i][taskIndex] = INF;
-            }
-            return true;
-        }
-        return false;
+        return countTaskIndex(taskIndex) == p[taskIndex];
     }
 
     /**
@@ -298,13 +404,10 @@ public class T_Most {
      * @return The number of workers that have been assigned the specified task.
      */
     public int countTaskIndex(int taskIndex) {
-        int count = 0;
-        for (Map.Entry<Integer, List<Integer>> entry : assignMap.entrySet()) {
-            if (entry.getValue().contains(taskIndex)) {
-                count++;
-            }
+        if (assignedCount == null) {
+            initCounters();
         }
-        return count;
+        return assignedCount[taskIndex];
     }
 
     /**
@@ -313,12 +416,10 @@ public class T_Most {
      * @return true if all tasks have been assigned to the required number of workers, false otherwise.
      */
     public boolean isTaskAssignFinish() {
-        for (int i = 0; i < taskNum; i++) {
-            if (countTaskIndex(i) < p[i]) {
-                return false;
-            }
+        if (assignedCount == null) {
+            initCounters();
         }
-        return true;
+        return unfinishedTaskNum == 0;
     }
 
     /**
@@ -335,9 +436,9 @@ public class T_Most {
      */
     public void printDistanceMatrix() {
         System.out.println("The current distance matrix is------------------------------------");
-        for (int i = 0; i < distanceMatrix.length; i++) {
-            for (int j = 0; j < distanceMatrix[i].length; j++) {
-                System.out.print(distanceMatrix[i][j] + " ");
+        for (int i = 0; i < distanceMatrix.rows(); i++) {
+            for (int j = 0; j < distanceMatrix.columns(); j++) {
+                System.out.print(distanceMatrix.get(i, j) + " ");
             }
             System.out.println();
         }
@@ -355,13 +456,13 @@ public class T_Most {
                 continue;
             }
             //Calculate the distance of worker i to the first task
-            distance += distanceMatrixTemp[i][taskList.get(0)];
+            distance += distanceMatrix.get(i, taskList.get(0));
             //Calculate the distance of worker i from the first task to the last task
             for (int j = 0; j < taskList.size() - 1; j++) {
-                distance += taskDistanceMatrix[taskList.get(j)][taskList.get(j + 1)];
+                distance += taskDistanceMatrix.get(taskList.get(j), taskList.get(j + 1));
             }
             //Calculate the distance of worker i from the last task to worker i
-            distance += distanceMatrixTemp[i][taskList.get(taskList.size() - 1)];
+            distance += distanceMatrix.get(i, taskList.get(taskList.size() - 1));
         }
     }
 
@@ -383,19 +484,28 @@ public class T_Most {
     }
 
     public double[][] getDistanceMatrix() {
-        return distanceMatrix;
+        return distanceMatrix.toArray();
     }
 
     public void setDistanceMatrix(double[][] distanceMatrix) {
-        this.distanceMatrix = distanceMatrix;
+        this.distanceMatrix = DistanceMatrix.of(distanceMatrix);
     }
 
     public double[][] getTaskDistanceMatrix() {
-        return taskDistanceMatrix;
+        return taskDistanceMatrix.toArray();
     }
 
     public void setTaskDistanceMatrix(double[][] taskDistanceMatrix) {
-        this.taskDistanceMatrix = taskDistanceMatrix;
+        this.taskDistanceMatrix = DistanceMatrix.of(taskDistanceMatrix);
+        this.taskNeighbours = null;
+    }
+
+    public TaskNeighbours getTaskNeighbours() {
+        return taskNeighbours;
+    }
+
+    public void setTaskNeighbours(TaskNeighbours taskNeighbours) {
+        this.taskNeighbours = taskNeighbours;
     }
 
     public int getQ() {
@@ -412,6 +522,8 @@ public class T_Most {
 
     public void setP(int[] p) {
         this.p = p;
+        this.assignedCount = null;
+        this.workerLoad = null;
     }
 
     public Map<Integer, List<Integer>> getAssignMap() {
@@ -420,6 +532,8 @@ public class T_Most {
 
     public void setAssignMap(Map<Integer, List<Integer>> assignMap) {
         this.assignMap = assignMap;
+        this.assignedCount = null;
+        this.workerLoad = null;
     }
 
     public double getINF() {
@@ -436,8 +550,8 @@ public class T_Most {
         return "T_Most{" +
                 "workerNum=" + workerNum +
                 ", taskNum=" + taskNum +
-                ", distanceMatrix=" + Arrays.toString(distanceMatrix) +
-                ", taskDistanceMatrix=" + Arrays.toString(taskDistanceMatrix) +
+                ", distanceMatrix=" + distanceMatrix +
+                ", taskDistanceMatrix=" + taskDistanceMatrix +
                 ", q=" + q +
                 ", p=" + Arrays.toString(p) +
                 ", assignMap=" + assignMap +
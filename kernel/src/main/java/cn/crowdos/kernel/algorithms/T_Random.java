@@ -29,9 +29,10 @@ public class T_Random {
 
     private int taskNum;
 
-    private double[][] distanceMatrix;
+    //Worker task distances, pairs that are ruled out are masked as INF
+    private MaskedDistanceMatrix distanceMatrix;
 
-    private double[][] taskDistanceMatrix;
+    private DistanceMatrix taskDistanceMatrix;
 
     private int q;
 
@@ -43,7 +44,20 @@ public class T_Random {
 
     private double distance;
 
-    private double[][] distanceMatrixTemp;
+    //Presorted nearest-task lists, built from taskDistanceMatrix on first use
+    private TaskNeighbours taskNeighbours;
+
+    //Source of randomness, replace it with a seeded AlgoRandom for repeatable runs
+    private Random random = new AlgoRandom();
+
+    //Number of distinct workers assigned to each task
+    private int[] assignedCount;
+
+    //Number of tasks whose assigned count is still below p
+    private int unfinishedTaskNum;
+
+    //Unfinished tasks the initial task is drawn from, in ascending order
+    private IndexPool openTasks;
 
     /**
      * Constructs a new T_Random object with the given parameters.
@@ -56,15 +70,22 @@ public class T_Random {
      * @param q the number of workers assigned to each task
      */
     public T_Random(int workerNum, int taskNum, double[][] distanceMatrix, double[][] taskDistanceMatrix, int[] p, int q) {
+        this(workerNum, taskNum, DistanceMatrix.of(distanceMatrix), DistanceMatrix.of(taskDistanceMatrix), p, q);
+    }
+
+    /**
+     * Same as the other constructor, on matrices of any layout. Neither matrix is modified,
+     * the diagonal of the task distance matrix is read as INF.
+     *
+     * @since 1.0.4
+     */
+    public T_Random(int workerNum, int taskNum, DistanceMatrix distanceMatrix, DistanceMatrix taskDistanceMatrix, int[] p, int q) {
         //initialize instance variables
         this.workerNum = workerNum;
         this.taskNum = taskNum;
-        this.distanceMatrix = distanceMatrix;
-        this.taskDistanceMatrix = taskDistanceMatrix;
-        ////set diagonal elements of taskDistanceMatrix to INF for convenience
-        for (int i = 0; i < this.taskDistanceMatrix.length; i++) {
-            this.taskDistanceMatrix[i][i] = INF;
-        }
+        this.distanceMatrix = new MaskedDistanceMatrix(distanceMatrix);
+        //read the diagonal elements of taskDistanceMatrix as INF for convenience
+        this.taskDistanceMatrix = taskDistanceMatrix.withDiagonal(INF);
         this.q = q;
         this.p = p;
 
@@ -72,14 +93,18 @@ public class T_Random {
         for (int i = 0; i < workerNum; i++) {
             this.assignMap.put(i, new ArrayList<>());
         }
+    }
 
-        //copy distanceMatrix to distanceMatrixTemp
-        distanceMatrixTemp = new double[workerNum][taskNum];
-        for (int i = 0; i < workerNum; i++) {
-            for (int j = 0; j < taskNum; j++) {
-                distanceMatrixTemp[i][j] = distanceMatrix[i][j];
-            }
-        }
+    /**
+     * Same as the other constructor, but reuses nearest-task lists that were already built
+     * from the task distance matrix, for instance when several heuristics run on the same tasks.
+     *
+     * @param taskNeighbours presorted nearest-task lists of taskDistanceMatrix, possibly truncated to the K nearest
+     */
+    public T_Random(int workerNum, int taskNum, double[][] distanceMatrix, double[][] taskDistanceMatrix, int[] p, int q,
+            TaskNeighbours taskNeighbours) {
+        this(workerNum, taskNum, distanceMatrix, taskDistanceMatrix, p, q);
+        this.taskNeighbours = taskNeighbours;
     }
 
     /**
@@ -96,20 +121,17 @@ public class T_Random {
         int taskIndex;
         int workerIndex;
 
+        initCounters();
+        if (taskNeighbours == null) {
+            taskNeighbours = new TaskNeighbours(taskDistanceMatrix);
+        }
 
         //Check that all tasks have been assigned
-        while (!isTaskAssignFinish()) {
+        while (openTasks.size() > 0) {
 
 
             //Randomly select the initial task among the tasks that need workers
-            List<Integer> randomTaskList = new ArrayList<>();
-            for (int i = 0; i < taskNum; i++) {
-                if (countTaskIndex(i) < p[i]) {
-                    randomTaskList.add(i);
-                }
-            }
-            Collections.shuffle(randomTaskList);
-            taskIndex = randomTaskList.get(0);
+            taskIndex = openTasks.get(random.nextInt(openTasks.size()));
 
 
             //The worker closest to the initial task is selected
@@ -117,6 +139,8 @@ public class T_Random {
 
 
             if (workerIndex == -1) {
+                //No worker can take the task any more, stop drawing it
+                openTasks.remove(taskIndex);
                 continue;
             }
 
@@ -126,37 +150,35 @@ public class T_Random {
             }
 
             //Join the allocation result Map
-            assignMap.get(workerIndex).add(taskIndex);
+            assign(workerIndex, taskIndex);
             //Reset matrix
-            distanceMatrix[workerIndex][taskIndex] = INF;
+            distanceMatrix.mask(workerIndex, taskIndex);
 
             //A counter
             int count = 0;
+            int neighbourNum = Math.min(taskNum - 1, taskNeighbours.size(taskIndex));
 
             while (!isTaskAssignFinish() || isAssignWorker(workerIndex)) {
 
-                //If there are five tasks, select four tasks in turn
-                if (count == taskNum - 1) {
+                //If there are five tasks, select four tasks in turn, nearest first
+                if (count == neighbourNum) {
                     break;
                 }
 
-                int[] taskIndexArray = findMinTaskToTask(taskIndex);
-
-
-                int taskIndex_ = taskIndexArray[count];
+                int taskIndex_ = taskNeighbours.get(taskIndex, count);
                 count++;
 
 
                 //Check whether the worker can still accept the task and whether the task still needs workers
-                if (isAssignTask(taskIndex_) || isAssignWorker(workerIndex)) {
+                if (isAssignTask(taskIndex_) || isAssignWorker(workerIndex) || !isCandidate(workerIndex, taskIndex_)) {
                     continue;
                 }
 
                 //Join the allocation result Map
-                assignMap.get(workerIndex).add(taskIndex_);
+                assign(workerIndex, taskIndex_);
 
                 //Reset matrix
-                distanceMatrix[workerIndex][taskIndex_] = INF;
+                distanceMatrix.mask(workerIndex, taskIndex_);
 
                 isAssignTask(taskIndex_);
             }
@@ -171,14 +193,28 @@ public class T_Random {
      *
      * @param taskIndex the index of the task for which the closest worker is being searched
      *
+     * Only the candidate workers of the task are searched if the matrix has candidates.
+     *
      * @return the index of the closest worker, or -1 if no worker is available
      */
     private int findMinWorkerToTask(int taskIndex) {
+        CandidateGraph candidates = distanceMatrix.columnCandidates();
+        if (candidates != null) {
+            //The candidates are sorted nearest first, ties by the smaller index as below
+            for (int rank = 0; rank < candidates.size(taskIndex); rank++) {
+                int i = candidates.neighbour(taskIndex, rank);
+                if (!distanceMatrix.isMasked(i, taskIndex)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
         double min = INF;
         int minIndex = -1;
         for (int i = 0; i < workerNum; i++) {
-            if (distanceMatrix[i][taskIndex] < min) {
-                min = distanceMatrix[i][taskIndex];
+            double d = distanceMatrix.get(i, taskIndex);
+            if (d < min) {
+                min = d;
                 minIndex = i;
             }
         }
@@ -186,40 +222,13 @@ public class T_Random {
     }
 
     /**
-     * Find the tasks that are closest to the given task.
-     *
-     * @param taskIndex the index of the given task
-     *
-     * @return an array of task indices, sorted in ascending order of their distances to the given task
+     * @return true unless the matrix has candidates and the worker is not one of those of the task
      */
-    private int[] findMinTaskToTask(int taskIndex) {
-
-        // Create an array to store task indices
-        int[] taskIndexArray = new int[taskNum];
-
-        Map<Integer, Double> taskDistanceMap = new HashMap<>();
-
-        // Populate the map with task indices and their corresponding distances to the given task
-        for (int i = 0; i < taskNum; i++) {
-            taskDistanceMap.put(i, taskDistanceMatrix[taskIndex][i]);
-        }
-
-        //Sort the map by value in ascending order
-        Map<Integer, Double> sortMap = sortMap(taskDistanceMap);
-
-
-        // Traverse the sorted map and store the corresponding task indices in the array
-        int count = 0;
-        for (Map.Entry<Integer, Double> entry : sortMap.entrySet()) {
-            taskIndexArray[count] = entry.getKey();
-            count++;
-        }
-
-
-        return taskIndexArray;
+    private boolean isCandidate(int workerIndex, int taskIndex) {
+        CandidateGraph candidates = distanceMatrix.columnCandidates();
+        return candidates == null || candidates.contains(taskIndex, workerIndex);
     }
 
-
     /**
      * Sorts the given map by value in ascending order and returns a LinkedHashMap with the sorted entries.
      *  1、Converts the entrySet of the Map to a List
@@ -231,8 +240,10 @@ public class T_Random {
      * @param map the map to be sorted
      *
      * @return a LinkedHashMap with the sorted entries
+     *
+     * @deprecated {@link #taskAssign()} walks the presorted {@link TaskNeighbours} lists instead.
      */
-
+    @Deprecated
     public Map<Integer, Double> sortMap(Map<Integer, Double> map) {
 
         //Convert the map into a list of entries and sort it by value in ascending order
@@ -270,9 +281,7 @@ public class T_Random {
 
         if (assignMap.get(workerIndex).size() >= q) {
 
-            for (int i = 0; i < taskNum; i++) {
-                distanceMatrix[workerIndex][i] = INF;
-            }
+            distanceMatrix.maskRow(workerIndex);
             return true;
         }
         return false;
@@ -288,9 +297,7 @@ public class T_Random {
      */
     public boolean isAssignTask(int taskIndex) {
         if (countTaskIndex(taskIndex) == p[taskIndex]) {
-            for (int i = 0; i < workerNum; i++) {
-                distanceMatrix[i][taskIndex] = INF;
-            }
+            distanceMatrix.maskColumn(taskIndex);
             return true;
         }
         return false;
@@ -304,13 +311,10 @@ public class T_Random {
      * @return The number of workers that have been assigned the specified task.
      */
     public int countTaskIndex(int taskIndex) {
-        int count = 0;
-        for (Map.Entry<Integer, List<Integer>> entry : assignMap.entrySet()) {
-            if (entry.getValue().contains(taskIndex)) {
-                count++;
-            }
+        if (assignedCount == null) {
+            initCounters();
         }
-        return count;
+        return assignedCount[taskIndex];
     }
 
     /**
@@ -319,12 +323,50 @@ public class T_Random {
      * @return true if all tasks have been assigned to the required number of workers, false otherwise.
      */
     public boolean isTaskAssignFinish() {
+        if (assignedCount == null) {
+            initCounters();
+        }
+        return unfinishedTaskNum == 0;
+    }
+
+    /**
+     * Reset the per-task counters and the pool of open tasks from the current assignMap.
+     */
+    private void initCounters() {
+        assignedCount = new int[taskNum];
+        for (List<Integer> taskList : assignMap.values()) {
+            for (int i = 0; i < taskList.size(); i++) {
+                int task = taskList.get(i);
+                if (taskList.indexOf(task) == i) {
+                    assignedCount[task]++;
+                }
+            }
+        }
+        unfinishedTaskNum = 0;
+        openTasks = new IndexPool(taskNum);
         for (int i = 0; i < taskNum; i++) {
-            if (countTaskIndex(i) < p[i]) {
-                return false;
+            if (assignedCount[i] < p[i]) {
+                unfinishedTaskNum++;
+                openTasks.add(i);
             }
         }
-        return true;
+    }
+
+    /**
+     * Add the task to the list of the worker and update the counters. A worker holding
+     * the task already counts once for it, as in {@link #countTaskIndex(int)}.
+     *
+     * @param workerIndex the index of the worker
+     * @param taskIndex the index of the task
+     */
+    private void assign(int workerIndex, int taskIndex) {
+        List<Integer> taskList = assignMap.get(workerIndex);
+        boolean newWorker = !taskList.contains(taskIndex);
+        taskList.add(taskIndex);
+        if (newWorker && ++assignedCount[taskIndex] == p[taskIndex]) {
+            unfinishedTaskNum--;
+            openTasks.remove(taskIndex);
+        }
     }
 
     /**
@@ -341,9 +383,9 @@ public class T_Random {
      */
     public void printDistanceMatrix() {
         System.out.println("The current distance matrix is------------------------------------");
-        for (int i = 0; i < distanceMatrix.length; i++) {
-            for (int j = 0; j < distanceMatrix[i].length; j++) {
-                System.out.print(distanceMatrix[i][j] + " ");
+        for (int i = 0; i < distanceMatrix.rows(); i++) {
+            for (int j = 0; j < distanceMatrix.columns(); j++) {
+                System.out.print(distanceMatrix.get(i, j) + " ");
             }
             System.out.println();
         }
@@ -361,13 +403,13 @@ public class T_Random {
                 continue;
             }
             //Calculate the distance of worker i to the first task
-            distance += distanceMatrixTemp[i][taskList.get(0)];
+            distance += distanceMatrix.getMatrix().get(i, taskList.get(0));
             //Calculate the distance of worker i from the first task to the last task
             for (int j = 0; j < taskList.size() - 1; j++) {
-                distance += taskDistanceMatrix[taskList.get(j)][taskList.get(j + 1)];
+                distance += taskDistanceMatrix.get(taskList.get(j), taskList.get(j + 1));
             }
             //Calculate the distance of worker i from the last task to worker i
-            distance += distanceMatrixTemp[i][taskList.get(taskList.size() - 1)];
+            distance += distanceMatrix.getMatrix().get(i, taskList.get(taskList.size() - 1));
         }
     }
 
@@ -388,20 +430,40 @@ public class T_Random {
         this.taskNum = taskNum;
     }
 
+    /**
+     * @return a copy of the worker task distances, with the pairs ruled out so far set to INF
+     */
     public double[][] getDistanceMatrix() {
-        return distanceMatrix;
+        return distanceMatrix.toArray();
     }
 
     public void setDistanceMatrix(double[][] distanceMatrix) {
-        this.distanceMatrix = distanceMatrix;
+        this.distanceMatrix = new MaskedDistanceMatrix(DistanceMatrix.of(distanceMatrix));
     }
 
     public double[][] getTaskDistanceMatrix() {
-        return taskDistanceMatrix;
+        return taskDistanceMatrix.toArray();
     }
 
     public void setTaskDistanceMatrix(double[][] taskDistanceMatrix) {
-        this.taskDistanceMatrix = taskDistanceMatrix;
+        this.taskDistanceMatrix = DistanceMatrix.of(taskDistanceMatrix);
+        this.taskNeighbours = null;
+    }
+
+    public TaskNeighbours getTaskNeighbours() {
+        return taskNeighbours;
+    }
+
+    public void setTaskNeighbours(TaskNeighbours taskNeighbours) {
+        this.taskNeighbours = taskNeighbours;
+    }
+
+    public Random getRandom() {
+        return random;
+    }
+
+    public void setRandom(Random random) {
+        this.random = random;
     }
 
     public int getQ() {
@@ -426,6 +488,7 @@ public class T_Random {
 
     public void setAssignMap(Map<Integer, List<Integer>> assignMap) {
         this.assignMap = assignMap;
+        this.assignedCount = null;
     }
 
     public double getINF() {
@@ -441,8 +504,8 @@ public class T_Random {
         return "T_Random{" +
                 "workerNum=" + workerNum +
                 ", taskNum=" + taskNum +
-                ", distanceMatrix=" + Arrays.toString(distanceMatrix) +
-                ", taskDistanceMatrix=" + Arrays.toString(taskDistanceMatrix) +
+                ", distanceMatrix=" + distanceMatrix +
+                ", taskDistanceMatrix=" + taskDistanceMatrix +
                 ", q=" + q +
                 ", p=" + Arrays.toString(p) +
                 ", assignMap=" + assignMap +
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2019-2025 CrowdOS Group, Northwestern Polytechnical University. <https://github.com/crowdosNWPU/CrowdOS>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * imitations under the License.
+ */
+package cn.crowdos.kernel.algorithms;
+
+/**
+ * Presorted nearest-task lists built once from a task distance matrix.
+ * <p>
+ * For every task the other tasks are ordered by ascending distance, ties broken by the
+ * smaller task index, which is the order the assignment heuristics used to obtain by sorting
+ * a {@code HashMap} on every step. The orderings are stored row by row in one flat {@code int[]},
+ * so T_Most, T_Random and PT_Most walk them without boxing or allocating.
+ * <p>
+ * A list may be truncated to the K nearest tasks. The heuristics only look at the head of each
+ * list most of the time, and the full table needs {@code taskNum * taskNum} entries. Built from a
+ * {@link SparseDistanceMatrix}, the lists are the candidate neighbours of the tasks and are
+ * copied from the matrix without looking at any other pair.
+ *
+ * @since 1.0.4
+ */
+public class TaskNeighbours {
+
+    private final int taskNum;
+
+    //Row i is neighbours[offsets[i], offsets[i + 1])
+    private final int[] offsets;
+
+    //Row i holds the neighbours of task i, from the nearest to the farthest
+    private final int[] neighbours;
+
+    /**
+     * Builds the complete orderings, every row lists all taskNum tasks.
+     *
+     * @param taskDistanceMatrix the distance matrix between tasks
+     */
+    public TaskNeighbours(double[][] taskDistanceMatrix) {
+        this(DistanceMatrix.of(taskDistanceMatrix));
+    }
+
+    /**
+     * Builds the complete orderings, every row lists all taskNum tasks.
+     *
+     * @param taskDistanceMatrix the distance matrix between tasks
+     */
+    public TaskNeighbours(DistanceMatrix taskDistanceMatrix) {
+        this(taskDistanceMatrix, taskDistanceMatrix.rows());
+    }
+
+    /**
+     * Builds orderings truncated to the k nearest tasks.
+     *
+     * @param taskDistanceMatrix the distance matrix between tasks
+     * @param k how many neighbours to keep per task, values above the task number keep all of them
+     */
+    public TaskNeighbours(double[][] taskDistanceMatrix, int k) {
+        this(DistanceMatrix.of(taskDistanceMatrix), k);
+    }
+
+    /**
+     * Builds orderings truncated to the k nearest tasks.
+     *
+     * @param taskDistanceMatrix the distance matrix between tasks
+     * @param k how many neighbours to keep per task, values above the task number keep all of them
+     */
+    public TaskNeighbours(DistanceMatrix taskDistanceMatrix, int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must not be negative: " + k);
+        }
+        this.taskNum = taskDistanceMatrix.rows();
+        this.offsets = new int[taskNum + 1];
+        CandidateGraph candidates = taskDistanceMatrix.rowCandidates();
+        if (candidates != null) {
+            for (int i = 0; i < taskNum; i++) {
+                offsets[i + 1] = offsets[i] + Math.min(k, candidates.size(i));
+            }
+            this.neighbours = new int[offsets[taskNum]];
+            for (int i = 0; i < taskNum; i++) {
+                for (int rank = 0; rank < offsets[i + 1] - offsets[i]; rank++) {
+                    neighbours[offsets[i] + rank] = candidates.neighbour(i, rank);
+                }
+            }
+            return;
+        }
+        int stride = Math.min(k, taskNum);
+        if ((long) taskNum * stride > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("too many neighbours, use a smaller k: " + k);
+        }
+        this.neighbours = new int[taskNum * stride];
+        for (int i = 0; i < taskNum; i++) {
+            offsets[i + 1] = offsets[i] + stride;
+        }
+
+        int[] order = new int[taskNum];
+        int[] buffer = new int[taskNum];
+        double[] row = new double[taskNum];
+        for (int i = 0; i < taskNum; i++) {
+            taskDistanceMatrix.copyRow(i, row);
+            if (stride == taskNum) {
+                for (int j = 0; j < taskNum; j++) {
+                    order[j] = j;
+                }
+                mergeSort(row, order, buffer, 0, taskNum);
+            } else {
+                selectNearest(row, order, stride);
+            }
+            System.arraycopy(order, 0, neighbours, i * stride, stride);
+        }
+    }
+
+    /**
+     * @return the number of tasks the orderings were built for
+     */
+    public int getTaskNum() {
+        return taskNum;
+    }
+
+    /**
+     * @param taskIndex the index of the task
+     *
+     * @return how many neighbours are stored for the task
+     */
+    public int size(int taskIndex) {
+        return offsets[taskIndex + 1] - offsets[taskIndex];
+    }
+
+    /**
+     * Returns the rank-th nearest task of the given task, rank 0 being the nearest.
+     * The task itself is listed too, normally last because the diagonal of the matrix is INF.
+     *
+     * @param taskIndex the index of the task
+     * @param rank the position in the ordering, below {@link #size(int)}
+     *
+     * @return the index of the neighbouring task
+     */
+    public int get(int taskIndex, int rank) {
+        return neighbours[offsets[taskIndex] + rank];
+    }
+
+    /**
+     * Stable merge sort of the task indexes by distance. The indexes start in ascending
+     * order, so equal distances keep the smaller index first.
+     */
+    private static void mergeSort(double[] row, int[] order, int[] buffer, int from, int to) {
+        if (to - from < 2) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(row, order, buffer, from, mid);
+        mergeSort(row, order, buffer, mid, to);
+        if (Double.compare(row[order[mid - 1]], row[order[mid]]) <= 0) {
+            return;
+        }
+        System.arraycopy(order, from, buffer, from, to - from);
+        int left = from;
+        int right = mid;
+        for (int i = from; i < to; i++) {
+            if (right >= to || (left < mid && Double.compare(row[buffer[left]], row[buffer[right]]) <= 0)) {
+                order[i] = buffer[left++];
+            } else {
+                order[i] = buffer[right++];
+            }
+        }
+    }
+
+    /**
+     * Keeps the stride nearest tasks in a bounded max-heap, then sorts them in place
+     * into the first stride slots of order.
+     */
+    private void selectNearest(double[] row, int[] order, int stride) {
+        int size = 0;
+        for (int j = 0; j < taskNum; j++) {
+            if (size < stride) {
+                //sift up
+                int i = size++;
+                while (i > 0) {
+                    int parent = (i - 1) >>> 1;
+                    if (!farther(row, j, order[parent])) break;
+                    order[i] = order[parent];
+                    i = parent;
+                }
+                order[i] = j;
+            } else if (size > 0 && farther(row, order[0], j)) {
+                siftDown(row, order, j, size);
+            }
+        }
+        //heap sort, the farthest task moves to the end each round
+        for (int end = size - 1; end > 0; end--) {
+            int top = order[0];
+            siftDown(row, order, order[end], end);
+            order[end] = top;
+        }
+    }
+
+    private static void siftDown(double[] row, int[] heap, int task, int size) {
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) break;
+            if (child + 1 < size && farther(row, heap[child + 1], heap[child])) child++;
+            if (!farther(row, heap[child], task)) break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = task;
+    }
+
+    /**
+     * @return true if task a comes after task b in the ordering
+     */
+    private static boolean farther(double[] row, int a, int b) {
+        int c = Double.compare(row[a], row[b]);
+        return c > 0 || (c == 0 && a > b);
+    }
+}
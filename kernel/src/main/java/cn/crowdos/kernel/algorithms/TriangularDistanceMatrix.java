@@ -0,0 +1,127 @@
+/*
+ * Copyright 2019-2025 CrowdOS Group, Northwestern Polytechnical University. <https://github.com/crowdosNWPU/CrowdOS>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * imitations under the License.
+ */
+package cn.crowdos.kernel.algorithms;
+
+import cn.crowdos.kernel.constraint.Coordinate;
+import cn.crowdos.kernel.constraint.DistanceMetric;
+
+import java.util.List;
+
+/**
+ * A symmetric distance matrix that stores its upper triangle only, row by row in one
+ * {@code double[]}; the diagonal holds a single value. A task-task matrix needs half the
+ * memory of a full one this way.
+ *
+ * @since 1.0.4
+ */
+public final class TriangularDistanceMatrix extends DistanceMatrix {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int size;
+
+    private final double diagonal;
+
+    //Element (i, j) with i < j is at rowStart[i] + j
+    private final int[] rowStart;
+
+    private final double[] data;
+
+    public TriangularDistanceMatrix(int size, double diagonal) {
+        this(size, diagonal, new double[checkedSize(size)]);
+    }
+
+    TriangularDistanceMatrix(int size, double diagonal, double[] data) {
+        this.size = size;
+        this.diagonal = diagonal;
+        this.data = data;
+        this.rowStart = new int[size];
+        int start = 0;
+        for (int i = 0; i < size; i++) {
+            //row i holds columns i + 1 to size - 1
+            rowStart[i] = start - i - 1;
+            start += size - i - 1;
+        }
+    }
+
+    static int checkedSize(int size) {
+        if (size < 0 || (long) size * (size - 1) / 2 > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("invalid matrix size " + size);
+        }
+        return (int) ((long) size * (size - 1) / 2);
+    }
+
+    @Override
+    public int rows() {
+        return size;
+    }
+
+    @Override
+    public int columns() {
+        return size;
+    }
+
+    @Override
+    public double get(int row, int column) {
+        if (row < column) return data[rowStart[row] + column];
+        if (row > column) return data[rowStart[column] + row];
+        return diagonal;
+    }
+
+    /**
+     * Sets the distance between two different elements, in both directions.
+     */
+    public void set(int row, int column, double distance) {
+        if (row == column) {
+            throw new IllegalArgumentException("the diagonal is fixed: " + row);
+        }
+        data[row < column ? rowStart[row] + column : rowStart[column] + row] = distance;
+    }
+
+    @Override
+    public void copyRow(int row, double[] out) {
+        for (int column = 0; column < row; column++) {
+            out[column] = data[rowStart[column] + row];
+        }
+        out[row] = diagonal;
+        if (row + 1 < size) {
+            System.arraycopy(data, rowStart[row] + row + 1, out, row + 1, size - row - 1);
+        }
+    }
+
+    @Override
+    public DistanceMatrix withDiagonal(double value) {
+        return Double.compare(value, diagonal) == 0 ? this : new TriangularDistanceMatrix(size, value, data);
+    }
+
+    /**
+     * Fills the matrix with the distances between the points.
+     *
+     * @param metric the distance, it must be symmetric
+     * @param points one point per row
+     * @return this matrix
+     */
+    public TriangularDistanceMatrix fill(DistanceMetric metric, List<Coordinate> points) {
+        if (points.size() != size) {
+            throw new IllegalArgumentException("expected " + size + " points");
+        }
+        double[] longitudes = new double[size], latitudes = new double[size];
+        FlatDistanceMatrix.unpack(points, longitudes, latitudes);
+        for (int i = 0; i + 1 < size; i++) {
+            metric.row(longitudes[i], latitudes[i], longitudes, latitudes, i + 1, size, data, rowStart[i]);
+        }
+        return this;
+    }
+}
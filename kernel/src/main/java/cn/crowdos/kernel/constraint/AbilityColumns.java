@@ -0,0 +1,184 @@
+/*
+ * Copyright 2019-2025 CrowdOS Group, Northwestern Polytechnical University. <https://github.com/crowdosNWPU/CrowdOS>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * imitations under the License.
+ */
+package cn.crowdos.kernel.constraint;
+
+import cn.crowdos.kernel.resource.Participant;
+import cn.crowdos.kernel.wrapper.DateCondition;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * A columnar copy of the location, time and status of a list of participants.
+ *
+ * <p>Row {@code i} holds the {@link Coordinate} ability of participant {@code i} in two
+ * {@code double} columns, its {@link DateCondition} ability as milliseconds in a {@code long}
+ * column and its status in a {@code byte} column. Constraints on these conditions scan the
+ * columns in {@link Constraint#satisfyAll(AbilityColumns)} instead of fetching the abilities
+ * participant by participant.</p>
+ *
+ * <p>The columns are read once, when the table is built; a participant that moves or changes
+ * status afterwards is only seen by a new table.</p>
+ *
+ * @since 1.0.4
+ * @see cn.crowdos.kernel.system.resource.ParticipantPool#getAbilityColumns()
+ */
+public final class AbilityColumns {
+
+    // the participant has a Coordinate ability
+    static final byte HAS_LOCATION = 1;
+    // ... and it is a Coordinate
+    static final byte LOCATION = 2;
+    // the participant has a DateCondition ability
+    static final byte HAS_TIME = 4;
+    // ... and it is a Date
+    static final byte TIME = 8;
+
+    private final Participant[] participants;
+    final int size;
+    final double[] longitude;
+    final double[] latitude;
+    final long[] time;
+    final byte[] status;
+    final byte[] flags;
+
+    private AbilityColumns(Participant[] participants) {
+        this.participants = participants;
+        this.size = participants.length;
+        this.longitude = new double[size];
+        this.latitude = new double[size];
+        this.time = new long[size];
+        this.status = new byte[size];
+        this.flags = new byte[size];
+    }
+
+    /**
+     * @param participants the participants, one row each, in this order.
+     * @return the columns of the participants.
+     */
+    public static AbilityColumns of(List<Participant> participants) {
+        AbilityColumns columns = new AbilityColumns(participants.toArray(new Participant[0]));
+        for (int row = 0; row < columns.size; row++) {
+            Participant participant = columns.participants[row];
+            byte flag = 0;
+            double longitude = Double.NaN, latitude = Double.NaN;
+            if (participant.hasAbility(Coordinate.class)) {
+                flag |= HAS_LOCATION;
+                Condition location = participant.getAbility(Coordinate.class);
+                if (location instanceof Coordinate) {
+                    flag |= LOCATION;
+                    longitude = ((Coordinate) location).longitude;
+                    latitude = ((Coordinate) location).latitude;
+                }
+            }
+            if (participant.hasAbility(DateCondition.class)) {
+                flag |= HAS_TIME;
+                Condition time = participant.getAbility(DateCondition.class);
+                if (time instanceof Date) {
+                    flag |= TIME;
+                    columns.time[row] = ((Date) time).getTime();
+                }
+            }
+            columns.longitude[row] = longitude;
+            columns.latitude[row] = latitude;
+            columns.flags[row] = flag;
+            Participant.ParticipantStatus status = participant.getStatus();
+            columns.status[row] = status == null ? -1 : (byte) status.ordinal();
+        }
+        return columns;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Participant participant(int row) {
+        return participants[row];
+    }
+
+    /**
+     * @param rows a set of rows, e.g. returned by {@link Constraint#satisfyAll(AbilityColumns)}.
+     * @return the participants of those rows, in row order.
+     */
+    public List<Participant> select(BitSet rows) {
+        List<Participant> selected = new ArrayList<>(rows.cardinality());
+        for (int row = rows.nextSetBit(0); row >= 0 && row < size; row = rows.nextSetBit(row + 1)) {
+            selected.add(participants[row]);
+        }
+        return selected;
+    }
+
+    /**
+     * @return the rows of the participants that were available when the table was built.
+     */
+    public BitSet available() {
+        byte available = (byte) Participant.ParticipantStatus.AVAILABLE.ordinal();
+        long[] words = words();
+        for (int row = 0; row < size; row++) {
+            words[row >>> 6] |= (status[row] == available ? 1L : 0L) << row;
+        }
+        return BitSet.valueOf(words);
+    }
+
+    /**
+     * @return the rows of a location constraint: participants without a location satisfy it,
+     * the others if they lie inside the half-open box.
+     */
+    BitSet locationsInside(double minLongitude, double minLatitude, double maxLongitude, double maxLatitude) {
+        long[] words = words();
+        for (int row = 0; row < size; row++) {
+            double x = longitude[row], y = latitude[row];
+            boolean satisfied = (flags[row] & HAS_LOCATION) == 0
+                    || (minLongitude <= x && minLatitude <= y && x < maxLongitude && y < maxLatitude);
+            words[row >>> 6] |= (satisfied ? 1L : 0L) << row;
+        }
+        return BitSet.valueOf(words);
+    }
+
+    /**
+     * @return the rows of a location constraint: participants without a location satisfy it,
+     * the others if they lie within the radius of the center.
+     */
+    BitSet locationsWithin(double centerLongitude, double centerLatitude, double radius) {
+        long[] words = words();
+        for (int row = 0; row < size; row++) {
+            boolean satisfied = (flags[row] & HAS_LOCATION) == 0
+                    || DistanceMetric.PLANAR.distance(longitude[row], latitude[row], centerLongitude, centerLatitude) <= radius;
+            words[row >>> 6] |= (satisfied ? 1L : 0L) << row;
+        }
+        return BitSet.valueOf(words);
+    }
+
+    /**
+     * @return the rows of a time constraint: participants without a time satisfy it,
+     * the others if their time lies in {@code [from, until)}.
+     */
+    BitSet timesBetween(long from, long until) {
+        long[] words = words();
+        for (int row = 0; row < size; row++) {
+            long t = time[row];
+            byte flag = flags[row];
+            boolean satisfied = (flag & HAS_TIME) == 0 || ((flag & TIME) != 0 && from <= t && t < until);
+            words[row >>> 6] |= (satisfied ? 1L : 0L) << row;
+        }
+        return BitSet.valueOf(words);
+    }
+
+    private long[] words() {
+        return new long[(size + 63) >>> 6];
+    }
+}
@@ -15,6 +15,9 @@
 package cn.crowdos.kernel.constraint;
 
 import cn.crowdos.kernel.Decomposable;
+import cn.crowdos.kernel.resource.Participant;
+
+import java.util.BitSet;
 
 /**
  * <p>In <i>Mobile CrowdSensing</i> (MCS), there are a lots of constraints.
@@ -77,6 +80,39 @@ public interface Constraint extends Decomposable<Constraint> {
 
     Class<? extends Condition> getConditionClass();
 
+    /**
+     * Returns a rough cost of {@link #satisfy(Condition)}, used by {@link ConstraintPlan} to check
+     * cheap constraints first: 1 for time windows, 2 for points and rectangles, 3 for lines and 4
+     * for polygons. Constraints that do not override it are checked last.
+     *
+     * @return the relative cost of checking this constraint.
+     * @since 1.0.4
+     */
+    default int evaluationCost() {
+        return 8;
+    }
+
+    /**
+     * Checks this constraint for every row of a column table at once. The default fetches the
+     * ability of each participant; constraints on locations and times override it with a scan
+     * over the columns.
+     *
+     * @param columns the participants to check.
+     * @return the rows whose participant satisfies this constraint or does not have its condition.
+     * @since 1.0.4
+     */
+    default BitSet satisfyAll(AbilityColumns columns) {
+        Class<? extends Condition> conditionClass = getConditionClass();
+        BitSet satisfied = new BitSet(columns.size());
+        for (int row = 0; row < columns.size(); row++) {
+            Participant participant = columns.participant(row);
+            if (!participant.hasAbility(conditionClass) || satisfy(participant.getAbility(conditionClass))) {
+                satisfied.set(row);
+            }
+        }
+        return satisfied;
+    }
+
     /**
      * Return the description of this constraint.
      * @return the description of this constraint
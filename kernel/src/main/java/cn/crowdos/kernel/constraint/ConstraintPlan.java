@@ -0,0 +1,124 @@
+/*
+ * Copyright 2019-2025 CrowdOS Group, Northwestern Polytechnical University. <https://github.com/crowdosNWPU/CrowdOS>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * imitations under the License.
+ */
+package cn.crowdos.kernel.constraint;
+
+import cn.crowdos.kernel.resource.Participant;
+
+import java.util.*;
+
+/**
+ * The constraints of a task, compiled for checking many participants against them.
+ *
+ * <p>The constraints are sorted by {@link Constraint#evaluationCost()}, cheapest first, and
+ * grouped by their condition class. {@link #satisfiedBy(Participant)} fetches the ability of a
+ * participant at most once per condition class, and stops at the first constraint that is not
+ * satisfied. As before, a constraint whose condition the participant does not have is skipped.</p>
+ *
+ * @since 1.0.4
+ */
+public final class ConstraintPlan {
+
+    private static final ConstraintPlan EMPTY = new ConstraintPlan(new Constraint[0], new int[0], new Class<?>[0]);
+
+    // marks a condition class the participant has no ability for
+    private static final Condition ABSENT = new Condition() {
+    };
+
+    private final Constraint[] constraints;
+    private final int[] groups;
+    private final Class<?>[] conditionClasses;
+
+    private ConstraintPlan(Constraint[] constraints, int[] groups, Class<?>[] conditionClasses) {
+        this.constraints = constraints;
+        this.groups = groups;
+        this.conditionClasses = conditionClasses;
+    }
+
+    /**
+     * @param constraints the constraints of a task, may be null.
+     * @return the plan checking all of them.
+     */
+    public static ConstraintPlan compile(List<Constraint> constraints) {
+        if (constraints == null || constraints.isEmpty()) return EMPTY;
+        Constraint[] sorted = constraints.toArray(new Constraint[0]);
+        // stable, so constraints of equal cost keep their order
+        Arrays.sort(sorted, Comparator.comparingInt(Constraint::evaluationCost));
+        Map<Class<?>, Integer> groupOf = new LinkedHashMap<>();
+        int[] groups = new int[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            Class<?> conditionClass = sorted[i].getConditionClass();
+            Integer group = groupOf.get(conditionClass);
+            if (group == null) {
+                group = groupOf.size();
+                groupOf.put(conditionClass, group);
+            }
+            groups[i] = group;
+        }
+        return new ConstraintPlan(sorted, groups, groupOf.keySet().toArray(new Class<?>[0]));
+    }
+
+    /**
+     * @return the constraints in the order they are checked.
+     */
+    public List<Constraint> getConstraints() {
+        return Collections.unmodifiableList(Arrays.asList(constraints));
+    }
+
+    /**
+     * Checks every participant of a column table, constraint by constraint, stopping once no row is left.
+     *
+     * @param columns the participants to check.
+     * @return the rows whose participant satisfies every constraint it has the condition for.
+     */
+    public BitSet satisfiedByAll(AbilityColumns columns) {
+        BitSet satisfied = new BitSet(columns.size());
+        satisfied.set(0, columns.size());
+        for (Constraint constraint : constraints) {
+            if (satisfied.isEmpty()) break;
+            satisfied.and(constraint.satisfyAll(columns));
+        }
+        return satisfied;
+    }
+
+    /**
+     * @param participant the participant to check.
+     * @return true if the participant satisfies every constraint it has the condition for.
+     */
+    @SuppressWarnings("unchecked")
+    public boolean satisfiedBy(Participant participant) {
+        if (conditionClasses.length == 1) {
+            Class<? extends Condition> conditionClass = (Class<? extends Condition>) conditionClasses[0];
+            if (!participant.hasAbility(conditionClass)) return true;
+            Condition ability = participant.getAbility(conditionClass);
+            for (Constraint constraint : constraints) {
+                if (!constraint.satisfy(ability)) return false;
+            }
+            return true;
+        }
+        Condition[] abilities = new Condition[conditionClasses.length];
+        for (int i = 0; i < constraints.length; i++) {
+            int group = groups[i];
+            Condition ability = abilities[group];
+            if (ability == null) {
+                Class<? extends Condition> conditionClass = (Class<? extends Condition>) conditionClasses[group];
+                ability = participant.hasAbility(conditionClass) ? participant.getAbility(conditionClass) : ABSENT;
+                abilities[group] = ability;
+            }
+            if (ability == ABSENT) continue;
+            if (!constraints[i].satisfy(ability)) return false;
+        }
+        return true;
+    }
+}
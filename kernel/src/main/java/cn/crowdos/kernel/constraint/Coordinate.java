@@ -37,14 +37,20 @@ public class Coordinate implements Condition{
         return false;
     }
 
+    public double getLongitude() {
+        return longitude;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
     public boolean inLine(Coordinate other){
         return this.longitude == other.longitude || this.latitude == other.latitude;
     }
 
     public double euclideanDistance(Coordinate other){
-        double dLon = longitude - other.longitude;
-        double dLat = latitude - other.latitude;
-        return dLon * dLon + dLat * dLat;
+        return DistanceMetric.SQUARED_PLANAR.distance(this, other);
     }
 
     @Override
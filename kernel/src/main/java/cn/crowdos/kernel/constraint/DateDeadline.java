@@ -23,6 +23,7 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
@@ -114,6 +115,18 @@ public class DateDeadline implements Constraint{
         return localDate.equals(LocalDate.now()) || (localDate.isAfter(LocalDate.now())) &&localDate.isBefore(endDate);
     }
 
+    /**
+     * Today, or a later day before the end date, as a range of instants in the default time zone.
+     */
+    @Override
+    public BitSet satisfyAll(AbilityColumns columns) {
+        ZoneId zone = ZoneId.systemDefault();
+        LocalDate today = LocalDate.now();
+        LocalDate until = endDate.isAfter(today.plusDays(1)) ? endDate : today.plusDays(1);
+        return columns.timesBetween(today.atStartOfDay(zone).toInstant().toEpochMilli(),
+                until.atStartOfDay(zone).toInstant().toEpochMilli());
+    }
+
     /**
      *
      * This class represents a date deadline condition.
@@ -126,6 +139,11 @@ public class DateDeadline implements Constraint{
         return DateCondition.class;
     }
 
+    @Override
+    public int evaluationCost() {
+        return 1;
+    }
+
     /**
      * Returns a string representation of the DateDeadline object.
      * The string includes the endDate field.
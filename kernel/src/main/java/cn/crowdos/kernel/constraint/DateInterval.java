@@ -131,6 +131,11 @@ public class DateInterval implements Constraint{
         return DateCondition.class;
     }
 
+    @Override
+    public int evaluationCost() {
+        return 1;
+    }
+
     /**
      *
      * Returns a string representation of this data interval, which contains the start date and end date.
@@ -85,6 +85,11 @@ public class DependenceConstraint implements Constraint {
         return NoneCondition.class;
     }
 
+    @Override
+    public int evaluationCost() {
+        return 2;
+    }
+
     /**
      * The description function returns a string that describes the object.
      *
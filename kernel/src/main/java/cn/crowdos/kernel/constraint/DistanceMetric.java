@@ -0,0 +1,204 @@
+/*
+ * Copyright 2019-2025 CrowdOS Group, Northwestern Polytechnical University. <https://github.com/crowdosNWPU/CrowdOS>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * imitations under the License.
+ */
+package cn.crowdos.kernel.constraint;
+
+import java.util.List;
+
+/**
+ * The distance between two coordinates, as used by the spatial constraints and the assignment
+ * algorithms.
+ *
+ * <p>Besides the distance of a pair of points, each metric fills a whole row or matrix of
+ * distances from primitive longitude and latitude arrays. {@link #matrix(double[], double[], int,
+ * double[], double[], int, double[])} walks the columns in blocks of {@link #BLOCK} so that the
+ * column coordinates stay in cache while every row is computed against them.</p>
+ *
+ * @since 1.0.4
+ */
+public enum DistanceMetric {
+
+    /**
+     * The straight-line distance on raw longitude and latitude, in degrees.
+     */
+    PLANAR {
+        @Override
+        public double distance(double longitude1, double latitude1, double longitude2, double latitude2) {
+            double dLon = longitude1 - longitude2, dLat = latitude1 - latitude2;
+            return Math.sqrt(dLon * dLon + dLat * dLat);
+        }
+
+        @Override
+        public void row(double longitude, double latitude, double[] longitudes, double[] latitudes, int from, int to,
+                        double[] out, int offset) {
+            for (int c = from; c < to; c++) {
+                double dLon = longitude - longitudes[c], dLat = latitude - latitudes[c];
+                out[offset + c] = Math.sqrt(dLon * dLon + dLat * dLat);
+            }
+        }
+    },
+
+    /**
+     * The square of {@link #PLANAR}, which orders pairs the same way without the square root.
+     * This is what {@link Coordinate#euclideanDistance(Coordinate)} returns.
+     */
+    SQUARED_PLANAR {
+        @Override
+        public double distance(double longitude1, double latitude1, double longitude2, double latitude2) {
+            double dLon = longitude1 - longitude2, dLat = latitude1 - latitude2;
+            return dLon * dLon + dLat * dLat;
+        }
+
+        @Override
+        public void row(double longitude, double latitude, double[] longitudes, double[] latitudes, int from, int to,
+                        double[] out, int offset) {
+            for (int c = from; c < to; c++) {
+                double dLon = longitude - longitudes[c], dLat = latitude - latitudes[c];
+                out[offset + c] = dLon * dLon + dLat * dLat;
+            }
+        }
+    },
+
+    /**
+     * The equirectangular approximation of the distance on the earth, in meters. Accurate for
+     * points a few hundred kilometers apart, away from the poles.
+     */
+    EQUIRECTANGULAR {
+        @Override
+        public double distance(double longitude1, double latitude1, double longitude2, double latitude2) {
+            double x = Math.toRadians(longitude1 - longitude2) * Math.cos(Math.toRadians(latitude1 + latitude2) / 2);
+            double y = Math.toRadians(latitude1 - latitude2);
+            return EARTH_RADIUS * Math.sqrt(x * x + y * y);
+        }
+
+        @Override
+        public void row(double longitude, double latitude, double[] longitudes, double[] latitudes, int from, int to,
+                        double[] out, int offset) {
+            for (int c = from; c < to; c++) {
+                out[offset + c] = distance(longitude, latitude, longitudes[c], latitudes[c]);
+            }
+        }
+    },
+
+    /**
+     * The great-circle distance on the earth, in meters.
+     */
+    HAVERSINE {
+        @Override
+        public double distance(double longitude1, double latitude1, double longitude2, double latitude2) {
+            double sinLat = Math.sin(Math.toRadians(latitude1 - latitude2) / 2);
+            double sinLon = Math.sin(Math.toRadians(longitude1 - longitude2) / 2);
+            double a = sinLat * sinLat
+                    + Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2)) * sinLon * sinLon;
+            return 2 * EARTH_RADIUS * Math.asin(Math.sqrt(Math.min(1, a)));
+        }
+
+        @Override
+        public void row(double longitude, double latitude, double[] longitudes, double[] latitudes, int from, int to,
+                        double[] out, int offset) {
+            double cosLat = Math.cos(Math.toRadians(latitude));
+            for (int c = from; c < to; c++) {
+                double sinLat = Math.sin(Math.toRadians(latitude - latitudes[c]) / 2);
+                double sinLon = Math.sin(Math.toRadians(longitude - longitudes[c]) / 2);
+                double a = sinLat * sinLat + cosLat * Math.cos(Math.toRadians(latitudes[c])) * sinLon * sinLon;
+                out[offset + c] = 2 * EARTH_RADIUS * Math.asin(Math.sqrt(Math.min(1, a)));
+            }
+        }
+    };
+
+    /**
+     * The mean radius of the earth, in meters.
+     */
+    public static final double EARTH_RADIUS = 6_371_008.8;
+
+    /**
+     * The number of columns computed against all rows before moving on to the next columns.
+     */
+    public static final int BLOCK = 512;
+
+    public abstract double distance(double longitude1, double latitude1, double longitude2, double latitude2);
+
+    public double distance(Coordinate point1, Coordinate point2) {
+        return distance(point1.longitude, point1.latitude, point2.longitude, point2.latitude);
+    }
+
+    /**
+     * Computes the distances from one point to the points {@code [from, to)}, without checking
+     * the bounds.
+     *
+     * @param out receives the distance to point {@code c} at index {@code offset + c}.
+     */
+    public abstract void row(double longitude, double latitude, double[] longitudes, double[] latitudes, int from, int to,
+                             double[] out, int offset);
+
+    /**
+     * Computes the distances from one point to each of the given points.
+     *
+     * @param out receives the distance to point {@code c} at index {@code c}.
+     */
+    public void row(double longitude, double latitude, double[] longitudes, double[] latitudes, int count, double[] out) {
+        checkLength(longitudes, latitudes, count);
+        if (out.length < count) throw new IllegalArgumentException("output shorter than " + count);
+        row(longitude, latitude, longitudes, latitudes, 0, count, out, 0);
+    }
+
+    /**
+     * Computes the distances between every row point and every column point.
+     *
+     * @param out receives the distance between row {@code r} and column {@code c} at index
+     *            {@code r * columns + c}.
+     */
+    public void matrix(double[] rowLongitudes, double[] rowLatitudes, int rows,
+                       double[] columnLongitudes, double[] columnLatitudes, int columns, double[] out) {
+        checkLength(rowLongitudes, rowLatitudes, rows);
+        checkLength(columnLongitudes, columnLatitudes, columns);
+        if (out.length < (long) rows * columns) {
+            throw new IllegalArgumentException("output shorter than " + rows + "x" + columns);
+        }
+        for (int from = 0; from < columns; from += BLOCK) {
+            int to = Math.min(columns, from + BLOCK);
+            for (int r = 0; r < rows; r++) {
+                row(rowLongitudes[r], rowLatitudes[r], columnLongitudes, columnLatitudes, from, to, out, r * columns);
+            }
+        }
+    }
+
+    /**
+     * Computes the distances between every row point and every column point, in the shape taken
+     * by the assignment algorithms.
+     *
+     * @return the matrix, {@code [rows.size()][columns.size()]}.
+     */
+    public double[][] matrix(List<Coordinate> rows, List<Coordinate> columns) {
+        double[] longitudes = new double[columns.size()], latitudes = new double[columns.size()];
+        for (int c = 0; c < longitudes.length; c++) {
+            Coordinate point = columns.get(c);
+            longitudes[c] = point.longitude;
+            latitudes[c] = point.latitude;
+        }
+        double[][] matrix = new double[rows.size()][];
+        for (int r = 0; r < matrix.length; r++) {
+            Coordinate point = rows.get(r);
+            matrix[r] = new double[longitudes.length];
+            row(point.longitude, point.latitude, longitudes, latitudes, 0, longitudes.length, matrix[r], 0);
+        }
+        return matrix;
+    }
+
+    private static void checkLength(double[] longitudes, double[] latitudes, int count) {
+        if (count < 0 || longitudes.length < count || latitudes.length < count) {
+            throw new IllegalArgumentException("fewer than " + count + " coordinates");
+        }
+    }
+}
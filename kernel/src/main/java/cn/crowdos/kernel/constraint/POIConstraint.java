@@ -20,7 +20,7 @@ import cn.crowdos.kernel.Decomposer;
 import java.util.Collections;
 import java.util.List;
 
-public class POIConstraint implements Constraint{
+public class POIConstraint implements SpatialConstraint{
     private final Coordinate location;
     private final double satisfyRadius;
 
@@ -62,11 +62,24 @@ public class POIConstraint implements Constraint{
     }
 
 
+    @Override
+    public Coordinate[] boundingBox() {
+        return new Coordinate[]{
+                new Coordinate(location.longitude - satisfyRadius, location.latitude - satisfyRadius),
+                new Coordinate(location.longitude + satisfyRadius, location.latitude + satisfyRadius)
+        };
+    }
+
     @Override
     public Class<? extends Condition> getConditionClass() {
         return Coordinate.class;
     }
 
+    @Override
+    public int evaluationCost() {
+        return 2;
+    }
+
 
     @Override
     public String description() {
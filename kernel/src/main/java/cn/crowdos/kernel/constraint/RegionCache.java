@@ -0,0 +1,249 @@
+/*
+ * Copyright 2019-2025 CrowdOS Group, Northwestern Polytechnical University. <https://github.com/crowdosNWPU/CrowdOS>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * imitations under the License.
+ */
+package cn.crowdos.kernel.constraint;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of where the cells of a grid lie with respect to {@link SpatioPolygon} regions.
+ *
+ * <p>The plane is cut into square cells of {@link #getCellSize()} degrees. The first query that
+ * lands in a cell classifies the whole cell as inside, outside or crossed by the boundary of the
+ * region, and later queries in the same cell answer from that: only points in boundary cells
+ * still run the crossing test. The answers are exactly those of the polygon itself.</p>
+ *
+ * <p>Entries are keyed by the vertices of the polygon, not by the constraint instance, so tasks
+ * that share a region share its cells; a constraint replaced by a different region gets new
+ * entries, and {@link #invalidate(SpatioPolygon)} drops the old ones right away. The least
+ * recently used cells are evicted once the cache is full.</p>
+ *
+ * @since 1.0.4
+ */
+public final class RegionCache {
+
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+    public static final double DEFAULT_CELL_SIZE = 1e-3;
+
+    static final byte OUTSIDE = 0;
+    static final byte INSIDE = 1;
+    static final byte BOUNDARY = 2;
+
+    private static final int SEGMENTS = 16;
+
+    private static volatile RegionCache defaultCache = new RegionCache(DEFAULT_CAPACITY, DEFAULT_CELL_SIZE);
+
+    private final double cellSize;
+    // cells closer than this to an edge count as boundary cells, which absorbs rounding
+    private final double margin;
+    private final Segment[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param capacity the maximum number of cells kept.
+     * @param cellSize the side of a cell, in degrees.
+     */
+    public RegionCache(int capacity, double cellSize) {
+        if (capacity < SEGMENTS) throw new IllegalArgumentException("capacity must be at least " + SEGMENTS);
+        if (!(cellSize > 0) || Double.isInfinite(cellSize)) throw new IllegalArgumentException("invalid cell size " + cellSize);
+        this.cellSize = cellSize;
+        this.margin = cellSize * 1e-6;
+        this.segments = new Segment[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(capacity / SEGMENTS);
+        }
+    }
+
+    /**
+     * @return the cache used by {@link SpatioPolygon#satisfy(Condition)}, or null if it is disabled.
+     */
+    public static RegionCache getDefault() {
+        return defaultCache;
+    }
+
+    /**
+     * @param cache the cache to be used by {@link SpatioPolygon#satisfy(Condition)}, or null to
+     *              disable caching.
+     */
+    public static void setDefault(RegionCache cache) {
+        defaultCache = cache;
+    }
+
+    boolean contains(SpatioPolygon region, double longitude, double latitude) {
+        long cellX = (long) Math.floor(longitude / cellSize);
+        long cellY = (long) Math.floor(latitude / cellSize);
+        Key key = new Key(region.fingerprint(), cellX, cellY);
+        Segment segment = segments[key.hash >>> 28];
+        Byte cell;
+        synchronized (segment) {
+            cell = segment.get(key);
+        }
+        if (cell == null) {
+            misses.increment();
+            cell = region.classifyCell(cellX * cellSize - margin, cellY * cellSize - margin,
+                    (cellX + 1) * cellSize + margin, (cellY + 1) * cellSize + margin);
+            synchronized (segment) {
+                segment.put(key, cell);
+            }
+        } else {
+            hits.increment();
+        }
+        if (cell == BOUNDARY) return region.contains(longitude, latitude);
+        return cell == INSIDE;
+    }
+
+    /**
+     * Drops the cells of the region of a constraint.
+     *
+     * @param region the constraint being replaced.
+     */
+    public void invalidate(SpatioPolygon region) {
+        Fingerprint fingerprint = region.fingerprint();
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.entries.keySet().removeIf(key -> key.region.equals(fingerprint));
+            }
+        }
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.entries.clear();
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.entries.size();
+            }
+        }
+        return size;
+    }
+
+    public double getCellSize() {
+        return cellSize;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RegionCache{size=%d, hits=%d, misses=%d, evictions=%d}",
+                size(), getHitCount(), getMissCount(), getEvictionCount());
+    }
+
+    /**
+     * The vertices of a polygon, compared by value.
+     */
+    static final class Fingerprint {
+        private final double[] vertices;
+        private final int hash;
+
+        Fingerprint(List<Coordinate> polygon) {
+            vertices = new double[polygon.size() * 2];
+            Iterator<Coordinate> iterator = polygon.iterator();
+            for (int i = 0; i < vertices.length; i += 2) {
+                Coordinate vertex = iterator.next();
+                vertices[i] = vertex.longitude;
+                vertices[i + 1] = vertex.latitude;
+            }
+            hash = Arrays.hashCode(vertices);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (!(obj instanceof Fingerprint)) return false;
+            Fingerprint other = (Fingerprint) obj;
+            return hash == other.hash && Arrays.equals(vertices, other.vertices);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class Key {
+        final Fingerprint region;
+        final long cellX;
+        final long cellY;
+        final int hash;
+
+        Key(Fingerprint region, long cellX, long cellY) {
+            this.region = region;
+            this.cellX = cellX;
+            this.cellY = cellY;
+            int h = region.hashCode() * 31 + Long.hashCode(cellX);
+            h = h * 31 + Long.hashCode(cellY);
+            this.hash = h ^ (h >>> 16);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) return false;
+            Key other = (Key) obj;
+            return cellX == other.cellX && cellY == other.cellY && region.equals(other.region);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private final class Segment {
+        // in access order, the least recently used cell first
+        final Map<Key, Byte> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private final int capacity;
+
+        Segment(int capacity) {
+            this.capacity = capacity;
+        }
+
+        Byte get(Key key) {
+            return entries.get(key);
+        }
+
+        void put(Key key, Byte cell) {
+            entries.put(key, cell);
+            if (entries.size() <= capacity) return;
+            Iterator<Key> eldest = entries.keySet().iterator();
+            eldest.next();
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+}
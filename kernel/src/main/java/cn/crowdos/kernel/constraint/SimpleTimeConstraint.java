@@ -21,6 +21,7 @@ import cn.crowdos.kernel.wrapper.DateCondition;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
@@ -90,6 +91,11 @@ public class SimpleTimeConstraint implements Constraint{
         return dateRange[0].compareTo(date) <= 0 && date.compareTo(dateRange[1]) < 0;
     }
 
+    @Override
+    public BitSet satisfyAll(AbilityColumns columns) {
+        return columns.timesBetween(dateRange[0].getTime(), dateRange[1].getTime());
+    }
+
     /**
      * get Condition Class
      *
@@ -100,6 +106,11 @@ public class SimpleTimeConstraint implements Constraint{
         return DateCondition.class;
     }
 
+    @Override
+    public int evaluationCost() {
+        return 1;
+    }
+
 
     /**
      * The description function returns a string that describes the object.
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2019-2025 CrowdOS Group, Northwestern Polytechnical University. <https://github.com/crowdosNWPU/CrowdOS>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * imitations under the License.
+ */
+package cn.crowdos.kernel.constraint;
+
+/**
+ * A {@link Constraint} on participant {@link Coordinate}s whose satisfying region is bounded.
+ *
+ * <p>The bounding box lets resources such as the
+ * {@link cn.crowdos.kernel.system.resource.ParticipantPool} skip every participant located
+ * outside of it without calling {@link #satisfy(Condition)}. Every coordinate accepted by
+ * {@code satisfy} must lie inside the returned box; the box itself may be larger than the
+ * exact region.</p>
+ *
+ * @since 1.0.4
+ */
+public interface SpatialConstraint extends Constraint {
+
+    /**
+     * Returns the axis-aligned bounding box of the region accepted by this constraint.
+     *
+     * @return a two-element array {lower-left, upper-right}.
+     */
+    Coordinate[] boundingBox();
+}
@@ -27,7 +27,7 @@ import java.util.List;
  * The SpatioLine class represents a line in a 2D coordinate system with a given width.
  * It implements the Constraint interface and provides methods for decomposition and satisfaction testing.
  */
-public class SpatioLine implements Constraint{
+public class SpatioLine implements SpatialConstraint{
     private final Coordinate startPoint;
     private final Coordinate endPoint;
     private final double width;
@@ -115,6 +115,22 @@ public class SpatioLine implements Constraint{
         return ComputePointToLineDistance(startPoint,endPoint,coordinate)<=width/2;
     }
 
+    /**
+     *
+     * Gets the bounding box of the segment widened by half of the line width on every side.
+     * @return {lower-left, upper-right} corners of the box
+     */
+    @Override
+    public Coordinate[] boundingBox() {
+        double halfWidth = width / 2;
+        return new Coordinate[]{
+                new Coordinate(Math.min(startPoint.longitude, endPoint.longitude) - halfWidth,
+                        Math.min(startPoint.latitude, endPoint.latitude) - halfWidth),
+                new Coordinate(Math.max(startPoint.longitude, endPoint.longitude) + halfWidth,
+                        Math.max(startPoint.latitude, endPoint.latitude) + halfWidth)
+        };
+    }
+
     /**
      *
      * Gets the class of the condition that this SpatioLine object accepts.
@@ -126,6 +142,11 @@ public class SpatioLine implements Constraint{
         return Coordinate.class;
     }
 
+    @Override
+    public int evaluationCost() {
+        return 3;
+    }
+
     /**
      *
      * Returns a String representation of this SpatioLine object.
@@ -165,16 +186,16 @@ public class SpatioLine implements Constraint{
         double x2 = end.longitude, y2 = end.latitude;
         double cross = (x2 - x1) * (x - x1) + (y2 - y1) * (y - y1);
         if (cross <= 0) {
-            return Math.sqrt((x - x1) * (x - x1) + (y - y1) * (y - y1));
+            return DistanceMetric.PLANAR.distance(x, y, x1, y1);
         }
         double d2 = (x2 - x1) * (x2 - x1) + (y2 - y1) * (y2 - y1);
         if (cross >= d2) {
-            return Math.sqrt((x - x2) * (x - x2) + (y - y2) * (y - y2));
+            return DistanceMetric.PLANAR.distance(x, y, x2, y2);
         }
         double r = cross / d2;
         double px = x1 + (x2 - x1) * r;
         double py = y1 + (y2 - y1) * r;
-        return Math.sqrt((x - px) * (x - px) + (y - py) * (y - py));
+        return DistanceMetric.PLANAR.distance(x, y, px, py);
     }
 
     /**
@@ -187,9 +208,7 @@ public class SpatioLine implements Constraint{
      */
 
     private double ComputePointToPointDistance(Coordinate point1,Coordinate point2){
-        double longitudeDifference = point1.longitude - point2.longitude;
-        double latitudeDifference = point1.latitude - point2.latitude;
-        return Math.sqrt(longitudeDifference*longitudeDifference+latitudeDifference*latitudeDifference);
+        return DistanceMetric.PLANAR.distance(point1, point2);
     }
 
     /**
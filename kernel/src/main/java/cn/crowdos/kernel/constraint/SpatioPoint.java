@@ -17,6 +17,7 @@ package cn.crowdos.kernel.constraint;
 import cn.crowdos.kernel.DecomposeException;
 import cn.crowdos.kernel.Decomposer;
 
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.List;
 
@@ -26,7 +27,7 @@ import java.util.List;
  * This class implements the Constraint interface and checks if a given Coordinate satisfies the constraint.
  * It also provides a Decomposer for the SpatioPoint constraint.
  */
-public class SpatioPoint implements Constraint{
+public class SpatioPoint implements SpatialConstraint{
     private final Coordinate center;
     private final double radius;
 
@@ -59,6 +60,11 @@ public class SpatioPoint implements Constraint{
         return ComputePointToPointDistance(coordinate,center)<=radius;
     }
 
+    @Override
+    public BitSet satisfyAll(AbilityColumns columns) {
+        return columns.locationsWithin(center.longitude, center.latitude, radius);
+    }
+
     /**
      *
      * Provides a Decomposer for the SpatioPoint constraint that returns a List containing only the SpatioPoint constraint itself.
@@ -84,6 +90,19 @@ public class SpatioPoint implements Constraint{
         };
     }
 
+    /**
+     *
+     * Gets the square circumscribing the circular region.
+     * @return {lower-left, upper-right} corners of the square.
+     */
+    @Override
+    public Coordinate[] boundingBox() {
+        return new Coordinate[]{
+                new Coordinate(center.longitude - radius, center.latitude - radius),
+                new Coordinate(center.longitude + radius, center.latitude + radius)
+        };
+    }
+
     /**
      *
      * Gets the Condition class that this Constraint applies to.
@@ -94,6 +113,11 @@ public class SpatioPoint implements Constraint{
         return Coordinate.class;
     }
 
+    @Override
+    public int evaluationCost() {
+        return 2;
+    }
+
     /**
      *
      * Gets a string representation of the SpatioPoint constraint.
@@ -125,8 +149,6 @@ public class SpatioPoint implements Constraint{
      * @return the Euclidean distance between the two points.
      */
     private double ComputePointToPointDistance(Coordinate point1,Coordinate point2){
-        double longitudeDifference = point1.longitude - point2.longitude;
-        double latitudeDifference = point1.latitude - point2.latitude;
-        return Math.sqrt(longitudeDifference*longitudeDifference+latitudeDifference*latitudeDifference);
+        return DistanceMetric.PLANAR.distance(point1, point2);
     }
 }
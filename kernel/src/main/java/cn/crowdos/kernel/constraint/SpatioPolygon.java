@@ -19,16 +19,27 @@ import cn.crowdos.kernel.Decomposer;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.List;
 
 /**
  *
  * A SpatioPolygon class represents a polygon in a two-dimensional space. It implements the Constraint interface.
+ *
+ * <p>The polygon is compiled into an {@link EdgeTable} when it is constructed, so a point query
+ * touches primitive arrays only and rejects points outside the bounding box right away.</p>
  */
 
-public class SpatioPolygon implements Constraint{
+public class SpatioPolygon implements SpatialConstraint{
+    /**
+     * Polygons with at least this many edges also get a slab index.
+     */
+    public static final int SLAB_INDEX_THRESHOLD = 64;
+
     private final List<Coordinate> polygon;
+    private final EdgeTable edges;
+    private final RegionCache.Fingerprint fingerprint;
 
     /**
      * Constructs a SpatioPolygon with the given list of coordinates.
@@ -38,10 +49,12 @@ public class SpatioPolygon implements Constraint{
      */
 
     public SpatioPolygon(List<Coordinate> polygon) throws InvalidConstraintException{
-        this.polygon = polygon;
-        if(!PolygonValidityChecker(polygon)){
+        this.polygon = Collections.unmodifiableList(new ArrayList<>(polygon));
+        if(!PolygonValidityChecker(this.polygon)){
             throw new InvalidConstraintException(String.format("polygon is invalid"));
         }
+        this.edges = new EdgeTable(this.polygon);
+        this.fingerprint = new RegionCache.Fingerprint(this.polygon);
     }
 
     /**
@@ -97,7 +110,70 @@ public class SpatioPolygon implements Constraint{
     public boolean satisfy(Condition condition) {
         if(!(condition instanceof Coordinate)) return false;
         Coordinate coordinate = (Coordinate) condition;
-        return PointInPolygon(coordinate,polygon);
+        double longitude = coordinate.longitude, latitude = coordinate.latitude;
+        if (!edges.inBounds(longitude, latitude)) return false;
+        RegionCache cache = RegionCache.getDefault();
+        return cache == null ? edges.contains(longitude, latitude) : cache.contains(this, longitude, latitude);
+    }
+
+    boolean contains(double longitude, double latitude) {
+        return edges.contains(longitude, latitude);
+    }
+
+    RegionCache.Fingerprint fingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Tells where a closed box lies with respect to this polygon.
+     *
+     * @return {@link RegionCache#BOUNDARY} if an edge may touch the box, otherwise whether the
+     * box is inside or outside.
+     */
+    byte classifyCell(double minX, double minY, double maxX, double maxY) {
+        if (maxX < edges.minX || minX > edges.maxX || maxY < edges.minY || minY > edges.maxY) {
+            return RegionCache.OUTSIDE;
+        }
+        int vertices = polygon.size();
+        for (int i = 0; i < vertices; i++) {
+            Coordinate a = polygon.get(i), b = polygon.get(i + 1 == vertices ? 0 : i + 1);
+            if (Math.max(a.longitude, b.longitude) < minX || Math.min(a.longitude, b.longitude) > maxX
+                    || Math.max(a.latitude, b.latitude) < minY || Math.min(a.latitude, b.latitude) > maxY) {
+                continue;
+            }
+            // the edge misses the box if all four corners lie strictly on one side of its line
+            double dx = b.longitude - a.longitude, dy = b.latitude - a.latitude;
+            int above = 0, below = 0;
+            for (int corner = 0; corner < 4; corner++) {
+                double x = (corner & 1) == 0 ? minX : maxX, y = (corner & 2) == 0 ? minY : maxY;
+                double side = dx * (y - a.latitude) - dy * (x - a.longitude);
+                if (side > 0) above++;
+                else if (side < 0) below++;
+            }
+            if (above != 4 && below != 4) return RegionCache.BOUNDARY;
+        }
+        return edges.contains((minX + maxX) / 2, (minY + maxY) / 2) ? RegionCache.INSIDE : RegionCache.OUTSIDE;
+    }
+
+    @Override
+    public BitSet satisfyAll(AbilityColumns columns) {
+        long[] words = new long[(columns.size + 63) >>> 6];
+        for (int row = 0; row < columns.size; row++) {
+            boolean satisfied = (columns.flags[row] & AbilityColumns.HAS_LOCATION) == 0
+                    || edges.contains(columns.longitude[row], columns.latitude[row]);
+            words[row >>> 6] |= (satisfied ? 1L : 0L) << row;
+        }
+        return BitSet.valueOf(words);
+    }
+
+    /**
+     * Returns the bounding box of the polygon vertices.
+     *
+     * @return {lower-left, upper-right} corners of the bounding box.
+     */
+    @Override
+    public Coordinate[] boundingBox() {
+        return new Coordinate[]{new Coordinate(edges.minX, edges.minY), new Coordinate(edges.maxX, edges.maxY)};
     }
 
     /**
@@ -110,6 +186,11 @@ public class SpatioPolygon implements Constraint{
         return Coordinate.class;
     }
 
+    @Override
+    public int evaluationCost() {
+        return 4;
+    }
+
     /**
      * Returns a string representation of the constraint.
      *
@@ -199,6 +280,124 @@ public class SpatioPolygon implements Constraint{
     }
 
 
+    /**
+     * The non-vertical edges of a polygon in parallel arrays, for the crossing test of
+     * {@link #PointInPolygon(Coordinate, List)}: a point is inside if an odd number of edges
+     * whose longitude range {@code [min, max)} contains it passes above it.
+     *
+     * <p>Polygons with {@link #SLAB_INDEX_THRESHOLD} edges or more also get a slab index: the
+     * distinct vertex longitudes cut the plane into vertical slabs, and each slab lists the edges
+     * spanning it. A query finds its slab by binary search and only tests those edges, which needs
+     * no range checks since every listed edge spans the whole slab.</p>
+     */
+    static final class EdgeTable {
+        private static final long MAX_SLAB_ENTRIES = 1 << 22;
+
+        final double minX, minY, maxX, maxY;
+        private final int size;
+        private final double[] x0, y0, slope, fromX, toX;
+        private double[] slabX;
+        private int[] slabStart;
+        private int[] slabEdges;
+
+        EdgeTable(List<Coordinate> polygon) {
+            int vertices = polygon.size();
+            double[] x0 = new double[vertices], y0 = new double[vertices], slope = new double[vertices];
+            double[] fromX = new double[vertices], toX = new double[vertices];
+            double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+            double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+            int size = 0;
+            for (int i = 0; i < vertices; i++) {
+                Coordinate vertex1 = polygon.get(i);
+                Coordinate vertex2 = polygon.get(i + 1 == vertices ? 0 : i + 1);
+                minX = Math.min(minX, vertex1.longitude);
+                minY = Math.min(minY, vertex1.latitude);
+                maxX = Math.max(maxX, vertex1.longitude);
+                maxY = Math.max(maxY, vertex1.latitude);
+                if (vertex1.longitude == vertex2.longitude) continue;
+                x0[size] = vertex1.longitude;
+                y0[size] = vertex1.latitude;
+                slope[size] = (vertex2.latitude - vertex1.latitude) / (vertex2.longitude - vertex1.longitude);
+                fromX[size] = Math.min(vertex1.longitude, vertex2.longitude);
+                toX[size] = Math.max(vertex1.longitude, vertex2.longitude);
+                size++;
+            }
+            this.minX = minX;
+            this.minY = minY;
+            this.maxX = maxX;
+            this.maxY = maxY;
+            this.size = size;
+            this.x0 = x0;
+            this.y0 = y0;
+            this.slope = slope;
+            this.fromX = fromX;
+            this.toX = toX;
+            if (size >= SLAB_INDEX_THRESHOLD) buildSlabs(polygon);
+        }
+
+        private void buildSlabs(List<Coordinate> polygon) {
+            double[] xs = new double[polygon.size()];
+            for (int i = 0; i < xs.length; i++) {
+                // adding zero folds -0.0 into 0.0, which binarySearch would otherwise tell apart
+                xs[i] = polygon.get(i).longitude + 0.0;
+            }
+            Arrays.sort(xs);
+            int distinct = 0;
+            for (int i = 0; i < xs.length; i++) {
+                if (i == 0 || xs[i] != xs[distinct - 1]) xs[distinct++] = xs[i];
+            }
+            xs = Arrays.copyOf(xs, distinct);
+            int slabs = distinct - 1;
+            int[] start = new int[slabs + 1];
+            long entries = 0;
+            for (int e = 0; e < size; e++) {
+                int from = Arrays.binarySearch(xs, fromX[e] + 0.0), to = Arrays.binarySearch(xs, toX[e] + 0.0);
+                for (int k = from; k < to; k++) {
+                    start[k + 1]++;
+                }
+                entries += to - from;
+            }
+            // degenerate polygons could make the index quadratic, keep the linear scan for them
+            if (entries > MAX_SLAB_ENTRIES) return;
+            for (int k = 0; k < slabs; k++) {
+                start[k + 1] += start[k];
+            }
+            int[] fill = Arrays.copyOf(start, slabs);
+            int[] slabEdges = new int[(int) entries];
+            for (int e = 0; e < size; e++) {
+                int from = Arrays.binarySearch(xs, fromX[e] + 0.0), to = Arrays.binarySearch(xs, toX[e] + 0.0);
+                for (int k = from; k < to; k++) {
+                    slabEdges[fill[k]++] = e;
+                }
+            }
+            this.slabX = xs;
+            this.slabStart = start;
+            this.slabEdges = slabEdges;
+        }
+
+        boolean inBounds(double x, double y) {
+            return minX <= x && x < maxX && minY <= y && y <= maxY;
+        }
+
+        boolean contains(double x, double y) {
+            if (!inBounds(x, y)) return false;
+            boolean inside = false;
+            if (slabX == null) {
+                for (int e = 0; e < size; e++) {
+                    if (fromX[e] <= x && x < toX[e] && y0[e] + (x - x0[e]) * slope[e] > y) inside = !inside;
+                }
+                return inside;
+            }
+            int slab = Arrays.binarySearch(slabX, x + 0.0);
+            if (slab < 0) slab = -slab - 2;
+            for (int i = slabStart[slab], end = slabStart[slab + 1]; i < end; i++) {
+                int e = slabEdges[i];
+                if (y0[e] + (x - x0[e]) * slope[e] > y) inside = !inside;
+            }
+            return inside;
+        }
+    }
+
     /**
      *
      * Determines if a given point is inside a polygon by counting the number of times a line from the point to the right intersects with the polygon.
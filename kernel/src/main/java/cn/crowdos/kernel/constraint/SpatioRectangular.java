@@ -16,10 +16,11 @@ package cn.crowdos.kernel.constraint;
 
 import cn.crowdos.kernel.Decomposer;
 
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.List;
 
-public class SpatioRectangular implements Constraint {
+public class SpatioRectangular implements SpatialConstraint {
 
     private final Coordinate[] range;
 
@@ -42,11 +43,29 @@ public class SpatioRectangular implements Constraint {
                 && coord.longitude < range[1].longitude && coord.latitude < range[1].latitude;
     }
 
+    @Override
+    public BitSet satisfyAll(AbilityColumns columns) {
+        return columns.locationsInside(range[0].longitude, range[0].latitude, range[1].longitude, range[1].latitude);
+    }
+
+    @Override
+    public Coordinate[] boundingBox() {
+        return new Coordinate[]{
+                new Coordinate(Math.min(range[0].longitude, range[1].longitude), Math.min(range[0].latitude, range[1].latitude)),
+                new Coordinate(Math.max(range[0].longitude, range[1].longitude), Math.max(range[0].latitude, range[1].latitude))
+        };
+    }
+
     @Override
     public Class<? extends Condition> getConditionClass() {
         return Coordinate.class;
     }
 
+    @Override
+    public int evaluationCost() {
+        return 2;
+    }
+
     @Override
     public String description() {
         return toString();
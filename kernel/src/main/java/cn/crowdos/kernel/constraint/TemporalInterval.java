@@ -141,6 +141,11 @@ public class TemporalInterval implements Constraint{
         return DateCondition.class;
     }
 
+    @Override
+    public int evaluationCost() {
+        return 1;
+    }
+
     /**
      * The toString function is a function that returns the string representation of an object.
      * In this case, it will return the start time and end time of a temporal interval.
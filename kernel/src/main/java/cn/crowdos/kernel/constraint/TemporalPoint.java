@@ -144,6 +144,11 @@ public class TemporalPoint implements Constraint{
         return DateCondition.class;
     }
 
+    @Override
+    public int evaluationCost() {
+        return 1;
+    }
+
     /**
      * The description function returns a string that describes the object.
      *
@@ -16,10 +16,17 @@ package cn.crowdos.kernel.resource;
 
 import cn.crowdos.kernel.constraint.Condition;
 
+/**
+ * Base class of participants. Its abilities are the {@link ability} fields of the concrete class,
+ * bound once per class by {@link AbilityBinding} on the first ability lookup; subclasses that
+ * override {@link #hasAbility(Class)} and {@link #getAbility(Class)} are never bound.
+ */
 public abstract class AbstractParticipant implements Participant{
 
 
     protected ParticipantStatus status;
+    // Bound on first use, racing threads resolve the same per-class binding
+    private AbilityBinding abilityBinding;
 
     @Override
     public ParticipantStatus getStatus() {
@@ -30,9 +37,24 @@ public abstract class AbstractParticipant implements Participant{
     public void setStatus(ParticipantStatus status) {
         this.status = status;
     }
-    public abstract boolean hasAbility(Class<? extends Condition> conditionClass);
+    @Override
+    public boolean hasAbility(Class<? extends Condition> conditionClass) {
+        return abilityBinding().hasAbility(this, conditionClass);
+    }
 
-    public abstract Condition getAbility(Class<? extends Condition> conditionClass);
+    @Override
+    public Condition getAbility(Class<? extends Condition> conditionClass) {
+        return abilityBinding().getAbility(this, conditionClass);
+    }
+
+    private AbilityBinding abilityBinding() {
+        AbilityBinding binding = abilityBinding;
+        if (binding == null) {
+            binding = AbilityBinding.of(getClass());
+            abilityBinding = binding;
+        }
+        return binding;
+    }
     @Override
     public boolean available() {
         return status == ParticipantStatus.AVAILABLE;
@@ -16,22 +16,32 @@ package cn.crowdos.kernel.resource;
 
 import cn.crowdos.kernel.Decomposer;
 import cn.crowdos.kernel.InterruptManager;
-import cn.crowdos.kernel.constraint.Condition;
 import cn.crowdos.kernel.constraint.Constraint;
+import cn.crowdos.kernel.constraint.ConstraintPlan;
 
 import java.util.List;
 
 public abstract class AbstractTask implements Task{
 
     protected final long taskId;
-    private static long taskCounter = 1;
+    protected final TaskIdGenerator taskIdGenerator;
     protected final List<Constraint> constraints;
     protected final TaskDistributionType taskDistributionType;
     protected TaskStatus status;
     protected InterruptManager interruptManager;
+    private volatile ConstraintPlan constraintPlan;
 
     protected AbstractTask(List<Constraint> constraints, TaskDistributionType taskDistributionType) {
-        this.taskId = taskCounter++;
+        this(constraints, taskDistributionType, TaskIdGenerator.DEFAULT);
+    }
+
+    /**
+     * @param taskIdGenerator the generator of the kernel the task is submitted to.
+     * @since 1.0.4
+     */
+    protected AbstractTask(List<Constraint> constraints, TaskDistributionType taskDistributionType, TaskIdGenerator taskIdGenerator) {
+        this.taskIdGenerator = taskIdGenerator;
+        this.taskId = taskIdGenerator.nextId();
         this.constraints = constraints;
         this.taskDistributionType = taskDistributionType;
     }
@@ -43,6 +53,14 @@ public abstract class AbstractTask implements Task{
         return this.taskId;
     }
 
+    /**
+     * @return the generator the id of this task was taken from.
+     * @since 1.0.4
+     */
+    public TaskIdGenerator getTaskIdGenerator() {
+        return taskIdGenerator;
+    }
+
 
     @Override
     public TaskDistributionType getTaskDistributionType() {
@@ -64,16 +82,25 @@ public abstract class AbstractTask implements Task{
         return constraints;
     }
 
+    /**
+     * Returns the compiled form of the constraints of this task, compiled on first use.
+     * The constraint list must not change afterwards.
+     *
+     * @return the constraint plan
+     * @since 1.0.4
+     */
+    public ConstraintPlan getConstraintPlan() {
+        ConstraintPlan plan = constraintPlan;
+        if (plan == null) {
+            plan = ConstraintPlan.compile(constraints);
+            constraintPlan = plan;
+        }
+        return plan;
+    }
+
     @Override
     public boolean canAssignTo(Participant participant) {
-        for (Constraint constraint : constraints) {
-            Class<? extends Condition> conditionClass = constraint.getConditionClass();
-            if(participant.hasAbility(conditionClass)){
-                if (!constraint.satisfy(participant.getAbility(conditionClass)))
-                    return false;
-            }
-        }
-        return true;
+        return getConstraintPlan().satisfiedBy(participant);
     }
 
     @Override
@@ -86,18 +113,42 @@ public abstract class AbstractTask implements Task{
         return status == TaskStatus.FINISHED;
     }
 
+    /**
+     * Sets the manager whose interrupt requests {@link #execute()} polls.
+     *
+     * @param interruptManager the manager, or null to run without interrupts
+     * @since 1.0.4
+     */
+    public void setInterruptManager(InterruptManager interruptManager) {
+        this.interruptManager = interruptManager;
+    }
+
+    public InterruptManager getInterruptManager() {
+        return interruptManager;
+    }
+
     @Override
     public void execute() {
-        while (!isCompleted()){
-            // Check if the task was interrupted
-            if (interruptManager.isInterrupted(String.valueOf(taskId))) {
-                System.out.println("Task " + taskId + " is interrupted.");
-                // Handling interrupt logic
-                handleInterrupt();
-                return;
+        // The flag is fetched once, polling it is a single volatile read
+        InterruptManager manager = interruptManager;
+        InterruptManager.Flag interruptFlag = manager == null ? null : manager.getFlag(taskId);
+        // Whoever registered the task (e.g. the TaskRuntime) clears it, otherwise this execution does
+        boolean registered = manager != null && interruptFlag == null;
+        if (registered) interruptFlag = manager.register(taskId);
+        try {
+            while (!isCompleted()){
+                // Check if the task was interrupted
+                if (interruptFlag != null && interruptFlag.isRaised()) {
+                    System.out.println("Task " + taskId + " is interrupted.");
+                    // Handling interrupt logic
+                    handleInterrupt();
+                    return;
+                }
+                // The specific logic to perform the task
+                performTask();
             }
-            // The specific logic to perform the task
-            performTask();
+        } finally {
+            if (registered) manager.clearInterrupt(taskId);
         }
     }
 
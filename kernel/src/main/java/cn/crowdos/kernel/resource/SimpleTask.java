@@ -27,6 +27,16 @@ public class SimpleTask extends AbstractTask{
         status = TaskStatus.READY;
     }
 
+    /**
+     * A task whose id, and the ids of its subtasks, come from the given generator.
+     *
+     * @since 1.0.4
+     */
+    public SimpleTask(List<Constraint> constraints, TaskDistributionType taskDistributionType, TaskIdGenerator taskIdGenerator) {
+        super(constraints, taskDistributionType, taskIdGenerator);
+        status = TaskStatus.READY;
+    }
+
     @Override
     public Decomposer<Task> decomposer() {
         SimpleTask simpleTask = this;
@@ -60,7 +70,7 @@ public class SimpleTask extends AbstractTask{
                     newConstraints = new ArrayList<>(decomposers.size());
                 }
                 if (pos == decomposers.size()){
-                    subTasks.add(new SimpleTask(newConstraints, taskDistributionType));
+                    subTasks.add(new SimpleTask(newConstraints, taskDistributionType, taskIdGenerator));
                     return;
                 }
                 Decomposer<Constraint> current = decomposers.get(pos);
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2019-2025 CrowdOS Group, Northwestern Polytechnical University. <https://github.com/crowdosNWPU/CrowdOS>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * imitations under the License.
+ */
+package cn.crowdos.kernel.resource;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out the ids of {@link AbstractTask}s. Every kernel built with
+ * {@link cn.crowdos.kernel.Kernel.Builder} has its own generator, tasks created without one
+ * take their ids from {@link #DEFAULT}, which the default kernel uses as well.
+ *
+ * <p>Task ids only need to be unique within a kernel: its task pool and interrupt manager are
+ * keyed by them. Tasks submitted to a kernel should therefore take their ids from its generator.</p>
+ *
+ * @since 1.0.4
+ */
+public final class TaskIdGenerator {
+
+    public static final TaskIdGenerator DEFAULT = new TaskIdGenerator();
+
+    private final AtomicLong next;
+
+    public TaskIdGenerator() {
+        this(1);
+    }
+
+    /**
+     * @param first the first id, e.g. to keep the ids of several kernels apart.
+     */
+    public TaskIdGenerator(long first) {
+        this.next = new AtomicLong(first);
+    }
+
+    public long nextId() {
+        return next.getAndIncrement();
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2019-2025 CrowdOS Group, Northwestern Polytechnical University. <https://github.com/crowdosNWPU/CrowdOS>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * imitations under the License.
+ */
+package cn.crowdos.kernel.system;
+
+import cn.crowdos.kernel.system.resource.Resource;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A typed name of a resource in a {@link SystemResourceCollection}. Keys are interned: {@code of}
+ * returns the same key for the same class and name, so a collection finds the handler of a key by
+ * identity instead of hashing the class and the name, and resources registered by class and name
+ * end up under the same key. The keys of a class are kept with the class itself and go away with
+ * it, they never keep a class loader alive.
+ *
+ * <p>Resources that are looked up often keep their key as a constant, e.g.
+ * {@code TaskPool.KEY}.</p>
+ *
+ * @param <T> the type of the resource the handler returns
+ * @since 1.0.4
+ */
+public final class ResourceKey<T> {
+
+    public static final String DEFAULT_NAME = "default";
+
+    private static final ClassValue<Map<String, ResourceKey<?>>> KEYS = new ClassValue<Map<String, ResourceKey<?>>>() {
+        @Override
+        protected Map<String, ResourceKey<?>> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private final Class<?> type;
+    private final String name;
+
+    private ResourceKey(Class<?> type, String name) {
+        this.type = type;
+        this.name = name;
+    }
+
+    /**
+     * Returns the key of the resource of the given class registered under the default name.
+     *
+     * @param type the class the resource is registered under.
+     * @return the key.
+     */
+    public static <T> ResourceKey<T> of(Class<? extends Resource<T>> type) {
+        return of(type, DEFAULT_NAME);
+    }
+
+    /**
+     * Returns the key of the resource of the given class registered under the given name.
+     *
+     * @param type the class the resource is registered under.
+     * @param name the name of the resource.
+     * @return the key.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ResourceKey<T> of(Class<? extends Resource<T>> type, String name) {
+        return (ResourceKey<T>) intern(type, name);
+    }
+
+    static ResourceKey<?> intern(Class<?> type, String name) {
+        Map<String, ResourceKey<?>> names = KEYS.get(type);
+        ResourceKey<?> key = names.get(name);
+        if (key == null) {
+            key = names.computeIfAbsent(name, n -> new ResourceKey<>(type, n));
+        }
+        return key;
+    }
+
+    static ResourceKey<?> find(Class<?> type, String name) {
+        return KEYS.get(type).get(name);
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return type.getSimpleName() + "#" + name;
+    }
+}
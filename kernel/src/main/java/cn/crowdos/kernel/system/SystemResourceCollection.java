@@ -16,42 +16,69 @@ package cn.crowdos.kernel.system;
 
 import cn.crowdos.kernel.system.resource.Resource;
 
-import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
 
 public class SystemResourceCollection {
-    Map<Class<?>, Map<String, Resource<?>>> resourceMap;
+    // The handler of each registered resource, by its interned ResourceKey. Copied on write.
+    private volatile Map<ResourceKey<?>, SystemResourceHandler<?>> handlers;
 
     public SystemResourceCollection(){
-        resourceMap = new HashMap<>();
+        handlers = new IdentityHashMap<>();
     }
     public void register(Resource<?> resource) throws DuplicateResourceNameException {
-        register(resource, "default");
+        register(resource, ResourceKey.DEFAULT_NAME);
     }
     public void register(Resource<?> resource, String resourceName) throws DuplicateResourceNameException {
-        if (!resourceMap.containsKey(resource.getClass())) {
-            resourceMap.put(resource.getClass(), new HashMap<>());
+        put(ResourceKey.intern(resource.getClass(), resourceName), resource);
+    }
+
+    /**
+     * Registers a resource under the given key, e.g. an implementation under the key of its
+     * interface. The handler of the resource is created here once and reused by every lookup.
+     *
+     * @param key the key the resource is looked up by.
+     * @param resource the resource, an instance of the class of the key.
+     * @throws DuplicateResourceNameException if a resource is already registered under the key.
+     * @since 1.0.4
+     */
+    public <T> void register(ResourceKey<T> key, Resource<? extends T> resource) throws DuplicateResourceNameException {
+        if (!key.getType().isInstance(resource)) {
+            throw new IllegalArgumentException(resource.getClass().getName() + " is not a " + key.getType().getName());
         }
-        Map<String, Resource<?>> resList = resourceMap.get(resource.getClass());
-        if (resList.size() != 0 && resList.containsKey(resourceName)) {
+        put(key, resource);
+    }
+
+    private synchronized void put(ResourceKey<?> key, Resource<?> resource) throws DuplicateResourceNameException {
+        Map<ResourceKey<?>, SystemResourceHandler<?>> current = handlers;
+        if (current.containsKey(key)) {
             throw new DuplicateResourceNameException();
         }
-        resList.put(resourceName, resource);
+        Map<ResourceKey<?>, SystemResourceHandler<?>> next = new IdentityHashMap<>(current);
+        next.put(key, resource.getHandler());
+        handlers = next;
     }
 
+    /**
+     * Returns the handler of the resource registered under the given key.
+     *
+     * @param key the key of the resource.
+     * @return the handler, or null if no resource is registered under the key.
+     * @since 1.0.4
+     */
+    @SuppressWarnings("unchecked")
+    public <T> SystemResourceHandler<T> getResourceHandler(ResourceKey<T> key){
+        return (SystemResourceHandler<T>) handlers.get(key);
+    }
+
+    @SuppressWarnings("unchecked")
     public <T> SystemResourceHandler<T> getResourceHandler(Class<? extends Resource<T>> resourceClass, String resourceName){
-        Map<String, Resource<?>> stringResourceMap = resourceMap.get(resourceClass);
-        if (stringResourceMap != null) {
-            Resource<?> resource = stringResourceMap.get(resourceName);
-            if (resource != null){
-                return resourceClass.cast(resource).getHandler();
-            }
-        }
-        return null;
+        ResourceKey<?> key = ResourceKey.find(resourceClass, resourceName);
+        return key == null ? null : getResourceHandler((ResourceKey<T>) key);
     }
 
 
     public <T> SystemResourceHandler<T> getResourceHandler(Class<? extends Resource<T>> resourceClass){
-        return getResourceHandler(resourceClass, "default");
+        return getResourceHandler(resourceClass, ResourceKey.DEFAULT_NAME);
     }
 }
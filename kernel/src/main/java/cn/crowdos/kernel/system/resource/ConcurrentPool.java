@@ -0,0 +1,242 @@
+/*
+ * Copyright 2019-2025 CrowdOS Group, Northwestern Polytechnical University. <https://github.com/crowdosNWPU/CrowdOS>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * imitations under the License.
+ */
+package cn.crowdos.kernel.system.resource;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A thread-safe pool of distinct elements, the base of {@link TaskPool} and {@link ParticipantPool}.
+ *
+ * <p>Elements are indexed by a key ({@link #keyOf(Object)}) in a {@link ConcurrentHashMap}, so
+ * insertions, lookups and removals of different keys lock only their own hash bin and never block
+ * each other. Every element also receives a sequence number when it is added; the elements are kept
+ * in a {@link ConcurrentSkipListMap} ordered by that number, which gives the iteration order.</p>
+ *
+ * <p>Iteration goes over a {@link #snapshot()}: an immutable list taken at some point in time, which
+ * concurrent updates never change. Snapshots are cached until the next update, so the scheduler can
+ * read the pool repeatedly without copying it.</p>
+ *
+ * <p>An element whose key is already present is not added again.</p>
+ *
+ * @param <E> the type of the elements
+ * @since 1.0.4
+ */
+public abstract class ConcurrentPool<E> extends AbstractCollection<E> {
+
+    private static final class Entry<E> {
+        final long sequence;
+        final E element;
+
+        Entry(long sequence, E element) {
+            this.sequence = sequence;
+            this.element = element;
+        }
+    }
+
+    private static final class Snapshot<E> {
+        final long version;
+        final List<E> elements;
+
+        Snapshot(long version, List<E> elements) {
+            this.version = version;
+            this.elements = elements;
+        }
+    }
+
+    private final Class<E> elementType;
+    private final ConcurrentHashMap<Object, Entry<E>> index = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, E> order = new ConcurrentSkipListMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong version = new AtomicLong();
+    private volatile Snapshot<E> snapshot;
+
+    protected ConcurrentPool(Class<E> elementType) {
+        this.elementType = elementType;
+    }
+
+    /**
+     * @param element an element of the pool.
+     * @return the key the element is indexed by. Two elements with equal keys are the same element.
+     */
+    protected abstract Object keyOf(E element);
+
+    /**
+     * Called after an element was added, while its key is locked.
+     *
+     * @param element the new element.
+     * @param sequence the sequence number given to it.
+     */
+    protected void added(E element, long sequence) {
+    }
+
+    /**
+     * Called after an element was removed, while its key is locked.
+     *
+     * @param element the removed element.
+     */
+    protected void removed(E element) {
+    }
+
+    @Override
+    public boolean add(E element) {
+        Objects.requireNonNull(element);
+        boolean[] added = new boolean[1];
+        index.computeIfAbsent(keyOf(element), key -> {
+            long elementSequence = sequence.getAndIncrement();
+            order.put(elementSequence, element);
+            added(element, elementSequence);
+            added[0] = true;
+            return new Entry<>(elementSequence, element);
+        });
+        if (added[0]) version.incrementAndGet();
+        return added[0];
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return elementType.isInstance(o) && removeByKey(keyOf(elementType.cast(o)));
+    }
+
+    /**
+     * Removes the element with the given key.
+     *
+     * @param key the key of the element.
+     * @return true if an element was removed.
+     */
+    protected boolean removeByKey(Object key) {
+        boolean[] removed = new boolean[1];
+        index.computeIfPresent(key, (k, entry) -> {
+            order.remove(entry.sequence);
+            removed(entry.element);
+            removed[0] = true;
+            return null;
+        });
+        if (removed[0]) version.incrementAndGet();
+        return removed[0];
+    }
+
+    /**
+     * @param key the key of an element.
+     * @return the element with that key, or null.
+     */
+    protected E getByKey(Object key) {
+        Entry<E> entry = index.get(key);
+        return entry == null ? null : entry.element;
+    }
+
+    /**
+     * @param key the key of an element.
+     * @return the sequence number of the element with that key, or -1.
+     */
+    protected long sequenceOf(Object key) {
+        Entry<E> entry = index.get(key);
+        return entry == null ? -1 : entry.sequence;
+    }
+
+    /**
+     * @param sequence a sequence number.
+     * @return the element with that sequence number, or null.
+     */
+    protected E getBySequence(long sequence) {
+        return order.get(sequence);
+    }
+
+    /**
+     * @return a number that changes with every update of the pool.
+     */
+    protected long version() {
+        return version.get();
+    }
+
+    /**
+     * Marks the pool as updated although no element was added or removed, e.g. because an element changed.
+     */
+    protected void touch() {
+        version.incrementAndGet();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return elementType.isInstance(o) && index.containsKey(keyOf(elementType.cast(o)));
+    }
+
+    @Override
+    public int size() {
+        return index.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return index.isEmpty();
+    }
+
+    /**
+     * Removes every element. Elements added concurrently may survive.
+     */
+    @Override
+    public void clear() {
+        for (Object key : index.keySet()) {
+            removeByKey(key);
+        }
+    }
+
+    /**
+     * Returns the elements in the order they were added, as an immutable list that later
+     * updates do not change.
+     *
+     * @return the current elements.
+     */
+    public List<E> snapshot() {
+        long currentVersion = version.get();
+        Snapshot<E> current = snapshot;
+        if (current != null && current.version == currentVersion) {
+            return current.elements;
+        }
+        List<E> elements = Collections.unmodifiableList(new ArrayList<>(order.values()));
+        snapshot = new Snapshot<>(currentVersion, elements);
+        return elements;
+    }
+
+    /**
+     * Iterates over a {@link #snapshot()}. {@link Iterator#remove()} removes the element from the pool.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        Iterator<E> iterator = snapshot().iterator();
+        return new Iterator<E>() {
+            E lastReturned;
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public E next() {
+                return lastReturned = iterator.next();
+            }
+
+            @Override
+            public void remove() {
+                if (lastReturned == null) throw new IllegalStateException();
+                ConcurrentPool.this.remove(lastReturned);
+                lastReturned = null;
+            }
+        };
+    }
+}
@@ -17,6 +17,7 @@ package cn.crowdos.kernel.system.resource;
 import cn.crowdos.kernel.resource.Participant;
 import cn.crowdos.kernel.resource.Task;
 
+import java.io.IOException;
 import java.util.*;
 
 /**
@@ -31,8 +32,11 @@ import java.util.*;
 public class Mission {
     private final Task task;
     private final List<Participant> participants;
-    private final List<Participant> submitParticipants;
+    private final Set<Participant> participantSet;
+    private final Set<Participant> submitParticipants;
     private final PriorityQueue<Object[]> priorityQueue;
+    MissionHistory history;
+    long id = -1;
 
     enum MissionStatus {
         UNFINISHED,
@@ -52,8 +56,9 @@ public class Mission {
     public Mission(Task task, List<Participant> participants) {
         this.task = task;
         this.participants = participants;
+        this.participantSet = new HashSet<>(participants);
         this.priorityQueue = new PriorityQueue<>(Comparator.comparing(objects -> (Date)objects[1]));
-        this.submitParticipants = new ArrayList<>();
+        this.submitParticipants = new HashSet<>();
         this.missionStatus = MissionStatus.UNFINISHED;
     }
 
@@ -63,12 +68,20 @@ public class Mission {
      * @return The participant with the lowest time
      *
      */
-    public Participant getFirstSubmitParticipant(){
+    public synchronized Participant getFirstSubmitParticipant(){
         Object[] peek = priorityQueue.peek();
         if (peek == null) return null;
         return (Participant) peek[0];
     }
 
+    /**
+     * @return the task of this mission
+     * @since 1.0.4
+     */
+    public Task getTask() {
+        return task;
+    }
+
     /**
      * The getParticipants function returns a list of participants.
      *
@@ -90,20 +103,38 @@ public class Mission {
 
     /**
      * The updateSubmit function is used to update the submit time of a participant.
+     * When the last participant submits, the mission is moved to the finished missions
+     * of the {@link MissionHistory} it is recorded in. If that history is backed by a
+     * {@link MissionLog}, the submission is logged before it takes effect.
      *
      * @param participant Identify the participant that is updating their status
      * @param submitTime Determine the order in which participants submit their work
-     * @throws MissionUpdateException MissionUpdateException
+     * @throws MissionUpdateException MissionUpdateException, also thrown if the submission cannot be logged
      */
-    public void updateSubmit(Participant participant, Date submitTime) throws MissionUpdateException {
-        if (!participants.contains(participant) || submitParticipants.contains(participant)){
+    public synchronized void updateSubmit(Participant participant, Date submitTime) throws MissionUpdateException {
+        if (!participantSet.contains(participant) || submitParticipants.contains(participant)){
             throw new MissionUpdateException();
         }
-        submitParticipants.add(participant);
+        if (history != null) {
+            try {
+                history.submitted(this, participant, submitTime);
+            } catch (IOException e) {
+                throw new MissionUpdateException(e);
+            }
+        }
+        applySubmit(participant, submitTime);
+    }
+
+    /**
+     * Records a submission without logging it, used when a history is replayed.
+     */
+    synchronized void applySubmit(Participant participant, Date submitTime) {
+        if (!participantSet.contains(participant) || !submitParticipants.add(participant)) return;
         priorityQueue.offer(new Object[]{participant, submitTime});
-        if (submitParticipants.size() == participants.size()){
+        if (submitParticipants.size() == participantSet.size()){
             task.setTaskStatus(Task.TaskStatus.FINISHED);
             missionStatus = MissionStatus.FINISHED;
+            if (history != null) history.missionFinished(this);
         }
     }
 
@@ -127,6 +158,6 @@ public class Mission {
      * @return True if the participant is in the list of participants
      */
     public boolean involved(Participant participant){
-        return this.participants.contains(participant);
+        return this.participantSet.contains(participant);
     }
 }
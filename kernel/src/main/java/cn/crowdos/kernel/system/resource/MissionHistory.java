@@ -14,53 +14,292 @@
  */
 package cn.crowdos.kernel.system.resource;
 
+import cn.crowdos.kernel.resource.AbstractTask;
 import cn.crowdos.kernel.resource.Participant;
 import cn.crowdos.kernel.resource.Task;
+import cn.crowdos.kernel.system.ResourceKey;
 import cn.crowdos.kernel.system.SystemResourceHandler;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
 
 
 /**
  * MissionHistory records all active and completed missions in the system.
  *
+ * <p>Besides the missions themselves, the history indexes them by task, by participant
+ * and by status, so each lookup costs time proportional to its result only. The status
+ * index follows the missions as they finish through {@link Mission#updateSubmit}.</p>
+ *
+ * <p>A history created with a {@link MissionLog} writes every new mission and every
+ * submission to that log before it returns, and is rebuilt from the log when created.
+ * {@link #archiveFinishedMissions()} drops finished missions from the heap and moves
+ * their records to the archive file of the log.</p>
+ *
  * @author loyx
  * @since 1.0.1
  * @see Mission
  */
 public class MissionHistory implements Resource<MissionHistory>{
+
+    /**
+     * The key the mission history of a kernel is registered under.
+     *
+     * @since 1.0.4
+     */
+    public static final ResourceKey<MissionHistory> KEY = ResourceKey.of(MissionHistory.class);
+
+    /**
+     * Maps tasks and participants to the ids a {@link MissionLog} stores, and back. The ids
+     * must stay the same across restarts for a replayed history to find its tasks and participants.
+     *
+     * @since 1.0.4
+     */
+    public interface Identities {
+        long taskId(Task task);
+
+        Task task(long taskId);
+
+        long participantId(Participant participant);
+
+        Participant participant(long participantId);
+
+        /**
+         * @return identities backed by the ids of {@link TaskPool} and {@link ParticipantPool}.
+         */
+        static Identities of(TaskPool tasks, ParticipantPool participants) {
+            return new Identities() {
+                @Override
+                public long taskId(Task task) {
+                    if (!(task instanceof AbstractTask) || tasks.getTask(((AbstractTask) task).getTaskId()) != task) {
+                        throw new IllegalArgumentException("task is not in the task pool");
+                    }
+                    return ((AbstractTask) task).getTaskId();
+                }
+
+                @Override
+                public Task task(long taskId) {
+                    return tasks.getTask(taskId);
+                }
+
+                @Override
+                public long participantId(Participant participant) {
+                    long participantId = participants.getParticipantId(participant);
+                    if (participantId < 0) throw new IllegalArgumentException("participant is not registered");
+                    return participantId;
+                }
+
+                @Override
+                public Participant participant(long participantId) {
+                    return participants.getParticipant(participantId);
+                }
+            };
+        }
+    }
+
     ArrayList<Mission> missions;
+    private final Map<Task, Set<Mission>> missionsByTask;
+    private final Map<Participant, Set<Mission>> missionsByParticipant;
+    private final Map<Mission.MissionStatus, Set<Mission>> missionsByStatus;
+    private final MissionLog log;
+    private final Identities identities;
+    private long nextMissionId;
 
     public MissionHistory() {
         this.missions = new ArrayList<>();
+        this.missionsByTask = new HashMap<>();
+        this.missionsByParticipant = new HashMap<>();
+        this.missionsByStatus = new EnumMap<>(Mission.MissionStatus.class);
+        for (Mission.MissionStatus status : Mission.MissionStatus.values()) {
+            missionsByStatus.put(status, new LinkedHashSet<>());
+        }
+        this.log = null;
+        this.identities = null;
+    }
+
+    /**
+     * Creates a history backed by a log, replaying the missions already in it. Missions whose
+     * task cannot be resolved are skipped, as are participants that cannot be resolved.
+     *
+     * @param log a log that has not been replayed yet
+     * @param identities the ids of tasks and participants in the log
+     * @throws IOException if the log cannot be read
+     * @since 1.0.4
+     */
+    public MissionHistory(MissionLog log, Identities identities) throws IOException {
+        this.missions = new ArrayList<>();
+        this.missionsByTask = new HashMap<>();
+        this.missionsByParticipant = new HashMap<>();
+        this.missionsByStatus = new EnumMap<>(Mission.MissionStatus.class);
+        for (Mission.MissionStatus status : Mission.MissionStatus.values()) {
+            missionsByStatus.put(status, new LinkedHashSet<>());
+        }
+        this.log = log;
+        this.identities = identities;
+        Map<Long, Mission> replayed = new HashMap<>();
+        log.replay(new MissionLog.Listener() {
+            @Override
+            public void newMission(long missionId, long taskId, long[] participantIds) {
+                reserved(missionId);
+                Task task = identities.task(taskId);
+                if (task == null) return;
+                List<Participant> participants = new ArrayList<>(participantIds.length);
+                for (long participantId : participantIds) {
+                    Participant participant = identities.participant(participantId);
+                    if (participant != null) participants.add(participant);
+                }
+                Mission mission = new Mission(task, participants);
+                mission.id = missionId;
+                index(mission);
+                replayed.put(missionId, mission);
+            }
+
+            @Override
+            public void submitted(long missionId, long participantId, long submitTime) {
+                Mission mission = replayed.get(missionId);
+                Participant participant = identities.participant(participantId);
+                if (mission != null && participant != null) mission.applySubmit(participant, new Date(submitTime));
+            }
+
+            @Override
+            public void archived(long missionId) {
+                Mission mission = replayed.remove(missionId);
+                if (mission != null) unindex(mission);
+            }
+
+            @Override
+            public void reserved(long missionId) {
+                nextMissionId = Math.max(nextMissionId, missionId + 1);
+            }
+        });
+        missions.trimToSize();
+    }
+
+    /**
+     * Records a new mission. With a log, returns once the mission is logged.
+     *
+     * @return the recorded mission, since 1.0.4
+     * @throws UncheckedIOException if the mission cannot be logged
+     */
+    public Mission newMission(Task task, List<Participant> participants){
+        long offset = 0;
+        Mission mission = new Mission(task, participants);
+        synchronized (this) {
+            mission.id = nextMissionId++;
+            if (log != null) {
+                long[] participantIds = new long[participants.size()];
+                for (int i = 0; i < participantIds.length; i++) {
+                    participantIds[i] = identities.participantId(participants.get(i));
+                }
+                try {
+                    offset = log.logNewMission(mission.id, identities.taskId(task), participantIds);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            index(mission);
+        }
+        if (log != null) {
+            try {
+                log.commit(offset);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return mission;
+    }
+
+    private void index(Mission mission) {
+        missions.add(mission);
+        missionsByTask.computeIfAbsent(mission.getTask(), key -> new LinkedHashSet<>()).add(mission);
+        for (Participant participant : mission.getParticipants()) {
+            missionsByParticipant.computeIfAbsent(participant, key -> new LinkedHashSet<>()).add(mission);
+        }
+        missionsByStatus.get(mission.missionStatus).add(mission);
+        mission.history = this;
+    }
+
+    private void unindex(Mission mission) {
+        removeFrom(missionsByTask, mission.getTask(), mission);
+        for (Participant participant : mission.getParticipants()) {
+            removeFrom(missionsByParticipant, participant, mission);
+        }
+        missionsByStatus.get(mission.missionStatus).remove(mission);
     }
 
-    public void newMission(Task task, List<Participant> participants){
-        missions.add(new Mission(task, participants));
+    private static <K> void removeFrom(Map<K, Set<Mission>> index, K key, Mission mission) {
+        Set<Mission> missions = index.get(key);
+        if (missions == null) return;
+        missions.remove(mission);
+        if (missions.isEmpty()) index.remove(key);
+    }
+
+    /**
+     * Logs a submission to a mission of this history, called by the mission before it takes effect.
+     */
+    void submitted(Mission mission, Participant participant, Date submitTime) throws IOException {
+        if (log == null) return;
+        log.commit(log.logSubmit(mission.id, identities.participantId(participant), submitTime.getTime()));
+    }
+
+    /**
+     * Moves a mission from the unfinished to the finished missions, called by the
+     * mission once every participant submitted.
+     *
+     * @param mission a mission of this history
+     */
+    synchronized void missionFinished(Mission mission){
+        if (missionsByStatus.get(Mission.MissionStatus.UNFINISHED).remove(mission)) {
+            missionsByStatus.get(Mission.MissionStatus.FINISHED).add(mission);
+        }
+    }
+
+    /**
+     * Drops every finished mission from this history. With a log, the missions are marked as
+     * archived and the log is compacted, which moves their records to the archive file.
+     *
+     * @return the number of missions archived
+     * @throws IOException if the log cannot be written
+     * @since 1.0.4
+     */
+    public int archiveFinishedMissions() throws IOException {
+        long offset = 0;
+        int archived;
+        synchronized (this) {
+            Set<Mission> finished = new HashSet<>(missionsByStatus.get(Mission.MissionStatus.FINISHED));
+            archived = finished.size();
+            if (archived == 0) return 0;
+            for (Mission mission : finished) {
+                if (log != null) offset = log.logArchive(mission.id);
+                unindex(mission);
+            }
+            missions.removeIf(finished::contains);
+            missions.trimToSize();
+        }
+        if (log != null) {
+            log.commit(offset);
+            log.compact();
+        }
+        return archived;
     }
 
     /**
      * The getUnfinishedMissions function returns a list of all the missions that are unfinished.
      *
-     * @return A list of all the unfinished missions in the missions field
+     * @return A list of all the unfinished missions in the missions field, in the order they were created
      */
-    public List<Mission> getUnfinishedMissions(){
-        return missions.stream()
-                .filter(mission -> mission.missionStatus == Mission.MissionStatus.UNFINISHED)
-                .collect(Collectors.toList());
+    public synchronized List<Mission> getUnfinishedMissions(){
+        return new ArrayList<>(missionsByStatus.get(Mission.MissionStatus.UNFINISHED));
     }
 
     /**
      * The getFinishedMissions function returns a list of all the finished missions.
      *
-     * @return A list of finished missions
+     * @return A list of finished missions, in the order they finished
      */
-    public List<Mission> getFinishedMissions(){
-        return missions.stream()
-                .filter(mission -> mission.missionStatus == Mission.MissionStatus.FINISHED)
-                .collect(Collectors.toList());
+    public synchronized List<Mission> getFinishedMissions(){
+        return new ArrayList<>(missionsByStatus.get(Mission.MissionStatus.FINISHED));
     }
 
     /**
@@ -70,10 +309,8 @@ public class MissionHistory implements Resource<MissionHistory>{
      *
      * @return A list of missions that belong to a specific task
      */
-    public List<Mission> getMissionsByTask(Task task){
-        return missions.stream()
-                .filter(mission -> mission.belongTo(task))
-                .collect(Collectors.toList());
+    public synchronized List<Mission> getMissionsByTask(Task task){
+        return new ArrayList<>(missionsByTask.getOrDefault(task, Collections.emptySet()));
     }
 
     /**
@@ -83,10 +320,8 @@ public class MissionHistory implements Resource<MissionHistory>{
      *
      * @return A list of missions that a participant is involved in
      */
-    public List<Mission> getMissionsByParticipant(Participant participant){
-        return missions.stream()
-                .filter(mission -> mission.involved(participant))
-                .collect(Collectors.toList());
+    public synchronized List<Mission> getMissionsByParticipant(Participant participant){
+        return new ArrayList<>(missionsByParticipant.getOrDefault(participant, Collections.emptySet()));
     }
 
     /**
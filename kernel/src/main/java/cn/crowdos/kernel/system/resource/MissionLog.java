@@ -0,0 +1,414 @@
+/*
+ * Copyright 2019-2025 CrowdOS Group, Northwestern Polytechnical University. <https://github.com/crowdosNWPU/CrowdOS>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * imitations under the License.
+ */
+package cn.crowdos.kernel.system.resource;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only file of mission events, the durable backend of a {@link MissionHistory}.
+ *
+ * <p>Each event is one record: its length, a type byte, the payload and a CRC32 of type and
+ * payload. Tasks and participants are written as ids, see {@link MissionHistory.Identities}.</p>
+ *
+ * <p>Writing is split in two steps. {@code logXxx} copies a record into an in-memory buffer and
+ * returns the offset the record ends at; {@link #commit(long)} blocks until the file holds everything
+ * up to that offset. The thread that commits first writes and forces the records of every thread
+ * waiting behind it, so concurrent writers share one {@code force} (group commit).</p>
+ *
+ * <p>{@link #replay(Listener)} reads the file through memory-mapped windows. A record that is cut
+ * short or fails its checksum, as left by a crash during a write, ends the log: the file is
+ * truncated to the last intact record. {@link #compact()} moves the records of archived missions
+ * to a separate archive file, so the log only grows with the missions still on the heap.</p>
+ *
+ * @since 1.0.4
+ * @see MissionHistory
+ */
+public class MissionLog implements Closeable {
+
+    /**
+     * Receives the events of a log during {@link #replay(Listener)}.
+     */
+    public interface Listener {
+        void newMission(long missionId, long taskId, long[] participantIds);
+
+        void submitted(long missionId, long participantId, long submitTime);
+
+        void archived(long missionId);
+
+        /**
+         * Reports that every mission id up to the given one is taken, written when compaction
+         * removes the records of the newest missions.
+         */
+        void reserved(long missionId);
+    }
+
+    static final byte NEW_MISSION = 1;
+    static final byte SUBMIT = 2;
+    static final byte ARCHIVE = 3;
+    static final byte RESERVE = 4;
+
+    private static final int OVERHEAD = 4 + 1 + 4;
+    private static final int MAX_RECORD = 1 << 24;
+    private static final long WINDOW = 1L << 28;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Path path;
+    private final Path archivePath;
+    private final boolean force;
+    private final Object commitLock = new Object();
+
+    private FileChannel channel;
+    private ByteBuffer pending = ByteBuffer.allocate(BUFFER_SIZE);
+    private ByteBuffer spare = ByteBuffer.allocate(BUFFER_SIZE);
+    private boolean recovered;
+    private long appended;
+    private volatile long durable;
+
+    /**
+     * Opens a log that forces every commit to the storage device.
+     *
+     * @param path the log file, created if missing.
+     * @throws IOException if the file cannot be opened.
+     */
+    public MissionLog(Path path) throws IOException {
+        this(path, true);
+    }
+
+    /**
+     * @param path the log file, created if missing. Archived missions go to the file of the same name ending in {@code .archive}.
+     * @param force whether a commit forces the file to the storage device, or only hands it to the operating system.
+     * @throws IOException if the file cannot be opened.
+     */
+    public MissionLog(Path path, boolean force) throws IOException {
+        this.path = path;
+        this.archivePath = Paths.get(path + ".archive");
+        this.force = force;
+        this.channel = open(path);
+    }
+
+    private static FileChannel open(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public Path getArchivePath() {
+        return archivePath;
+    }
+
+    /**
+     * Reads every intact record of the log and truncates a torn tail. Must come before the first write;
+     * writing to a log that was not replayed replays it without a listener.
+     *
+     * @param listener receives the events in the order they were logged, may be null.
+     * @throws IOException if the file cannot be read.
+     */
+    public synchronized void replay(Listener listener) throws IOException {
+        if (recovered) throw new IllegalStateException("the log has already been replayed");
+        long end = scan(channel, listener, null, null);
+        if (end < channel.size()) {
+            channel.truncate(end);
+            channel.force(true);
+        }
+        channel.position(end);
+        appended = end;
+        durable = end;
+        recovered = true;
+    }
+
+    public long logNewMission(long missionId, long taskId, long[] participantIds) throws IOException {
+        ByteBuffer record = begin(NEW_MISSION, 8 + 8 + 4 + 8 * participantIds.length);
+        record.putLong(missionId).putLong(taskId).putInt(participantIds.length);
+        for (long participantId : participantIds) {
+            record.putLong(participantId);
+        }
+        return end(record);
+    }
+
+    public long logSubmit(long missionId, long participantId, long submitTime) throws IOException {
+        return end(begin(SUBMIT, 8 + 8 + 8).putLong(missionId).putLong(participantId).putLong(submitTime));
+    }
+
+    public long logArchive(long missionId) throws IOException {
+        return end(begin(ARCHIVE, 8).putLong(missionId));
+    }
+
+    private static ByteBuffer begin(byte type, int payload) {
+        if (payload + OVERHEAD > MAX_RECORD) throw new IllegalArgumentException("record too large: " + payload);
+        ByteBuffer record = ByteBuffer.allocate(OVERHEAD + payload);
+        record.putInt(payload).put(type);
+        return record;
+    }
+
+    private static ByteBuffer seal(ByteBuffer record) {
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), 4, record.position() - 4);
+        record.putInt((int) crc.getValue());
+        record.flip();
+        return record;
+    }
+
+    private long end(ByteBuffer record) throws IOException {
+        return append(seal(record));
+    }
+
+    private synchronized long append(ByteBuffer record) throws IOException {
+        if (!recovered) replay(null);
+        if (pending.remaining() < record.remaining()) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + record.remaining()));
+            pending.flip();
+            larger.put(pending);
+            pending = larger;
+        }
+        appended += record.remaining();
+        pending.put(record);
+        return appended;
+    }
+
+    /**
+     * Blocks until the log holds every record ending at or before the given offset.
+     *
+     * @param offset an offset returned by one of the {@code logXxx} methods.
+     * @throws IOException if the records cannot be written. The records not written are kept
+     * and written by the next commit.
+     */
+    public void commit(long offset) throws IOException {
+        if (durable >= offset) return;
+        synchronized (commitLock) {
+            if (durable >= offset) return;
+            ByteBuffer batch;
+            long end;
+            synchronized (this) {
+                batch = pending;
+                pending = spare;
+                end = appended;
+            }
+            batch.flip();
+            boolean written = false;
+            try {
+                write(batch);
+                written = true;
+            } finally {
+                synchronized (this) {
+                    if (written) {
+                        batch.clear();
+                        spare = batch;
+                    } else {
+                        restore(batch);
+                    }
+                }
+            }
+            durable = end;
+        }
+    }
+
+    /**
+     * Writes a batch at the end of the file, and forces it if the log forces commits.
+     */
+    void write(ByteBuffer batch) throws IOException {
+        while (batch.hasRemaining()) {
+            channel.write(batch);
+        }
+        if (force) channel.force(false);
+    }
+
+    /**
+     * Puts the unwritten rest of a failed batch back in front of the records appended while it
+     * was written, so the file stays in the order of the offsets. Caller holds this.
+     */
+    private void restore(ByteBuffer batch) {
+        ByteBuffer appendedMeanwhile = pending;
+        batch.compact();
+        if (batch.remaining() < appendedMeanwhile.position()) {
+            ByteBuffer larger = ByteBuffer.allocate(batch.position() + appendedMeanwhile.position());
+            batch.flip();
+            larger.put(batch);
+            batch = larger;
+        }
+        appendedMeanwhile.flip();
+        batch.put(appendedMeanwhile);
+        appendedMeanwhile.clear();
+        spare = appendedMeanwhile;
+        pending = batch;
+    }
+
+    /**
+     * Moves the records of every archived mission to the archive file and rewrites the log with the rest.
+     *
+     * @throws IOException if the files cannot be written. The log is left unchanged in that case.
+     */
+    public void compact() throws IOException {
+        synchronized (commitLock) {
+            synchronized (this) {
+                if (!recovered) replay(null);
+                commit(appended);
+                Set<Long> archived = new HashSet<>();
+                long[] lastMission = {-1};
+                scan(channel, new Listener() {
+                    @Override
+                    public void newMission(long missionId, long taskId, long[] participantIds) {
+                        reserved(missionId);
+                    }
+
+                    @Override
+                    public void submitted(long missionId, long participantId, long submitTime) {
+                    }
+
+                    @Override
+                    public void archived(long missionId) {
+                        archived.add(missionId);
+                    }
+
+                    @Override
+                    public void reserved(long missionId) {
+                        lastMission[0] = Math.max(lastMission[0], missionId);
+                    }
+                }, null, null);
+                if (archived.isEmpty()) return;
+
+                Path compacted = Paths.get(path + ".compact");
+                long end;
+                try (FileChannel live = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+                     FileChannel archive = FileChannel.open(archivePath, StandardOpenOption.CREATE,
+                             StandardOpenOption.APPEND)) {
+                    ByteBuffer reserve = seal(begin(RESERVE, 8).putLong(lastMission[0]));
+                    while (reserve.hasRemaining()) {
+                        live.write(reserve);
+                    }
+                    scan(channel, null, archived, new FileChannel[]{live, archive});
+                    live.force(true);
+                    archive.force(true);
+                    end = live.size();
+                }
+                channel.close();
+                Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                channel = open(path);
+                channel.position(end);
+                appended = end;
+                durable = end;
+            }
+        }
+    }
+
+    /**
+     * Walks the intact records of a file.
+     *
+     * @param listener receives the events, may be null.
+     * @param archived with {@code targets}, the missions whose records go to {@code targets[1]} instead of {@code targets[0]}.
+     * @return the offset after the last intact record.
+     */
+    private static long scan(FileChannel channel, Listener listener, Set<Long> archived, FileChannel[] targets) throws IOException {
+        long size = channel.size();
+        long position = 0;
+        while (position < size) {
+            long length = Math.min(WINDOW, size - position);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            int consumed = scanWindow(window, listener, archived, targets);
+            if (consumed < 0) return position - consumed - 1;
+            // the last window ends with a torn record, or none
+            if (position + length == size || consumed == 0) return position + consumed;
+            position += consumed;
+        }
+        return position;
+    }
+
+    /**
+     * @return the bytes taken by the complete records at the start of the window,
+     * or {@code -(bytes + 1)} if a damaged record follows them.
+     */
+    private static int scanWindow(ByteBuffer window, Listener listener, Set<Long> archived, FileChannel[] targets) throws IOException {
+        CRC32 crc = new CRC32();
+        while (window.remaining() >= OVERHEAD) {
+            int start = window.position();
+            int payload = window.getInt();
+            if (payload < 8 || payload + OVERHEAD > MAX_RECORD) return -(start + 1);
+            if (window.remaining() < payload + 1 + 4) return start;
+            ByteBuffer checked = window.duplicate();
+            checked.limit(start + 4 + 1 + payload);
+            crc.reset();
+            crc.update(checked);
+            byte type = window.get();
+            int body = window.position();
+            window.position(body + payload);
+            if (window.getInt() != (int) crc.getValue()) return -(start + 1);
+            int next = window.position();
+            window.position(body);
+            long missionId = window.getLong();
+            if (listener != null) dispatch(listener, type, missionId, window);
+            if (targets != null && type != RESERVE) {
+                ByteBuffer record = window.duplicate();
+                record.position(start).limit(next);
+                FileChannel target = archived.contains(missionId) ? targets[1] : targets[0];
+                while (record.hasRemaining()) {
+                    target.write(record);
+                }
+            }
+            window.position(next);
+        }
+        return window.position();
+    }
+
+    private static void dispatch(Listener listener, byte type, long missionId, ByteBuffer record) {
+        switch (type) {
+            case NEW_MISSION:
+                long taskId = record.getLong();
+                long[] participantIds = new long[record.getInt()];
+                for (int i = 0; i < participantIds.length; i++) {
+                    participantIds[i] = record.getLong();
+                }
+                listener.newMission(missionId, taskId, participantIds);
+                break;
+            case SUBMIT:
+                listener.submitted(missionId, record.getLong(), record.getLong());
+                break;
+            case ARCHIVE:
+                listener.archived(missionId);
+                break;
+            case RESERVE:
+                listener.reserved(missionId);
+                break;
+            default:
+                // written by a newer version, skip
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (commitLock) {
+            synchronized (this) {
+                try {
+                    if (recovered) commit(appended);
+                } finally {
+                    channel.close();
+                }
+            }
+        }
+    }
+}
@@ -14,4 +14,12 @@
  */
 package cn.crowdos.kernel.system.resource;
 
-public class MissionUpdateException extends Exception{}
+public class MissionUpdateException extends Exception{
+
+    public MissionUpdateException() {
+    }
+
+    public MissionUpdateException(Throwable cause) {
+        super(cause);
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright 2019-2025 CrowdOS Group, Northwestern Polytechnical University. <https://github.com/crowdosNWPU/CrowdOS>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * imitations under the License.
+ */
+package cn.crowdos.kernel.system.resource;
+
+import cn.crowdos.kernel.constraint.Condition;
+import cn.crowdos.kernel.constraint.Coordinate;
+import cn.crowdos.kernel.resource.Participant;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A uniform grid over the {@link Coordinate} ability of the participants in a
+ * {@link ParticipantPool}.
+ *
+ * <p>Each located participant is kept in the bucket of the cell its coordinate falls
+ * into, so a bounding-box query only visits the cells the box overlaps. Participants
+ * without a {@code Coordinate} ability are kept apart and are returned by every query,
+ * because spatial constraints do not apply to them.</p>
+ *
+ * <p>The index takes no global lock. The buckets are concurrent sets in a concurrent map,
+ * so updates of different cells run in parallel and queries never block. Updates of the same
+ * participant are serialized on its slot. A query that runs during updates sees each
+ * participant either at its old or at its new place.</p>
+ *
+ * @since 1.0.4
+ * @see ParticipantPool
+ */
+class ParticipantGridIndex {
+
+    private static final class Slot {
+        final Participant participant;
+        final long sequence;
+        // Guarded by the slot, read without lock by queries
+        volatile Placement placement;
+        boolean removed;
+
+        Slot(Participant participant, long sequence) {
+            this.participant = participant;
+            this.sequence = sequence;
+        }
+    }
+
+    private static final class Placement {
+        static final Placement UNLOCATED = new Placement(false, 0, 0, 0);
+
+        final boolean located;
+        final long cell;
+        final double longitude;
+        final double latitude;
+
+        Placement(boolean located, long cell, double longitude, double latitude) {
+            this.located = located;
+            this.cell = cell;
+            this.longitude = longitude;
+            this.latitude = latitude;
+        }
+    }
+
+    private final double cellSize;
+    private final Map<Participant, Slot> slots = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, Set<Slot>> cells = new ConcurrentHashMap<>();
+    private final Set<Slot> unlocated = ConcurrentHashMap.newKeySet();
+
+    ParticipantGridIndex(double cellSize) {
+        if (!(cellSize > 0)) throw new IllegalArgumentException("cell size must be positive: " + cellSize);
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * @param participant a participant that is not indexed yet
+     * @param sequence the position of the participant in query results
+     */
+    void add(Participant participant, long sequence) {
+        Slot slot = new Slot(participant, sequence);
+        if (slots.putIfAbsent(participant, slot) != null) return;
+        synchronized (slot) {
+            if (slot.placement == null) move(slot);
+        }
+    }
+
+    void remove(Participant participant) {
+        Slot slot = slots.remove(participant);
+        if (slot == null) return;
+        synchronized (slot) {
+            slot.removed = true;
+            move(slot);
+        }
+    }
+
+    /**
+     * Re-reads the location of a participant and moves it to its new cell.
+     *
+     * @param participant an indexed participant
+     * @return false if the participant is not indexed
+     */
+    boolean relocate(Participant participant) {
+        Slot slot = slots.get(participant);
+        if (slot == null) return false;
+        synchronized (slot) {
+            if (slot.removed) return false;
+            move(slot);
+            return true;
+        }
+    }
+
+    /**
+     * Returns every indexed participant that may lie inside the given box, in the order
+     * the participants were indexed. The result contains all participants located inside
+     * the (closed) box and all participants without location.
+     */
+    List<Participant> query(double minLongitude, double minLatitude, double maxLongitude, double maxLatitude) {
+        List<Slot> found = new ArrayList<>(unlocated);
+        if (minLongitude <= maxLongitude && minLatitude <= maxLatitude) {
+            long minX = cellOf(minLongitude), maxX = cellOf(maxLongitude);
+            long minY = cellOf(minLatitude), maxY = cellOf(maxLatitude);
+            double span = ((double) maxX - minX + 1) * ((double) maxY - minY + 1);
+            if (span <= cells.size()) {
+                for (long x = minX; x <= maxX; x++) {
+                    for (long y = minY; y <= maxY; y++) {
+                        Set<Slot> bucket = cells.get(key(x, y));
+                        if (bucket != null) collect(bucket, found, minLongitude, minLatitude, maxLongitude, maxLatitude);
+                    }
+                }
+            } else {
+                // the box covers more cells than are occupied, walk the occupied ones instead
+                for (Map.Entry<Long, Set<Slot>> entry : cells.entrySet()) {
+                    long x = entry.getKey() >> 32;
+                    long y = (int) entry.getKey().longValue();
+                    if (x < minX || x > maxX || y < minY || y > maxY) continue;
+                    collect(entry.getValue(), found, minLongitude, minLatitude, maxLongitude, maxLatitude);
+                }
+            }
+        }
+        found.sort(Comparator.comparingLong(slot -> slot.sequence));
+        List<Participant> result = new ArrayList<>(found.size());
+        Slot previous = null;
+        for (Slot slot : found) {
+            // a participant that moved during the query may have been met in both cells
+            if (slot != previous) result.add(slot.participant);
+            previous = slot;
+        }
+        return result;
+    }
+
+    private static void collect(Set<Slot> bucket, List<Slot> found,
+                                double minLongitude, double minLatitude, double maxLongitude, double maxLatitude) {
+        for (Slot slot : bucket) {
+            Placement placement = slot.placement;
+            if (placement != null && minLongitude <= placement.longitude && placement.longitude <= maxLongitude
+                    && minLatitude <= placement.latitude && placement.latitude <= maxLatitude) {
+                found.add(slot);
+            }
+        }
+    }
+
+    /**
+     * Takes the slot out of its bucket and, unless it was removed, puts it into the bucket
+     * of its current location. The caller holds the lock of the slot.
+     */
+    private void move(Slot slot) {
+        Placement old = slot.placement;
+        if (old != null) {
+            if (old.located) {
+                cells.computeIfPresent(old.cell, (cell, bucket) -> {
+                    bucket.remove(slot);
+                    return bucket.isEmpty() ? null : bucket;
+                });
+            } else {
+                unlocated.remove(slot);
+            }
+        }
+        if (slot.removed) {
+            slot.placement = null;
+            return;
+        }
+        Placement placement = placementOf(slot.participant);
+        slot.placement = placement;
+        if (!placement.located) {
+            unlocated.add(slot);
+            return;
+        }
+        cells.compute(placement.cell, (cell, bucket) -> {
+            if (bucket == null) bucket = ConcurrentHashMap.newKeySet();
+            bucket.add(slot);
+            return bucket;
+        });
+    }
+
+    private Placement placementOf(Participant participant) {
+        Coordinate location = locationOf(participant);
+        if (location == null) return Placement.UNLOCATED;
+        double longitude = location.getLongitude();
+        double latitude = location.getLatitude();
+        return new Placement(true, key(cellOf(longitude), cellOf(latitude)), longitude, latitude);
+    }
+
+    private static Coordinate locationOf(Participant participant) {
+        if (!participant.hasAbility(Coordinate.class)) return null;
+        Condition ability = participant.getAbility(Coordinate.class);
+        if (!(ability instanceof Coordinate)) return null;
+        Coordinate location = (Coordinate) ability;
+        if (Double.isNaN(location.getLongitude()) || Double.isNaN(location.getLatitude())) return null;
+        return location;
+    }
+
+    private long cellOf(double value) {
+        double cell = Math.floor(value / cellSize);
+        if (cell < Integer.MIN_VALUE) return Integer.MIN_VALUE;
+        if (cell > Integer.MAX_VALUE) return Integer.MAX_VALUE;
+        return (long) cell;
+    }
+
+    private static long key(long x, long y) {
+        return (x << 32) | (y & 0xffffffffL);
+    }
+}
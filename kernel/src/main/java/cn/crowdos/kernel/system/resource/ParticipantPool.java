@@ -14,12 +14,173 @@
  */
 package cn.crowdos.kernel.system.resource;
 
+import cn.crowdos.kernel.constraint.AbilityColumns;
+import cn.crowdos.kernel.constraint.Constraint;
+import cn.crowdos.kernel.constraint.Coordinate;
+import cn.crowdos.kernel.constraint.SpatialConstraint;
 import cn.crowdos.kernel.resource.Participant;
+import cn.crowdos.kernel.resource.Task;
+import cn.crowdos.kernel.system.ResourceKey;
 import cn.crowdos.kernel.system.SystemResourceHandler;
 
-import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * ParticipantPool holds all participants registered in the system. It can be written from
+ * several threads; each participant is registered once and gets an id, its registration
+ * number, by which it can be looked up and removed.
+ *
+ * <p>Besides the participants, the pool keeps a {@link ParticipantGridIndex} on the
+ * {@link Coordinate} ability of its participants, which is updated on every insertion and
+ * removal. Participants that move must be reported through {@link #relocate(Participant)}.
+ * Status is not indexed: callers still check {@link Participant#available()} on the
+ * returned candidates.</p>
+ *
+ * <p>For bulk constraint checks the pool also offers its participants as
+ * {@link AbilityColumns}, rebuilt on demand after the pool changed.</p>
+ *
+ * @since 1.0.0
+ * @see ConcurrentPool
+ */
+public class ParticipantPool extends ConcurrentPool<Participant> implements Resource<ParticipantPool> {
+
+    /**
+     * The key the participant pool of a kernel is registered under.
+     *
+     * @since 1.0.4
+     */
+    public static final ResourceKey<ParticipantPool> KEY = ResourceKey.of(ParticipantPool.class);
+
+    private static final class CachedColumns {
+        final long version;
+        final AbilityColumns columns;
+
+        CachedColumns(long version, AbilityColumns columns) {
+            this.version = version;
+            this.columns = columns;
+        }
+    }
+
+    /**
+     * The default edge length of a grid cell, in the unit of the coordinates (degrees).
+     */
+    public static final double DEFAULT_CELL_SIZE = 0.01;
+
+    private final ParticipantGridIndex gridIndex;
+    private volatile CachedColumns abilityColumns;
+
+    public ParticipantPool() {
+        this(DEFAULT_CELL_SIZE);
+    }
+
+    /**
+     * @param cellSize the edge length of a grid cell of the spatial index.
+     */
+    public ParticipantPool(double cellSize) {
+        super(Participant.class);
+        this.gridIndex = new ParticipantGridIndex(cellSize);
+    }
+
+    @Override
+    protected Object keyOf(Participant participant) {
+        return participant;
+    }
+
+    @Override
+    protected void added(Participant participant, long sequence) {
+        gridIndex.add(participant, sequence);
+    }
+
+    @Override
+    protected void removed(Participant participant) {
+        gridIndex.remove(participant);
+    }
+
+    /**
+     * @param participant a participant.
+     * @return the id of the participant, or -1 if it is not registered.
+     */
+    public long getParticipantId(Participant participant) {
+        return sequenceOf(participant);
+    }
+
+    /**
+     * @param participantId the id of a participant.
+     * @return the participant with that id, or null.
+     */
+    public Participant getParticipant(long participantId) {
+        return getBySequence(participantId);
+    }
+
+    /**
+     * @param participantId the id of a participant.
+     * @return true if the participant was in the pool.
+     */
+    public boolean removeParticipant(long participantId) {
+        Participant participant = getBySequence(participantId);
+        return participant != null && removeByKey(participant);
+    }
+
+    /**
+     * Re-reads the location of a registered participant after it moved, so the spatial
+     * index places it in its new cell. Also to be called after other abilities or the
+     * status changed, so the next {@link #getAbilityColumns()} sees them.
+     *
+     * @param participant the participant whose {@link Coordinate} ability changed.
+     * @return false if the participant is not registered in the pool.
+     */
+    public boolean relocate(Participant participant) {
+        if (!gridIndex.relocate(participant)) return false;
+        touch();
+        return true;
+    }
+
+    /**
+     * Returns the participants of the pool as a column table, row {@code i} being element
+     * {@code i} of {@link #snapshot()}. The table is cached until the pool changes.
+     *
+     * @return the ability columns of the current participants.
+     * @since 1.0.4
+     */
+    public AbilityColumns getAbilityColumns() {
+        long version = version();
+        CachedColumns cached = abilityColumns;
+        if (cached != null && cached.version == version) return cached.columns;
+        AbilityColumns columns = AbilityColumns.of(snapshot());
+        abilityColumns = new CachedColumns(version, columns);
+        return columns;
+    }
+
+    /**
+     * Returns the participants worth evaluating {@link Task#canAssignTo(Participant)} for.
+     *
+     * <p>If the task carries {@link SpatialConstraint}s, only participants inside the
+     * intersection of their bounding boxes (and participants without a location) are
+     * returned, in registration order. Otherwise a {@link #snapshot()} of the whole pool
+     * is returned. The result is a superset of the participants the task can be assigned to.</p>
+     *
+     * @param task the task to select candidates for.
+     * @return the candidate participants.
+     */
+    public List<Participant> getSpatialCandidates(Task task) {
+        List<Constraint> constraints = task.constraints();
+        if (constraints == null) return snapshot();
+        double minLongitude = Double.NEGATIVE_INFINITY, minLatitude = Double.NEGATIVE_INFINITY;
+        double maxLongitude = Double.POSITIVE_INFINITY, maxLatitude = Double.POSITIVE_INFINITY;
+        boolean bounded = false;
+        for (Constraint constraint : constraints) {
+            if (!(constraint instanceof SpatialConstraint) || constraint.getConditionClass() != Coordinate.class) continue;
+            Coordinate[] box = ((SpatialConstraint) constraint).boundingBox();
+            minLongitude = Math.max(minLongitude, box[0].getLongitude());
+            minLatitude = Math.max(minLatitude, box[0].getLatitude());
+            maxLongitude = Math.min(maxLongitude, box[1].getLongitude());
+            maxLatitude = Math.min(maxLatitude, box[1].getLatitude());
+            bounded = true;
+        }
+        if (!bounded) return snapshot();
+        return gridIndex.query(minLongitude, minLatitude, maxLongitude, maxLatitude);
+    }
 
-public class ParticipantPool extends LinkedList<Participant> implements Resource<ParticipantPool> {
     @Override
     public SystemResourceHandler<ParticipantPool> getHandler() {
         ParticipantPool participants = this;
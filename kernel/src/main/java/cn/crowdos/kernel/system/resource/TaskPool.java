@@ -15,12 +15,60 @@
 package cn.crowdos.kernel.system.resource;
 
 import cn.crowdos.kernel.InterruptManager;
+import cn.crowdos.kernel.resource.AbstractTask;
+import cn.crowdos.kernel.system.ResourceKey;
 import cn.crowdos.kernel.system.SystemResourceHandler;
 import cn.crowdos.kernel.resource.Task;
 
-import java.util.LinkedList;
+/**
+ * TaskPool holds all tasks submitted to the system. It can be written from several threads;
+ * tasks are indexed by {@link AbstractTask#getTaskId()}, other {@link Task} implementations by identity.
+ *
+ * @see ConcurrentPool
+ */
+public class TaskPool extends ConcurrentPool<Task> implements Resource<TaskPool> {
+
+    /**
+     * The key the task pool of a kernel is registered under.
+     *
+     * @since 1.0.4
+     */
+    public static final ResourceKey<TaskPool> KEY = ResourceKey.of(TaskPool.class);
+
+    public TaskPool() {
+        super(Task.class);
+    }
+
+    @Override
+    protected Object keyOf(Task task) {
+        if (task instanceof AbstractTask) return ((AbstractTask) task).getTaskId();
+        return task;
+    }
+
+    /**
+     * Compiles the constraints of a submitted task, so its first assignment does not pay for it.
+     */
+    @Override
+    protected void added(Task task, long sequence) {
+        if (task instanceof AbstractTask) ((AbstractTask) task).getConstraintPlan();
+    }
+
+    /**
+     * @param taskId the id of a task.
+     * @return the task with that id, or null.
+     */
+    public Task getTask(long taskId) {
+        return getByKey(taskId);
+    }
+
+    /**
+     * @param taskId the id of a task.
+     * @return true if the task was in the pool.
+     */
+    public boolean removeTask(long taskId) {
+        return removeByKey(taskId);
+    }
 
-public class TaskPool extends LinkedList<Task> implements Resource<TaskPool> {
     @Override
     public SystemResourceHandler<TaskPool> getHandler() {
         TaskPool tasks = this;
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2019-2025 CrowdOS Group, Northwestern Polytechnical University. <https://github.com/crowdosNWPU/CrowdOS>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * imitations under the License.
+ */
+package cn.crowdos.kernel;
+
+import cn.crowdos.kernel.resource.SimpleTask;
+import cn.crowdos.kernel.resource.Task;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+class CheckedKernelTest {
+
+    public static void testUninitialized() {
+        Kernel.shutdown();
+        CrowdKernel kernel = Kernel.getKernel();
+        boolean passed = !kernel.isInitialed() && kernel == Kernel.getKernel();
+        try {
+            kernel.getTasks();
+            passed = false;
+        } catch (UninitializedKernelException e) {
+            // expected
+        }
+        Kernel.shutdown();
+        if (passed) {
+            System.out.println("testUninitialized passed");
+        } else {
+            System.out.println("testUninitialized failed");
+        }
+    }
+
+    public static void testDirectDispatch() {
+        Kernel.shutdown();
+        CrowdKernel kernel = Kernel.getKernel();
+        kernel.initial();
+        boolean passed = kernel.isInitialed() && kernel.getTasks().isEmpty();
+        passed &= kernel.submitTask(new SimpleTask(Collections.emptyList(), Task.TaskDistributionType.ASSIGNMENT));
+        passed &= kernel.getTasks().size() == 1;
+        try {
+            kernel.algoSelect("NoSuchAlgo");
+            passed = false;
+        } catch (IllegalArgumentException e) {
+            // thrown as is rather than wrapped by a reflective call
+        }
+        Kernel.shutdown();
+        if (passed) {
+            System.out.println("testDirectDispatch passed");
+        } else {
+            System.out.println("testDirectDispatch failed");
+        }
+    }
+
+    public static void testShutdownCloses() {
+        Kernel.shutdown();
+        CrowdKernel kernel = Kernel.getKernel();
+        kernel.initial();
+        TaskRuntime runtime = kernel.getSystemResourceCollection().getResourceHandler(TaskRuntime.class).getResource();
+        Kernel.shutdown();
+        SimpleTask task = new SimpleTask(Collections.emptyList(), Task.TaskDistributionType.ASSIGNMENT);
+        task.setTaskStatus(Task.TaskStatus.READY);
+        boolean passed = Kernel.getKernel() != kernel;
+        try {
+            runtime.trySubmit(task, 0, TimeUnit.SECONDS);
+            passed = false;
+        } catch (IllegalStateException | InterruptedException e) {
+            // the runtime of the default kernel was closed
+        }
+        Kernel.shutdown();
+        if (passed) {
+            System.out.println("testShutdownCloses passed");
+        } else {
+            System.out.println("testShutdownCloses failed");
+        }
+    }
+
+    public static void main(String[] args) {
+        testUninitialized();
+        testDirectDispatch();
+        testShutdownCloses();
+    }
+}
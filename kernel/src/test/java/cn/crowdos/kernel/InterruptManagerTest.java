@@ -0,0 +1,212 @@
+/*
+ * Copyright 2019-2025 CrowdOS Group, Northwestern Polytechnical University. <https://github.com/crowdosNWPU/CrowdOS>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * imitations under the License.
+ */
+package cn.crowdos.kernel;
+
+import cn.crowdos.kernel.resource.SimpleTask;
+import cn.crowdos.kernel.resource.Task;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongConsumer;
+
+class InterruptManagerTest {
+
+    public static void testInterruptAndClear() {
+        InterruptManager manager = new InterruptManager();
+        InterruptManager.Flag flag = manager.register(7);
+        boolean passed = !manager.isInterrupted(7) && !flag.isRaised() && manager.register(7) == flag;
+        passed &= manager.requestInterrupt(7) && !manager.requestInterrupt(7);
+        passed &= manager.isInterrupted(7) && flag.isRaised() && !manager.isInterrupted(8);
+        manager.clearInterrupt(7);
+        passed &= !manager.isInterrupted(7) && !flag.isRaised() && manager.register(7) != flag;
+        // the old string ids still work
+        manager.requestInterrupt("9");
+        passed &= manager.isInterrupted(9) && manager.isInterrupted("9");
+        if (passed) {
+            System.out.println("testInterruptAndClear passed");
+        } else {
+            System.out.println("testInterruptAndClear failed");
+        }
+    }
+
+    public static void testBulkAndListeners() {
+        InterruptManager manager = new InterruptManager();
+        List<Long> heard = Collections.synchronizedList(new ArrayList<>());
+        LongConsumer listener = heard::add;
+        manager.addListener(listener);
+        for (long id = 1; id <= 10000; id++) {
+            manager.register(id);
+        }
+        boolean passed = manager.requestInterrupt(1, 2, 3, 3) == 3;
+        passed &= manager.requestInterruptIf(id -> id % 2 == 0) == 4999;
+        passed &= heard.size() == 5002 && heard.get(0) == 1L;
+        for (long id = 1; id <= 10000; id++) {
+            passed &= manager.isInterrupted(id) == (id <= 3 || id % 2 == 0);
+        }
+        for (long id = 1; id <= 10000; id += 2) {
+            manager.clearInterrupt(id);
+        }
+        passed &= manager.registeredTaskIds().length == 5000;
+        passed &= manager.removeListener(listener) && !manager.removeListener(listener);
+        if (passed) {
+            System.out.println("testBulkAndListeners passed");
+        } else {
+            System.out.println("testBulkAndListeners failed");
+        }
+    }
+
+    public static void testConcurrent() throws InterruptedException {
+        InterruptManager manager = new InterruptManager();
+        int threads = 4;
+        int idsPerThread = 20000;
+        AtomicInteger interrupted = new AtomicInteger();
+        manager.addListener(id -> interrupted.incrementAndGet());
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean consistent = new AtomicBoolean(true);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long base = (long) t * idsPerThread;
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (long id = base; id < base + idsPerThread; id++) {
+                    // every thread also interrupts the ids of its neighbour
+                    manager.requestInterrupt(id);
+                    manager.requestInterrupt((id + idsPerThread) % (threads * idsPerThread));
+                    if (!manager.isInterrupted(id)) consistent.set(false);
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        boolean passed = consistent.get() && interrupted.get() == threads * idsPerThread;
+        passed &= manager.registeredTaskIds().length == threads * idsPerThread;
+        if (passed) {
+            System.out.println("testConcurrent passed");
+        } else {
+            System.out.println("testConcurrent failed");
+        }
+    }
+
+    public static void testTaskPollsFlag() throws InterruptedException {
+        InterruptManager manager = new InterruptManager();
+        AtomicBoolean handled = new AtomicBoolean();
+        SimpleTask task = new SimpleTask(Collections.emptyList(), Task.TaskDistributionType.ASSIGNMENT) {
+            @Override
+            public boolean isCompleted() {
+                return false;
+            }
+
+            @Override
+            public void handleInterrupt() {
+                handled.set(true);
+            }
+        };
+        task.setInterruptManager(manager);
+        Thread runner = new Thread(task::execute);
+        runner.start();
+        manager.requestInterrupt(task.getTaskId());
+        runner.join(10000);
+        if (!runner.isAlive() && handled.get()) {
+            System.out.println("testTaskPollsFlag passed");
+        } else {
+            System.out.println("testTaskPollsFlag failed");
+        }
+    }
+
+    public static void testInterruptBeforeExecute() {
+        InterruptManager manager = new InterruptManager();
+        AtomicBoolean performed = new AtomicBoolean();
+        AtomicBoolean handled = new AtomicBoolean();
+        SimpleTask task = new SimpleTask(Collections.emptyList(), Task.TaskDistributionType.ASSIGNMENT) {
+            @Override
+            public boolean isCompleted() {
+                return performed.get();
+            }
+
+            @Override
+            public void performTask() {
+                performed.set(true);
+            }
+
+            @Override
+            public void handleInterrupt() {
+                handled.set(true);
+            }
+        };
+        task.setInterruptManager(manager);
+        // the task was never registered, the request must still reach it
+        boolean passed = manager.requestInterrupt(task.getTaskId());
+        task.execute();
+        passed &= handled.get() && !performed.get();
+        if (passed) {
+            System.out.println("testInterruptBeforeExecute passed");
+        } else {
+            System.out.println("testInterruptBeforeExecute failed");
+        }
+    }
+
+    public static void testStaleFlag() {
+        InterruptManager manager = new InterruptManager();
+        InterruptManager.Flag stale = manager.register(3);
+        manager.clearInterrupt(3);
+        InterruptManager.Flag current = manager.register(3);
+        boolean passed = !manager.requestInterrupt(stale) && !manager.isInterrupted(3);
+        passed &= manager.requestInterrupt(current) && !manager.requestInterrupt(current) && manager.isInterrupted(3);
+        if (passed) {
+            System.out.println("testStaleFlag passed");
+        } else {
+            System.out.println("testStaleFlag failed");
+        }
+    }
+
+    public static void testExecuteForgetsOwnFlag() {
+        InterruptManager manager = new InterruptManager();
+        SimpleTask task = new SimpleTask(Collections.emptyList(), Task.TaskDistributionType.ASSIGNMENT);
+        task.setInterruptManager(manager);
+        task.execute();
+        boolean passed = manager.registeredTaskIds().length == 0;
+        // a flag registered by someone else stays for them to clear
+        manager.register(task.getTaskId());
+        task.execute();
+        passed &= manager.getFlag(task.getTaskId()) != null && manager.registeredTaskIds().length == 1;
+        if (passed) {
+            System.out.println("testExecuteForgetsOwnFlag passed");
+        } else {
+            System.out.println("testExecuteForgetsOwnFlag failed");
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        testInterruptAndClear();
+        testBulkAndListeners();
+        testConcurrent();
+        testTaskPollsFlag();
+        testInterruptBeforeExecute();
+        testStaleFlag();
+        testExecuteForgetsOwnFlag();
+    }
+}
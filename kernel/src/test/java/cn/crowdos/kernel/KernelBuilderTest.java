@@ -0,0 +1,131 @@
+/*
+ * Copyright 2019-2025 CrowdOS Group, Northwestern Polytechnical University. <https://github.com/crowdosNWPU/CrowdOS>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * imitations under the License.
+ */
+package cn.crowdos.kernel;
+
+import cn.crowdos.kernel.common.LocationParticipant;
+import cn.crowdos.kernel.resource.SimpleTask;
+import cn.crowdos.kernel.resource.Task;
+import cn.crowdos.kernel.resource.TaskIdGenerator;
+
+import java.util.Collections;
+import java.util.concurrent.Executor;
+
+class KernelBuilderTest {
+
+    public static void testIndependentKernels() {
+        try (Kernel first = Kernel.builder().build(); Kernel second = Kernel.builder().build()) {
+            SimpleTask a = new SimpleTask(Collections.emptyList(), Task.TaskDistributionType.ASSIGNMENT, first.getTaskIdGenerator());
+            SimpleTask b = new SimpleTask(Collections.emptyList(), Task.TaskDistributionType.ASSIGNMENT, second.getTaskIdGenerator());
+            boolean passed = first.isInitialed() && second.isInitialed();
+            // each kernel numbers its own tasks
+            passed &= a.getTaskId() == 1 && b.getTaskId() == 1;
+            passed &= first.submitTask(a) && second.submitTask(b);
+            passed &= first.registerParticipant(new LocationParticipant(0, 0));
+            passed &= first.getTasks().size() == 1 && first.getTasks().get(0) == a;
+            passed &= second.getTasks().size() == 1 && second.getTasks().get(0) == b;
+            passed &= first.getParticipants().size() == 1 && second.getParticipants().isEmpty();
+            passed &= first.getSystemResourceCollection() != second.getSystemResourceCollection();
+            passed &= first.getInterruptManager() != second.getInterruptManager();
+            passed &= a.getInterruptManager() == first.getInterruptManager();
+            passed &= Kernel.getKernel() != first && Kernel.getKernel() != second;
+            if (passed) {
+                System.out.println("testIndependentKernels passed");
+            } else {
+                System.out.println("testIndependentKernels failed");
+            }
+        } finally {
+            Kernel.shutdown();
+        }
+    }
+
+    public static void testSettings() {
+        Executor executor = Runnable::run;
+        InterruptManager interruptManager = new InterruptManager();
+        TaskIdGenerator ids = new TaskIdGenerator(1000);
+        try (Kernel kernel = Kernel.builder()
+                .executor(executor)
+                .batchSize(4)
+                .interruptManager(interruptManager)
+                .taskIdGenerator(ids)
+                .runtimeThreads(2)
+                .runtimeQueueCapacity(8)
+                .build()) {
+            Scheduler scheduler = kernel.getSystemResourceCollection().getResourceHandler(Scheduler.KEY).getResource();
+            boolean passed = scheduler.getExecutor() == executor && scheduler.getBatchSize() == 4;
+            passed &= kernel.getInterruptManager() == interruptManager && kernel.getTaskIdGenerator() == ids;
+            passed &= new SimpleTask(Collections.emptyList(), Task.TaskDistributionType.ASSIGNMENT, ids).getTaskId() == 1000;
+            try {
+                Kernel.builder().runtimeThreads(0);
+                passed = false;
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+            if (passed) {
+                System.out.println("testSettings passed");
+            } else {
+                System.out.println("testSettings failed");
+            }
+        }
+    }
+
+    public static void testForeignTaskId() {
+        try (Kernel kernel = Kernel.builder().build()) {
+            // both would take id 1, the pool would drop one of them
+            boolean passed = kernel.submitTask(new SimpleTask(Collections.emptyList(), Task.TaskDistributionType.ASSIGNMENT, kernel.getTaskIdGenerator()));
+            try {
+                kernel.submitTask(new SimpleTask(Collections.emptyList(), Task.TaskDistributionType.ASSIGNMENT));
+                passed = false;
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+            passed &= kernel.getTasks().size() == 1;
+            if (passed) {
+                System.out.println("testForeignTaskId passed");
+            } else {
+                System.out.println("testForeignTaskId failed");
+            }
+        }
+    }
+
+    public static void testInitialClosesPrevious() throws InterruptedException {
+        try (Kernel kernel = Kernel.builder().build()) {
+            TaskRuntime previous = kernel.getSystemResourceCollection().getResourceHandler(TaskRuntime.class).getResource();
+            kernel.initial();
+            TaskRuntime current = kernel.getSystemResourceCollection().getResourceHandler(TaskRuntime.class).getResource();
+            SimpleTask task = new SimpleTask(Collections.emptyList(), Task.TaskDistributionType.ASSIGNMENT, kernel.getTaskIdGenerator());
+            task.setTaskStatus(Task.TaskStatus.READY);
+            boolean passed = previous != current;
+            try {
+                previous.submit(task);
+                passed = false;
+            } catch (IllegalStateException e) {
+                // the previous runtime was closed
+            }
+            passed &= current.submit(task) != null;
+            if (passed) {
+                System.out.println("testInitialClosesPrevious passed");
+            } else {
+                System.out.println("testInitialClosesPrevious failed");
+            }
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        testIndependentKernels();
+        testSettings();
+        testForeignTaskId();
+        testInitialClosesPrevious();
+    }
+}
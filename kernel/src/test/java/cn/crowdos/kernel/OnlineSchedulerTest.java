@@ -0,0 +1,211 @@
+/*
+ * Copyright 2019-2025 CrowdOS Group, Northwestern Polytechnical University. <https://github.com/crowdosNWPU/CrowdOS>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * imitations under the License.
+ */
+package cn.crowdos.kernel;
+
+import cn.crowdos.kernel.common.LocationParticipant;
+import cn.crowdos.kernel.common.TimeParticipant;
+import cn.crowdos.kernel.constraint.Condition;
+import cn.crowdos.kernel.constraint.Coordinate;
+import cn.crowdos.kernel.constraint.POIConstraint;
+import cn.crowdos.kernel.resource.Participant;
+import cn.crowdos.kernel.resource.SimpleTask;
+import cn.crowdos.kernel.resource.Task;
+import cn.crowdos.kernel.system.DuplicateResourceNameException;
+import cn.crowdos.kernel.system.SystemResourceCollection;
+import cn.crowdos.kernel.system.resource.Mission;
+import cn.crowdos.kernel.system.resource.MissionHistory;
+import cn.crowdos.kernel.system.resource.ParticipantPool;
+import cn.crowdos.kernel.system.resource.TaskPool;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+class OnlineSchedulerTest {
+
+    private static ParticipantPool participants;
+
+    private static MissionHistory history;
+
+    private static OnlineScheduler scheduler(int participantNum) throws DuplicateResourceNameException {
+        SystemResourceCollection collection = new SystemResourceCollection();
+        participants = new ParticipantPool();
+        history = new MissionHistory();
+        collection.register(new TaskPool());
+        collection.register(participants);
+        collection.register(history);
+        Random random = new Random(4);
+        for (int i = 0; i < participantNum; i++) {
+            participants.add(new LocationParticipant(random.nextDouble() * 10, random.nextDouble() * 10));
+        }
+        return new OnlineScheduler(collection);
+    }
+
+    private static Task task(double longitude, double latitude, double radius) {
+        return new SimpleTask(Collections.singletonList(new POIConstraint(new Coordinate(longitude, latitude), radius)),
+                Task.TaskDistributionType.ASSIGNMENT);
+    }
+
+    public static void testFlush() throws DuplicateResourceNameException {
+        OnlineScheduler scheduler = scheduler(0);
+        LocationParticipant near = new LocationParticipant(1, 1);
+        LocationParticipant far = new LocationParticipant(5, 5);
+        participants.add(far);
+        participants.add(near);
+        Task first = task(1.1, 1, 10);
+        Task second = task(1, 1.1, 10);
+        Task third = task(0, 0, 10);
+        scheduler.submit(first);
+        scheduler.submit(second);
+        List<Mission> missions = scheduler.flush();
+
+        boolean passed = missions.size() == 2;
+        passed &= near.getStatus() == Participant.ParticipantStatus.BUSY && far.getStatus() == Participant.ParticipantStatus.BUSY;
+        passed &= history.getUnfinishedMissions().size() == 2;
+        passed &= scheduler.results().size() == 2;
+
+        // no participant is left, the third task waits until one is available again
+        scheduler.submit(third);
+        passed &= scheduler.flush().isEmpty() && scheduler.getUnassignedCount() == 1;
+        near.setStatus(Participant.ParticipantStatus.AVAILABLE);
+        participants.relocate(near);
+        missions = scheduler.flush();
+        passed &= missions.size() == 1 && missions.get(0).getTask() == third
+                && missions.get(0).getParticipants().get(0) == near && scheduler.getUnassignedCount() == 0;
+        if (passed) {
+            System.out.println("testFlush passed");
+        } else {
+            System.out.println("testFlush failed");
+        }
+    }
+
+    public static void testBackgroundBatches() throws DuplicateResourceNameException, InterruptedException {
+        OnlineScheduler scheduler = scheduler(500);
+        scheduler.setMaxBatchSize(32);
+        scheduler.setMaxDelayMillis(5);
+        Set<Participant> assigned = Collections.synchronizedSet(new HashSet<>());
+        Set<Participant> duplicates = Collections.synchronizedSet(new HashSet<>());
+        scheduler.setListener(mission -> {
+            for (Participant participant : mission.getParticipants()) {
+                if (!assigned.add(participant)) duplicates.add(participant);
+            }
+        });
+        scheduler.start();
+        Random random = new Random(9);
+        for (int i = 0; i < 300; i++) {
+            scheduler.submit(task(random.nextDouble() * 10, random.nextDouble() * 10, 3));
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (assigned.size() + scheduler.getUnassignedCount() < 300 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        scheduler.close();
+
+        boolean passed = !scheduler.isRunning() && duplicates.isEmpty();
+        passed &= assigned.size() + scheduler.getUnassignedCount() == 300;
+        passed &= scheduler.results().isEmpty();
+        for (Participant participant : participants) {
+            passed &= assigned.contains(participant) == (participant.getStatus() == Participant.ParticipantStatus.BUSY);
+        }
+        if (passed) {
+            System.out.println("testBackgroundBatches passed");
+        } else {
+            System.out.println("testBackgroundBatches failed");
+        }
+    }
+
+    public static void testUnlocatedParticipant() throws DuplicateResourceNameException {
+        OnlineScheduler scheduler = scheduler(0);
+        TimeParticipant unlocated = new TimeParticipant("2022.6.1");
+        LocationParticipant far = new LocationParticipant(5, 5);
+        participants.add(unlocated);
+        participants.add(far);
+        Task located = task(1, 1, 10);
+        scheduler.submit(located);
+        List<Mission> missions = scheduler.flush();
+
+        // the participant without location is not nearer than any other
+        boolean passed = missions.size() == 1 && missions.get(0).getParticipants().get(0) == far
+                && unlocated.getStatus() == Participant.ParticipantStatus.AVAILABLE;
+        if (passed) {
+            System.out.println("testUnlocatedParticipant passed");
+        } else {
+            System.out.println("testUnlocatedParticipant failed " + missions);
+        }
+    }
+
+    private static class FailingParticipant extends LocationParticipant {
+        volatile boolean failing;
+
+        FailingParticipant(double longitude, double latitude) {
+            super(longitude, latitude);
+        }
+
+        @Override
+        public Condition getAbility(Class<? extends Condition> conditionClass) {
+            if (failing) throw new IllegalStateException("ability not readable");
+            return super.getAbility(conditionClass);
+        }
+    }
+
+    public static void testFailedBatch() throws DuplicateResourceNameException, InterruptedException {
+        OnlineScheduler scheduler = scheduler(0);
+        FailingParticipant failing = new FailingParticipant(1, 1);
+        participants.add(failing);
+        participants.add(new LocationParticipant(2, 2));
+        failing.failing = true;
+        List<Mission> assigned = Collections.synchronizedList(new ArrayList<>());
+        scheduler.setListener(assigned::add);
+        List<Throwable> reported = Collections.synchronizedList(new ArrayList<>());
+        Thread.UncaughtExceptionHandler handler = Thread.getDefaultUncaughtExceptionHandler();
+        Thread.setDefaultUncaughtExceptionHandler((thread, e) -> reported.add(e));
+        try {
+            scheduler.start();
+            scheduler.submit(task(1, 1, 10));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (reported.isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            // the failed task waits for the next batch, the thread goes on
+            boolean passed = reported.size() == 1 && scheduler.isRunning() && scheduler.getUnassignedCount() == 1;
+
+            failing.failing = false;
+            scheduler.submit(task(2, 2, 10));
+            while (assigned.size() < 2 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            scheduler.close();
+            passed &= assigned.size() == 2 && !scheduler.isRunning() && scheduler.getUnassignedCount() == 0;
+            if (passed) {
+                System.out.println("testFailedBatch passed");
+            } else {
+                System.out.println("testFailedBatch failed " + reported + " " + assigned);
+            }
+        } finally {
+            Thread.setDefaultUncaughtExceptionHandler(handler);
+        }
+    }
+
+    public static void main(String[] args) throws DuplicateResourceNameException, InterruptedException {
+        testFlush();
+        testBackgroundBatches();
+        testUnlocatedParticipant();
+        testFailedBatch();
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2019-2025 CrowdOS Group, Northwestern Polytechnical University. <https://github.com/crowdosNWPU/CrowdOS>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * imitations under the License.
+ */
+package cn.crowdos.kernel;
+
+import cn.crowdos.kernel.algorithms.AlgoFactoryAdapter;
+import cn.crowdos.kernel.common.LocationParticipant;
+import cn.crowdos.kernel.constraint.Coordinate;
+import cn.crowdos.kernel.constraint.POIConstraint;
+import cn.crowdos.kernel.resource.Participant;
+import cn.crowdos.kernel.resource.SimpleTask;
+import cn.crowdos.kernel.resource.Task;
+import cn.crowdos.kernel.system.DuplicateResourceNameException;
+import cn.crowdos.kernel.system.SystemResourceCollection;
+import cn.crowdos.kernel.system.resource.AlgoContainer;
+import cn.crowdos.kernel.system.resource.ParticipantPool;
+import cn.crowdos.kernel.system.resource.TaskPool;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class SchedulerTest {
+
+    private static TaskPool tasks;
+
+    private static Scheduler scheduler(int participantNum, int taskNum) throws DuplicateResourceNameException {
+        SystemResourceCollection collection = new SystemResourceCollection();
+        tasks = new TaskPool();
+        ParticipantPool participants = new ParticipantPool();
+        collection.register(tasks);
+        collection.register(participants);
+        collection.register(new AlgoContainer(new AlgoFactoryAdapter(collection)), "DefaultAlgo");
+        Random random = new Random(3);
+        for (int i = 0; i < participantNum; i++) {
+            participants.add(new LocationParticipant(random.nextDouble() * 10, random.nextDouble() * 10));
+        }
+        for (int i = 0; i < taskNum; i++) {
+            tasks.add(new SimpleTask(Collections.singletonList(
+                    new POIConstraint(new Coordinate(random.nextDouble() * 10, random.nextDouble() * 10), 1)),
+                    Task.TaskDistributionType.ASSIGNMENT));
+        }
+        return new Scheduler(collection);
+    }
+
+    public static void testParallelMatchesSequential() throws DuplicateResourceNameException {
+        Scheduler scheduler = scheduler(2000, 300);
+        scheduler.setExecutor(Runnable::run);
+        List<List<Participant>> sequential = scheduler.assignTasks();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        scheduler.setExecutor(executor);
+        scheduler.setBatchSize(7);
+        List<List<Participant>> parallel = scheduler.assignTasks();
+        List<List<Participant>> selected = scheduler.participantSelection(
+                new ArrayList<>(tasks.snapshot()));
+        executor.shutdown();
+
+        if (sequential.size() == 300 && sequential.equals(parallel) && sequential.equals(selected)) {
+            System.out.println("testParallelMatchesSequential passed");
+        } else {
+            System.out.println("testParallelMatchesSequential failed");
+        }
+    }
+
+    public static void testEvaluationOrder() throws DuplicateResourceNameException {
+        Scheduler scheduler = scheduler(0, 0);
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        scheduler.setExecutor(executor);
+        scheduler.setBatchSize(2);
+        List<Task> batch = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            batch.add(new SimpleTask(null, Task.TaskDistributionType.ASSIGNMENT));
+        }
+        List<Task> evaluated = scheduler.evaluate(batch, task -> task);
+        boolean rethrown = false;
+        try {
+            scheduler.evaluate(batch, task -> {
+                if (task == batch.get(20)) throw new IllegalStateException();
+                return task;
+            });
+        } catch (IllegalStateException e) {
+            rethrown = true;
+        }
+        executor.shutdown();
+
+        if (evaluated.equals(batch) && rethrown) {
+            System.out.println("testEvaluationOrder passed");
+        } else {
+            System.out.println("testEvaluationOrder failed");
+        }
+    }
+
+    public static void testFailingFirstJob() throws DuplicateResourceNameException, InterruptedException {
+        Scheduler scheduler = scheduler(0, 0);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        scheduler.setExecutor(executor);
+        scheduler.setBatchSize(1);
+        List<Task> batch = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            batch.add(new SimpleTask(null, Task.TaskDistributionType.ASSIGNMENT));
+        }
+        CountDownLatch otherJobs = new CountDownLatch(2);
+        AtomicInteger ended = new AtomicInteger();
+        IllegalStateException thrown = null;
+        try {
+            scheduler.evaluate(batch, task -> {
+                // the first job, in the calling thread, fails before the others end
+                if (task == batch.get(0)) throw new IllegalStateException("first");
+                otherJobs.countDown();
+                try {
+                    otherJobs.await();
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                ended.incrementAndGet();
+                throw new IllegalArgumentException("other");
+            });
+        } catch (IllegalStateException e) {
+            thrown = e;
+        }
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        if (thrown != null && ended.get() == 2 && thrown.getSuppressed().length == 2) {
+            System.out.println("testFailingFirstJob passed");
+        } else {
+            System.out.println("testFailingFirstJob failed");
+        }
+    }
+
+    public static void testSequentialByDefault() throws DuplicateResourceNameException {
+        Scheduler scheduler = scheduler(0, 0);
+        scheduler.setBatchSize(2);
+        List<Task> batch = new ArrayList<>();
+        for (int i = 0; i < 9; i++) {
+            batch.add(new SimpleTask(null, Task.TaskDistributionType.ASSIGNMENT));
+        }
+        // algorithms are not required to be thread-safe unless an executor is set
+        Thread caller = Thread.currentThread();
+        List<Thread> threads = scheduler.evaluate(batch, task -> Thread.currentThread());
+        if (threads.stream().allMatch(thread -> thread == caller)) {
+            System.out.println("testSequentialByDefault passed");
+        } else {
+            System.out.println("testSequentialByDefault failed");
+        }
+    }
+
+    public static void main(String[] args) throws DuplicateResourceNameException, InterruptedException {
+        testParallelMatchesSequential();
+        testEvaluationOrder();
+        testFailingFirstJob();
+        testSequentialByDefault();
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2019-2025 CrowdOS Group, Northwestern Polytechnical University. <https://github.com/crowdosNWPU/CrowdOS>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * imitations under the License.
+ */
+package cn.crowdos.kernel;
+
+import cn.crowdos.kernel.resource.SimpleTask;
+import cn.crowdos.kernel.resource.Task;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+class TaskRuntimeTest {
+
+    /**
+     * A task whose execution loops until the latch opens, polling its interrupt flag.
+     */
+    private static SimpleTask blockingTask(CountDownLatch release) {
+        SimpleTask task = new SimpleTask(Collections.emptyList(), Task.TaskDistributionType.ASSIGNMENT) {
+            @Override
+            public boolean isCompleted() {
+                return release.getCount() == 0;
+            }
+
+            @Override
+            public void performTask() {
+                Thread.yield();
+            }
+
+            @Override
+            public void handleInterrupt() {
+            }
+        };
+        task.setTaskStatus(Task.TaskStatus.READY);
+        return task;
+    }
+
+    public static void testStatusTransitions() throws Exception {
+        TaskRuntime runtime = new TaskRuntime(new InterruptManager(), 2, 4);
+        List<SimpleTask> tasks = new ArrayList<>();
+        List<CompletableFuture<Task.TaskStatus>> results = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            SimpleTask task = new SimpleTask(Collections.emptyList(), Task.TaskDistributionType.ASSIGNMENT);
+            task.setTaskStatus(Task.TaskStatus.READY);
+            tasks.add(task);
+            results.add(runtime.submit(task));
+        }
+        boolean passed = true;
+        for (int i = 0; i < 6; i++) {
+            passed &= results.get(i).get(10, TimeUnit.SECONDS) == Task.TaskStatus.FINISHED;
+            passed &= tasks.get(i).getTaskStatus() == Task.TaskStatus.FINISHED;
+        }
+        // a finished task is not READY any more
+        try {
+            runtime.submit(tasks.get(0));
+            passed = false;
+        } catch (IllegalStateException expected) {
+        }
+        TaskRuntime.Metrics metrics = runtime.metrics();
+        passed &= metrics.getSubmitted() == 6 && metrics.getFinished() == 6 && metrics.getQueueDepth() == 0;
+        runtime.close();
+        if (passed) {
+            System.out.println("testStatusTransitions passed");
+        } else {
+            System.out.println("testStatusTransitions failed " + metrics);
+        }
+    }
+
+    public static void testBackpressureAndCancel() throws Exception {
+        InterruptManager interruptManager = new InterruptManager();
+        TaskRuntime runtime = new TaskRuntime(interruptManager, 1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        SimpleTask running = blockingTask(release);
+        SimpleTask waiting = blockingTask(release);
+        CompletableFuture<Task.TaskStatus> runningResult = runtime.submit(running);
+        CompletableFuture<Task.TaskStatus> waitingResult = runtime.submit(waiting);
+
+        // one thread and one queue slot are taken
+        boolean passed = runtime.trySubmit(blockingTask(release), 50, TimeUnit.MILLISECONDS) == null;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (running.getTaskStatus() != Task.TaskStatus.IN_PROGRESS && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        passed &= runtime.metrics().getQueueDepth() == 1 && runtime.metrics().getRunning() == 1;
+
+        passed &= runtime.cancel(waiting) && runtime.cancel(running);
+        passed &= runningResult.get(10, TimeUnit.SECONDS) == Task.TaskStatus.READY;
+        passed &= waitingResult.get(10, TimeUnit.SECONDS) == Task.TaskStatus.READY;
+        passed &= running.getTaskStatus() == Task.TaskStatus.READY && !interruptManager.isInterrupted(running.getTaskId());
+        passed &= !runtime.cancel(running);
+
+        // cancelled tasks can run again
+        release.countDown();
+        passed &= runtime.submit(running).get(10, TimeUnit.SECONDS) == Task.TaskStatus.FINISHED;
+        TaskRuntime.Metrics metrics = runtime.metrics();
+        passed &= metrics.getCancelled() == 2 && metrics.getFinished() == 1 && metrics.getMaxRunNanos() > 0;
+        runtime.close();
+        if (passed) {
+            System.out.println("testBackpressureAndCancel passed");
+        } else {
+            System.out.println("testBackpressureAndCancel failed " + metrics);
+        }
+    }
+
+    public static void testFailure() throws Exception {
+        TaskRuntime runtime = new TaskRuntime(new InterruptManager(), 1, 0);
+        SimpleTask task = new SimpleTask(Collections.emptyList(), Task.TaskDistributionType.ASSIGNMENT) {
+            @Override
+            public void execute() {
+                throw new IllegalArgumentException("broken task");
+            }
+        };
+        task.setTaskStatus(Task.TaskStatus.READY);
+        CompletableFuture<Task.TaskStatus> result = runtime.submit(task);
+        boolean passed = false;
+        try {
+            result.get(10, TimeUnit.SECONDS);
+        } catch (java.util.concurrent.ExecutionException e) {
+            passed = e.getCause() instanceof IllegalArgumentException;
+        }
+        passed &= task.getTaskStatus() == Task.TaskStatus.READY && runtime.metrics().getFailed() == 1;
+        // the permit was given back
+        passed &= runtime.trySubmit(task, 1, TimeUnit.SECONDS) != null;
+        runtime.close();
+        if (passed) {
+            System.out.println("testFailure passed");
+        } else {
+            System.out.println("testFailure failed");
+        }
+    }
+
+    public static void testCancelAfterLastStep() throws Exception {
+        TaskRuntime runtime = new TaskRuntime(new InterruptManager(), 1, 0);
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicBoolean cancelled = new AtomicBoolean();
+        SimpleTask task = new SimpleTask(Collections.emptyList(), Task.TaskDistributionType.ASSIGNMENT) {
+            @Override
+            public boolean isCompleted() {
+                return done.get();
+            }
+
+            @Override
+            public void performTask() {
+                done.set(true);
+                // the cancel arrives once the work is done, before execute() returns
+                cancelled.set(runtime.cancel(this));
+            }
+        };
+        task.setTaskStatus(Task.TaskStatus.READY);
+        boolean passed = runtime.submit(task).get(10, TimeUnit.SECONDS) == Task.TaskStatus.FINISHED;
+        passed &= cancelled.get() && task.getTaskStatus() == Task.TaskStatus.FINISHED;
+        TaskRuntime.Metrics metrics = runtime.metrics();
+        passed &= metrics.getFinished() == 1 && metrics.getCancelled() == 0;
+        runtime.close();
+        if (passed) {
+            System.out.println("testCancelAfterLastStep passed");
+        } else {
+            System.out.println("testCancelAfterLastStep failed " + metrics);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        testStatusTransitions();
+        testBackpressureAndCancel();
+        testFailure();
+        testCancelAfterLastStep();
+    }
+}
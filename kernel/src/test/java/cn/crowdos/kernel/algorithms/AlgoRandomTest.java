@@ -0,0 +1,153 @@
+/*
+ * Copyright 2019-2025 CrowdOS Group, Northwestern Polytechnical University. <https://github.com/crowdosNWPU/CrowdOS>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * imitations under the License.
+ */
+package cn.crowdos.kernel.algorithms;
+
+import cn.crowdos.kernel.algorithms.GGA_I.GGA_I_Main;
+import cn.crowdos.kernel.common.LocationParticipant;
+import cn.crowdos.kernel.constraint.Coordinate;
+import cn.crowdos.kernel.constraint.POIConstraint;
+import cn.crowdos.kernel.resource.Participant;
+import cn.crowdos.kernel.resource.SimpleTask;
+import cn.crowdos.kernel.resource.Task;
+import cn.crowdos.kernel.system.DuplicateResourceNameException;
+import cn.crowdos.kernel.system.SystemResourceCollection;
+import cn.crowdos.kernel.system.resource.ParticipantPool;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+class AlgoRandomTest {
+
+    public static void testSeedAndSplit() {
+        AlgoRandom a = new AlgoRandom(42);
+        AlgoRandom b = new AlgoRandom(42);
+        boolean same = true;
+        for (int i = 0; i < 100; i++) {
+            same &= a.nextInt(1000) == b.nextInt(1000);
+            same &= a.nextDouble() == b.nextDouble();
+        }
+        AlgoRandom splitA = a.split();
+        AlgoRandom splitB = b.split();
+        for (int i = 0; i < 100; i++) {
+            same &= splitA.nextLong() == splitB.nextLong();
+        }
+        List<Integer> listA = new ArrayList<>();
+        List<Integer> listB = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            listA.add(i);
+            listB.add(i);
+        }
+        Collections.shuffle(listA, a);
+        Collections.shuffle(listB, b);
+        same &= listA.equals(listB);
+        if (same) {
+            System.out.println("testSeedAndSplit passed");
+        } else {
+            System.out.println("testSeedAndSplit failed");
+        }
+    }
+
+    public static void testSetSeed() {
+        AlgoRandom reseeded = new AlgoRandom(1);
+        reseeded.nextLong();
+        reseeded.setSeed(42);
+        AlgoRandom fresh = new AlgoRandom(42);
+        boolean same = true;
+        for (int i = 0; i < 100; i++) {
+            same &= reseeded.nextLong() == fresh.nextLong();
+        }
+        if (same) {
+            System.out.println("testSetSeed passed");
+        } else {
+            System.out.println("testSetSeed failed");
+        }
+    }
+
+    private static Map<Integer, List<Integer>> runGGA_I(long seed) {
+        Random random = new Random(9);
+        int workerNum = 20;
+        int taskNum = 10;
+        double[][] distanceMatrix = new double[workerNum][taskNum];
+        double[][] taskDistanceMatrix = new double[taskNum][taskNum];
+        for (double[] row : distanceMatrix) {
+            for (int j = 0; j < taskNum; j++) {
+                row[j] = random.nextDouble() * 100;
+            }
+        }
+        for (double[] row : taskDistanceMatrix) {
+            for (int j = 0; j < taskNum; j++) {
+                row[j] = random.nextDouble() * 100;
+            }
+        }
+        int[] p = new int[taskNum];
+        java.util.Arrays.fill(p, 1);
+        GGA_I_Main gga = new GGA_I_Main(workerNum, taskNum, distanceMatrix, taskDistanceMatrix, p, 1);
+        gga.setMaxGen(30);
+        gga.setRandom(new AlgoRandom(seed));
+        gga.taskAssign();
+        return gga.getAssignMap();
+    }
+
+    public static void testGGA_IRepeatable() {
+        if (runGGA_I(5).equals(runGGA_I(5))) {
+            System.out.println("testGGA_IRepeatable passed");
+        } else {
+            System.out.println("testGGA_IRepeatable failed");
+        }
+    }
+
+    private static List<List<Participant>> runT_Random(long seed, List<Participant> workers)
+            throws DuplicateResourceNameException {
+        SystemResourceCollection collection = new SystemResourceCollection();
+        ParticipantPool pool = new ParticipantPool();
+        collection.register(pool);
+        pool.addAll(workers);
+        ArrayList<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            tasks.add(new SimpleTask(Collections.singletonList(new POIConstraint(new Coordinate(i, i))),
+                    Task.TaskDistributionType.ASSIGNMENT));
+        }
+        return new T_RandomFactory(collection, seed).getTaskAssignmentAlgo().getAssignmentScheme(tasks);
+    }
+
+    public static void testT_RandomFactoryRepeatable() throws DuplicateResourceNameException {
+        List<Participant> workers = new ArrayList<>();
+        Random random = new Random(1);
+        for (int i = 0; i < 8; i++) {
+            workers.add(new LocationParticipant(random.nextDouble() * 5, random.nextDouble() * 5));
+        }
+        List<List<Participant>> first = runT_Random(17, workers);
+        List<List<Participant>> second = runT_Random(17, workers);
+        boolean valid = first.size() == 5;
+        for (List<Participant> taskParticipants : first) {
+            valid &= taskParticipants.size() == 1;
+        }
+        if (valid && first.equals(second)) {
+            System.out.println("testT_RandomFactoryRepeatable passed");
+        } else {
+            System.out.println("testT_RandomFactoryRepeatable failed: " + first + " " + second);
+        }
+    }
+
+    public static void main(String[] args) throws DuplicateResourceNameException {
+        testSeedAndSplit();
+        testSetSeed();
+        testGGA_IRepeatable();
+        testT_RandomFactoryRepeatable();
+    }
+}
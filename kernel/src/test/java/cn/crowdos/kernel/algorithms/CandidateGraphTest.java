@@ -0,0 +1,318 @@
+/*
+ * Copyright 2019-2025 CrowdOS Group, Northwestern Polytechnical University. <https://github.com/crowdosNWPU/CrowdOS>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * imitations under the License.
+ */
+package cn.crowdos.kernel.algorithms;
+
+import cn.crowdos.kernel.algorithms.GGA_I.GGA_I_Main;
+import cn.crowdos.kernel.common.LocationParticipant;
+import cn.crowdos.kernel.constraint.Coordinate;
+import cn.crowdos.kernel.constraint.DistanceMetric;
+import cn.crowdos.kernel.constraint.POIConstraint;
+import cn.crowdos.kernel.resource.Participant;
+import cn.crowdos.kernel.resource.SimpleTask;
+import cn.crowdos.kernel.resource.Task;
+import cn.crowdos.kernel.system.DuplicateResourceNameException;
+import cn.crowdos.kernel.system.SystemResourceCollection;
+import cn.crowdos.kernel.system.resource.ParticipantPool;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+class CandidateGraphTest {
+
+    private static List<Coordinate> randomPoints(Random random, int n) {
+        List<Coordinate> points = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            //a coarse grid, so that equal distances and equal points occur
+            points.add(new Coordinate(random.nextInt(40) / 4.0, random.nextInt(20) / 4.0));
+        }
+        return points;
+    }
+
+    /**
+     * The k nearest accepted targets of a source by brute force, ties by the smaller index.
+     */
+    private static List<Integer> bruteForce(List<Coordinate> sources, List<Coordinate> targets, int source, int k,
+                                            CandidateGraph.Filter filter, boolean skipSelf) {
+        List<Integer> order = new ArrayList<>();
+        for (int target = 0; target < targets.size(); target++) {
+            if ((skipSelf && target == source) || (filter != null && !filter.accept(source, target))) continue;
+            order.add(target);
+        }
+        Coordinate point = sources.get(source);
+        order.sort((a, b) -> {
+            int c = Double.compare(DistanceMetric.SQUARED_PLANAR.distance(point, targets.get(a)),
+                    DistanceMetric.SQUARED_PLANAR.distance(point, targets.get(b)));
+            return c != 0 ? c : Integer.compare(a, b);
+        });
+        return order.subList(0, Math.min(k, order.size()));
+    }
+
+    private static List<Integer> row(CandidateGraph graph, int source) {
+        List<Integer> row = new ArrayList<>();
+        for (int rank = 0; rank < graph.size(source); rank++) {
+            row.add(graph.neighbour(source, rank));
+        }
+        return row;
+    }
+
+    public static void testNearest() {
+        Random random = new Random(11);
+        boolean passed = true;
+        CandidateGraph.Filter filter = (source, target) -> (source + target) % 3 != 0;
+        for (int n : new int[]{1, 2, 17, 300}) {
+            List<Coordinate> sources = randomPoints(random, n);
+            List<Coordinate> targets = randomPoints(random, n + 5);
+            for (int k : new int[]{0, 1, 4, 25, 1000}) {
+                CandidateGraph graph = CandidateGraph.nearest(DistanceMetric.SQUARED_PLANAR, sources, targets, k, null);
+                CandidateGraph filtered = CandidateGraph.nearest(DistanceMetric.SQUARED_PLANAR, sources, targets, k, filter);
+                CandidateGraph neighbours = CandidateGraph.nearestNeighbours(DistanceMetric.SQUARED_PLANAR, sources, k);
+                for (int source = 0; source < n; source++) {
+                    passed &= row(graph, source).equals(bruteForce(sources, targets, source, k, null, false));
+                    passed &= row(filtered, source).equals(bruteForce(sources, targets, source, k, filter, false));
+                    passed &= row(neighbours, source).equals(bruteForce(sources, sources, source, k, null, true));
+                    for (int rank = 0; rank < graph.size(source); rank++) {
+                        passed &= graph.distance(source, rank) == DistanceMetric.SQUARED_PLANAR.distance(
+                                sources.get(source), targets.get(graph.neighbour(source, rank)));
+                    }
+                }
+            }
+        }
+        if (passed) {
+            System.out.println("testNearest passed");
+        } else {
+            System.out.println("testNearest failed");
+        }
+    }
+
+    public static void testTranspose() {
+        Random random = new Random(12);
+        List<Coordinate> sources = randomPoints(random, 120);
+        List<Coordinate> targets = randomPoints(random, 90);
+        CandidateGraph graph = CandidateGraph.nearest(DistanceMetric.SQUARED_PLANAR, sources, targets, 6, null);
+        CandidateGraph transposed = graph.transpose();
+        boolean passed = transposed.sources() == 90 && transposed.edges() == graph.edges();
+        for (int target = 0; target < 90; target++) {
+            List<Integer> expected = new ArrayList<>();
+            for (int source = 0; source < 120; source++) {
+                if (graph.contains(source, target)) expected.add(source);
+            }
+            final int t = target;
+            expected.sort((a, b) -> {
+                int c = Double.compare(DistanceMetric.SQUARED_PLANAR.distance(sources.get(a), targets.get(t)),
+                        DistanceMetric.SQUARED_PLANAR.distance(sources.get(b), targets.get(t)));
+                return c != 0 ? c : Integer.compare(a, b);
+            });
+            passed &= row(transposed, target).equals(expected);
+        }
+        if (passed) {
+            System.out.println("testTranspose passed");
+        } else {
+            System.out.println("testTranspose failed");
+        }
+    }
+
+    public static void testAllCandidatesMatchDense() {
+        Random random = new Random(13);
+        boolean passed = true;
+        for (int round = 0; round < 10; round++) {
+            int workerNum = 5 + random.nextInt(30), taskNum = 2 + random.nextInt(20);
+            List<Coordinate> workers = randomPoints(random, workerNum);
+            List<Coordinate> tasks = randomPoints(random, taskNum);
+            int[] p = new int[taskNum];
+            for (int i = 0; i < taskNum; i++) {
+                p[i] = 1 + random.nextInt(2);
+            }
+            int q = 1 + random.nextInt(3);
+            DistanceMatrix dense = new FlatDistanceMatrix(workerNum, taskNum)
+                    .fill(DistanceMetric.SQUARED_PLANAR, workers, tasks);
+            DistanceMatrix denseTasks = new TriangularDistanceMatrix(taskNum, Double.MAX_VALUE)
+                    .fill(DistanceMetric.SQUARED_PLANAR, tasks);
+            DistanceMatrix sparse = SparseDistanceMatrix.nearestWorkers(DistanceMetric.SQUARED_PLANAR,
+                    workers, tasks, workerNum, null);
+            DistanceMatrix sparseTasks = SparseDistanceMatrix.nearestTasks(DistanceMetric.SQUARED_PLANAR, tasks, taskNum);
+
+            T_Most expected = new T_Most(workerNum, taskNum, dense, denseTasks, p, q);
+            expected.taskAssign();
+            T_Most actual = new T_Most(workerNum, taskNum, sparse, sparseTasks, p, q);
+            actual.taskAssign();
+            passed &= expected.getAssignMap().equals(actual.getAssignMap())
+                    && expected.getDistance() == actual.getDistance();
+        }
+        if (passed) {
+            System.out.println("testAllCandidatesMatchDense passed");
+        } else {
+            System.out.println("testAllCandidatesMatchDense failed");
+        }
+    }
+
+    /**
+     * Every assigned pair is a candidate pair, no task gets more workers than it needs and
+     * no worker more tasks than it can take.
+     */
+    private static boolean valid(Map<Integer, List<Integer>> assignMap, CandidateGraph candidates, int[] p, int q) {
+        int[] count = new int[p.length];
+        for (Map.Entry<Integer, List<Integer>> entry : assignMap.entrySet()) {
+            if (entry.getValue().size() > q) return false;
+            for (int task : entry.getValue()) {
+                if (!candidates.contains(task, entry.getKey())) return false;
+                count[task]++;
+            }
+        }
+        for (int i = 0; i < p.length; i++) {
+            if (count[i] > p[i]) return false;
+        }
+        return true;
+    }
+
+    public static void testFewCandidates() {
+        Random random = new Random(14);
+        int workerNum = 60, taskNum = 80, q = 2;
+        List<Coordinate> workers = randomPoints(random, workerNum);
+        List<Coordinate> tasks = randomPoints(random, taskNum);
+        int[] p = new int[taskNum];
+        Arrays.fill(p, 1);
+        //half of the workers may not take even tasks
+        CandidateGraph.Filter eligible = (worker, task) -> worker % 2 == 0 || task % 2 == 1;
+        SparseDistanceMatrix distances = SparseDistanceMatrix.nearestWorkers(DistanceMetric.SQUARED_PLANAR,
+                workers, tasks, 2, eligible);
+        SparseDistanceMatrix taskDistances = SparseDistanceMatrix.nearestTasks(DistanceMetric.SQUARED_PLANAR, tasks, 3);
+        CandidateGraph candidates = distances.columnCandidates();
+        boolean passed = true;
+        for (int task = 0; task < taskNum; task++) {
+            for (int rank = 0; rank < candidates.size(task); rank++) {
+                passed &= eligible.accept(candidates.neighbour(task, rank), task);
+            }
+        }
+
+        T_Most t_most = new T_Most(workerNum, taskNum, distances, taskDistances, p, q);
+        t_most.taskAssign();
+        passed &= valid(t_most.getAssignMap(), candidates, p, q);
+
+        T_Random t_random = new T_Random(workerNum, taskNum, distances, taskDistances, p, q);
+        t_random.setRandom(new AlgoRandom(3));
+        t_random.taskAssign();
+        passed &= valid(t_random.getAssignMap(), candidates, p, q);
+
+        PT_Most pt_most = new PT_Most(workerNum, taskNum, distances, taskDistances, p, q);
+        pt_most.setRandom(new AlgoRandom(3));
+        pt_most.taskAssign();
+        passed &= valid(pt_most.getAssignMap(), candidates, p, q);
+
+        GGA_I_Main gga = new GGA_I_Main(workerNum, taskNum, distances, taskDistances, p, 1);
+        gga.setMaxGen(20);
+        gga.setRandom(new AlgoRandom(3));
+        gga.taskAssign();
+        Map<Integer, List<Integer>> assignMap = gga.getAssignMap();
+        passed &= valid(assignMap, candidates, p, 1);
+
+        if (passed) {
+            System.out.println("testFewCandidates passed");
+        } else {
+            System.out.println("testFewCandidates failed");
+        }
+    }
+
+    public static void testFactory() throws DuplicateResourceNameException {
+        SystemResourceCollection collection = new SystemResourceCollection();
+        ParticipantPool pool = new ParticipantPool();
+        collection.register(pool);
+        Random random = new Random(15);
+        List<Participant> workers = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            workers.add(new LocationParticipant(random.nextDouble() * 10, random.nextDouble() * 10));
+        }
+        pool.addAll(workers);
+        ArrayList<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            tasks.add(new SimpleTask(Collections.singletonList(new POIConstraint(
+                    new Coordinate(random.nextDouble() * 10, random.nextDouble() * 10))),
+                    Task.TaskDistributionType.ASSIGNMENT));
+        }
+        boolean passed = true;
+        AlgoFactoryAdapter[] factories = {new T_MostFactory(collection), new T_RandomFactory(collection, 1),
+                new PTMostFactory(collection, 1), new GGA_IFactory(collection, 1)};
+        for (AlgoFactoryAdapter factory : factories) {
+            factory.setCandidateLimit(3);
+            List<List<Participant>> scheme = factory.getTaskAssignmentAlgo().getAssignmentScheme(tasks);
+            passed &= scheme.size() == tasks.size();
+            for (List<Participant> participants : scheme) {
+                passed &= participants.size() <= 1;
+            }
+        }
+        try {
+            factories[0].setCandidateLimit(-1);
+            passed = false;
+        } catch (IllegalArgumentException expected) {
+            passed &= factories[0].getCandidateLimit() == 3;
+        }
+        if (passed) {
+            System.out.println("testFactory passed");
+        } else {
+            System.out.println("testFactory failed");
+        }
+    }
+
+    public static void testShortCapacity() {
+        //without candidates, the workers can take fewer tasks than the tasks need
+        Random random = new Random(21);
+        int workerNum = 3, taskNum = 6, q = 1;
+        double[][] distanceMatrix = new double[workerNum][taskNum];
+        double[][] taskDistanceMatrix = new double[taskNum][taskNum];
+        for (double[] row : distanceMatrix) {
+            for (int j = 0; j < taskNum; j++) {
+                row[j] = random.nextDouble();
+            }
+        }
+        for (int i = 0; i < taskNum; i++) {
+            for (int j = 0; j < taskNum; j++) {
+                taskDistanceMatrix[i][j] = i == j ? 0 : random.nextDouble();
+            }
+        }
+        int[] p = new int[taskNum];
+        Arrays.fill(p, 2);
+
+        T_Random t_random = new T_Random(workerNum, taskNum, distanceMatrix, taskDistanceMatrix, p, q);
+        t_random.setRandom(new AlgoRandom(3));
+        t_random.taskAssign();
+        PT_Most pt_most = new PT_Most(workerNum, taskNum, distanceMatrix, taskDistanceMatrix, p, q);
+        pt_most.setRandom(new AlgoRandom(3));
+        pt_most.taskAssign();
+
+        boolean passed = true;
+        for (Map<Integer, List<Integer>> assignMap : Arrays.asList(t_random.getAssignMap(), pt_most.getAssignMap())) {
+            for (List<Integer> taskList : assignMap.values()) {
+                passed &= taskList.size() <= q;
+            }
+        }
+        if (passed) {
+            System.out.println("testShortCapacity passed");
+        } else {
+            System.out.println("testShortCapacity failed");
+        }
+    }
+
+    public static void main(String[] args) throws DuplicateResourceNameException {
+        testNearest();
+        testTranspose();
+        testAllCandidatesMatchDense();
+        testFewCandidates();
+        testShortCapacity();
+        testFactory();
+    }
+}
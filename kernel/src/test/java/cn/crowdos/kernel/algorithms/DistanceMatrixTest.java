@@ -0,0 +1,222 @@
+/*
+ * Copyright 2019-2025 CrowdOS Group, Northwestern Polytechnical University. <https://github.com/crowdosNWPU/CrowdOS>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * imitations under the License.
+ */
+package cn.crowdos.kernel.algorithms;
+
+import cn.crowdos.kernel.constraint.Coordinate;
+import cn.crowdos.kernel.constraint.DistanceMetric;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+class DistanceMatrixTest {
+
+    private static List<Coordinate> randomPoints(Random random, int n) {
+        List<Coordinate> points = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            points.add(new Coordinate(random.nextDouble() * 10, random.nextDouble() * 10));
+        }
+        return points;
+    }
+
+    public static void testLayoutsMatch() {
+        Random random = new Random(17);
+        boolean passed = true;
+        for (int n : new int[]{0, 1, 2, 7, 64, 130}) {
+            List<Coordinate> tasks = randomPoints(random, n);
+            List<Coordinate> workers = randomPoints(random, 5);
+            double[][] full = DistanceMetric.SQUARED_PLANAR.matrix(tasks, tasks);
+            double[][] workerTask = DistanceMetric.SQUARED_PLANAR.matrix(workers, tasks);
+            for (int i = 0; i < n; i++) {
+                full[i][i] = Double.MAX_VALUE;
+            }
+            DistanceMatrix triangle = new TriangularDistanceMatrix(n, Double.MAX_VALUE)
+                    .fill(DistanceMetric.SQUARED_PLANAR, tasks);
+            DistanceMatrix flat = new FlatDistanceMatrix(5, n).fill(DistanceMetric.SQUARED_PLANAR, workers, tasks);
+            passed &= Arrays.deepEquals(triangle.toArray(), full)
+                    && Arrays.deepEquals(flat.toArray(), workerTask)
+                    && Arrays.deepEquals(DistanceMatrix.of(full).withDiagonal(0).toArray(),
+                    DistanceMatrix.of(DistanceMetric.SQUARED_PLANAR.matrix(tasks, tasks)).toArray());
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    passed &= triangle.get(i, j) == full[i][j];
+                }
+            }
+        }
+        if (passed) {
+            System.out.println("testLayoutsMatch passed");
+        } else {
+            System.out.println("testLayoutsMatch failed");
+        }
+    }
+
+    public static void testMasks() {
+        Random random = new Random(3);
+        boolean passed = true;
+        for (int round = 0; round < 20; round++) {
+            int rows = 1 + random.nextInt(9), columns = 1 + random.nextInt(150);
+            FlatDistanceMatrix matrix = new FlatDistanceMatrix(rows, columns);
+            double[][] expected = new double[rows][columns];
+            for (int i = 0; i < rows; i++) {
+                for (int j = 0; j < columns; j++) {
+                    matrix.set(i, j, expected[i][j] = random.nextInt(100));
+                }
+            }
+            MaskedDistanceMatrix masked = new MaskedDistanceMatrix(matrix);
+            for (int k = 0; k < 6; k++) {
+                int i = random.nextInt(rows), j = random.nextInt(columns);
+                switch (random.nextInt(3)) {
+                    case 0:
+                        masked.mask(i, j);
+                        expected[i][j] = Double.MAX_VALUE;
+                        break;
+                    case 1:
+                        masked.maskRow(i);
+                        Arrays.fill(expected[i], Double.MAX_VALUE);
+                        break;
+                    default:
+                        masked.maskColumn(j);
+                        for (double[] row : expected) {
+                            row[j] = Double.MAX_VALUE;
+                        }
+                }
+            }
+            MaskedDistanceMatrix copy = masked.copy();
+            masked.clearMasks();
+            passed &= Arrays.deepEquals(copy.toArray(), expected) && masked.get(0, 0) == matrix.get(0, 0);
+            masked.copyMasks(copy);
+            passed &= Arrays.deepEquals(masked.toArray(), expected);
+        }
+        if (passed) {
+            System.out.println("testMasks passed");
+        } else {
+            System.out.println("testMasks failed");
+        }
+    }
+
+    public static void testBuffers() {
+        boolean passed;
+        try (DistanceBuffers outer = DistanceBuffers.acquire()) {
+            FlatDistanceMatrix first = outer.workerTaskMatrix(2, 2);
+            first.set(1, 1, 42);
+            try (DistanceBuffers inner = DistanceBuffers.acquire()) {
+                //buffers in use are not handed out twice
+                inner.workerTaskMatrix(2, 2).set(1, 1, 7);
+            }
+            passed = first.get(1, 1) == 42;
+        }
+        try (DistanceBuffers again = DistanceBuffers.acquire()) {
+            //the thread gets its buffers back, with whatever the last assignment left in them
+            passed &= again.workerTaskMatrix(2, 2).get(1, 1) == 42;
+        }
+        if (passed) {
+            System.out.println("testBuffers passed");
+        } else {
+            System.out.println("testBuffers failed");
+        }
+    }
+
+    public static void testLargeBuffersRetained() {
+        // larger than the 1M elements that used to be dropped on close
+        int rows = 10000, columns = 200;
+        try (DistanceBuffers buffers = DistanceBuffers.acquire()) {
+            buffers.workerTaskMatrix(rows, columns).set(rows - 1, columns - 1, 42);
+        }
+        boolean passed;
+        try (DistanceBuffers buffers = DistanceBuffers.acquire()) {
+            passed = buffers.workerTaskMatrix(rows, columns).get(rows - 1, columns - 1) == 42;
+        }
+        DistanceBuffers.setMaxRetained(1000);
+        try {
+            try (DistanceBuffers buffers = DistanceBuffers.acquire()) {
+                buffers.workerTaskMatrix(rows, columns);
+            }
+            try (DistanceBuffers buffers = DistanceBuffers.acquire()) {
+                passed &= buffers.workerTaskMatrix(rows, columns).get(rows - 1, columns - 1) == 0;
+            }
+        } finally {
+            DistanceBuffers.setMaxRetained(DistanceBuffers.DEFAULT_MAX_RETAINED);
+        }
+        if (passed) {
+            System.out.println("testLargeBuffersRetained passed");
+        } else {
+            System.out.println("testLargeBuffersRetained failed");
+        }
+    }
+
+    public static void testInputsUntouched() {
+        Random random = new Random(5);
+        int workerNum = 12, taskNum = 8;
+        double[][] distanceMatrix = new double[workerNum][taskNum];
+        double[][] taskDistanceMatrix = new double[taskNum][taskNum];
+        for (double[] row : distanceMatrix) {
+            for (int j = 0; j < taskNum; j++) {
+                row[j] = random.nextInt(50);
+            }
+        }
+        for (int i = 0; i < taskNum; i++) {
+            for (int j = i + 1; j < taskNum; j++) {
+                taskDistanceMatrix[i][j] = taskDistanceMatrix[j][i] = random.nextInt(50);
+            }
+        }
+        double[][] distances = DistanceMatrixTest.copy(distanceMatrix);
+        double[][] taskDistances = DistanceMatrixTest.copy(taskDistanceMatrix);
+        int[] p = new int[taskNum];
+        Arrays.fill(p, 1);
+
+        T_Random jagged = new T_Random(workerNum, taskNum, distanceMatrix, taskDistanceMatrix, p, 1);
+        jagged.setRandom(new AlgoRandom(2));
+        jagged.taskAssign();
+        FlatDistanceMatrix flat = new FlatDistanceMatrix(workerNum, taskNum);
+        TriangularDistanceMatrix triangle = new TriangularDistanceMatrix(taskNum, 0);
+        for (int i = 0; i < workerNum; i++) {
+            for (int j = 0; j < taskNum; j++) {
+                flat.set(i, j, distances[i][j]);
+            }
+        }
+        for (int i = 0; i < taskNum; i++) {
+            for (int j = i + 1; j < taskNum; j++) {
+                triangle.set(i, j, taskDistances[i][j]);
+            }
+        }
+        T_Random packed = new T_Random(workerNum, taskNum, flat, triangle, p, 1);
+        packed.setRandom(new AlgoRandom(2));
+        packed.taskAssign();
+
+        if (Arrays.deepEquals(distanceMatrix, distances) && Arrays.deepEquals(taskDistanceMatrix, taskDistances)
+                && jagged.getAssignMap().equals(packed.getAssignMap()) && jagged.getDistance() == packed.getDistance()) {
+            System.out.println("testInputsUntouched passed");
+        } else {
+            System.out.println("testInputsUntouched failed");
+        }
+    }
+
+    private static double[][] copy(double[][] matrix) {
+        double[][] copy = new double[matrix.length][];
+        for (int i = 0; i < matrix.length; i++) {
+            copy[i] = matrix[i].clone();
+        }
+        return copy;
+    }
+
+    public static void main(String[] args) {
+        testLayoutsMatch();
+        testMasks();
+        testBuffers();
+        testLargeBuffersRetained();
+        testInputsUntouched();
+    }
+}
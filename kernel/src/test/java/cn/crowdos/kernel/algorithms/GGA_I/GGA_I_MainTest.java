@@ -0,0 +1,117 @@
+/*
+ * Copyright 2019-2025 CrowdOS Group, Northwestern Polytechnical University. <https://github.com/crowdosNWPU/CrowdOS>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * imitations under the License.
+ */
+package cn.crowdos.kernel.algorithms.GGA_I;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+class GGA_I_MainTest {
+
+    private static final int WORKER_NUM = 30;
+
+    private static final int TASK_NUM = 20;
+
+    private static final int Q = 2;
+
+    private static double[][] distanceMatrix;
+
+    private static double[][] taskDistanceMatrix;
+
+    private static int[] p;
+
+    private static void initInstance() {
+        Random random = new Random(3);
+        double[][] workers = new double[WORKER_NUM][2];
+        double[][] tasks = new double[TASK_NUM][2];
+        for (double[] w : workers) {
+            w[0] = random.nextDouble() * 100;
+            w[1] = random.nextDouble() * 100;
+        }
+        for (double[] t : tasks) {
+            t[0] = random.nextDouble() * 100;
+            t[1] = random.nextDouble() * 100;
+        }
+        distanceMatrix = new double[WORKER_NUM][TASK_NUM];
+        for (int i = 0; i < WORKER_NUM; i++) {
+            for (int j = 0; j < TASK_NUM; j++) {
+                distanceMatrix[i][j] = Math.hypot(workers[i][0] - tasks[j][0], workers[i][1] - tasks[j][1]);
+            }
+        }
+        taskDistanceMatrix = new double[TASK_NUM][TASK_NUM];
+        for (int i = 0; i < TASK_NUM; i++) {
+            for (int j = 0; j < TASK_NUM; j++) {
+                taskDistanceMatrix[i][j] = Math.hypot(tasks[i][0] - tasks[j][0], tasks[i][1] - tasks[j][1]);
+            }
+            taskDistanceMatrix[i][i] = Double.MAX_VALUE;
+        }
+        p = new int[TASK_NUM];
+        for (int i = 0; i < TASK_NUM; i++) {
+            p[i] = 1 + random.nextInt(2);
+        }
+    }
+
+    public static void testCopyIsIndependent() {
+        Individual original = new Individual(WORKER_NUM, TASK_NUM, distanceMatrix, taskDistanceMatrix, p, Q);
+        Individual copy = new Individual(original);
+        Map<Integer, List<Integer>> before = original.getAssignMap();
+
+        int worker = 0;
+        while (copy.getTaskCount(worker) == 0) {
+            worker++;
+        }
+        copy.removeTaskAt(worker, 0);
+        copy.mutation2();
+
+        original.calculateDistanceAndFitness();
+        Individual again = new Individual(WORKER_NUM, TASK_NUM, distanceMatrix, taskDistanceMatrix, p, Q).copyFrom(original);
+        again.calculateDistanceAndFitness();
+        if (before.equals(original.getAssignMap()) && before.equals(again.getAssignMap())
+                && again.getDistance() == original.getDistance()) {
+            System.out.println("testCopyIsIndependent passed");
+        } else {
+            System.out.println("testCopyIsIndependent failed");
+        }
+    }
+
+    public static void testNotWorseThanNearestFirst() {
+        Individual greedy = new Individual(WORKER_NUM, TASK_NUM, distanceMatrix, taskDistanceMatrix, p, Q, 0);
+        greedy.calculateDistanceAndFitness();
+
+        GGA_I_Main gga = new GGA_I_Main(WORKER_NUM, TASK_NUM, distanceMatrix, taskDistanceMatrix, p, Q);
+        gga.setMaxGen(50);
+        gga.taskAssign();
+
+        Individual best = new Individual(greedy);
+        best.setAssignMap(gga.getAssignMap());
+        best.calculateDistanceAndFitness();
+
+        boolean withinCapacity = true;
+        for (List<Integer> taskList : gga.getAssignMap().values()) {
+            withinCapacity &= taskList.size() <= Q;
+        }
+        if (withinCapacity && best.getDistance() <= greedy.getDistance()) {
+            System.out.println("testNotWorseThanNearestFirst passed");
+        } else {
+            System.out.println("testNotWorseThanNearestFirst failed: " + best.getDistance() + " > " + greedy.getDistance());
+        }
+    }
+
+    public static void main(String[] args) {
+        initInstance();
+        testCopyIsIndependent();
+        testNotWorseThanNearestFirst();
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright 2019-2025 CrowdOS Group, Northwestern Polytechnical University. <https://github.com/crowdosNWPU/CrowdOS>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * imitations under the License.
+ */
+package cn.crowdos.kernel.algorithms;
+
+import cn.crowdos.kernel.common.LocationParticipant;
+import cn.crowdos.kernel.constraint.Coordinate;
+import cn.crowdos.kernel.constraint.DistanceMetric;
+import cn.crowdos.kernel.constraint.POIConstraint;
+import cn.crowdos.kernel.resource.Participant;
+import cn.crowdos.kernel.resource.SimpleTask;
+import cn.crowdos.kernel.resource.Task;
+import cn.crowdos.kernel.system.DuplicateResourceNameException;
+import cn.crowdos.kernel.system.SystemResourceCollection;
+import cn.crowdos.kernel.system.resource.ParticipantPool;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+class MinCostAssignmentTest {
+
+    private static List<Coordinate> randomPoints(Random random, int n) {
+        List<Coordinate> points = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            points.add(new Coordinate(random.nextDouble() * 10, random.nextDouble() * 10));
+        }
+        return points;
+    }
+
+    /**
+     * The smallest total cost over all assignments of the tasks to distinct workers, every
+     * task is assigned if there are enough workers.
+     */
+    private static double bruteForce(double[][] matrix, int task, boolean[] used, int free) {
+        int taskNum = matrix[0].length;
+        if (task == taskNum) {
+            return 0;
+        }
+        double best = Double.MAX_VALUE;
+        //a task may only stay unassigned if there are more tasks left than workers
+        if (taskNum - task > free) {
+            best = bruteForce(matrix, task + 1, used, free);
+        }
+        for (int worker = 0; worker < matrix.length; worker++) {
+            if (!used[worker]) {
+                used[worker] = true;
+                best = Math.min(best, matrix[worker][task] + bruteForce(matrix, task + 1, used, free - 1));
+                used[worker] = false;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Every worker holds at most one task, returns the number of assigned tasks.
+     */
+    private static int checkOneToOne(int[] taskWorker, int workerNum) {
+        boolean[] used = new boolean[workerNum];
+        int assigned = 0;
+        for (int worker : taskWorker) {
+            if (worker >= 0) {
+                if (used[worker]) {
+                    return -1;
+                }
+                used[worker] = true;
+                assigned++;
+            }
+        }
+        return assigned;
+    }
+
+    public static void testHungarianMatchesBruteForce() {
+        Random random = new Random(3);
+        boolean passed = true;
+        for (int round = 0; round < 200; round++) {
+            int workerNum = 1 + random.nextInt(6);
+            int taskNum = 1 + random.nextInt(6);
+            double[][] matrix = new double[workerNum][taskNum];
+            for (double[] row : matrix) {
+                for (int j = 0; j < taskNum; j++) {
+                    //small integers, so that equal costs occur
+                    row[j] = random.nextInt(10);
+                }
+            }
+            MinCostAssignment assignment = new MinCostAssignment(workerNum, taskNum, matrix);
+            assignment.taskAssign();
+            double expected = bruteForce(matrix, 0, new boolean[workerNum], workerNum);
+            passed &= checkOneToOne(assignment.getTaskWorker(), workerNum) == Math.min(workerNum, taskNum);
+            passed &= Math.abs(assignment.getDistance() - expected) < 1e-9;
+        }
+        if (passed) {
+            System.out.println("testHungarianMatchesBruteForce passed");
+        } else {
+            System.out.println("testHungarianMatchesBruteForce failed");
+        }
+    }
+
+    public static void testEligible() {
+        double[][] matrix = {
+                {1, 1, 9},
+                {1, 9, 9},
+                {5, 5, 1}};
+        MinCostAssignment assignment = new MinCostAssignment(3, 3, matrix);
+        //worker 2 may not take task 2, worker 1 may only take task 0
+        assignment.setEligible((worker, task) -> !(worker == 2 && task == 2) && (worker != 1 || task == 0));
+        assignment.taskAssign();
+        int[] taskWorker = assignment.getTaskWorker();
+        //all three tasks can only be assigned if worker 1 takes task 0 and worker 2 task 1
+        boolean passed = Arrays.equals(taskWorker, new int[]{1, 2, 0});
+        if (passed) {
+            System.out.println("testEligible passed");
+        } else {
+            System.out.println("testEligible failed " + Arrays.toString(taskWorker));
+        }
+    }
+
+    public static void testMaskedPairs() {
+        double inf = Double.MAX_VALUE;
+        double[][] matrix = {
+                {inf, 2, Double.POSITIVE_INFINITY},
+                {1, inf, 3},
+                {inf, inf, inf}};
+        MinCostAssignment assignment = new MinCostAssignment(3, 3, matrix);
+        assignment.setEligible((worker, task) -> !(worker == 1 && task == 2));
+        assignment.taskAssign();
+        int[] taskWorker = assignment.getTaskWorker();
+        //worker 2 cannot take any task and task 2 has no eligible worker left
+        boolean passed = Arrays.equals(taskWorker, new int[]{1, 0, -1}) && assignment.getDistance() == 3;
+        if (passed) {
+            System.out.println("testMaskedPairs passed");
+        } else {
+            System.out.println("testMaskedPairs failed " + Arrays.toString(taskWorker));
+        }
+    }
+
+    public static void testAuctionMatchesHungarian() {
+        Random random = new Random(8);
+        boolean passed = true;
+        for (int round = 0; round < 20; round++) {
+            int workerNum = 5 + random.nextInt(60);
+            int taskNum = 5 + random.nextInt(60);
+            int k = round % 2 == 0 ? workerNum : 1 + random.nextInt(4);
+            List<Coordinate> workers = randomPoints(random, workerNum);
+            List<Coordinate> tasks = randomPoints(random, taskNum);
+            SparseDistanceMatrix sparse = SparseDistanceMatrix.nearestWorkers(DistanceMetric.PLANAR, workers, tasks, k, null);
+            MinCostAssignment auction = new MinCostAssignment(workerNum, taskNum, sparse);
+            auction.taskAssign();
+
+            //the Hungarian algorithm restricted to the same candidates
+            CandidateGraph graph = sparse.columnCandidates();
+            MinCostAssignment hungarian = new MinCostAssignment(workerNum, taskNum,
+                    DistanceMetric.PLANAR.matrix(workers, tasks));
+            hungarian.setEligible((worker, task) -> graph.contains(task, worker));
+            hungarian.taskAssign();
+
+            int assigned = checkOneToOne(auction.getTaskWorker(), workerNum);
+            passed &= assigned == checkOneToOne(hungarian.getTaskWorker(), workerNum);
+            passed &= Math.abs(auction.getDistance() - hungarian.getDistance()) <= 1e-6 * (1 + hungarian.getDistance());
+            for (int task = 0; task < taskNum; task++) {
+                int worker = auction.getTaskWorker()[task];
+                passed &= worker < 0 || graph.contains(task, worker);
+            }
+        }
+        if (passed) {
+            System.out.println("testAuctionMatchesHungarian passed");
+        } else {
+            System.out.println("testAuctionMatchesHungarian failed");
+        }
+    }
+
+    public static void testParallelAuction() {
+        Random random = new Random(21);
+        List<Coordinate> workers = randomPoints(random, 2600);
+        List<Coordinate> tasks = randomPoints(random, 2400);
+        SparseDistanceMatrix sparse = SparseDistanceMatrix.nearestWorkers(DistanceMetric.PLANAR, workers, tasks, 6, null);
+        MinCostAssignment parallel = new MinCostAssignment(workers.size(), tasks.size(), sparse);
+        parallel.taskAssign();
+        MinCostAssignment sequential = new MinCostAssignment(workers.size(), tasks.size(), sparse);
+        ForkJoinPool pool = new ForkJoinPool(1);
+        sequential.setForkJoinPool(pool);
+        sequential.taskAssign();
+        pool.shutdown();
+        //the bids of a round do not depend on each other, so the threads do not change the result
+        boolean passed = Arrays.equals(parallel.getTaskWorker(), sequential.getTaskWorker());
+        passed &= checkOneToOne(parallel.getTaskWorker(), workers.size()) >= 0;
+        if (passed) {
+            System.out.println("testParallelAuction passed");
+        } else {
+            System.out.println("testParallelAuction failed");
+        }
+    }
+
+    public static void testFactory() throws DuplicateResourceNameException {
+        SystemResourceCollection collection = new SystemResourceCollection();
+        ParticipantPool pool = new ParticipantPool();
+        collection.register(pool);
+        Random random = new Random(5);
+        List<Participant> workers = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            workers.add(new LocationParticipant(random.nextDouble() * 10, random.nextDouble() * 10));
+        }
+        pool.addAll(workers);
+        ArrayList<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            tasks.add(new SimpleTask(Collections.singletonList(new POIConstraint(
+                    new Coordinate(random.nextDouble() * 10, random.nextDouble() * 10))),
+                    Task.TaskDistributionType.ASSIGNMENT));
+        }
+        boolean passed = true;
+        double[] totals = new double[2];
+        AlgoFactoryAdapter[] factories = {new MinCostFactory(collection), new T_MostFactory(collection)};
+        for (int f = 0; f < factories.length; f++) {
+            List<List<Participant>> scheme = factories[f].getTaskAssignmentAlgo().getAssignmentScheme(tasks);
+            Set<Participant> used = new HashSet<>();
+            for (int i = 0; i < tasks.size(); i++) {
+                passed &= scheme.get(i).size() == 1 && used.add(scheme.get(i).get(0));
+                Coordinate location = ((POIConstraint) tasks.get(i).constraints().get(0)).getLocation();
+                totals[f] += DistanceMetric.PLANAR.distance(
+                        (Coordinate) scheme.get(i).get(0).getAbility(Coordinate.class), location);
+            }
+        }
+        //no heuristic travels less in total
+        passed &= totals[0] <= totals[1] + 1e-9;
+
+        MinCostFactory sparse = new MinCostFactory(collection);
+        sparse.setCandidateLimit(40);
+        List<List<Participant>> scheme = sparse.getTaskAssignmentAlgo().getAssignmentScheme(tasks);
+        double total = 0;
+        for (int i = 0; i < tasks.size(); i++) {
+            Coordinate location = ((POIConstraint) tasks.get(i).constraints().get(0)).getLocation();
+            total += DistanceMetric.PLANAR.distance((Coordinate) scheme.get(i).get(0).getAbility(Coordinate.class), location);
+        }
+        passed &= Math.abs(total - totals[0]) <= 1e-6 * totals[0];
+
+        List<Participant> single = factories[0].getTaskAssignmentAlgo().getAssignmentScheme(tasks.get(0));
+        passed &= single.size() == 1;
+        if (passed) {
+            System.out.println("testFactory passed");
+        } else {
+            System.out.println("testFactory failed");
+        }
+    }
+
+    public static void main(String[] args) throws DuplicateResourceNameException {
+        testHungarianMatchesBruteForce();
+        testEligible();
+        testMaskedPairs();
+        testAuctionMatchesHungarian();
+        testParallelAuction();
+        testFactory();
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2019-2025 CrowdOS Group, Northwestern Polytechnical University. <https://github.com/crowdosNWPU/CrowdOS>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * imitations under the License.
+ */
+package cn.crowdos.kernel.algorithms;
+
+import cn.crowdos.kernel.common.LocationParticipant;
+import cn.crowdos.kernel.constraint.Coordinate;
+import cn.crowdos.kernel.constraint.POIConstraint;
+import cn.crowdos.kernel.resource.Participant;
+import cn.crowdos.kernel.resource.SimpleTask;
+import cn.crowdos.kernel.resource.Task;
+import cn.crowdos.kernel.system.DuplicateResourceNameException;
+import cn.crowdos.kernel.system.SystemResourceCollection;
+import cn.crowdos.kernel.system.resource.ParticipantPool;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+class T_MostFactoryTest {
+
+    private static Task poiTask(double longitude, double latitude) {
+        return new SimpleTask(Collections.singletonList(new POIConstraint(new Coordinate(longitude, latitude))),
+                Task.TaskDistributionType.ASSIGNMENT);
+    }
+
+    public static void testBatchAssignment() throws DuplicateResourceNameException {
+        SystemResourceCollection collection = new SystemResourceCollection();
+        ParticipantPool pool = new ParticipantPool();
+        collection.register(pool);
+        LocationParticipant near0 = new LocationParticipant(0, 0);
+        LocationParticipant near1 = new LocationParticipant(5, 5);
+        LocationParticipant near2 = new LocationParticipant(9, 0);
+        pool.add(near1);
+        pool.add(near2);
+        pool.add(near0);
+
+        ArrayList<Task> tasks = new ArrayList<>();
+        tasks.add(poiTask(0.5, 0.5));
+        tasks.add(poiTask(5, 4.5));
+        tasks.add(poiTask(8.5, 0.5));
+
+        TaskAssignmentAlgo algo = new T_MostFactory(collection).getTaskAssignmentAlgo();
+        List<List<Participant>> scheme = algo.getAssignmentScheme(tasks);
+        List<Participant> single = algo.getAssignmentScheme(tasks.get(2));
+
+        if (scheme.size() == 3
+                && scheme.get(0).equals(Collections.singletonList(near0))
+                && scheme.get(1).equals(Collections.singletonList(near1))
+                && scheme.get(2).equals(Collections.singletonList(near2))
+                && single.equals(Collections.singletonList(near2))) {
+            System.out.println("testBatchAssignment passed");
+        } else {
+            System.out.println("testBatchAssignment failed: " + scheme + " " + single);
+        }
+    }
+
+    public static void main(String[] args) throws DuplicateResourceNameException {
+        testBatchAssignment();
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2019-2025 CrowdOS Group, Northwestern Polytechnical University. <https://github.com/crowdosNWPU/CrowdOS>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * imitations under the License.
+ */
+package cn.crowdos.kernel.algorithms;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+class TaskNeighboursTest {
+
+    private static double[][] randomMatrix(Random random, int n) {
+        double[][] matrix = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                //few distinct values, so that ties are common
+                matrix[i][j] = random.nextInt(5);
+            }
+            matrix[i][i] = Double.MAX_VALUE;
+        }
+        return matrix;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static List<Integer> sortedBySortMap(double[] row) {
+        Map<Integer, Double> map = new HashMap<>();
+        for (int i = 0; i < row.length; i++) {
+            map.put(i, row[i]);
+        }
+        T_Most algo = new T_Most(0, 0, new double[0][0], new double[0][0], new int[0], 0);
+        return new ArrayList<>(algo.sortMap(map).keySet());
+    }
+
+    public static void testMatchesSortMap() {
+        Random random = new Random(7);
+        for (int round = 0; round < 50; round++) {
+            int n = 1 + random.nextInt(40);
+            double[][] matrix = randomMatrix(random, n);
+            TaskNeighbours neighbours = new TaskNeighbours(matrix);
+            for (int i = 0; i < n; i++) {
+                List<Integer> expected = sortedBySortMap(matrix[i]);
+                for (int rank = 0; rank < n; rank++) {
+                    if (neighbours.get(i, rank) != expected.get(rank)) {
+                        System.out.println("testMatchesSortMap failed: row " + i + " of " + n);
+                        return;
+                    }
+                }
+            }
+        }
+        System.out.println("testMatchesSortMap passed");
+    }
+
+    public static void testTopK() {
+        Random random = new Random(11);
+        for (int round = 0; round < 50; round++) {
+            int n = 1 + random.nextInt(40);
+            int k = random.nextInt(n + 3);
+            double[][] matrix = randomMatrix(random, n);
+            TaskNeighbours full = new TaskNeighbours(matrix);
+            TaskNeighbours nearest = new TaskNeighbours(matrix, k);
+            for (int i = 0; i < n; i++) {
+                if (nearest.size(i) != Math.min(k, n)) {
+                    System.out.println("testTopK failed: size " + nearest.size(i) + " for k " + k);
+                    return;
+                }
+                for (int rank = 0; rank < nearest.size(i); rank++) {
+                    if (nearest.get(i, rank) != full.get(i, rank)) {
+                        System.out.println("testTopK failed: row " + i + " of " + n + ", k " + k);
+                        return;
+                    }
+                }
+            }
+        }
+        System.out.println("testTopK passed");
+    }
+
+    public static void main(String[] args) {
+        testMatchesSortMap();
+        testTopK();
+    }
+}
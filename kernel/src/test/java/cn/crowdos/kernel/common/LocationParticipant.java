@@ -0,0 +1,51 @@
+/*
+ * Copyright 2019-2025 CrowdOS Group, Northwestern Polytechnical University. <https://github.com/crowdosNWPU/CrowdOS>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * imitations under the License.
+ */
+package cn.crowdos.kernel.common;
+
+import cn.crowdos.kernel.constraint.Condition;
+import cn.crowdos.kernel.constraint.Coordinate;
+import cn.crowdos.kernel.resource.AbstractParticipant;
+import cn.crowdos.kernel.resource.ability;
+
+public class LocationParticipant extends AbstractParticipant {
+    @ability
+    Coordinate location;
+
+    public LocationParticipant(double longitude, double latitude) {
+        this.location = new Coordinate(longitude, latitude);
+        status = ParticipantStatus.AVAILABLE;
+    }
+
+    public void moveTo(double longitude, double latitude) {
+        this.location = new Coordinate(longitude, latitude);
+    }
+
+    @Override
+    public boolean hasAbility(Class<? extends Condition> conditionClass) {
+        return conditionClass == Coordinate.class;
+    }
+
+    @Override
+    public Condition getAbility(Class<? extends Condition> conditionClass) {
+        if (!hasAbility(conditionClass))
+            return null;
+        else return location;
+    }
+
+    @Override
+    public String toString() {
+        return "P" + location;
+    }
+}
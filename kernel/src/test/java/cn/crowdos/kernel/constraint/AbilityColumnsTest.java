@@ -0,0 +1,146 @@
+/*
+ * Copyright 2019-2025 CrowdOS Group, Northwestern Polytechnical University. <https://github.com/crowdosNWPU/CrowdOS>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * imitations under the License.
+ */
+package cn.crowdos.kernel.constraint;
+
+import cn.crowdos.kernel.resource.AbstractParticipant;
+import cn.crowdos.kernel.resource.Participant;
+import cn.crowdos.kernel.system.resource.ParticipantPool;
+import cn.crowdos.kernel.wrapper.DateCondition;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+class AbilityColumnsTest {
+
+    private static class MixedParticipant extends AbstractParticipant {
+        final Coordinate location;
+        final DateCondition activeTime;
+
+        MixedParticipant(Coordinate location, DateCondition activeTime, ParticipantStatus status) {
+            this.location = location;
+            this.activeTime = activeTime;
+            this.status = status;
+        }
+
+        @Override
+        public boolean hasAbility(Class<? extends Condition> conditionClass) {
+            return (location != null && conditionClass == Coordinate.class)
+                    || (activeTime != null && conditionClass == DateCondition.class);
+        }
+
+        @Override
+        public Condition getAbility(Class<? extends Condition> conditionClass) {
+            if (conditionClass == Coordinate.class) return location;
+            if (conditionClass == DateCondition.class) return activeTime;
+            return null;
+        }
+    }
+
+    private static List<Participant> participants(Random random, int number) {
+        long day = 24 * 3600 * 1000L;
+        long today = LocalDate.now().toEpochDay() * day;
+        List<Participant> participants = new ArrayList<>();
+        for (int i = 0; i < number; i++) {
+            Coordinate location;
+            switch (random.nextInt(6)) {
+                case 0:
+                    location = null;
+                    break;
+                case 1:
+                    location = new Coordinate(Double.NaN, 1);
+                    break;
+                default:
+                    location = new Coordinate(random.nextDouble() * 10, random.nextDouble() * 10);
+            }
+            DateCondition activeTime = random.nextInt(4) == 0 ? null
+                    : new DateCondition(today + (long) (random.nextDouble() * 20 * day) - 5 * day);
+            Participant.ParticipantStatus status = Participant.ParticipantStatus.values()[random.nextInt(3)];
+            participants.add(new MixedParticipant(location, activeTime, status));
+        }
+        return participants;
+    }
+
+    private static BitSet oneByOne(Constraint constraint, List<Participant> participants) {
+        BitSet satisfied = new BitSet();
+        Class<? extends Condition> conditionClass = constraint.getConditionClass();
+        for (int row = 0; row < participants.size(); row++) {
+            Participant participant = participants.get(row);
+            if (!participant.hasAbility(conditionClass) || constraint.satisfy(participant.getAbility(conditionClass))) {
+                satisfied.set(row);
+            }
+        }
+        return satisfied;
+    }
+
+    public static void testMatchesSatisfy() throws InvalidConstraintException {
+        Random random = new Random(5);
+        List<Participant> participants = participants(random, 1000);
+        AbilityColumns columns = AbilityColumns.of(participants);
+        long day = 24 * 3600 * 1000L;
+        long now = System.currentTimeMillis();
+        List<Constraint> constraints = Arrays.asList(
+                new SpatioRectangular(new Coordinate(2, 3), new Coordinate(7, 8)),
+                new SpatioRectangular(new Coordinate(7, 8), new Coordinate(2, 3)),
+                new SpatioPoint(new Coordinate(5, 5), 3),
+                new SimpleTimeConstraint(new DateCondition(now - 2 * day), new DateCondition(now + 4 * day)),
+                new DateDeadline(LocalDate.now().plusDays(6)),
+                new DateDeadline(LocalDate.now()),
+                new POIConstraint(new Coordinate(4, 4), 2));
+        boolean passed = true;
+        for (Constraint constraint : constraints) {
+            passed &= oneByOne(constraint, participants).equals(constraint.satisfyAll(columns));
+        }
+        ConstraintPlan plan = ConstraintPlan.compile(constraints.subList(2, 5));
+        BitSet planned = plan.satisfiedByAll(columns);
+        for (int row = 0; row < participants.size(); row++) {
+            passed &= planned.get(row) == plan.satisfiedBy(participants.get(row));
+            passed &= columns.available().get(row) == participants.get(row).available();
+        }
+        passed &= columns.select(planned).size() == planned.cardinality();
+
+        if (passed) {
+            System.out.println("testMatchesSatisfy passed");
+        } else {
+            System.out.println("testMatchesSatisfy failed");
+        }
+    }
+
+    public static void testPoolColumns() {
+        ParticipantPool pool = new ParticipantPool();
+        List<Participant> participants = participants(new Random(9), 10);
+        pool.addAll(participants);
+        AbilityColumns columns = pool.getAbilityColumns();
+        boolean cached = pool.getAbilityColumns() == columns && columns.size() == 10
+                && columns.participant(3) == participants.get(3);
+        pool.remove(participants.get(0));
+        AbilityColumns updated = pool.getAbilityColumns();
+        boolean rebuilt = updated != columns && updated.size() == 9 && updated.participant(0) == participants.get(1);
+
+        if (cached && rebuilt) {
+            System.out.println("testPoolColumns passed");
+        } else {
+            System.out.println("testPoolColumns failed");
+        }
+    }
+
+    public static void main(String[] args) throws InvalidConstraintException {
+        testMatchesSatisfy();
+        testPoolColumns();
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2019-2025 CrowdOS Group, Northwestern Polytechnical University. <https://github.com/crowdosNWPU/CrowdOS>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * imitations under the License.
+ */
+package cn.crowdos.kernel.constraint;
+
+import cn.crowdos.kernel.resource.AbstractParticipant;
+import cn.crowdos.kernel.wrapper.DateCondition;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+class ConstraintPlanTest {
+
+    private static class CountingParticipant extends AbstractParticipant {
+        final Coordinate location;
+        final DateCondition activeTime;
+        int fetches;
+
+        CountingParticipant(Coordinate location, DateCondition activeTime) {
+            this.location = location;
+            this.activeTime = activeTime;
+        }
+
+        @Override
+        public boolean hasAbility(Class<? extends Condition> conditionClass) {
+            return conditionClass == Coordinate.class || (activeTime != null && conditionClass == DateCondition.class);
+        }
+
+        @Override
+        public Condition getAbility(Class<? extends Condition> conditionClass) {
+            fetches++;
+            if (conditionClass == Coordinate.class) return location;
+            if (conditionClass == DateCondition.class) return activeTime;
+            return null;
+        }
+    }
+
+    private static boolean naive(List<Constraint> constraints, CountingParticipant participant) {
+        for (Constraint constraint : constraints) {
+            Class<? extends Condition> conditionClass = constraint.getConditionClass();
+            if (participant.hasAbility(conditionClass) && !constraint.satisfy(participant.getAbility(conditionClass))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static void testMatchesNaiveLoop() throws InvalidConstraintException {
+        Random random = new Random(11);
+        long day = 24 * 3600 * 1000L;
+        boolean passed = true;
+        for (int round = 0; round < 20; round++) {
+            List<Constraint> constraints = new ArrayList<>();
+            constraints.add(new SpatioPolygon(new Coordinate(0, 0), new Coordinate(10, 0),
+                    new Coordinate(10, 10), new Coordinate(0, 10)));
+            constraints.add(new POIConstraint(new Coordinate(random.nextDouble() * 10, random.nextDouble() * 10), 4));
+            long start = random.nextInt(20) * day;
+            constraints.add(new SimpleTimeConstraint(new DateCondition(start), new DateCondition(start + 10 * day)));
+            ConstraintPlan plan = ConstraintPlan.compile(constraints);
+            passed &= plan.getConstraints().get(0) instanceof SimpleTimeConstraint
+                    && plan.getConstraints().get(2) instanceof SpatioPolygon;
+            for (int i = 0; i < 500; i++) {
+                Coordinate location = new Coordinate(random.nextDouble() * 14 - 2, random.nextDouble() * 14 - 2);
+                DateCondition activeTime = random.nextInt(5) == 0 ? null : new DateCondition(random.nextInt(40) * day);
+                passed &= naive(constraints, new CountingParticipant(location, activeTime))
+                        == plan.satisfiedBy(new CountingParticipant(location, activeTime));
+            }
+        }
+        if (passed) {
+            System.out.println("testMatchesNaiveLoop passed");
+        } else {
+            System.out.println("testMatchesNaiveLoop failed");
+        }
+    }
+
+    public static void testFetchesAbilityOnce() throws InvalidConstraintException {
+        List<Constraint> constraints = Arrays.asList(
+                new SpatioRectangular(new Coordinate(0, 0), new Coordinate(10, 10)),
+                new POIConstraint(new Coordinate(5, 5), 5),
+                new SpatioPoint(new Coordinate(5, 5), 5));
+        CountingParticipant participant = new CountingParticipant(new Coordinate(5, 5), null);
+        boolean satisfied = ConstraintPlan.compile(constraints).satisfiedBy(participant);
+        boolean empty = ConstraintPlan.compile(null).satisfiedBy(participant);
+
+        if (satisfied && empty && participant.fetches == 1) {
+            System.out.println("testFetchesAbilityOnce passed");
+        } else {
+            System.out.println("testFetchesAbilityOnce failed");
+        }
+    }
+
+    public static void main(String[] args) throws InvalidConstraintException {
+        testMatchesNaiveLoop();
+        testFetchesAbilityOnce();
+    }
+}
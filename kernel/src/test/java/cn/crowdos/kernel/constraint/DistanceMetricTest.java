@@ -0,0 +1,88 @@
+/*
+ * Copyright 2019-2025 CrowdOS Group, Northwestern Polytechnical University. <https://github.com/crowdosNWPU/CrowdOS>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * imitations under the License.
+ */
+package cn.crowdos.kernel.constraint;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+class DistanceMetricTest {
+
+    public static void testKnownDistances() {
+        // one degree along a meridian is a 360th of the circumference
+        double degree = 2 * Math.PI * DistanceMetric.EARTH_RADIUS / 360;
+        boolean meridian = Math.abs(DistanceMetric.HAVERSINE.distance(108, 34, 108, 35) - degree) < 1e-6
+                && Math.abs(DistanceMetric.EQUIRECTANGULAR.distance(108, 34, 108, 35) - degree) < 1e-6;
+        // Xi'an to Beijing is about 910 km
+        double haversine = DistanceMetric.HAVERSINE.distance(108.94, 34.34, 116.40, 39.90);
+        double equirectangular = DistanceMetric.EQUIRECTANGULAR.distance(108.94, 34.34, 116.40, 39.90);
+        boolean city = Math.abs(haversine - 910_000) < 10_000 && Math.abs(equirectangular - haversine) < 5_000;
+        boolean planar = DistanceMetric.PLANAR.distance(new Coordinate(0, 0), new Coordinate(3, 4)) == 5
+                && DistanceMetric.SQUARED_PLANAR.distance(new Coordinate(0, 0), new Coordinate(3, 4)) == 25;
+
+        if (meridian && city && planar) {
+            System.out.println("testKnownDistances passed");
+        } else {
+            System.out.println("testKnownDistances failed");
+        }
+    }
+
+    public static void testMatrixMatchesPairs() {
+        Random random = new Random(16);
+        int rows = 7, columns = DistanceMetric.BLOCK * 2 + 3;
+        double[] rowLon = new double[rows], rowLat = new double[rows];
+        double[] columnLon = new double[columns], columnLat = new double[columns];
+        List<Coordinate> rowPoints = new ArrayList<>(), columnPoints = new ArrayList<>();
+        for (int r = 0; r < rows; r++) {
+            rowLon[r] = random.nextDouble() * 360 - 180;
+            rowLat[r] = random.nextDouble() * 180 - 90;
+            rowPoints.add(new Coordinate(rowLon[r], rowLat[r]));
+        }
+        for (int c = 0; c < columns; c++) {
+            columnLon[c] = random.nextDouble() * 360 - 180;
+            columnLat[c] = random.nextDouble() * 180 - 90;
+            columnPoints.add(new Coordinate(columnLon[c], columnLat[c]));
+        }
+        boolean passed = true;
+        for (DistanceMetric metric : DistanceMetric.values()) {
+            double[] flat = new double[rows * columns];
+            metric.matrix(rowLon, rowLat, rows, columnLon, columnLat, columns, flat);
+            double[][] nested = metric.matrix(rowPoints, columnPoints);
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < columns; c++) {
+                    double expected = metric.distance(rowLon[r], rowLat[r], columnLon[c], columnLat[c]);
+                    passed &= Math.abs(flat[r * columns + c] - expected) <= 1e-9 * Math.max(1, expected)
+                            && nested[r][c] == flat[r * columns + c];
+                }
+            }
+        }
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < columns; c++) {
+                passed &= rowPoints.get(r).euclideanDistance(columnPoints.get(c))
+                        == DistanceMetric.SQUARED_PLANAR.distance(rowPoints.get(r), columnPoints.get(c));
+            }
+        }
+        if (passed) {
+            System.out.println("testMatrixMatchesPairs passed");
+        } else {
+            System.out.println("testMatrixMatchesPairs failed");
+        }
+    }
+
+    public static void main(String[] args) {
+        testKnownDistances();
+        testMatrixMatchesPairs();
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2019-2025 CrowdOS Group, Northwestern Polytechnical University. <https://github.com/crowdosNWPU/CrowdOS>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * imitations under the License.
+ */
+package cn.crowdos.kernel.constraint;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+class RegionCacheTest {
+
+    private static List<List<Coordinate>> regions(Random random) {
+        List<List<Coordinate>> regions = new ArrayList<>();
+        List<Coordinate> square = new ArrayList<>();
+        square.add(new Coordinate(0, 0));
+        square.add(new Coordinate(4, 0));
+        square.add(new Coordinate(4, 4));
+        square.add(new Coordinate(0, 4));
+        regions.add(square);
+        for (int vertices : new int[]{7, 80}) {
+            List<Coordinate> star = new ArrayList<>();
+            for (int i = 0; i < vertices; i++) {
+                double angle = 2 * Math.PI * i / vertices;
+                double radius = 1 + 2 * random.nextDouble();
+                star.add(new Coordinate(2 + Math.rint(radius * Math.cos(angle) * 16) / 16, 2 + radius * Math.sin(angle)));
+            }
+            regions.add(star);
+        }
+        return regions;
+    }
+
+    public static void testMatchesPolygon() throws InvalidConstraintException {
+        Random random = new Random(15);
+        boolean passed = true;
+        for (List<Coordinate> vertices : regions(random)) {
+            SpatioPolygon region = new SpatioPolygon(vertices);
+            for (double cellSize : new double[]{0.0625, 0.3, 1}) {
+                RegionCache cache = new RegionCache(1 << 10, cellSize);
+                for (int i = 0; i < 20000; i++) {
+                    // every other point sits on the grid, where edges and cell borders meet
+                    Coordinate point = i % 2 == 0
+                            ? new Coordinate(random.nextInt(97) / 16.0 - 1, random.nextInt(97) / 16.0 - 1)
+                            : new Coordinate(random.nextDouble() * 6 - 1, random.nextDouble() * 6 - 1);
+                    passed &= cache.contains(region, point.longitude, point.latitude)
+                            == SpatioPolygon.PointInPolygon(point, vertices);
+                }
+                passed &= cache.getHitCount() > 0 && cache.getHitCount() + cache.getMissCount() == 20000;
+            }
+        }
+        if (passed) {
+            System.out.println("testMatchesPolygon passed");
+        } else {
+            System.out.println("testMatchesPolygon failed");
+        }
+    }
+
+    public static void testEviction() throws InvalidConstraintException {
+        SpatioPolygon region = new SpatioPolygon(new Coordinate(0, 0), new Coordinate(10, 0),
+                new Coordinate(10, 10), new Coordinate(0, 10));
+        RegionCache cache = new RegionCache(64, 0.1);
+        for (int i = 0; i < 1000; i++) {
+            cache.contains(region, i * 0.01, 5);
+        }
+        // 100 distinct cells, 10 queries each
+        boolean counted = cache.getMissCount() == 100 && cache.getHitCount() == 900;
+        for (int i = 0; i < 1000; i++) {
+            cache.contains(region, (i % 100) * 0.1 + 0.05, (i / 100) + 0.05);
+        }
+        boolean bounded = cache.size() <= 64 && cache.getEvictionCount() > 0;
+
+        if (counted && bounded) {
+            System.out.println("testEviction passed");
+        } else {
+            System.out.println("testEviction failed");
+        }
+    }
+
+    public static void testInvalidate() throws InvalidConstraintException {
+        SpatioPolygon region = new SpatioPolygon(new Coordinate(0, 0), new Coordinate(4, 0), new Coordinate(2, 3));
+        SpatioPolygon same = new SpatioPolygon(new Coordinate(0, 0), new Coordinate(4, 0), new Coordinate(2, 3));
+        SpatioPolygon other = new SpatioPolygon(new Coordinate(0, 0), new Coordinate(4, 0), new Coordinate(2, 2));
+        RegionCache cache = new RegionCache(1 << 10, 0.5);
+        cache.contains(region, 2, 1);
+        cache.contains(other, 2, 1);
+        // an equal region reuses the cell
+        cache.contains(same, 2, 1);
+        boolean shared = cache.getHitCount() == 1 && cache.size() == 2;
+        cache.invalidate(same);
+        boolean dropped = cache.size() == 1;
+        cache.contains(region, 2, 1);
+
+        if (shared && dropped && cache.getMissCount() == 3) {
+            System.out.println("testInvalidate passed");
+        } else {
+            System.out.println("testInvalidate failed");
+        }
+    }
+
+    public static void main(String[] args) throws InvalidConstraintException {
+        testMatchesPolygon();
+        testEviction();
+        testInvalidate();
+    }
+}
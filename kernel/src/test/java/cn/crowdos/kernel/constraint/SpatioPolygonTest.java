@@ -16,9 +16,13 @@ package cn.crowdos.kernel.constraint;
 
 import cn.crowdos.kernel.DecomposeException;
 import cn.crowdos.kernel.Decomposer;
+import cn.crowdos.kernel.common.LocationParticipant;
+import cn.crowdos.kernel.resource.Participant;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
+import java.util.Random;
 
 public class SpatioPolygonTest {
     SpatioPolygon spatioPolygon;
@@ -94,6 +98,61 @@ public class SpatioPolygonTest {
         }
     }
 
+    private static List<Coordinate> star(Random random, int vertices) {
+        List<Coordinate> polygon = new ArrayList<>();
+        for (int i = 0; i < vertices; i++) {
+            double angle = 2 * Math.PI * i / vertices;
+            double radius = 6 + 4 * random.nextDouble();
+            // snap to a coarse grid so that several vertices share a longitude
+            polygon.add(new Coordinate(Math.rint(radius * Math.cos(angle) * 64) / 64, radius * Math.sin(angle)));
+        }
+        return polygon;
+    }
+
+    public void edgeTable() {
+        Random random = new Random(14);
+        boolean matches = true;
+        for (int vertices : new int[]{5, 17, SpatioPolygon.SLAB_INDEX_THRESHOLD, 300}) {
+            List<Coordinate> polygon = star(random, vertices);
+            SpatioPolygon constraint;
+            try {
+                constraint = new SpatioPolygon(polygon);
+            } catch (InvalidConstraintException e) {
+                System.out.println("edgeTable failed: " + e.getMessage());
+                return;
+            }
+            for (int i = 0; i < 20000 && matches; i++) {
+                Coordinate point = i % 4 == 0
+                        ? new Coordinate(polygon.get(random.nextInt(vertices)).longitude, 24 * random.nextDouble() - 12)
+                        : new Coordinate(24 * random.nextDouble() - 12, 24 * random.nextDouble() - 12);
+                matches = constraint.satisfy(point) == SpatioPolygon.PointInPolygon(point, polygon);
+            }
+        }
+        if (matches) {
+            System.out.println("edgeTable passed.");
+        } else {
+            System.out.println("edgeTable failed.");
+        }
+    }
+
+    public void satisfyAll() {
+        List<Participant> participants = new ArrayList<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 200; i++) {
+            participants.add(new LocationParticipant(5 * random.nextDouble() - 0.5, 5 * random.nextDouble() - 0.5));
+        }
+        BitSet satisfied = spatioPolygon.satisfyAll(AbilityColumns.of(participants));
+        boolean matches = true;
+        for (int i = 0; i < participants.size(); i++) {
+            matches &= satisfied.get(i) == spatioPolygon.satisfy(participants.get(i).getAbility(Coordinate.class));
+        }
+        if (matches) {
+            System.out.println("satisfyAll passed.");
+        } else {
+            System.out.println("satisfyAll failed.");
+        }
+    }
+
     public void getConditionClass() {
         String name = spatioPolygon.getConditionClass().getName();
         if (name.equals(Coordinate.class.getName())) {
@@ -109,5 +168,7 @@ public class SpatioPolygonTest {
         test.satisfy();
         test.decomposer();
         test.getConditionClass();
+        test.edgeTable();
+        test.satisfyAll();
     }
 }
\ No newline at end of file
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2019-2025 CrowdOS Group, Northwestern Polytechnical University. <https://github.com/crowdosNWPU/CrowdOS>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * imitations under the License.
+ */
+package cn.crowdos.kernel.resource;
+
+import cn.crowdos.kernel.constraint.Coordinate;
+import cn.crowdos.kernel.wrapper.DateCondition;
+
+class AbilityBindingTest {
+
+    private static class BaseParticipant extends AbstractParticipant {
+        @ability
+        private DateCondition activeTime;
+
+        @ability
+        Coordinate home = new Coordinate(1, 1);
+    }
+
+    private static class MovingParticipant extends BaseParticipant {
+        @ability
+        private Coordinate location;
+
+        @ability
+        private String name = "not a condition";
+
+        MovingParticipant(Coordinate location) {
+            this.location = location;
+        }
+    }
+
+    public static void testBinding() {
+        MovingParticipant participant = new MovingParticipant(new Coordinate(3, 4));
+        boolean passed = participant.hasAbility(Coordinate.class)
+                && participant.getAbility(Coordinate.class).equals(new Coordinate(3, 4))
+                && !participant.hasAbility(DateCondition.class)
+                && participant.getAbility(DateCondition.class) == null
+                && AbilityBinding.of(MovingParticipant.class).getConditionClasses().size() == 2
+                && AbilityBinding.of(MovingParticipant.class) == AbilityBinding.of(participant.getClass());
+
+        ((BaseParticipant) participant).activeTime = new DateCondition(0);
+        passed &= participant.hasAbility(DateCondition.class);
+        passed &= new MovingParticipant(null).getAbility(Coordinate.class) == null;
+
+        SimpleParticipant simple = new SimpleParticipant();
+        passed &= !simple.hasAbility(Coordinate.class);
+        simple.location = new Coordinate(2, 2);
+        passed &= simple.hasAbility(Coordinate.class) && simple.getAbility(Coordinate.class) == simple.location;
+
+        if (passed) {
+            System.out.println("testBinding passed");
+        } else {
+            System.out.println("testBinding failed");
+        }
+    }
+
+    public static void main(String[] args) {
+        testBinding();
+    }
+}
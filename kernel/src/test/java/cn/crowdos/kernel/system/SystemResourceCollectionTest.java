@@ -0,0 +1,149 @@
+/*
+ * Copyright 2019-2025 CrowdOS Group, Northwestern Polytechnical University. <https://github.com/crowdosNWPU/CrowdOS>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * imitations under the License.
+ */
+package cn.crowdos.kernel.system;
+
+import cn.crowdos.kernel.Incentive.CredibilityBasedIncentive;
+import cn.crowdos.kernel.Incentive.CredibilityBasedIncentiveImpl;
+import cn.crowdos.kernel.algorithms.AlgoFactory;
+import cn.crowdos.kernel.algorithms.AlgoFactoryAdapter;
+import cn.crowdos.kernel.system.resource.AlgoContainer;
+import cn.crowdos.kernel.system.resource.Resource;
+import cn.crowdos.kernel.system.resource.TaskPool;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+
+class SystemResourceCollectionTest {
+
+    /**
+     * A resource whose key is interned when the class is initialized.
+     */
+    static final class ProbeResource implements Resource<ProbeResource> {
+        static final ResourceKey<ProbeResource> KEY = ResourceKey.of(ProbeResource.class);
+
+        @Override
+        public SystemResourceHandler<ProbeResource> getHandler() {
+            return null;
+        }
+    }
+
+    public static void testKeyLookup() throws DuplicateResourceNameException {
+        SystemResourceCollection collection = new SystemResourceCollection();
+        TaskPool pool = new TaskPool();
+        collection.register(pool);
+        SystemResourceHandler<TaskPool> handler = collection.getResourceHandler(TaskPool.KEY);
+        boolean passed = handler != null && handler.getResource() == pool;
+        // the handler is created once and found by class as well
+        passed &= collection.getResourceHandler(TaskPool.class) == handler;
+        passed &= collection.getResourceHandler(TaskPool.KEY) == handler;
+        passed &= ResourceKey.of(TaskPool.class) == TaskPool.KEY;
+        passed &= new SystemResourceCollection().getResourceHandler(TaskPool.KEY) == null;
+        if (passed) {
+            System.out.println("testKeyLookup passed");
+        } else {
+            System.out.println("testKeyLookup failed");
+        }
+    }
+
+    public static void testNamedAndDuplicate() throws DuplicateResourceNameException {
+        SystemResourceCollection collection = new SystemResourceCollection();
+        AlgoFactory first = new AlgoFactoryAdapter(collection);
+        AlgoFactory second = new AlgoFactoryAdapter(collection);
+        collection.register(new AlgoContainer(first), "first");
+        collection.register(new AlgoContainer(second), "second");
+        boolean passed = collection.getResourceHandler(ResourceKey.of(AlgoContainer.class, "first")).getResource() == first;
+        passed &= collection.getResourceHandler(AlgoContainer.class, "second").getResource() == second;
+        passed &= collection.getResourceHandler(AlgoContainer.class, "third") == null;
+        try {
+            collection.register(new AlgoContainer(first), "first");
+            passed = false;
+        } catch (DuplicateResourceNameException e) {
+            // expected
+        }
+        if (passed) {
+            System.out.println("testNamedAndDuplicate passed");
+        } else {
+            System.out.println("testNamedAndDuplicate failed");
+        }
+    }
+
+    public static void testInterfaceKey() throws DuplicateResourceNameException {
+        SystemResourceCollection collection = new SystemResourceCollection();
+        CredibilityBasedIncentiveImpl incentive = new CredibilityBasedIncentiveImpl();
+        collection.register(CredibilityBasedIncentive.KEY, incentive);
+        boolean passed = collection.getResourceHandler(CredibilityBasedIncentive.KEY).getResource() == incentive;
+        passed &= collection.getResourceHandler(CredibilityBasedIncentive.class).getResource() == incentive;
+        if (passed) {
+            System.out.println("testInterfaceKey passed");
+        } else {
+            System.out.println("testInterfaceKey failed");
+        }
+    }
+
+    /**
+     * Loads a copy of {@link ProbeResource} in a class loader of its own and interns its key.
+     *
+     * @return the loader, to be collected once the copy is unreachable.
+     */
+    private static WeakReference<ClassLoader> loadProbe() throws Exception {
+        String name = ProbeResource.class.getName();
+        byte[] bytes;
+        try (InputStream in = ProbeResource.class.getResourceAsStream(name.substring(name.lastIndexOf('.') + 1) + ".class")) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] chunk = new byte[4096];
+            for (int read; (read = in.read(chunk)) > 0; ) {
+                out.write(chunk, 0, read);
+            }
+            bytes = out.toByteArray();
+        }
+        ClassLoader loader = new ClassLoader(SystemResourceCollectionTest.class.getClassLoader()) {
+            @Override
+            protected Class<?> loadClass(String className, boolean resolve) throws ClassNotFoundException {
+                if (!className.equals(name)) return super.loadClass(className, resolve);
+                synchronized (getClassLoadingLock(className)) {
+                    Class<?> loaded = findLoadedClass(className);
+                    return loaded != null ? loaded : defineClass(className, bytes, 0, bytes.length);
+                }
+            }
+        };
+        Class<?> copy = Class.forName(name, true, loader);
+        if (copy == ProbeResource.class || ResourceKey.find(copy, ResourceKey.DEFAULT_NAME) == null) {
+            throw new IllegalStateException("the copy was not loaded");
+        }
+        return new WeakReference<>(loader);
+    }
+
+    public static void testKeysDoNotPinClasses() throws Exception {
+        WeakReference<ClassLoader> loader = loadProbe();
+        for (int i = 0; i < 50 && loader.get() != null; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        if (loader.get() == null) {
+            System.out.println("testKeysDoNotPinClasses passed");
+        } else {
+            System.out.println("testKeysDoNotPinClasses failed");
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        testKeyLookup();
+        testNamedAndDuplicate();
+        testInterfaceKey();
+        testKeysDoNotPinClasses();
+    }
+}
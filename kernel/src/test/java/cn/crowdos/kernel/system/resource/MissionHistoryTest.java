@@ -0,0 +1,83 @@
+/*
+ * Copyright 2019-2025 CrowdOS Group, Northwestern Polytechnical University. <https://github.com/crowdosNWPU/CrowdOS>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * imitations under the License.
+ */
+package cn.crowdos.kernel.system.resource;
+
+import cn.crowdos.kernel.resource.Participant;
+import cn.crowdos.kernel.resource.SimpleParticipant;
+import cn.crowdos.kernel.resource.SimpleTask;
+import cn.crowdos.kernel.resource.Task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+class MissionHistoryTest {
+
+    public static void testIndexes() {
+        MissionHistory history = new MissionHistory();
+        List<Participant> participants = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            participants.add(new SimpleParticipant());
+        }
+        Task task1 = new SimpleTask(null, null);
+        Task task2 = new SimpleTask(null, null);
+        history.newMission(task1, Arrays.asList(participants.get(0), participants.get(1)));
+        history.newMission(task2, Collections.singletonList(participants.get(1)));
+        history.newMission(task1, Collections.singletonList(participants.get(2)));
+
+        List<Mission> byTask = history.getMissionsByTask(task1);
+        boolean passed = byTask.size() == 2 && byTask.get(0).involved(participants.get(0))
+                && byTask.get(1).involved(participants.get(2));
+        passed &= history.getMissionsByParticipant(participants.get(1)).size() == 2;
+        passed &= history.getMissionsByParticipant(new SimpleParticipant()).isEmpty();
+        passed &= history.getMissionsByTask(new SimpleTask(null, null)).isEmpty();
+        passed &= history.getUnfinishedMissions().equals(history.missions);
+        passed &= history.getFinishedMissions().isEmpty();
+
+        if (passed) {
+            System.out.println("testIndexes passed");
+        } else {
+            System.out.println("testIndexes failed");
+        }
+    }
+
+    public static void testStatusTransition() throws MissionUpdateException {
+        MissionHistory history = new MissionHistory();
+        Participant p1 = new SimpleParticipant();
+        Participant p2 = new SimpleParticipant();
+        Task task = new SimpleTask(null, null);
+        history.newMission(task, Arrays.asList(p1, p2));
+        Mission mission = history.getMissionsByTask(task).get(0);
+
+        mission.updateSubmit(p1);
+        boolean partial = history.getUnfinishedMissions().size() == 1 && history.getFinishedMissions().isEmpty();
+        mission.updateSubmit(p2);
+        boolean finished = history.getUnfinishedMissions().isEmpty()
+                && history.getFinishedMissions().equals(Collections.singletonList(mission))
+                && task.getTaskStatus() == Task.TaskStatus.FINISHED;
+
+        if (partial && finished) {
+            System.out.println("testStatusTransition passed");
+        } else {
+            System.out.println("testStatusTransition failed");
+        }
+    }
+
+    public static void main(String[] args) throws MissionUpdateException {
+        testIndexes();
+        testStatusTransition();
+    }
+}
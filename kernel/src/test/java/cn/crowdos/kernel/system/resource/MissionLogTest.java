@@ -0,0 +1,264 @@
+/*
+ * Copyright 2019-2025 CrowdOS Group, Northwestern Polytechnical University. <https://github.com/crowdosNWPU/CrowdOS>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * imitations under the License.
+ */
+package cn.crowdos.kernel.system.resource;
+
+import cn.crowdos.kernel.resource.Participant;
+import cn.crowdos.kernel.resource.SimpleParticipant;
+import cn.crowdos.kernel.resource.SimpleTask;
+import cn.crowdos.kernel.resource.Task;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+class MissionLogTest {
+
+    private static TaskPool tasks;
+    private static ParticipantPool participants;
+    private static MissionHistory.Identities identities;
+
+    private static void setUp(int taskNum, int participantNum) {
+        tasks = new TaskPool();
+        participants = new ParticipantPool();
+        for (int i = 0; i < taskNum; i++) {
+            tasks.add(new SimpleTask(null, Task.TaskDistributionType.ASSIGNMENT));
+        }
+        for (int i = 0; i < participantNum; i++) {
+            participants.add(new SimpleParticipant());
+        }
+        identities = MissionHistory.Identities.of(tasks, participants);
+    }
+
+    private static void delete(Path file) throws IOException {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(file.resolveSibling(file.getFileName() + ".archive"));
+        Files.deleteIfExists(file.resolveSibling(file.getFileName() + ".compact"));
+    }
+
+    public static void testReplay() throws IOException, MissionUpdateException {
+        setUp(2, 3);
+        Path file = Files.createTempFile("missions", ".log");
+        List<Task> taskList = tasks.snapshot();
+        List<Participant> participantList = participants.snapshot();
+        try (MissionLog log = new MissionLog(file, false)) {
+            MissionHistory history = new MissionHistory(log, identities);
+            history.newMission(taskList.get(0), participantList.subList(0, 2));
+            history.newMission(taskList.get(1), Collections.singletonList(participantList.get(2)));
+            Mission mission = history.getMissionsByTask(taskList.get(0)).get(0);
+            mission.updateSubmit(participantList.get(1));
+            mission.updateSubmit(participantList.get(0));
+        }
+
+        boolean passed;
+        try (MissionLog log = new MissionLog(file, false)) {
+            MissionHistory history = new MissionHistory(log, identities);
+            List<Mission> finished = history.getFinishedMissions();
+            passed = finished.size() == 1 && finished.get(0).getTask() == taskList.get(0)
+                    && finished.get(0).getFirstSubmitParticipant() == participantList.get(1)
+                    && history.getUnfinishedMissions().size() == 1
+                    && history.getMissionsByParticipant(participantList.get(2)).size() == 1;
+            // the replayed history keeps logging
+            history.newMission(taskList.get(1), Collections.singletonList(participantList.get(0)));
+        }
+        try (MissionLog log = new MissionLog(file, false)) {
+            passed &= new MissionHistory(log, identities).getMissionsByTask(taskList.get(1)).size() == 2;
+        }
+        delete(file);
+
+        if (passed) {
+            System.out.println("testReplay passed");
+        } else {
+            System.out.println("testReplay failed");
+        }
+    }
+
+    public static void testTornTail() throws IOException {
+        setUp(1, 1);
+        Path file = Files.createTempFile("missions", ".log");
+        try (MissionLog log = new MissionLog(file, false)) {
+            MissionHistory history = new MissionHistory(log, identities);
+            history.newMission(tasks.snapshot().get(0), participants.snapshot());
+            history.newMission(tasks.snapshot().get(0), participants.snapshot());
+        }
+        long intact = Files.size(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            // half a record, as left by a crash during a write
+            channel.write(ByteBuffer.wrap(new byte[]{0, 0, 0, 40, 1, 7, 7}));
+        }
+        boolean passed;
+        try (MissionLog log = new MissionLog(file, false)) {
+            MissionHistory history = new MissionHistory(log, identities);
+            passed = history.getUnfinishedMissions().size() == 2 && Files.size(file) == intact;
+        }
+        delete(file);
+
+        if (passed) {
+            System.out.println("testTornTail passed");
+        } else {
+            System.out.println("testTornTail failed");
+        }
+    }
+
+    public static void testArchive() throws IOException, MissionUpdateException {
+        setUp(4, 1);
+        Path file = Files.createTempFile("missions", ".log");
+        Participant participant = participants.snapshot().get(0);
+        List<Task> taskList = tasks.snapshot();
+        boolean passed;
+        try (MissionLog log = new MissionLog(file, false)) {
+            MissionHistory history = new MissionHistory(log, identities);
+            for (Task task : taskList) {
+                history.newMission(task, Collections.singletonList(participant));
+            }
+            history.getMissionsByTask(taskList.get(1)).get(0).updateSubmit(participant);
+            history.getMissionsByTask(taskList.get(3)).get(0).updateSubmit(participant);
+            long before = Files.size(file);
+            passed = history.archiveFinishedMissions() == 2 && history.getFinishedMissions().isEmpty()
+                    && history.missions.size() == 2 && history.getMissionsByParticipant(participant).size() == 2
+                    && Files.size(file) < before && Files.size(log.getArchivePath()) > 0;
+        }
+        try (MissionLog log = new MissionLog(file, false)) {
+            MissionHistory history = new MissionHistory(log, identities);
+            passed &= history.getUnfinishedMissions().size() == 2 && history.getFinishedMissions().isEmpty();
+            // ids of archived missions are not handed out again
+            history.newMission(taskList.get(3), Collections.singletonList(participant));
+            passed &= history.getMissionsByTask(taskList.get(3)).get(0).id == 4;
+        }
+        delete(file);
+
+        if (passed) {
+            System.out.println("testArchive passed");
+        } else {
+            System.out.println("testArchive failed");
+        }
+    }
+
+    public static void testGroupCommit() throws IOException, InterruptedException {
+        setUp(1, 1);
+        Path file = Files.createTempFile("missions", ".log");
+        int threads = 8;
+        int missionsPerThread = 200;
+        try (MissionLog log = new MissionLog(file)) {
+            MissionHistory history = new MissionHistory(log, identities);
+            List<Thread> workers = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                Thread worker = new Thread(() -> {
+                    for (int j = 0; j < missionsPerThread; j++) {
+                        history.newMission(tasks.snapshot().get(0), participants.snapshot());
+                    }
+                });
+                worker.start();
+                workers.add(worker);
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        }
+        boolean passed;
+        try (MissionLog log = new MissionLog(file)) {
+            MissionHistory history = new MissionHistory(log, identities);
+            long[] ids = history.missions.stream().mapToLong(mission -> mission.id).sorted().toArray();
+            long[] expected = new long[threads * missionsPerThread];
+            Arrays.setAll(expected, i -> i);
+            passed = Arrays.equals(ids, expected);
+        }
+        delete(file);
+
+        if (passed) {
+            System.out.println("testGroupCommit passed");
+        } else {
+            System.out.println("testGroupCommit failed");
+        }
+    }
+
+    public static void testFailedCommit() throws IOException {
+        Path file = Files.createTempFile("missions", ".log");
+        boolean[] failNext = {true};
+        boolean passed = false;
+        try (MissionLog log = new MissionLog(file, false) {
+            @Override
+            void write(ByteBuffer batch) throws IOException {
+                if (failNext[0]) {
+                    failNext[0] = false;
+                    // half the batch reaches the file before the device fails
+                    ByteBuffer half = batch.duplicate();
+                    half.limit(batch.position() + batch.remaining() / 2);
+                    super.write(half);
+                    batch.position(half.position());
+                    throw new IOException("device failed");
+                }
+                super.write(batch);
+            }
+        }) {
+            log.replay(null);
+            log.logNewMission(0, 1, new long[]{1});
+            long second = log.logSubmit(0, 1, 100);
+            try {
+                log.commit(second);
+            } catch (IOException expected) {
+                passed = true;
+            }
+            // the failed records are written ahead of the later ones
+            log.commit(log.logArchive(0));
+        }
+        List<String> events = new ArrayList<>();
+        try (MissionLog log = new MissionLog(file, false)) {
+            log.replay(new MissionLog.Listener() {
+                @Override
+                public void newMission(long missionId, long taskId, long[] participantIds) {
+                    events.add("new " + missionId);
+                }
+
+                @Override
+                public void submitted(long missionId, long participantId, long submitTime) {
+                    events.add("submit " + missionId);
+                }
+
+                @Override
+                public void archived(long missionId) {
+                    events.add("archive " + missionId);
+                }
+
+                @Override
+                public void reserved(long missionId) {
+                    events.add("reserve " + missionId);
+                }
+            });
+        }
+        delete(file);
+        passed &= events.equals(Arrays.asList("new 0", "submit 0", "archive 0"));
+
+        if (passed) {
+            System.out.println("testFailedCommit passed");
+        } else {
+            System.out.println("testFailedCommit failed " + events);
+        }
+    }
+
+    public static void main(String[] args) throws IOException, MissionUpdateException, InterruptedException {
+        testReplay();
+        testTornTail();
+        testArchive();
+        testGroupCommit();
+        testFailedCommit();
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2019-2025 CrowdOS Group, Northwestern Polytechnical University. <https://github.com/crowdosNWPU/CrowdOS>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * imitations under the License.
+ */
+package cn.crowdos.kernel.system.resource;
+
+import cn.crowdos.kernel.common.LocationParticipant;
+import cn.crowdos.kernel.common.TimeParticipant;
+import cn.crowdos.kernel.constraint.Coordinate;
+import cn.crowdos.kernel.constraint.InvalidConstraintException;
+import cn.crowdos.kernel.constraint.POIConstraint;
+import cn.crowdos.kernel.constraint.SpatioRectangular;
+import cn.crowdos.kernel.resource.Participant;
+import cn.crowdos.kernel.resource.SimpleTask;
+import cn.crowdos.kernel.resource.Task;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+class ParticipantPoolTest {
+
+    private static List<Participant> bruteForce(ParticipantPool pool, Task task) {
+        List<Participant> result = new ArrayList<>();
+        for (Participant participant : pool) {
+            if (task.canAssignTo(participant)) result.add(participant);
+        }
+        return result;
+    }
+
+    private static List<Participant> indexed(ParticipantPool pool, Task task) {
+        List<Participant> result = new ArrayList<>();
+        for (Participant participant : pool.getSpatialCandidates(task)) {
+            if (task.canAssignTo(participant)) result.add(participant);
+        }
+        return result;
+    }
+
+    public static void testMatchesFullScan() {
+        ParticipantPool pool = new ParticipantPool(0.5);
+        Random random = new Random(7);
+        for (int i = 0; i < 2000; i++) {
+            pool.add(new LocationParticipant(random.nextDouble() * 20, random.nextDouble() * 20));
+        }
+        pool.add(new TimeParticipant("2022.6.1"));
+        boolean passed = true;
+        for (int i = 0; i < 50; i++) {
+            Task poi = new SimpleTask(Collections.singletonList(
+                    new POIConstraint(new Coordinate(random.nextDouble() * 20, random.nextDouble() * 20), 1.5)),
+                    Task.TaskDistributionType.ASSIGNMENT);
+            passed &= bruteForce(pool, poi).equals(indexed(pool, poi));
+        }
+        if (passed) {
+            System.out.println("testMatchesFullScan passed");
+        } else {
+            System.out.println("testMatchesFullScan failed");
+        }
+    }
+
+    public static void testUpdateInPlace() throws InvalidConstraintException {
+        ParticipantPool pool = new ParticipantPool(1);
+        LocationParticipant p1 = new LocationParticipant(1, 1);
+        LocationParticipant p2 = new LocationParticipant(8, 8);
+        pool.add(p1);
+        pool.add(p2);
+        Task task = new SimpleTask(Collections.singletonList(
+                new SpatioRectangular(new Coordinate(0, 0), new Coordinate(3, 3))),
+                Task.TaskDistributionType.ASSIGNMENT);
+
+        boolean before = pool.getSpatialCandidates(task).equals(Collections.singletonList(p1));
+        p2.moveTo(2, 2);
+        pool.relocate(p2);
+        boolean moved = pool.getSpatialCandidates(task).size() == 2;
+        pool.remove(p1);
+        boolean removed = pool.getSpatialCandidates(task).equals(Collections.singletonList(p2));
+        pool.clear();
+        boolean cleared = pool.getSpatialCandidates(task).isEmpty();
+
+        if (before && moved && removed && cleared) {
+            System.out.println("testUpdateInPlace passed");
+        } else {
+            System.out.println("testUpdateInPlace failed");
+        }
+    }
+
+    public static void testParticipantIds() {
+        ParticipantPool pool = new ParticipantPool();
+        LocationParticipant p1 = new LocationParticipant(1, 1);
+        LocationParticipant p2 = new LocationParticipant(2, 2);
+        boolean added = pool.add(p1) && pool.add(p2) && !pool.add(p1);
+        long id1 = pool.getParticipantId(p1);
+        long id2 = pool.getParticipantId(p2);
+        boolean found = id1 != id2 && pool.getParticipant(id1) == p1 && pool.getParticipant(id2) == p2;
+        boolean removed = pool.removeParticipant(id1) && !pool.removeParticipant(id1)
+                && pool.getParticipantId(p1) == -1 && pool.size() == 1;
+
+        if (added && found && removed) {
+            System.out.println("testParticipantIds passed");
+        } else {
+            System.out.println("testParticipantIds failed");
+        }
+    }
+
+    public static void testConcurrentInserts() throws InterruptedException {
+        ParticipantPool pool = new ParticipantPool(0.5);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            long seed = t;
+            executor.execute(() -> {
+                Random random = new Random(seed);
+                List<Participant> own = new ArrayList<>();
+                for (int i = 0; i < 500; i++) {
+                    LocationParticipant participant = new LocationParticipant(random.nextDouble() * 5, random.nextDouble() * 5);
+                    pool.add(participant);
+                    own.add(participant);
+                }
+                for (int i = 0; i < 250; i++) {
+                    pool.remove(own.get(i));
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+        Task task = new SimpleTask(Collections.singletonList(
+                new POIConstraint(new Coordinate(2.5, 2.5), 100)),
+                Task.TaskDistributionType.ASSIGNMENT);
+
+        if (pool.size() == 1000 && bruteForce(pool, task).equals(indexed(pool, task))) {
+            System.out.println("testConcurrentInserts passed");
+        } else {
+            System.out.println("testConcurrentInserts failed");
+        }
+    }
+
+    public static void main(String[] args) throws InvalidConstraintException, InterruptedException {
+        testMatchesFullScan();
+        testUpdateInPlace();
+        testParticipantIds();
+        testConcurrentInserts();
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2019-2025 CrowdOS Group, Northwestern Polytechnical University. <https://github.com/crowdosNWPU/CrowdOS>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * imitations under the License.
+ */
+package cn.crowdos.kernel.system.resource;
+
+import cn.crowdos.kernel.resource.AbstractTask;
+import cn.crowdos.kernel.resource.SimpleTask;
+import cn.crowdos.kernel.resource.Task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+class TaskPoolTest {
+
+    private static final int THREADS = 8;
+    private static final int TASKS_PER_THREAD = 2000;
+
+    private static void runConcurrently(int threads, Runnable action) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                action.run();
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    public static void testConcurrentSubmission() throws InterruptedException {
+        TaskPool pool = new TaskPool();
+        runConcurrently(THREADS, () -> {
+            for (int i = 0; i < TASKS_PER_THREAD; i++) {
+                pool.add(new SimpleTask(Collections.emptyList(), Task.TaskDistributionType.ASSIGNMENT));
+            }
+        });
+        boolean passed = pool.size() == THREADS * TASKS_PER_THREAD
+                && pool.snapshot().size() == pool.size();
+        for (Task task : pool) {
+            passed &= pool.getTask(((AbstractTask) task).getTaskId()) == task;
+        }
+        if (passed) {
+            System.out.println("testConcurrentSubmission passed");
+        } else {
+            System.out.println("testConcurrentSubmission failed");
+        }
+    }
+
+    public static void testConcurrentRemoval() throws InterruptedException {
+        TaskPool pool = new TaskPool();
+        List<AbstractTask> tasks = new ArrayList<>();
+        for (int i = 0; i < THREADS * TASKS_PER_THREAD; i++) {
+            SimpleTask task = new SimpleTask(Collections.emptyList(), Task.TaskDistributionType.ASSIGNMENT);
+            tasks.add(task);
+            pool.add(task);
+        }
+        List<Task> before = pool.snapshot();
+        // every thread tries to remove every task, each one must be removed exactly once
+        int[] removed = new int[THREADS];
+        int[] next = new int[1];
+        runConcurrently(THREADS, () -> {
+            int thread;
+            synchronized (next) {
+                thread = next[0]++;
+            }
+            for (AbstractTask task : tasks) {
+                if (pool.removeTask(task.getTaskId())) removed[thread]++;
+            }
+        });
+        int total = 0;
+        for (int count : removed) total += count;
+
+        boolean passed = total == tasks.size() && pool.isEmpty() && pool.snapshot().isEmpty()
+                && before.size() == tasks.size() && pool.add(before.get(0));
+        if (passed) {
+            System.out.println("testConcurrentRemoval passed");
+        } else {
+            System.out.println("testConcurrentRemoval failed");
+        }
+    }
+
+    public static void testSnapshotIsStable() {
+        TaskPool pool = new TaskPool();
+        SimpleTask first = new SimpleTask(Collections.emptyList(), Task.TaskDistributionType.ASSIGNMENT);
+        SimpleTask second = new SimpleTask(Collections.emptyList(), Task.TaskDistributionType.ASSIGNMENT);
+        pool.add(first);
+        pool.add(second);
+        boolean duplicate = !pool.add(first);
+
+        List<Task> snapshot = pool.snapshot();
+        boolean cached = pool.snapshot() == snapshot;
+        int seen = 0;
+        for (Task task : pool) {
+            pool.remove(task);
+            pool.add(new SimpleTask(Collections.emptyList(), Task.TaskDistributionType.ASSIGNMENT));
+            seen++;
+        }
+        boolean stable = seen == 2 && snapshot.equals(Arrays.asList(first, second))
+                && pool.size() == 2 && !pool.contains(first) && pool.getTask(first.getTaskId()) == null;
+
+        if (duplicate && cached && stable) {
+            System.out.println("testSnapshotIsStable passed");
+        } else {
+            System.out.println("testSnapshotIsStable failed");
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        testConcurrentSubmission();
+        testConcurrentRemoval();
+        testSnapshotIsStable();
+    }
+}